@@ -26,6 +26,8 @@ public interface GenericCifDataParser {
 
   Object getColumnData(int i);
 
+  float getColumnFloat(int i);
+
   Object getNextDataToken() throws Exception;
 
   String getNextToken() throws Exception;
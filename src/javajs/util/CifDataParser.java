@@ -148,6 +148,16 @@ public class CifDataParser implements GenericCifDataParser {
   private int columnCount;
   private String[] columnNames;
   private Object[] columnData = new Object[KEY_MAX];
+  
+  /**
+   * For loop_ data, the line and position of each simple (unquoted) value,
+   * which is made into a String only if getColumnData asks for it.
+   * columnStr[i] is null once the value is in columnData[i].
+   */
+  private String[] columnStr = new String[KEY_MAX];
+  private int[] columnStart = new int[KEY_MAX];
+  private int[] columnEnd = new int[KEY_MAX];
+  private int[] next = new int[1];
   private boolean isLoop;
   private boolean haveData;
   
@@ -174,7 +184,7 @@ public class CifDataParser implements GenericCifDataParser {
    * if we read a set of fields for, say, atom_site, once in a lifetime, then
    * that should be good forever. Those are static lists. Or should be....
    */
-  private static Map<String, Integer> htFields = new Hashtable<String, Integer>();
+  protected static Map<String, Integer> htFields = new Hashtable<String, Integer>();
   
   ////////////////////////////////////////////////////////////////
   // special tokenizer class
@@ -186,9 +196,31 @@ public class CifDataParser implements GenericCifDataParser {
     
   @Override
   public Object getColumnData(int i) {
+    if (columnStr[i] != null) {
+      columnData[i] = columnStr[i].substring(columnStart[i], columnEnd[i]);
+      columnStr[i] = null;
+    }
     return columnData[i];
   }
 
+  /**
+   * Parse a column value as a float, without creating a String for it if it
+   * has not been asked for already.
+   * 
+   * @param i
+   * @return value, or NaN if not a number or null
+   */
+  @Override
+  public float getColumnFloat(int i) {
+    if (columnStr[i] != null) {
+      next[0] = columnStart[i];
+      return PT.parseFloatRange(columnStr[i], columnEnd[i], next);
+    }
+    Object o = columnData[i];
+    return (o instanceof String && o != nullString ? PT.parseFloat((String) o)
+        : Float.NaN);
+  }
+
   @Override
   public int getColumnCount() {
     return columnCount;
@@ -327,7 +359,7 @@ public class CifDataParser implements GenericCifDataParser {
     isLoop = true;
     while (getData())
       for (int i = 0; i < columnCount; i++)
-        ((Lst<Object>)data.get(keyWords.get(i))).addLast(columnData[i]);
+        ((Lst<Object>)data.get(keyWords.get(i))).addLast(getColumnData(i));
     isLoop = false;
   }
 
@@ -361,9 +393,14 @@ public class CifDataParser implements GenericCifDataParser {
   public boolean getData() throws Exception {
     // line is already present, and we leave with the next line to parse
     if (isLoop) {
-      for (int i = 0; i < columnCount; ++i)
+      boolean canScan = (getVersion() == 1 && cterm == '\0');
+      for (int i = 0; i < columnCount; ++i) {
+        columnStr[i] = null;
+        if (canScan && scanDataToken(i))
+          continue;
         if ((columnData[i] = getNextDataToken()) == null)
           return false;
+      }
     } else if (haveData) {
       haveData = false;
     } else {
@@ -372,6 +409,59 @@ public class CifDataParser implements GenericCifDataParser {
     return (columnCount > 0);
   }
 
+  /**
+   * A fast path for getNextDataToken for large loop_ blocks such as
+   * atom_site. A simple unquoted value is only located here, and a value the
+   * same as the one in this column in the previous row is given the same
+   * String, so that repeated residue names, chain IDs, and such take no new
+   * memory.
+   * 
+   * @param i
+   * @return false if this token needs getNextDataToken -- a quoted or
+   *         multi-line value, a control word, or end of file
+   * @throws Exception
+   */
+  private boolean scanDataToken(int i) throws Exception {
+    if (!getNextLine())
+      return false;
+    int ich = this.ich;
+    char ch = str.charAt(ich);
+    switch (ch) {
+    case '_':
+      return false;
+    case 'l':
+    case 'd':
+    case 's':
+    case 'g':
+      if (str.startsWith("loop_", ich) || str.startsWith("data_", ich)
+          || str.startsWith("save_", ich) || str.startsWith("stop_", ich)
+          || str.startsWith("global_", ich))
+        return false;
+      break;
+    default:
+      if (isQuote(ch))
+        return false;
+    }
+    int ichStart = ich;
+    while (ich < cch && !isTerminator(str.charAt(ich)))
+      ++ich;
+    this.ich = ich;
+    wasUnquoted = true;
+    int len = ich - ichStart;
+    if (len == 1 && nullString != null && (ch == '.' || ch == '?')) {
+      columnData[i] = nullString;
+      return true;
+    }
+    Object o = columnData[i];
+    if (o instanceof String && ((String) o).length() == len
+        && str.regionMatches(ichStart, (String) o, 0, len))
+      return true;
+    columnStr[i] = str;
+    columnStart[i] = ichStart;
+    columnEnd[i] = ich;
+    return true;
+  }
+
   /**
    * 
    * Skips all associated loop data. (Skips to next control word.)
@@ -646,6 +736,7 @@ public class CifDataParser implements GenericCifDataParser {
         }
         Integer iField = htFields.get(fixKey(key));
         i = (iField == null ? NONE : iField.intValue());
+        columnStr[pt] = null;
         if ((col2key[pt] = i) == NONE)
           columnData[pt] = "";
         else
@@ -60,6 +60,7 @@ public class OC extends OutputStream implements GenericOutputChannel {
   private boolean isBase64;
   private OutputStream os0;
   private byte[] bytes; // preset bytes; output only
+  private IOException error;
 
   public boolean bigEndian = true;
 
@@ -121,6 +122,13 @@ public class OC extends OutputStream implements GenericOutputChannel {
         : fileName.substring(fileName.lastIndexOf("/") + 1));
   }
 
+  /**
+   * @return the IOException that stopped append(), or null
+   */
+  public IOException getError() {
+    return error;
+  }
+
   public int getByteCount() {
     return byteCount;
   }
@@ -146,6 +154,8 @@ public class OC extends OutputStream implements GenericOutputChannel {
    * 
    */
   public OC append(String s) {
+    if (error != null)
+      return this;
     try {
       if (bw != null) {
         bw.write(s);
@@ -160,7 +170,9 @@ public class OC extends OutputStream implements GenericOutputChannel {
         return this;
       }
     } catch (IOException e) {
-      // ignore
+      // later appends are skipped; see getError()
+      error = e;
+      return this;
     }
     byteCount += s.length(); // not necessarily exactly correct if unicode
     return this;
@@ -0,0 +1,630 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.jmol.adapter.readers.cif;
+
+import java.util.Map;
+
+import javajs.util.BC;
+import javajs.util.CifDataParser;
+import javajs.util.PT;
+import javajs.util.SB;
+
+import org.jmol.util.Logger;
+
+/**
+ * A CIF data parser for BinaryCIF (MessagePack) documents, so that CifReader
+ * and MMCifReader can read them exactly as they read mmCIF text.
+ *
+ * See https://github.com/molstar/BinaryCIF
+ *
+ * The parser delivers the same tokens the text parser would for the same
+ * data: data_xxxx for each data block, category.key value pairs for
+ * categories with one row, and loop_, keys, and values for the rest. Values
+ * are only created when asked for. In loop_ blocks, getData() just moves to
+ * the next row, and getColumnData(i) and getColumnFloat(i) read that row from
+ * the decoded column. Skipped loops are never decoded.
+ *
+ * Columns are decoded on first use, applying their encodings in reverse:
+ * ByteArray, FixedPoint, IntervalQuantization, RunLength, Delta,
+ * IntegerPacking, and StringArray. String columns are delivered from the
+ * column's own table of distinct strings, so repeated residue names and
+ * chain IDs take no new memory. Masked values ('.' and '?') are delivered as
+ * the null string, as for text.
+ *
+ */
+public class BCifDataParser extends CifDataParser {
+
+  private Object[] dataBlocks;
+  private String header;
+  private Category[] categories;
+
+  /**
+   * cursor: data block, category (-1 for data_), and token within the
+   * category
+   */
+  private int iBlock, iCat = -1, pos;
+
+  /**
+   * for getData() and getColumnData()
+   */
+  private Category dataCategory;
+  private Column[] columns = new Column[KEY_MAX];
+  private String[] columnNames;
+  private int columnCount;
+  private int row;
+  private boolean isLoop;
+  private boolean haveData;
+
+  public BCifDataParser() {
+    // for reflection
+  }
+
+  /**
+   * @param map
+   *        the MessagePack document
+   * @param debugging
+   * @return this
+   */
+  public BCifDataParser setData(Map<String, Object> map, boolean debugging) {
+    this.debugging = debugging;
+    dataBlocks = (Object[]) map.get("dataBlocks");
+    if (dataBlocks == null)
+      dataBlocks = new Object[0];
+    setBlock(0);
+    return this;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void setBlock(int i) {
+    iBlock = i;
+    iCat = -1;
+    pos = 0;
+    if (i >= dataBlocks.length)
+      return;
+    Map<String, Object> block = (Map<String, Object>) dataBlocks[i];
+    header = "" + block.get("header");
+    Object[] cats = (Object[]) block.get("categories");
+    categories = new Category[cats == null ? 0 : cats.length];
+    for (int j = categories.length; --j >= 0;)
+      categories[j] = new Category((Map<String, Object>) cats[j]);
+  }
+
+  /**
+   * Move the cursor past empty categories and finished data blocks.
+   *
+   * @return false at end of data
+   */
+  private boolean setCursor() {
+    while (iBlock < dataBlocks.length) {
+      if (iCat < 0) {
+        if (pos == 0)
+          return true;
+        iCat = 0;
+        pos = 0;
+      }
+      if (iCat < categories.length) {
+        if (pos < categories[iCat].tokenCount)
+          return true;
+        iCat++;
+        pos = 0;
+        continue;
+      }
+      setBlock(iBlock + 1);
+    }
+    return false;
+  }
+
+  private Object getToken() {
+    if (iCat < 0)
+      return "data_" + header;
+    Category c = categories[iCat];
+    int n = c.columns.length;
+    if (!c.isLoop)
+      return ((pos & 1) == 0 ? c.columns[pos >> 1].key : c.columns[pos >> 1]
+          .getString(0));
+    if (pos == 0)
+      return "loop_";
+    if (pos <= n)
+      return c.columns[pos - 1].key;
+    int i = pos - 1 - n;
+    return c.columns[i % n].getString(i / n);
+  }
+
+  private boolean isValue() {
+    if (iCat < 0)
+      return false;
+    Category c = categories[iCat];
+    return (c.isLoop ? pos > c.columns.length : (pos & 1) == 1);
+  }
+
+  @Override
+  public Object peekToken() throws Exception {
+    return (setCursor() ? getToken() : null);
+  }
+
+  @Override
+  public Object getTokenPeeked() {
+    if (!setCursor())
+      return null;
+    Object o = getToken();
+    pos++;
+    return o;
+  }
+
+  @Override
+  public String getNextToken() throws Exception {
+    return (String) getTokenPeeked();
+  }
+
+  @Override
+  public Object getNextDataToken() throws Exception {
+    return (setCursor() && isValue() ? getTokenPeeked() : null);
+  }
+
+  @Override
+  public String skipNextToken() throws Exception {
+    if (setCursor())
+      pos++;
+    return "<skipped>";
+  }
+
+  @Override
+  public String getFileHeader() {
+    return "";
+  }
+
+  @Override
+  public String readLine() {
+    return null;
+  }
+
+  @Override
+  public int getColumnCount() {
+    return columnCount;
+  }
+
+  @Override
+  public String getColumnName(int i) {
+    return columnNames[i];
+  }
+
+  @Override
+  public Object getColumnData(int i) {
+    return columns[i].getString(row);
+  }
+
+  @Override
+  public float getColumnFloat(int i) {
+    return columns[i].getFloat(row);
+  }
+
+  /**
+   * As for text, but the category is taken as a whole: for a loop_, the
+   * cursor must be on the first key; otherwise key has just been read, and
+   * its column and the rest of the category are used.
+   */
+  @Override
+  public void parseDataBlockParameters(String[] fields, String key,
+                                       String data, int[] key2col,
+                                       int[] col2key)
+      throws Exception {
+    isLoop = (key == null);
+    if (fields == null) {
+      columnNames = new String[KEY_MAX];
+    } else {
+      if (!htFields.containsKey(fields[0]))
+        for (int i = fields.length; --i >= 0;)
+          htFields.put(fields[i], Integer.valueOf(i));
+      for (int i = fields.length; --i >= 0;)
+        key2col[i] = NONE;
+    }
+    columnCount = 0;
+    if (iCat < 0 || iCat >= categories.length)
+      return;
+    Category c = dataCategory = categories[iCat];
+    int n = c.columns.length;
+    int col0 = (isLoop ? pos - 1 : (pos >> 1) - 1);
+    if (col0 < 0 || col0 >= n)
+      return;
+    columnCount = Math.min(n - col0, KEY_MAX);
+    for (int pt = 0; pt < columnCount; pt++) {
+      Column col = columns[pt] = c.columns[col0 + pt];
+      if (fields == null) {
+        columnNames[col2key[pt] = key2col[pt] = pt] = col.name;
+        continue;
+      }
+      Integer iField = htFields.get(col.name);
+      int i = (iField == null ? NONE : iField.intValue());
+      if ((col2key[pt] = i) != NONE)
+        key2col[i] = pt;
+    }
+    if (isLoop) {
+      pos = 1 + n;
+      row = -1;
+    } else {
+      pos = c.tokenCount;
+      row = 0;
+      haveData = true;
+    }
+  }
+
+  @Override
+  public boolean getData() throws Exception {
+    if (!isLoop) {
+      if (!haveData)
+        return false;
+      haveData = false;
+      return (columnCount > 0);
+    }
+    if (iCat < 0 || iCat >= categories.length
+        || categories[iCat] != dataCategory)
+      return false;
+    int n = dataCategory.columns.length;
+    if (pos <= n || pos >= dataCategory.tokenCount)
+      return false;
+    row = (pos - 1 - n) / n;
+    pos += n;
+    return (columnCount > 0);
+  }
+
+  /**
+   * Skips the rest of the current loop_ without decoding it.
+   */
+  @Override
+  public String skipLoop(boolean doReport) throws Exception {
+    if (iCat < 0 || iCat >= categories.length)
+      return (doReport ? "" : null);
+    Category c = categories[iCat];
+    if (!c.isLoop || pos == 0 || pos >= c.tokenCount)
+      return (doReport ? "" : null);
+    SB ret = null;
+    if (doReport) {
+      ret = new SB();
+      int n = c.columns.length;
+      for (int i = pos; i <= n; i++)
+        ret.append(c.columns[i - 1].key).append("\n");
+      for (int i = Math.max(pos - 1 - n, 0), m = n * c.rowCount; i < m; i++) {
+        ret.append(c.columns[i % n].getString(i / n)).append(" ");
+        if ((i + 1) % n == 0)
+          ret.append("\n");
+      }
+    }
+    pos = c.tokenCount;
+    return (ret == null ? null : ret.toString());
+  }
+
+  private class Category {
+
+    final Column[] columns;
+    final int rowCount;
+    final boolean isLoop;
+    final int tokenCount;
+
+    @SuppressWarnings("unchecked")
+    Category(Map<String, Object> map) {
+      String name = "" + map.get("name");
+      if (!name.startsWith("_"))
+        name = "_" + name;
+      Object o = map.get("rowCount");
+      rowCount = (o instanceof Integer ? ((Integer) o).intValue() : 0);
+      Object[] cols = (Object[]) map.get("columns");
+      int n = (cols == null ? 0 : cols.length);
+      columns = new Column[n];
+      for (int i = 0; i < n; i++)
+        columns[i] = new Column(name, (Map<String, Object>) cols[i]);
+      isLoop = (rowCount != 1);
+      tokenCount = (n == 0 ? 0 : isLoop ? 1 + n + n * rowCount : 2 * n);
+    }
+  }
+
+  private class Column {
+
+    /**
+     * as in the file, for example _atom_site.Cartn_x
+     */
+    final String key;
+
+    /**
+     * as from fixKey, for example _atom_site_cartn_x
+     */
+    final String name;
+
+    private Map<String, Object> map;
+    private int[] ints;
+    private float[] floats;
+    private String[] strings;
+    private int[] mask;
+
+    private int lastInt;
+    private float lastFloat;
+    private String lastString;
+
+    Column(String catName, Map<String, Object> map) {
+      key = catName + "." + map.get("name");
+      name = fixKey(key);
+      this.map = map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void decode() {
+      Map<String, Object> map = this.map;
+      this.map = null;
+      Object o = null;
+      try {
+        Map<String, Object> m = (Map<String, Object>) map.get("data");
+        o = decodeData(m.get("data"), (Object[]) m.get("encoding"));
+        m = (Map<String, Object>) map.get("mask");
+        if (m != null)
+          mask = (int[]) decodeData(m.get("data"), (Object[]) m.get("encoding"));
+      } catch (Exception e) {
+        Logger.error("BCifDataParser error decoding " + key + " " + e);
+      }
+      if (o instanceof int[])
+        ints = (int[]) o;
+      else if (o instanceof float[])
+        floats = (float[]) o;
+      else if (o instanceof String[])
+        strings = (String[]) o;
+      else
+        strings = new String[0];
+    }
+
+    String getString(int i) {
+      if (map != null)
+        decode();
+      if (mask != null && i < mask.length && mask[i] != 0)
+        return nullString;
+      if (strings != null) {
+        String s = (i < strings.length ? strings[i] : null);
+        return (s == null ? nullString : s);
+      }
+      if (ints != null) {
+        int v = ints[i];
+        if (lastString == null || v != lastInt) {
+          lastInt = v;
+          lastString = "" + v;
+        }
+      } else {
+        float f = floats[i];
+        if (lastString == null || f != lastFloat) {
+          lastFloat = f;
+          lastString = "" + f;
+        }
+      }
+      return lastString;
+    }
+
+    float getFloat(int i) {
+      if (map != null)
+        decode();
+      if (mask != null && i < mask.length && mask[i] != 0)
+        return Float.NaN;
+      if (floats != null)
+        return floats[i];
+      if (ints != null)
+        return ints[i];
+      String s = (i < strings.length ? strings[i] : null);
+      return (s == null ? Float.NaN : PT.parseFloat(s));
+    }
+  }
+
+  ////////////// BinaryCIF decoding //////////////
+
+  /**
+   * @param data
+   *        byte[] from the file
+   * @param encoding
+   *        as applied by the writer, first to last
+   * @return int[], float[], or String[]
+   * @throws Exception
+   */
+  @SuppressWarnings("unchecked")
+  static Object decodeData(Object data, Object[] encoding) throws Exception {
+    for (int i = (encoding == null ? 0 : encoding.length); --i >= 0;) {
+      Map<String, Object> e = (Map<String, Object>) encoding[i];
+      String kind = (String) e.get("kind");
+      if ("ByteArray".equals(kind)) {
+        data = byteArray((byte[]) data, getInt(e, "type"));
+      } else if ("FixedPoint".equals(kind)) {
+        data = fixedPoint((int[]) data, getFloat(e, "factor"));
+      } else if ("IntervalQuantization".equals(kind)) {
+        data = intervalQuantization((int[]) data, getFloat(e, "min"),
+            getFloat(e, "max"), getInt(e, "numSteps"));
+      } else if ("RunLength".equals(kind)) {
+        data = runLength((int[]) data, getInt(e, "srcSize"));
+      } else if ("Delta".equals(kind)) {
+        data = delta((int[]) data, getInt(e, "origin"));
+      } else if ("IntegerPacking".equals(kind)) {
+        data = integerPacking((int[]) data, getInt(e, "byteCount"),
+            Boolean.TRUE.equals(e.get("isUnsigned")), getInt(e, "srcSize"));
+      } else if ("StringArray".equals(kind)) {
+        data = stringArray(e, data);
+      } else {
+        throw new Exception("BinaryCIF encoding not recognized: " + kind);
+      }
+    }
+    return data;
+  }
+
+  private static int getInt(Map<String, Object> e, String key) {
+    Object o = e.get(key);
+    return (o instanceof Integer ? ((Integer) o).intValue()
+        : o instanceof Float ? (int) ((Float) o).floatValue() : 0);
+  }
+
+  private static float getFloat(Map<String, Object> e, String key) {
+    Object o = e.get(key);
+    return (o instanceof Integer ? ((Integer) o).intValue()
+        : o instanceof Float ? ((Float) o).floatValue() : Float.NaN);
+  }
+
+  /**
+   * little-endian typed arrays
+   *
+   * @param b
+   * @param type
+   * @return int[] or float[]
+   * @throws Exception
+   */
+  private static Object byteArray(byte[] b, int type) throws Exception {
+    int n;
+    switch (type) {
+    case 1: // Int8
+    case 4: // Uint8
+      n = b.length;
+      int[] a8 = new int[n];
+      for (int i = 0; i < n; i++)
+        a8[i] = (type == 1 ? b[i] : b[i] & 0xFF);
+      return a8;
+    case 2: // Int16
+    case 5: // Uint16
+      n = b.length >> 1;
+      int[] a16 = new int[n];
+      for (int i = 0, j = 0; i < n; i++, j += 2)
+        a16[i] = (type == 2 ? BC.bytesToShort(b, j, false)
+            : BC.bytesToShort(b, j, false) & 0xFFFF);
+      return a16;
+    case 3: // Int32
+    case 6: // Uint32
+      n = b.length >> 2;
+      int[] a32 = new int[n];
+      for (int i = 0, j = 0; i < n; i++, j += 4)
+        a32[i] = BC.bytesToInt(b, j, false);
+      return a32;
+    case 32: // Float32
+      n = b.length >> 2;
+      float[] f32 = new float[n];
+      for (int i = 0, j = 0; i < n; i++, j += 4)
+        f32[i] = BC.bytesToFloat(b, j, false);
+      return f32;
+    case 33: // Float64
+      n = b.length >> 3;
+      float[] f64 = new float[n];
+      for (int i = 0, j = 0; i < n; i++, j += 8)
+        f64[i] = BC.bytesToDoubleToFloat(b, j, false);
+      return f64;
+    }
+    throw new Exception("BinaryCIF ByteArray type not recognized: " + type);
+  }
+
+  private static float[] fixedPoint(int[] a, float factor) {
+    int n = a.length;
+    float[] f = new float[n];
+    for (int i = 0; i < n; i++)
+      f[i] = (float) (a[i] / (double) factor);
+    return f;
+  }
+
+  private static float[] intervalQuantization(int[] a, float min, float max,
+                                              int numSteps) {
+    int n = a.length;
+    float[] f = new float[n];
+    double delta = (max - min) / (double) (numSteps - 1);
+    for (int i = 0; i < n; i++)
+      f[i] = (float) (min + delta * a[i]);
+    return f;
+  }
+
+  /**
+   * value, count, value, count, ...
+   *
+   * @param a
+   * @param srcSize
+   * @return expanded array
+   */
+  private static int[] runLength(int[] a, int srcSize) {
+    int[] ret = new int[srcSize];
+    for (int i = 0, pt = 0, n = a.length - 1; i < n; i += 2) {
+      int v = a[i];
+      for (int j = a[i + 1]; --j >= 0 && pt < srcSize;)
+        ret[pt++] = v;
+    }
+    return ret;
+  }
+
+  private static int[] delta(int[] a, int origin) {
+    int n = a.length;
+    int[] ret = new int[n];
+    int v = origin;
+    for (int i = 0; i < n; i++)
+      ret[i] = v += a[i];
+    return ret;
+  }
+
+  /**
+   * Values at the limit of the packed type continue into the next value.
+   *
+   * @param a
+   * @param byteCount
+   * @param isUnsigned
+   * @param srcSize
+   * @return unpacked array
+   */
+  private static int[] integerPacking(int[] a, int byteCount,
+                                      boolean isUnsigned, int srcSize) {
+    int upper = (byteCount == 1 ? (isUnsigned ? 0xFF : 0x7F)
+        : isUnsigned ? 0xFFFF : 0x7FFF);
+    int lower = (isUnsigned ? 0 : -upper - 1);
+    int n = a.length;
+    int[] ret = new int[srcSize];
+    for (int i = 0, j = 0; i < n && j < srcSize; j++) {
+      int v = 0;
+      int t = a[i++];
+      while ((t == upper || t == lower && !isUnsigned) && i < n) {
+        v += t;
+        t = a[i++];
+      }
+      ret[j] = v + t;
+    }
+    return ret;
+  }
+
+  /**
+   * Strings are looked up in one table for the whole column, so no new String
+   * is created for each value. Index -1 is a missing value.
+   *
+   * @param e
+   * @param data
+   * @return String[] with null for missing values
+   * @throws Exception
+   */
+  private static String[] stringArray(Map<String, Object> e, Object data)
+      throws Exception {
+    String s = (String) e.get("stringData");
+    int[] offsets = (int[]) decodeData(e.get("offsets"),
+        (Object[]) e.get("offsetEncoding"));
+    int[] indices = (int[]) decodeData(data, (Object[]) e.get("dataEncoding"));
+    String[] table = new String[offsets.length - 1];
+    for (int i = table.length; --i >= 0;)
+      table[i] = s.substring(offsets[i], offsets[i + 1]);
+    int n = indices.length;
+    String[] ret = new String[n];
+    for (int i = 0; i < n; i++) {
+      int j = indices[i];
+      ret[i] = (j < 0 || j >= table.length ? null : table[j]);
+    }
+    return ret;
+  }
+
+}
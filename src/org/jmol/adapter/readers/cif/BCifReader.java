@@ -0,0 +1,79 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.jmol.adapter.readers.cif;
+
+import java.util.Map;
+
+import javajs.api.GenericCifDataParser;
+import javajs.util.MessagePackReader;
+
+import org.jmol.util.Logger;
+
+/**
+ * BinaryCIF (MessagePack-encoded mmCIF) reader, as from the RCSB and PDBe:
+ *
+ * load https://models.rcsb.org/1crn.bcif
+ *
+ * The whole MessagePack document is read, and then BCifDataParser delivers
+ * its categories to MMCifReader just as mmCIF text would be, so all mmCIF
+ * filters and options apply. Columns are decoded only when MMCifReader reads
+ * them.
+ *
+ * See https://github.com/molstar/BinaryCIF
+ *
+ */
+public class BCifReader extends MMCifReader {
+
+  private Map<String, Object> map;
+
+  /**
+   * standard set up
+   *
+   * @param fullPath
+   * @param htParams
+   * @param reader
+   */
+  @Override
+  protected void setup(String fullPath, Map<String, Object> htParams,
+                       Object reader) {
+    isBinary = true;
+    isMMCIF = true;
+    setupASCR(fullPath, htParams, reader);
+  }
+
+  @Override
+  protected void processBinaryDocument() throws Exception {
+    map = (new MessagePackReader(binaryDoc, true)).readMap();
+    Logger.info("BinaryCIF encoder " + map.get("encoder") + " version "
+        + map.get("version"));
+    readCifData();
+    map = null;
+  }
+
+  @Override
+  protected GenericCifDataParser getCifDataParser() {
+    return new BCifDataParser().setData(map, debugging);
+  }
+
+}
@@ -171,7 +171,7 @@ public class CifReader extends AtomSetCollectionReader {
     if (strSupercell != null && strSupercell.indexOf(",") >= 0)
       addCellType(CELL_TYPE_CONVENTIONAL, strSupercell, true);
     if (binaryDoc != null)
-      return; // mmtf
+      return; // mmtf, bcif
     readCifData();
     continuing = false;
   }
@@ -182,7 +182,7 @@ public class CifReader extends AtomSetCollectionReader {
     // for MMCifReader
   }
 
-  private void readCifData() throws Exception {
+  protected void readCifData() throws Exception {
 
     /*
      * Modified for 10.9.64 9/23/06 by Bob Hanson to remove as much as possible
@@ -1008,9 +1008,28 @@ public class CifReader extends AtomSetCollectionReader {
         && (firstChar = field.charAt(0)) != '\0' ? col2key[i] : NONE);
   }
 
+  /**
+   * For numeric columns, the value as parsed by the CifDataParser, without a
+   * String; if that fails, fieldProperty sets field as usual.
+   * 
+   * @param i
+   * @return key or NONE
+   */
+  private int floatProperty(int i) {
+    if (Float.isNaN(fieldFloat = cifParser.getColumnFloat(i)))
+      return fieldProperty(i);
+    field = null;
+    return col2key[i];
+  }
+
+  private float getFloatField() {
+    return (field == null ? fieldFloat : parseFloatStr(field));
+  }
+
   int[] col2key = new int[CifDataParser.KEY_MAX]; // 100
   int[] key2col = new int[CifDataParser.KEY_MAX];
   String field;
+  private float fieldFloat;
   protected char firstChar = '\0';
 
   /**
@@ -1301,6 +1320,27 @@ public class CifReader extends AtomSetCollectionReader {
     }
     int modelField = key2col[MODEL_NO];
     int siteMult = 0;
+    boolean[] isFloat = new boolean[cifParser.getColumnCount()];
+    for (int i = isFloat.length; --i >= 0;) {
+      switch (col2key[i]) {
+      case CC_ATOM_X_IDEAL:
+      case CC_ATOM_Y_IDEAL:
+      case CC_ATOM_Z_IDEAL:
+      case CC_ATOM_X:
+      case CARTN_X:
+      case FRACT_X:
+      case CC_ATOM_Y:
+      case CARTN_Y:
+      case FRACT_Y:
+      case CC_ATOM_Z:
+      case CARTN_Z:
+      case FRACT_Z:
+      case OCCUPANCY:
+      case B_ISO:
+        isFloat[i] = true;
+        break;
+      }
+    }
     while (cifParser.getData()) {
       if (modelField >= 0) {
         // mmCIF only
@@ -1369,7 +1409,9 @@ public class CifReader extends AtomSetCollectionReader {
       int seqID = 0;
       int n = cifParser.getColumnCount();
       for (int i = 0; i < n; ++i) {
-        int tok = fieldProperty(i);
+        // unused columns are not made into Strings
+        int tok = (col2key[i] == NONE ? NONE : isFloat[i] ? floatProperty(i)
+            : fieldProperty(i));
         switch (tok) {
         case NONE:
           break;
@@ -1433,45 +1475,45 @@ public class CifReader extends AtomSetCollectionReader {
           authSeq = field;
           break;
         case CC_ATOM_X_IDEAL:
-          float x = parseFloatStr(field);
+          float x = getFloatField();
           if (readIdeal && !Float.isNaN(x))
             atom.x = x;
           break;
         case CC_ATOM_Y_IDEAL:
-          float y = parseFloatStr(field);
+          float y = getFloatField();
           if (readIdeal && !Float.isNaN(y))
             atom.y = y;
           break;
         case CC_ATOM_Z_IDEAL:
-          float z = parseFloatStr(field);
+          float z = getFloatField();
           if (readIdeal && !Float.isNaN(z))
             atom.z = z;
           break;
         case CC_ATOM_X:
         case CARTN_X:
         case FRACT_X:
-          atom.x = parseFloatStr(field);
+          atom.x = getFloatField();
           break;
         case CC_ATOM_Y:
         case CARTN_Y:
         case FRACT_Y:
-          atom.y = parseFloatStr(field);
+          atom.y = getFloatField();
           break;
         case CC_ATOM_Z:
         case CARTN_Z:
         case FRACT_Z:
-          atom.z = parseFloatStr(field);
+          atom.z = getFloatField();
           break;
         case CC_ATOM_CHARGE:
           atom.formalCharge = parseIntStr(field);
           break;
         case OCCUPANCY:
-          float floatOccupancy = parseFloatStr(field);
+          float floatOccupancy = getFloatField();
           if (!Float.isNaN(floatOccupancy))
             atom.foccupancy = floatOccupancy;
           break;
         case B_ISO:
-          atom.bfactor = parseFloatStr(field) * (isMMCIF ? 1 : 100f);
+          atom.bfactor = getFloatField() * (isMMCIF ? 1 : 100f);
           break;
         case INS_CODE:
           atom.insertionCode = firstChar;
@@ -30,6 +30,7 @@ import org.jmol.adapter.smarter.AtomSetCollectionReader;
 import javajs.util.BS;
 import org.jmol.util.Escape;
 import org.jmol.util.Logger;
+import org.jmol.util.PackedFrames;
 
 import javajs.util.SB;
 import javajs.util.P3;
@@ -266,12 +267,24 @@ public class BinaryDcdReader extends AtomSetCollectionReader {
   private void readCoordinates() throws Exception {
     int ac = (bsFilter == null ? templateAtomCount : ((Integer) htParams
         .get("filteredAtomCount")).intValue());
+    PackedFrames frames = getTrajectoryFrames(ac, nModels);
+    float[] xyz = null;
     for (int i = 0; i < nModels; i++)
       if (doGetModel(++modelNumber, null)) {
-        P3[] trajectoryStep = new P3[ac];
-        if (!getTrajectoryStep(trajectoryStep))
+        // a heap store keeps xyz; otherwise it is copied and can be reused
+        if (xyz == null || frames != null && !frames.isMapped())
+          xyz = new float[ac * 3];
+        if (!getTrajectoryStep(xyz))
           return;
-        trajectorySteps.addLast(trajectoryStep);
+        if (frames == null) {
+          P3[] trajectoryStep = new P3[ac];
+          for (int j = 0, pt = 0; j < ac; j++, pt += 3)
+            trajectoryStep[j] = P3.new3(xyz[pt], xyz[pt + 1], xyz[pt + 2]);
+          trajectorySteps.addLast(trajectoryStep);
+        } else {
+          frames.addFrame(xyz);
+          trajectorySteps.addLast(null);
+        }
         if (isLastModel(modelNumber))
           return;
       } else {
@@ -283,10 +296,10 @@ public class BinaryDcdReader extends AtomSetCollectionReader {
       }
   }
 
-  private boolean getTrajectoryStep(P3[] trajectoryStep)
+  private boolean getTrajectoryStep(float[] xyz)
       throws Exception {
     try {
-    int ac = trajectoryStep.length;
+    int ac = xyz.length / 3;
     int n = -1;
     if (crystGroup > 0)
       calcUnitCell( readDoubleArray());
@@ -300,18 +313,23 @@ public class BinaryDcdReader extends AtomSetCollectionReader {
       zAll = z;
     }
     for (int i = 0, vpt = 0; i < nAtoms; i++) {
-      P3 pt = new P3();
-      if (bs == null || bs.get(i)) {
-        pt.set(x[vpt], y[vpt], z[vpt]);
-        vpt++;
-      } else {
-        pt.set(xAll[i], yAll[i], zAll[i]);
-      }
+      boolean isFree = (bs == null || bs.get(i));
       if (bsFilter == null || bsFilter.get(i)) {
         if (++n == ac)
           return true;
-        trajectoryStep[n] = pt;
+        int pt = n * 3;
+        if (isFree) {
+          xyz[pt++] = x[vpt];
+          xyz[pt++] = y[vpt];
+          xyz[pt] = z[vpt];
+        } else {
+          xyz[pt++] = xAll[i];
+          xyz[pt++] = yAll[i];
+          xyz[pt] = zAll[i];
+        }
       }
+      if (isFree)
+        vpt++;
     }
     return true;
     } catch (Exception e) {
@@ -28,6 +28,7 @@ import java.util.Map;
 
 import org.jmol.adapter.smarter.AtomSetCollectionReader;
 import org.jmol.util.Logger;
+import org.jmol.util.PackedFrames;
 import javajs.util.P3;
 
 
@@ -65,12 +66,25 @@ public class MdCrdReader extends AtomSetCollectionReader {
         .get("filteredAtomCount")).intValue());
     boolean isPeriodic = htParams.containsKey("isPeriodic");
     int floatCount = templateAtomCount * 3 + (isPeriodic ? 3 : 0);
+    // frame count unknown; the store maps itself once it gets large
+    PackedFrames frames = getTrajectoryFrames(ac, 0);
+    float[] xyz = null;
     while (true)
       if (doGetModel(++modelNumber, null)) {
-        P3[] trajectoryStep = new P3[ac];
-        if (!getTrajectoryStep(trajectoryStep, isPeriodic))
+        // a heap store keeps xyz; otherwise it is copied and can be reused
+        if (xyz == null || frames != null && !frames.isMapped())
+          xyz = new float[ac * 3];
+        if (!getTrajectoryStep(xyz, isPeriodic))
           return;
-        trajectorySteps.addLast(trajectoryStep);
+        if (frames == null) {
+          P3[] trajectoryStep = new P3[ac];
+          for (int i = 0, pt = 0; i < ac; i++, pt += 3)
+            trajectoryStep[i] = P3.new3(xyz[pt], xyz[pt + 1], xyz[pt + 2]);
+          trajectorySteps.addLast(trajectoryStep);
+        } else {
+          frames.addFrame(xyz);
+          trajectorySteps.addLast(null);
+        }
         if (isLastModel(modelNumber))
           return;
       } else {
@@ -93,29 +107,33 @@ public class MdCrdReader extends AtomSetCollectionReader {
     return parseFloatRange(line, ptFloat - 8, ptFloat);
   }
 
-  private P3 getPoint() throws Exception {
+  private boolean getPoint(float[] xyz, int pt) throws Exception {
     float x = getFloat();
     float y = getFloat();
     float z = getFloat();
-    return (Float.isNaN(z) ? null : P3.new3(x, y, z));
+    if (Float.isNaN(z))
+      return false;
+    if (pt >= 0) {
+      xyz[pt++] = x;
+      xyz[pt++] = y;
+      xyz[pt] = z;
+    }
+    return true;
   }
 
-  private boolean getTrajectoryStep(P3[] trajectoryStep, boolean isPeriodic)
+  private boolean getTrajectoryStep(float[] xyz, boolean isPeriodic)
       throws Exception {
-    int ac = trajectoryStep.length;
+    int ac = xyz.length / 3;
     int n = -1;
     for (int i = 0; i < templateAtomCount; i++) {
-      P3 pt = getPoint();
-      if (pt == null)
+      boolean isSelected = (bsFilter == null || bsFilter.get(i));
+      if (isSelected && n + 1 == ac)
+        return false;
+      if (!getPoint(xyz, isSelected ? ++n * 3 : -1))
         return false;
-      if (bsFilter == null || bsFilter.get(i)) {
-        if (++n == ac)
-          return false;
-        trajectoryStep[n] = pt;
-      }
     }
     if (isPeriodic)
-      getPoint(); // why? not in specs?
+      getPoint(xyz, -1); // why? not in specs?
     return (line != null);
   }
 
@@ -423,7 +423,7 @@ public class PyMOLReader extends PdbReader implements PymolAtomReader {
     // trajectories are not supported yet
     if (isTrajectory) {
       appendLoadNote("PyMOL trajectories read: " + trajectorySteps.size());
-      asc.finalizeTrajectoryAs(trajectorySteps, null);
+      asc.finalizeTrajectoryAs(trajectorySteps, null, null);
     }
 
     processDefinitions();
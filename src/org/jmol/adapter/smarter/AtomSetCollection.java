@@ -41,6 +41,7 @@ import javajs.util.BS;
 
 import org.jmol.util.BSUtil;
 import org.jmol.util.Logger;
+import org.jmol.util.PackedFrames;
 import org.jmol.viewer.JC;
 
 @SuppressWarnings("unchecked")
@@ -793,11 +794,20 @@ public class AtomSetCollection {
     return x;
   }
 
+  /**
+   * @param trajectorySteps
+   * @param vibrationSteps
+   * @param frames
+   *        packed coordinates for null trajectory steps, or null
+   */
   public void finalizeTrajectoryAs(Lst<P3[]> trajectorySteps,
-                                   Lst<V3[]> vibrationSteps) {
+                                   Lst<V3[]> vibrationSteps,
+                                   PackedFrames frames) {
     this.trajectorySteps = trajectorySteps;
     this.vibrationSteps = vibrationSteps;
     trajectoryStepCount = trajectorySteps.size();
+    if (frames != null)
+      setInfo("trajectoryFrames", frames);
     finalizeTrajectory();
   }
 
@@ -808,6 +818,15 @@ public class AtomSetCollection {
     
     
     P3[] trajectory = trajectorySteps.get(0);
+    if (trajectory == null) {
+      // packed
+      PackedFrames frames = (PackedFrames) atomSetInfo.get("trajectoryFrames");
+      if (frames == null || frames.size() == 0) {
+        errorMessage = "File cannot be loaded as a trajectory";
+        return;
+      }
+      trajectory = frames.toP3Array(0);
+    }
     
     
     V3[] vibrations = (vibrationSteps == null ? null : vibrationSteps.get(0));
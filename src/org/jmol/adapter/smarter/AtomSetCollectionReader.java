@@ -34,6 +34,7 @@ import org.jmol.api.SymmetryInterface;
 import org.jmol.script.SV;
 import org.jmol.util.BSUtil;
 import org.jmol.util.Logger;
+import org.jmol.util.PackedFrames;
 import org.jmol.util.SimpleUnitCell;
 import org.jmol.viewer.FileManager;
 import org.jmol.viewer.JC;
@@ -118,6 +119,7 @@ import javajs.util.V3;
  * from MdCrdReader:   
  * 
  *  trajectorySteps
+ *  trajectoryFrames
  *  
  * from Resolver:
  * 
@@ -398,6 +400,27 @@ public abstract class AtomSetCollectionReader implements GenericLineReader {
       htParams.put("trajectorySteps", trajectorySteps = new  Lst<P3[]>());
   }
 
+  /**
+   * Trajectory readers that know their atom count can store coordinates as
+   * packed float[3 * n] frames instead of P3[]. For each such frame a null
+   * step is added to trajectorySteps.
+   * 
+   * @param n
+   *        atoms per frame
+   * @param nExpected
+   *        expected number of frames, or 0 if unknown
+   * @return the shared frame store, or null if steps are already present as
+   *         P3[] and should continue that way
+   */
+  protected PackedFrames getTrajectoryFrames(int n, int nExpected) {
+    PackedFrames frames = (PackedFrames) htParams.get("trajectoryFrames");
+    if (frames == null && trajectorySteps.size() == 0)
+      htParams.put("trajectoryFrames",
+          frames = new PackedFrames(n, nExpected, !Viewer.isJS));
+    return (frames != null && frames.n == n
+        && frames.size() == trajectorySteps.size() ? frames : null);
+  }
+
   /**
    * optional reader-specific method run first.  
    * @throws Exception
@@ -0,0 +1,127 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.jmol.adapter.smarter;
+
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javajs.util.AU;
+import javajs.util.P3;
+
+/**
+ * A spatial hash of the cartesian positions generated by XtalSymmetry, keyed
+ * on coordinates rounded down to a cubic cell, so that the atoms near a new
+ * position can be found without checking all of them.
+ *
+ * Any two points closer than the cell size are in the same or neighboring
+ * cells. getNeighbors returns the indices from all 27 of those cells; the
+ * caller still makes its own distance test. Cells whose keys collide only
+ * add candidates.
+ *
+ */
+class CartesianGrid {
+
+  private final float cellSize;
+  private final Map<Integer, int[]> map = new Hashtable<Integer, int[]>();
+
+  /**
+   * indices found by getNeighbors
+   */
+  int[] list = new int[16];
+
+  /**
+   * @param cellSize
+   *        at least the largest distance that will be searched for
+   */
+  CartesianGrid(float cellSize) {
+    this.cellSize = cellSize;
+  }
+
+  /**
+   * @param j
+   *        an index larger than any added so far
+   * @param c
+   */
+  void add(int j, P3 c) {
+    Integer key = getKey((int) Math.floor(c.x / cellSize),
+        (int) Math.floor(c.y / cellSize), (int) Math.floor(c.z / cellSize));
+    int[] cell = map.get(key);
+    if (cell == null) {
+      map.put(key, cell = new int[4]);
+    } else if (cell[0] + 1 == cell.length) {
+      map.put(key, cell = AU.arrayCopyI(cell, cell.length * 2));
+    }
+    cell[++cell[0]] = j;
+  }
+
+  /**
+   * Find all indices j, j0 <= j < j1, in the cells around c.
+   *
+   * @param c
+   * @param j0
+   * @param j1
+   * @return number of indices, in increasing order, in list
+   */
+  int getNeighbors(P3 c, int j0, int j1) {
+    int n = 0;
+    if (j1 <= j0)
+      return 0;
+    int ix = (int) Math.floor(c.x / cellSize);
+    int iy = (int) Math.floor(c.y / cellSize);
+    int iz = (int) Math.floor(c.z / cellSize);
+    for (int i = ix - 1; i <= ix + 1; i++)
+      for (int j = iy - 1; j <= iy + 1; j++)
+        for (int k = iz - 1; k <= iz + 1; k++) {
+          int[] cell = map.get(getKey(i, j, k));
+          if (cell == null)
+            continue;
+          for (int p = 1, np = cell[0]; p <= np; p++) {
+            int jc = cell[p];
+            if (jc >= j1)
+              break;
+            if (jc < j0)
+              continue;
+            if (n == list.length)
+              list = AU.arrayCopyI(list, n * 2);
+            list[n++] = jc;
+          }
+        }
+    if (n > 1) {
+      Arrays.sort(list, 0, n);
+      int m = 1;
+      for (int i = 1; i < n; i++)
+        if (list[i] != list[m - 1])
+          list[m++] = list[i];
+      n = m;
+    }
+    return n;
+  }
+
+  private static Integer getKey(int i, int j, int k) {
+    return Integer.valueOf((i * 73856093) ^ (j * 19349663) ^ (k * 83492791));
+  }
+
+}
@@ -44,7 +44,7 @@ public class Resolver {
 
   private final static String classBase = "org.jmol.adapter.readers.";
   private final static String[] readerSets = new String[] {
-    "cif.", ";Cif;Cif2;MMCif;MMTF;MagCif",
+    "cif.", ";BCif;Cif;Cif2;MMCif;MMTF;MagCif",
     "molxyz.", ";Mol3D;Mol;Xyz;",
     "more.", ";AFLOW;BinaryDcd;CDX;Gromacs;Jcampdx;MdCrd;MdTop;Mol2;TlsDataOnly;",
     "quantum.", ";Adf;Csf;Dgrid;GamessUK;GamessUS;Gaussian;GaussianFchk;GaussianWfn;Jaguar;" +
@@ -345,11 +345,34 @@ public class Resolver {
 
   public static String getBinaryType(InputStream inputStream) {
     byte[] magic4 = null;
-    return (Rdr.isPickleS(inputStream) ? "PyMOL" : (Rdr.getMagic(inputStream, 1)[0] & 0xDE) == 0xDE ? "MMTF" : 
+    return (Rdr.isPickleS(inputStream) ? "PyMOL" : isBCif(inputStream) ? "BCif" : (Rdr.getMagic(inputStream, 1)[0] & 0xDE) == 0xDE ? "MMTF" : 
       bytesMatch((magic4 = Rdr.getMagic(inputStream, 4)), cdxMagic) ? "CDX" : 
         bytesMatch(magic4, cmdfMagic) ? "Cmdf" : null);
   }
 
+  private static byte[] bcifKey = new byte[] { 'd', 'a', 't', 'a', 'B', 'l', 'o', 'c', 'k', 's' };
+
+  /**
+   * BinaryCIF is a small MessagePack map (encoder, version, dataBlocks);
+   * MMTF is a large one.
+   * 
+   * @param is
+   * @return true if a MessagePack fixmap with "dataBlocks" near the start
+   */
+  private static boolean isBCif(InputStream is) {
+    byte[] b = Rdr.getMagic(is, 256);
+    if ((b[0] & 0xF0) != 0x80 || b[1] == 'P')
+      return false;
+    for (int i = 1, n = 256 - bcifKey.length; i < n; i++) {
+      int j = bcifKey.length;
+      while (--j >= 0 && b[i + j] == bcifKey[j]) {
+      }
+      if (j < 0)
+        return true;
+    }
+    return false;
+  }
+
   private static boolean bytesMatch(byte[] a, byte[] b) {
     if (b.length > a.length)
       return false;
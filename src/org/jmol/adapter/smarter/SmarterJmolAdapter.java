@@ -38,6 +38,7 @@ import org.jmol.api.JmolFilesReaderInterface;
 import org.jmol.script.SV;
 import org.jmol.util.BSUtil;
 import org.jmol.util.Logger;
+import org.jmol.util.PackedFrames;
 import org.jmol.viewer.Viewer;
 
 import javajs.api.GenericBinaryDocument;
@@ -355,7 +356,8 @@ public class SmarterJmolAdapter extends JmolAdapter {
           asc[0].setInfo("ignoreUnitCell", asc[1].atomSetInfo.get("ignoreUnitCell"));
         result.finalizeTrajectoryAs(
             (Lst<P3[]>) htParams.get("trajectorySteps"),
-            (Lst<V3[]>) htParams.get("vibrationSteps"));
+            (Lst<V3[]>) htParams.get("vibrationSteps"),
+            (PackedFrames) htParams.get("trajectoryFrames"));
       } catch (Exception e) {
         if (result.errorMessage == null)
           result.errorMessage = "" + e;
@@ -33,12 +33,15 @@ import org.jmol.api.JmolModulationSet;
 import org.jmol.api.SymmetryInterface;
 import org.jmol.symmetry.Symmetry;
 import org.jmol.symmetry.SymmetryOperation;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.BSUtil;
+import org.jmol.util.Logger;
 import org.jmol.util.SimpleUnitCell;
 import org.jmol.util.Tensor;
 import org.jmol.util.Vibration;
 import org.jmol.viewer.JC;
 
+import javajs.util.AU;
 import javajs.util.BS;
 import javajs.util.Lst;
 import javajs.util.M3;
@@ -118,6 +121,12 @@ public class XtalSymmetry {
   private boolean checkAll;
   private int bondCount0;
 
+  /**
+   * cartesians by position, for special-position (0.1 Angstrom cells) and
+   * {1 1 1} range (symmetryRange cells) checks
+   */
+  private CartesianGrid specialGrid, rangeGrid;
+
 
 
   public XtalSymmetry() {
@@ -746,6 +755,8 @@ public class XtalSymmetry {
             : 1 // not checking
     );
     P3[] cartesians = new P3[cartesianCount];
+    specialGrid = new CartesianGrid(0.1f);
+    rangeGrid = (symmetryRange > 0 ? new CartesianGrid(symmetryRange) : null);
     Atom[] atoms = asc.atoms;
     for (int i = 0; i < n; i++)
       atoms[firstAtom + i].bsSymmetry = BS.newN(operationCount * (nCells + 1));
@@ -852,7 +863,7 @@ public class XtalSymmetry {
             if (checkCartesianRange)
               setSymmetryMinMax(c);
             if (pt < cartesianCount)
-              cartesians[pt] = c;
+              addCartesian(cartesians, pt, c);
           }
           if (checkRangeNoSymmetry) {
             rminx -= absRange;
@@ -896,9 +907,17 @@ public class XtalSymmetry {
     asc.setCurrentModelInfo("unitCellTranslations", unitCellTranslations);
     baseUnitCell = unitCellParams;
     unitCellParams = new float[6];
+    specialGrid = rangeGrid = null;
     reset();
   }
 
+  private void addCartesian(P3[] cartesians, int pt, P3 c) {
+    cartesians[pt] = c;
+    specialGrid.add(firstAtom + pt, c);
+    if (rangeGrid != null)
+      rangeGrid.add(firstAtom + pt, c);
+  }
+
   @SuppressWarnings("cast") // DO NOT REMOVE
   private int symmetryAddAtoms(int transX, int transY, int transZ,
                                int baseCount, int pt, int iCellOpPt,
@@ -945,12 +964,18 @@ public class XtalSymmetry {
     float d0 = (checkOps ? 0.01f : 0.0001f);
     char subSystemId = '\0';
     int j00 = (bsAtoms == null ? firstAtom : bsAtoms.nextSetBit(firstAtom));
+    int i00 = Math.max(firstAtom, (bsAtoms == null ? 0 : bsAtoms.nextSetBit(0)));
+    float[] points = (ms == null ? getSymmetryPoints(isBaseCell, nOp,
+        nOperations, transX, transY, transZ, i00, atomMax, excludedOps) : null);
+    P3 ptC = new P3();
     out: for (int iSym = 0; iSym < nOperations; iSym++) {
 
       if (isBaseCell && iSym == 0 
           || latticeOnly && iSym > 0 && (iSym % latticeOp) != 0 
           || excludedOps != null && excludedOps.get(iSym))
         continue;
+      long t0 = (Logger.debugging ? System.currentTimeMillis() : 0);
+      int ac0 = asc.ac;
 
       /* pt0 sets the range of points cross-checked. 
        * If we are checking special positions, then we have to check
@@ -979,37 +1004,47 @@ public class XtalSymmetry {
         Atom a = asc.atoms[i];
         if (bsAtoms != null && !bsAtoms.get(i))
           continue;
-
-        if (ms == null) {
-          sym.newSpaceGroupPoint(a, iSym,
-              (iSym >= nOp ? lstNCS.get(iSym - nOp) : null), transX, transY,
-              transZ, pttemp);
+        P3 c;
+        if (points != null) {
+          // already calculated
+          int k = ((iSym * (atomMax - i00)) + i - i00) * 6;
+          if (Float.isNaN(points[k]))
+            continue;
+          pttemp.set(points[k], points[k + 1], points[k + 2]);
+          c = (addCartesian ? new P3() : ptC);
+          c.set(points[k + 3], points[k + 4], points[k + 5]);
         } else {
-          sym = ms.getAtomSymmetry(a, this.symmetry);
-          sym.newSpaceGroupPoint(a, iSym, null, transX, transY, transZ, pttemp);
-          // COmmensurate structures may use a symmetry operator
-          // to changes space groups.
-          code = sym.getSpaceGroupOperationCode(iSym);
-          if (code != null) {
-            subSystemId = code.charAt(0);
-            sym = ms.getSymmetryFromCode(code);
-            if (sym.getSpaceGroupOperationCount() == 0)
-              finalizeSymmetry(sym);
+          if (ms == null) {
+            sym.newSpaceGroupPoint(a, iSym,
+                (iSym >= nOp ? lstNCS.get(iSym - nOp) : null), transX, transY,
+                transZ, pttemp);
+          } else {
+            sym = ms.getAtomSymmetry(a, this.symmetry);
+            sym.newSpaceGroupPoint(a, iSym, null, transX, transY, transZ, pttemp);
+            // COmmensurate structures may use a symmetry operator
+            // to changes space groups.
+            code = sym.getSpaceGroupOperationCode(iSym);
+            if (code != null) {
+              subSystemId = code.charAt(0);
+              sym = ms.getSymmetryFromCode(code);
+              if (sym.getSpaceGroupOperationCount() == 0)
+                finalizeSymmetry(sym);
+            }
           }
-        }
-        if (acr.fixJavaFloat)
-          PT.fixPtFloats(pttemp, PT.FRACTIONAL_PRECISION);
-        P3 c = P3.newP(pttemp); // cartesian position
-        sym.toCartesian(c, false);
-        if (doPackUnitCell) {
-          sym.toUnitCellRnd(c, ptOffset);
-          pttemp.setT(c);
-          sym.toFractional(pttemp, false);
           if (acr.fixJavaFloat)
             PT.fixPtFloats(pttemp, PT.FRACTIONAL_PRECISION);
-          if (!isWithinCell(ndims, pttemp, minXYZ0.x, maxXYZ0.x, minXYZ0.y,
-              maxXYZ0.y, minXYZ0.z, maxXYZ0.z, packingError))
-            continue;
+          c = P3.newP(pttemp); // cartesian position
+          sym.toCartesian(c, false);
+          if (doPackUnitCell) {
+            sym.toUnitCellRnd(c, ptOffset);
+            pttemp.setT(c);
+            sym.toFractional(pttemp, false);
+            if (acr.fixJavaFloat)
+              PT.fixPtFloats(pttemp, PT.FRACTIONAL_PRECISION);
+            if (!isWithinCell(ndims, pttemp, minXYZ0.x, maxXYZ0.x, minXYZ0.y,
+                maxXYZ0.y, minXYZ0.z, maxXYZ0.z, packingError))
+              continue;
+          }
         }
         if (checkSymmetryMinMax)
           setSymmetryMinMax(c);
@@ -1026,35 +1061,53 @@ public class XtalSymmetry {
           int j0 = (checkAll ? asc.ac : pt0);
           String name = a.atomName;
           char id = (code == null ? a.altLoc : subSystemId);
-          for (int j = j00; j < j0; j++) {
-            if (bsAtoms != null && !bsAtoms.get(j))
-              continue;
-            P3 pc = cartesians[j - firstAtom];
-            if (pc == null)
-              continue;
-            float d2 = c.distanceSquared(pc);
-            if (checkSpecial && d2 < d0) {
-              /* checkSpecial indicates that we are looking for atoms with (nearly) the
-               * same cartesian position.  
-               */
-              if (checkOps) {
-                // if a matching atom is found for a model built
-                // from a mix of crystallographic and noncrystallographic 
-                // operators, we throw out the entire operation, not just this atom
-                excludedOps.set(iSym);
-                continue out;
+          // atoms are taken from the grids in the order of the full scan
+          // they replace: the first matching atom is the special one, and
+          // the {1 1 1} range check stops just before it
+          int jRange = j0;
+          if (checkSpecial) {
+            int nk = specialGrid.getNeighbors(c, j00, j0);
+            int[] list = specialGrid.list;
+            for (int k = 0; k < nk; k++) {
+              int j = list[k];
+              if (bsAtoms != null && !bsAtoms.get(j))
+                continue;
+              float d2 = c.distanceSquared(cartesians[j - firstAtom]);
+              if (d2 < d0) {
+                /* checkSpecial indicates that we are looking for atoms with (nearly) the
+                 * same cartesian position.  
+                 */
+                if (checkOps) {
+                  // if a matching atom is found for a model built
+                  // from a mix of crystallographic and noncrystallographic 
+                  // operators, we throw out the entire operation, not just this atom
+                  excludedOps.set(iSym);
+                  continue out;
+                }
+                special = asc.atoms[j];              
+                if ((special.atomName == null || special.atomName.equals(name))
+                    && special.altLoc == id) {
+                  jRange = j;
+                  break;
+                }
+                special = null;
               }
-              special = asc.atoms[j];              
-              if ((special.atomName == null || special.atomName.equals(name))
-                  && special.altLoc == id)
-                break;
-              special = null;
             }
-            if (checkRange111 && j < baseCount && d2 < minDist2)
-              minDist2 = d2;
           }
-          if (checkRange111 && minDist2 > range2)
-            continue;
+          if (checkRange111) {
+            int nk = rangeGrid.getNeighbors(c, j00, Math.min(jRange, baseCount));
+            int[] list = rangeGrid.list;
+            for (int k = 0; k < nk; k++) {
+              int j = list[k];
+              if (bsAtoms != null && !bsAtoms.get(j))
+                continue;
+              float d2 = c.distanceSquared(cartesians[j - firstAtom]);
+              if (d2 < minDist2)
+                minDist2 = d2;
+            }
+            if (minDist2 > range2)
+              continue;
+          }
         }
         if (checkOps) {
           // if we did not find a common atom for the first atom when checking operators,
@@ -1098,7 +1151,7 @@ public class XtalSymmetry {
           atom1.bsSymmetry = BSUtil.newAndSetBit(cpt);
           atom1.bsSymmetry.set(spt);
           if (addCartesian)
-            cartesians[pt++] = c;
+            addCartesian(cartesians, pt++, c);
           Lst<Object> tensors = a.tensors;
           if (tensors != null) {
             atom1.tensors = null;
@@ -1142,10 +1195,113 @@ public class XtalSymmetry {
           }
         }
       }
+      if (Logger.debugging)
+        Logger.debug("XtalSymmetry: operator " + (iSym + 1) + " cell {"
+            + transX + " " + transY + " " + transZ + "} added "
+            + (asc.ac - ac0) + " atoms in "
+            + (System.currentTimeMillis() - t0) + " ms");
     }
     return pt;
   }
   
+  /**
+   * Minimum number of atoms times operations for getSymmetryPoints to
+   * calculate new positions on more than one thread.
+   */
+  private final static int MIN_PARALLEL_POINTS = 20000;
+
+  /**
+   * The first, parallel, phase of symmetryAddAtoms when not modulated: the
+   * fractional and cartesian position of every atom under every operation,
+   * just as symmetryAddAtoms calculates them, or NaN for a position outside a
+   * packed cell. Positions depend only on the atom, operation, and
+   * translation, so they can be calculated in any order. Special-position
+   * checks and the adding of atoms remain in symmetryAddAtoms, in order.
+   * 
+   * @param isBaseCell
+   * @param nOp
+   * @param nOperations
+   * @param transX
+   * @param transY
+   * @param transZ
+   * @param i0
+   * @param atomMax
+   * @param excludedOps
+   * @return [x y z cx cy cz] for (iSym, i) at 6 * (iSym * (atomMax - i0) + i -
+   *         i0), or null to calculate them in symmetryAddAtoms
+   */
+  private float[] getSymmetryPoints(final boolean isBaseCell, final int nOp,
+                                    int nOperations, final int transX,
+                                    final int transY, final int transZ,
+                                    final int i0, final int atomMax,
+                                    final BS excludedOps) {
+    final int nAtoms = atomMax - i0;
+    int nThreads = (acr.vwr == null ? 1 : acr.vwr.getParallelThreads());
+    if (nThreads < 2 || nAtoms <= 0 || nAtoms * nOperations < MIN_PARALLEL_POINTS)
+      return null;
+    long t0 = (Logger.debugging ? System.currentTimeMillis() : 0);
+    final float[] points = new float[nAtoms * nOperations * 6];
+    final Lst<M4> lstNCS = acr.lstNCS;
+    final SymmetryInterface sym = symmetry;
+    final P3 p = new P3();
+    // operations may be finalized on first use
+    for (int iSym = 0; iSym < nOperations; iSym++)
+      sym.newSpaceGroupPoint(asc.atoms[i0], iSym, (iSym >= nOp ? lstNCS.get(iSym
+          - nOp) : null), transX, transY, transZ, p);
+    int[] b = ParallelTasks.getRanges(nOperations, nThreads);
+    Runnable[] tasks = new Runnable[b.length - 1];
+    for (int t = 0; t < tasks.length; t++) {
+      final int op0 = b[t], op1 = b[t + 1];
+      tasks[t] = new Runnable() {
+        @Override
+        public void run() {
+          P3 pt = new P3();
+          P3 c = new P3();
+          Atom[] atoms = asc.atoms;
+          for (int iSym = op0; iSym < op1; iSym++) {
+            if (isBaseCell && iSym == 0 || latticeOnly && iSym > 0
+                && (iSym % latticeOp) != 0 || excludedOps != null
+                && excludedOps.get(iSym))
+              continue;
+            M4 ncs = (iSym >= nOp ? lstNCS.get(iSym - nOp) : null);
+            for (int i = i0, k = iSym * nAtoms * 6; i < atomMax; i++, k += 6) {
+              sym.newSpaceGroupPoint(atoms[i], iSym, ncs, transX, transY,
+                  transZ, pt);
+              if (acr.fixJavaFloat)
+                PT.fixPtFloats(pt, PT.FRACTIONAL_PRECISION);
+              c.setT(pt);
+              sym.toCartesian(c, false);
+              if (doPackUnitCell) {
+                sym.toUnitCellRnd(c, ptOffset);
+                pt.setT(c);
+                sym.toFractional(pt, false);
+                if (acr.fixJavaFloat)
+                  PT.fixPtFloats(pt, PT.FRACTIONAL_PRECISION);
+                if (!isWithinCell(ndims, pt, minXYZ0.x, maxXYZ0.x, minXYZ0.y,
+                    maxXYZ0.y, minXYZ0.z, maxXYZ0.z, packingError)) {
+                  points[k] = Float.NaN;
+                  continue;
+                }
+              }
+              points[k] = pt.x;
+              points[k + 1] = pt.y;
+              points[k + 2] = pt.z;
+              points[k + 3] = c.x;
+              points[k + 4] = c.y;
+              points[k + 5] = c.z;
+            }
+          }
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    if (Logger.debugging)
+      Logger.debug("XtalSymmetry: " + nAtoms + " atoms x " + nOperations
+          + " operations on " + tasks.length + " threads in "
+          + (System.currentTimeMillis() - t0) + " ms");
+    return points;
+  }
+
   private Map<Integer, Character> disorderMap;
   private int disorderMapMax;
 
@@ -1205,6 +1361,32 @@ public class XtalSymmetry {
   }
 
   static M4 mident;
+
+  /**
+   * Clone and transform the atoms of one BIOMT operation; only reads the
+   * atoms, so can be run for several operations at once.
+   * 
+   * @param atoms
+   * @param list
+   *        indices of the atoms to clone
+   * @param imt
+   * @param mat
+   * @return new atoms, not yet in the collection
+   */
+  private static Atom[] getBioClones(Atom[] atoms, int[] list, int imt, M4 mat) {
+    if (list == null)
+      return null;
+    boolean notIdentity = !mat.equals(mident);
+    Atom[] clones = new Atom[list.length];
+    for (int j = 0; j < list.length; j++) {
+      Atom atom1 = clones[j] = atoms[list[j]].getClone();
+      atom1.bondingRadius = imt; // temporary only -- to distinguish transforms
+      if (notIdentity)
+        mat.rotTrans(atom1);
+      atom1.bsSymmetry = BSUtil.newAndSetBit(imt);
+    }
+    return clones;
+  }
   
   @SuppressWarnings("unchecked")
   public void applySymmetryBio(Map<String, Object> thisBiomolecule,
@@ -1326,7 +1508,13 @@ public class XtalSymmetry {
     int[] atomMap = (addBonds ? new int[asc.ac] : null);
     // allow for filtering BIOMT number
     // len >= 2, so I don't know what is going on here -- no chains? 
-    for (int imt = (biomtchains == null ? 1 : 0); imt < len; imt++) {
+    // (1) select the atoms for each BIOMT, (2) clone and transform them --
+    // in parallel for large assemblies, and (3) add them and their bonds in
+    // order
+    int imt0 = (biomtchains == null ? 1 : 0);
+    final int[][] selected = new int[len][];
+    int nSelected = 0;
+    for (int imt = imt0; imt < len; imt++) {
       if (filter.indexOf("!#") >= 0) {
         if (filter.indexOf("!#" + (imt + 1) + ";") >= 0)
           continue;
@@ -1334,8 +1522,6 @@ public class XtalSymmetry {
           && filter.indexOf("#" + (imt + 1) + ";") < 0) {
         continue;
       }
-      M4 mat = biomts.get(imt);
-      boolean notIdentity = !mat.equals(mident);
 
       // if asym_id is given, that is what is being referred to, not author chains
       // we just set bsAtoms to match
@@ -1353,6 +1539,8 @@ public class XtalSymmetry {
 
       int lastID = -1, id;
       boolean skipping = false;
+      int[] list = new int[atomMax - firstAtom];
+      int n = 0;
       for (int iAtom = firstAtom; iAtom < atomMax; iAtom++) {
         if (bsAtoms != null) {
           skipping = !bsAtoms.get(iAtom);
@@ -1361,22 +1549,59 @@ public class XtalSymmetry {
           skipping = (chains
               .indexOf(":" + acr.vwr.getChainIDStr(lastID = id) + ";") < 0);
         }
-        if (skipping)
-          continue;
+        if (!skipping)
+          list[n++] = iAtom;
+      }
+      selected[imt] = (n == list.length ? list : AU.arrayCopyI(list, n));
+      nSelected += n;
+    }
+    final Atom[][] clones = new Atom[len][];
+    final Atom[] atoms0 = atoms;
+    final Lst<M4> mats = biomts;
+    int nThreads = (acr.vwr == null ? 1 : acr.vwr.getParallelThreads());
+    if (nThreads > 1 && nSelected >= MIN_PARALLEL_POINTS) {
+      long t0 = System.currentTimeMillis();
+      int[] b = ParallelTasks.getRanges(len, nThreads);
+      Runnable[] tasks = new Runnable[b.length - 1];
+      for (int t = 0; t < tasks.length; t++) {
+        final int imt1 = b[t], imt2 = b[t + 1];
+        tasks[t] = new Runnable() {
+          @Override
+          public void run() {
+            for (int imt = imt1; imt < imt2; imt++)
+              clones[imt] = getBioClones(atoms0, selected[imt], imt,
+                  mats.get(imt));
+          }
+        };
+      }
+      ParallelTasks.runAll(tasks);
+      Logger.info("XtalSymmetry: " + nSelected + " atoms for " + len
+          + " BIOMT operators cloned on " + tasks.length + " threads in "
+          + (System.currentTimeMillis() - t0) + " ms");
+    } else {
+      for (int imt = imt0; imt < len; imt++)
+        clones[imt] = getBioClones(atoms0, selected[imt], imt,
+            biomts.get(imt));
+    }
+    for (int imt = imt0; imt < len; imt++) {
+      int[] list = selected[imt];
+      if (list == null)
+        continue;
+      M4 mat = biomts.get(imt);
+      boolean notIdentity = !mat.equals(mident);
+      Atom[] c = clones[imt];
+      clones[imt] = null;
+      for (int j = 0, n = list.length; j < n; j++) {
         try {
-          int atomSite = atoms[iAtom].atomSite;
-          Atom atom1;
+          int atomSite = atoms0[list[j]].atomSite;
+          Atom atom1 = c[j];
           if (addBonds)
             atomMap[atomSite] = asc.ac;
-          atom1 = asc.newCloneAtom(atoms[iAtom]);
-          atom1.bondingRadius = imt; // temporary only -- to distinguish transforms
+          asc.addAtom(atom1);
           asc.atomSymbolicMap.put("" + atom1.atomSerial, atom1);
           if (asc.bsAtoms != null)
             asc.bsAtoms.set(atom1.index);
           atom1.atomSite = atomSite;
-          if (notIdentity)
-            mat.rotTrans(atom1);
-          atom1.bsSymmetry = BSUtil.newAndSetBit(imt);
         } catch (Exception e) {
           asc.errorMessage = "appendAtomCollection error: " + e;
         }
@@ -23,6 +23,8 @@ public class CIFWriter extends XtlWriter implements JmolWriter {
   private Viewer vwr;
   private OC oc;
 
+  private final static int CHUNK_SIZE = 1 << 16;
+
   private boolean isP1;
 
   private final static P3 fset0 = P3.new3(555, 555, 1);
@@ -142,8 +144,6 @@ public class CIFWriter extends XtlWriter implements JmolWriter {
           }
         }
       }
-      int sbLength = sb.length();
-      
       sb.append("\n" + "\nloop_" + "\n_atom_site_label"
           + "\n_atom_site_type_symbol" + "\n_atom_site_fract_x"
           + "\n_atom_site_fract_y" + "\n_atom_site_fract_z");
@@ -154,10 +154,6 @@ public class CIFWriter extends XtlWriter implements JmolWriter {
             + "\n_atom_site_Cartn_z");
       sb.append("\n");
 
-      SB jmol_atom = new SB();
-      jmol_atom.append("\n" + "\nloop_" + "\n_jmol_atom_index" + "\n_jmol_atom_name"
-          + "\n_jmol_atom_site_label\n");
-
       int nAtoms = 0;
       P3 p = new P3();
       int[] elemNums = new int[130];
@@ -172,7 +168,6 @@ public class CIFWriter extends XtlWriter implements JmolWriter {
 //        if (isP1 && !SimpleUnitCell.checkPeriodic(p))
 //          continue;
         nAtoms++;
-        String name = a.getAtomName();
         String sym = a.getElementSymbol();
         int elemno = a.getElementNumber();
         String key = sym + "\n";
@@ -187,24 +182,31 @@ public class CIFWriter extends XtlWriter implements JmolWriter {
         else if (!haveUnitCell)
           sb.append(clean(a.x)).append(clean(a.y)).append(clean(a.z));
         sb.append("\n");
+        flush(sb, CHUNK_SIZE);
+      }
+
+      // add atom_type aka element symbol
+      // (bsOut is not empty, so there are atoms)
+      sb.append("\nloop_\n_atom_type_symbol\n").append(elements).append("\n");
 
-        jmol_atom.append(PT.formatS("" + a.getIndex(), 3, 0, false, false))
+      // second pass for the same labels
+      sb.append("\n" + "\nloop_" + "\n_jmol_atom_index" + "\n_jmol_atom_name"
+          + "\n_jmol_atom_site_label\n");
+      elemNums = new int[130];
+      for (int i = bsOut.nextSetBit(0); i >= 0; i = bsOut
+          .nextSetBit(i + 1)) {
+        Atom a = atoms[i];
+        String label = a.getElementSymbol() + ++elemNums[a.getElementNumber()];
+        sb.append(PT.formatS("" + a.getIndex(), 3, 0, false, false))
             .append(" ");
-        writeChecked(jmol_atom, name);
-        jmol_atom.append(" ").append(PT.formatS(label, 5, 0, false, false))
+        writeChecked(sb, a.getAtomName());
+        sb.append(" ").append(PT.formatS(label, 5, 0, false, false))
             .append("\n");
-      }
-
-      if (nAtoms > 0) {
-        // add atom_type aka element symbol
-        sb.append("\nloop_\n_atom_type_symbol\n").append(elements).append("\n");
-        sb.appendSB(jmol_atom);
-      } else {
-        sb.setLength(sbLength);
+        flush(sb, CHUNK_SIZE);
       }
 
       sb.append("\n# ").appendI(nAtoms).append(" atoms\n");
-      oc.append(sb.toString());
+      flush(sb, 0);
     } catch (Exception e) {
       if (!Viewer.isJS)
         e.printStackTrace();
@@ -213,6 +215,20 @@ public class CIFWriter extends XtlWriter implements JmolWriter {
   }
 
 
+  /**
+   * Move text to the output channel in pieces, so that a large file is never
+   * held as a single string.
+   * 
+   * @param sb
+   * @param minLength
+   */
+  private void flush(SB sb, int minLength) {
+    if (sb.length() > minLength) {
+      oc.append(sb.toString());
+      sb.setLength(0);
+    }
+  }
+
   /**
    * see https://github.com/rcsb/ciftools-java/blob/master/src/main/java/org/rcsb/cif/text/TextCifWriter.java
    * @param output 
@@ -94,6 +94,7 @@ public class PDBWriter implements JmolWriter {
       }
     }
     LabelToken[] tokens;
+    LabelToken[][] formats = new LabelToken[6][];
     P3 ptTemp = new P3();
     Object[] o = new Object[] { ptTemp };
     Quat q = (doTransform ? vwr.tm.getRotationQ() : null);
@@ -117,32 +118,16 @@ public class PDBWriter implements JmolWriter {
       boolean leftJustify = (a.getElementSymbol().length() == 2
           || sa.length() >= 4 || PT.isDigit(sa.charAt(0)));
       boolean isHetero = a.isHetero();
-      if (!isBiomodel)
-        tokens = (leftJustify
-            ? LabelToken.compile(vwr,
-                "HETATM%5.-5i %-4.4a%1AUNK %1c   1%1E   _XYZ_" + occTemp, '\0',
-                null)
-            : LabelToken.compile(vwr,
-                "HETATM%5.-5i  %-3.3a%1AUNK %1c   1%1E   _XYZ_" + occTemp, '\0',
-                null)
-
-        );
-      else if (isHetero)
-        tokens = (leftJustify
-            ? LabelToken.compile(vwr,
-                "HETATM%5.-5i %-4.4a%1A%3.3n %1c%4.-4R%1E   _XYZ_" + occTemp,
-                '\0', null)
-            : LabelToken.compile(vwr,
-                "HETATM%5.-5i  %-3.3a%1A%3.3n %1c%4.-4R%1E   _XYZ_" + occTemp,
-                '\0', null));
-      else
-        tokens = (leftJustify
-            ? LabelToken.compile(vwr,
-                "ATOM  %5.-5i %-4.4a%1A%3.3n %1c%4.-4R%1E   _XYZ_" + occTemp,
-                '\0', null)
-            : LabelToken.compile(vwr,
-                "ATOM  %5.-5i  %-3.3a%1A%3.3n %1c%4.-4R%1E   _XYZ_" + occTemp,
-                '\0', null));
+      // six possible formats, compiled as needed
+      int iFormat = (!isBiomodel ? 0 : isHetero ? 2 : 4) + (leftJustify ? 0 : 1);
+      if ((tokens = formats[iFormat]) == null)
+        tokens = formats[iFormat] = LabelToken.compile(vwr,
+            (!isBiomodel || isHetero ? "HETATM" : "ATOM  ")
+                + (leftJustify ? "%5.-5i %-4.4a%1A" : "%5.-5i  %-3.3a%1A")
+                + (!isBiomodel ? "UNK %1c   1%1E   _XYZ_"
+                    : "%3.3n %1c%4.-4R%1E   _XYZ_")
+                + occTemp,
+            '\0', null);
       String XX = a.getElementSymbolIso(false).toUpperCase();
       XX = pdbKey(a.group.getBioPolymerIndexInModel())
           + pdbKey(a.group.groupIndex)
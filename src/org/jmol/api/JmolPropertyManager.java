@@ -16,6 +16,8 @@ public interface JmolPropertyManager {
 
   Object getProperty(String returnType, String infoType, Object paramInfo);
 
+  void getPropertyJSON(String infoType, Object paramInfo, OC out);
+
   String getDefaultPropertyParam(int propertyID);
 
   int getPropertyNumber(String name);
@@ -35,6 +37,9 @@ public interface JmolPropertyManager {
   String getModelExtract(BS atomBitSet, boolean doTransform, boolean isModelKit,
                          String type, boolean allTrajectories);
 
+  String writeModelExtract(BS atomBitSet, boolean doTransform, String type,
+                           OC out);
+
   String getPdbAtomData(BS bs, OC out, boolean asPQR, boolean doTransform, boolean allTrajectories);
 
   String getPdbData(int modelIndex, String type, BS bsA, Object[] parameters,
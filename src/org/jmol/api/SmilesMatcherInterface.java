@@ -60,8 +60,8 @@ public interface SmilesMatcherInterface {
 
   String getSmilesFromJME(String jmeFile);
 
-  int[] hasStructure(String smarts, String[] smilesSet, int flags)
-      throws Exception;
+  int[] hasStructure(String smarts, String[] smilesSet, int flags,
+                     int nThreads) throws Exception;
 
   Object compileSmartsPattern(String pattern) throws Exception;
 
@@ -31,6 +31,8 @@ import javajs.util.Lst;
 import javajs.util.PT;
 import javajs.util.SB;
 
+import org.jmol.bspt.Bspt;
+import org.jmol.bspt.CubeIterator;
 import org.jmol.c.STR;
 import org.jmol.i18n.GT;
 import javajs.util.BS;
@@ -42,6 +44,7 @@ import org.jmol.modelsetbio.AminoMonomer;
 import org.jmol.modelsetbio.AminoPolymer;
 import org.jmol.modelsetbio.BioPolymer;
 import org.jmol.modelsetbio.Monomer;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.C;
 import org.jmol.util.Edge;
 import org.jmol.util.Escape;
@@ -391,13 +394,48 @@ public class DSSP {
       }
     }
 
-    for (int i = 0; i < bioPolymerCount; i++)
-      if (min[i] != null)
-        for (int j = 0; j < bioPolymerCount; j++)
-          if (min[j] != null)
-            bioPolymers[i].calcRasmolHydrogenBonds(bioPolymers[j], null, null,
-                null, 2, min[i], false, dsspIgnoreHydrogens);
+    //   Rather than checking every monomer of every polymer for every NH, 
+    //   we find acceptors near each donor from a tree of alpha carbons.
+    //   Each polymer fills only its own min[i], so polymers can be done in parallel.
 
+    final Bspt bspt = new Bspt(3, 0);
+    int nMax = 0;
+    for (int i = 0; i < bioPolymerCount; i++)
+      nMax = Math.max(nMax, bioPolymers[i].bioPolymerIndexInModel + 1);
+    final int[] order = new int[nMax];
+    for (int i = 0; i < bioPolymerCount; i++) {
+      if (min[i] == null)
+        continue;
+      BioPolymer bp = bioPolymers[i];
+      order[bp.bioPolymerIndexInModel] = i;
+      for (int j = bp.monomerCount; --j >= 0;)
+        if (((AminoMonomer) bp.monomers[j]).getCarbonylOxygenAtom() != null)
+          bspt.addTuple(bp.monomers[j].getLeadAtom());
+    }
+    int nThreads = bioPolymers[0].model.ms.vwr.getParallelThreads();
+    if (nThreads > 1) {
+      Lst<Runnable> tasks = new Lst<Runnable>();
+      for (int i = 0; i < bioPolymerCount; i++) {
+        if (min[i] == null)
+          continue;
+        final AminoPolymer ap = (AminoPolymer) bioPolymers[i];
+        final int[][][] mi = min[i];
+        tasks.addLast(new Runnable() {
+          @Override
+          public void run() {
+            ap.calcDsspHydrogenBonds(bspt.allocateCubeIterator(), order, mi,
+                dsspIgnoreHydrogens);
+          }
+        });
+      }
+      ParallelTasks.runAll(tasks.toArray(new Runnable[tasks.size()]));
+    } else {
+      CubeIterator iter = bspt.allocateCubeIterator();
+      for (int i = 0; i < bioPolymerCount; i++)
+        if (min[i] != null)
+          ((AminoPolymer) bioPolymers[i]).calcDsspHydrogenBonds(iter, order,
+              min[i], dsspIgnoreHydrogens);
+    }
     return min;
   }
 
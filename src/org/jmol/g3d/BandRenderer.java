@@ -0,0 +1,377 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.g3d;
+
+import javajs.util.AU;
+import javajs.util.P3;
+import javajs.util.P3i;
+
+import org.jmol.thread.ParallelTasks;
+import org.jmol.util.C;
+
+/**
+ * Band-parallel software rendering for image creation (set parallelImages).
+ * Java only.
+ *
+ * While bands are active, the drawing methods of Graphics3D record their
+ * arguments here rather than drawing. setC and setColor are both carried out
+ * and recorded. At flush(), one Graphics3D per horizontal band of the screen
+ * replays the whole recording on its own thread. The bands share the pixel
+ * and z buffers, but each writes only to its own rows, so every pixel sees
+ * the same sequence of writes that it would in serial rendering.
+ *
+ * Anything not recorded -- text, images, ellipsoids, pass changes, and colors
+ * that change shared shading -- is a barrier: the recording is flushed, the
+ * call is carried out by the recording Graphics3D itself, and the bands take
+ * up its state again before the next recorded call.
+ *
+ */
+final class BandRenderer {
+
+  final static int SET_C = 1;
+  final static int SET_COLOR = 2;
+  final static int ADD_RENDERER = 3;
+  private final static int STATE = 4;
+  final static int FILL_SPHERE = 5;
+  final static int VOLUME_RENDER = 6;
+  final static int FILLED_CIRCLE = 7;
+  final static int CYLINDER_XYZ = 8;
+  final static int CYLINDER_SCREEN = 9;
+  final static int CYLINDER = 10;
+  final static int CYLINDER_BITS = 11;
+  final static int CYLINDER_BITS2 = 12;
+  final static int CONE = 13;
+  final static int HERMITE4 = 14;
+  final static int HERMITE7 = 15;
+  final static int FILL_HERMITE = 16;
+  final static int TRIANGLE_TWO_SIDED = 17;
+  final static int TRIANGLE3F = 18;
+  final static int TRIANGLE3I = 19;
+  final static int TRIANGLE3CN = 20;
+  final static int TRIANGLE3CN_BITS = 21;
+  final static int QUADRILATERAL = 22;
+  final static int PIXEL = 23;
+  final static int POINTS = 24;
+  final static int DASHED_LINE = 25;
+  final static int LINE_XYZ = 26;
+  final static int LINE = 27;
+  final static int LINE_BITS = 28;
+  final static int LINE_AB = 29;
+  final static int PIXEL_P3I = 30;
+
+  /**
+   * replay when the recording reaches this many ints
+   */
+  private final static int MAX_RECORD = 1 << 20;
+
+  private final Graphics3D g;
+  final int nBands;
+  private final Band[] bands;
+
+  private int[] ia = new int[4096];
+  private float[] fa = new float[4096];
+  private int ni, nf;
+
+  /**
+   * the bands must take up the state of g before the next recorded call
+   */
+  private boolean isDirty;
+
+  /**
+   * slab, depth, and translucentCoverOnly as last recorded; these are set
+   * directly by some renderers, so they are checked with every call
+   */
+  private int slab, depth;
+  private boolean coverOnly;
+
+  BandRenderer(Graphics3D g, int nBands) {
+    this.g = g;
+    this.nBands = nBands;
+    bands = new Band[nBands];
+    for (int i = 0; i < nBands; i++)
+      bands[i] = new Band(g.newBand());
+  }
+
+  /**
+   * Start a frame.
+   *
+   * @return this
+   */
+  BandRenderer start() {
+    ni = nf = 0;
+    isDirty = true;
+    return this;
+  }
+
+  /**
+   * Begin recording a call.
+   *
+   * @param op
+   * @return this
+   */
+  BandRenderer op(int op) {
+    if (ni > MAX_RECORD)
+      flush();
+    if (isDirty) {
+      for (int i = 0, h = g.height; i < nBands; i++)
+        bands[i].g.setBand(g, h * i / nBands, h * (i + 1) / nBands);
+      slab = g.slab;
+      depth = g.depth;
+      coverOnly = g.translucentCoverOnly;
+      isDirty = false;
+    } else if (slab != g.slab || depth != g.depth
+        || coverOnly != g.translucentCoverOnly) {
+      slab = g.slab;
+      depth = g.depth;
+      coverOnly = g.translucentCoverOnly;
+      i(STATE).i(slab).i(depth).i(coverOnly ? 1 : 0);
+    }
+    return i(op);
+  }
+
+  BandRenderer i(int v) {
+    if (ni == ia.length)
+      ia = AU.doubleLengthI(ia);
+    ia[ni++] = v;
+    return this;
+  }
+
+  BandRenderer f(float v) {
+    if (nf == fa.length)
+      fa = AU.doubleLengthF(fa);
+    fa[nf++] = v;
+    return this;
+  }
+
+  BandRenderer p(P3 pt) {
+    return f(pt.x).f(pt.y).f(pt.z);
+  }
+
+  BandRenderer pi(P3i pt) {
+    return i(pt.x).i(pt.y).i(pt.z);
+  }
+
+  /**
+   * Check that a call can be recorded, creating the shade tables for its
+   * colors so that the bands only read them. The "last available" colix
+   * changes shared shading, so a call using it cannot be recorded.
+   *
+   * @param colixA
+   * @param colixB
+   * @param colixC
+   * @return false if the call must be drawn directly
+   */
+  boolean canRecord(short colixA, short colixB, short colixC) {
+    if (C.isColixLastAvailable(colixA) || C.isColixLastAvailable(colixB)
+        || C.isColixLastAvailable(colixC))
+      return false;
+    if (colixA != 0)
+      g.getShades(colixA);
+    if (colixB != 0)
+      g.getShades(colixB);
+    if (colixC != 0)
+      g.getShades(colixC);
+    return true;
+  }
+
+  /**
+   * Replay the recording in all bands and give g the bands' final state.
+   */
+  void flush() {
+    if (ni > 0) {
+      g.prepareBands();
+      ParallelTasks.runAll(bands);
+      g.endBands(bands[0].g);
+      for (int i = 0; i < nBands; i++)
+        if (bands[i].g.haveTranslucentObjects())
+          g.checkTranslucent(true);
+      ni = nf = 0;
+    }
+    isDirty = true;
+  }
+
+  private class Band implements Runnable {
+
+    final Graphics3D g;
+
+    private int ii, fi;
+    private final P3[] pts = new P3[8];
+    private final P3i[] ptis = new P3i[3];
+    private int[] coords = new int[0];
+
+    Band(Graphics3D g) {
+      this.g = g;
+      for (int i = pts.length; --i >= 0;)
+        pts[i] = new P3();
+      for (int i = ptis.length; --i >= 0;)
+        ptis[i] = new P3i();
+    }
+
+    private int i() {
+      return ia[ii++];
+    }
+
+    private short s() {
+      return (short) ia[ii++];
+    }
+
+    private byte b() {
+      return (byte) ia[ii++];
+    }
+
+    private boolean tf() {
+      return ia[ii++] != 0;
+    }
+
+    private P3 p(int k) {
+      P3 pt = pts[k];
+      pt.x = fa[fi++];
+      pt.y = fa[fi++];
+      pt.z = fa[fi++];
+      return pt;
+    }
+
+    private P3i pi(int k) {
+      P3i pt = ptis[k];
+      pt.x = ia[ii++];
+      pt.y = ia[ii++];
+      pt.z = ia[ii++];
+      return pt;
+    }
+
+    @Override
+    public void run() {
+      Graphics3D g = this.g;
+      ii = fi = 0;
+      for (int n = ni; ii < n;) {
+        switch (ia[ii++]) {
+        case SET_C:
+          g.setC(s());
+          break;
+        case SET_COLOR:
+          g.setColor(i());
+          break;
+        case ADD_RENDERER:
+          g.addRenderer(i());
+          break;
+        case STATE:
+          g.slab = i();
+          g.depth = i();
+          g.translucentCoverOnly = tf();
+          break;
+        case FILL_SPHERE:
+          g.fillSphereXYZ(i(), i(), i(), i());
+          break;
+        case VOLUME_RENDER:
+          g.volumeRender4(i(), i(), i(), i());
+          break;
+        case FILLED_CIRCLE:
+          g.drawFilledCircle(s(), s(), i(), i(), i(), i());
+          break;
+        case CYLINDER_XYZ:
+          g.fillCylinderXYZ(s(), s(), b(), i(), i(), i(), i(), i(), i(), i());
+          break;
+        case CYLINDER_SCREEN:
+          g.fillCylinderScreen3I(b(), i(), p(0), p(1), null, null, 0);
+          break;
+        case CYLINDER:
+          g.fillCylinder(b(), i(), pi(0), pi(1));
+          break;
+        case CYLINDER_BITS:
+          g.fillCylinderBits(b(), i(), p(0), p(1));
+          break;
+        case CYLINDER_BITS2:
+          g.fillCylinderBits2(s(), s(), b(), i(), p(0), p(1));
+          break;
+        case CONE:
+          g.fillConeScreen3f(b(), i(), p(0), p(1), tf());
+          break;
+        case HERMITE4:
+          g.drawHermite4(i(), p(0), p(1), p(2), p(3));
+          break;
+        case HERMITE7:
+          g.drawHermite7(tf(), tf(), i(), p(0), p(1), p(2), p(3), p(4), p(5),
+              p(6), p(7), i(), s());
+          break;
+        case FILL_HERMITE:
+          g.fillHermite(i(), i(), i(), i(), p(0), p(1), p(2), p(3));
+          break;
+        case TRIANGLE_TWO_SIDED:
+          g.fillTriangleTwoSided(s(), p(0), p(1), p(2));
+          break;
+        case TRIANGLE3F:
+          g.fillTriangle3f(p(0), p(1), p(2), tf());
+          break;
+        case TRIANGLE3I:
+          g.fillTriangle3i(p(0), p(1), tf() ? p(2) : null, null, null, null,
+              tf());
+          break;
+        case TRIANGLE3CN:
+          g.fillTriangle3CN(pi(0), s(), s(), pi(1), s(), s(), pi(2), s(), s());
+          break;
+        case TRIANGLE3CN_BITS:
+          g.fillTriangle3CNBits(p(0), s(), s(), p(1), s(), s(), p(2), s(), s(),
+              tf());
+          break;
+        case QUADRILATERAL:
+          g.fillQuadrilateral(p(0), p(1), p(2), p(3), tf());
+          break;
+        case PIXEL:
+          g.drawPixel(i(), i(), i());
+          break;
+        case POINTS:
+          int count = i();
+          int scale = i();
+          if (coords.length < count * 3)
+            coords = new int[count * 3];
+          System.arraycopy(ia, ii, coords, 0, count * 3);
+          ii += count * 3;
+          g.drawPoints(count, coords, scale);
+          break;
+        case DASHED_LINE:
+          g.drawDashedLineBits(i(), i(), p(0), p(1));
+          break;
+        case LINE_XYZ:
+          g.drawLineXYZ(i(), i(), i(), i(), i(), i());
+          break;
+        case LINE:
+          g.drawLine(s(), s(), i(), i(), i(), i(), i(), i());
+          break;
+        case LINE_BITS:
+          g.drawLineBits(s(), s(), p(0), p(1));
+          break;
+        case LINE_AB:
+          g.drawLineAB(p(0), p(1));
+          break;
+        case PIXEL_P3I:
+          g.plotPixelClippedP3i(pi(0));
+          break;
+        }
+      }
+    }
+  }
+
+}
@@ -270,6 +270,19 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   protected int zMargin;
   private int[] aobuf;
 
+  /**
+   * band-parallel rendering (set parallelImages): the rows drawn by a band,
+   * unbounded otherwise, and the corresponding buffer offsets
+   */
+  int bandTop = Integer.MIN_VALUE, bandBottom = Integer.MAX_VALUE;
+  private int bandOffset0, bandOffset1;
+  private BandRenderer bandRenderer;
+
+  /**
+   * non-null while drawing calls are being recorded for the bands
+   */
+  private BandRenderer bands;
+
   void setZMargin(int dz) {
     zMargin = dz;
   }
@@ -300,6 +313,8 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
    */
   @Override
   public void addRenderer(int tok) {
+    if (bands != null)
+      bands.op(BandRenderer.ADD_RENDERER).i(tok);
     switch (tok) {
     case T.circle:
       if (circle3d == null)
@@ -392,6 +407,13 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
       plotImage(Integer.MIN_VALUE, 0, Integer.MIN_VALUE, backgroundImage, null,
           (short) 0, 0, 0);
     textY = 0;
+    shader.fixedNoise = (isImageWrite && vwr.getBoolean(T.parallelimages));
+    int n = (shader.fixedNoise ? vwr.getParallelThreads() : 1);
+    if (n > 1) {
+      if (bandRenderer == null || bandRenderer.nBands != n)
+        bandRenderer = new BandRenderer(this, n);
+      bands = bandRenderer.start();
+    }
   }
 
   @Override
@@ -412,6 +434,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public boolean setPass2(boolean antialiasTranslucent) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      boolean ok = setPass2(antialiasTranslucent);
+      bands = b;
+      return ok;
+    }
     if (!haveTranslucentObjects || !currentlyRendering)
       return false;
     isPass2 = true;
@@ -439,6 +467,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void endRendering() {
     if (!currentlyRendering)
       return;
+    if (bands != null) {
+      bands.flush();
+      bands = null;
+    }
     if (pbuf != null) {
       if (isPass2 && pbufT != null)
         for (int offset = pbufT.length; --offset >= 0;)
@@ -590,12 +622,20 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public boolean haveTranslucentObjects() {
+    if (bands != null)
+      bands.flush();
     return haveTranslucentObjects;
   }
 
   @Override
   public void setSlabAndZShade(int slabValue, int depthValue, int zSlab,
                                int zDepth, int zShadePower) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      setSlabAndZShade(slabValue, depthValue, zSlab, zDepth, zShadePower);
+      bands = b;
+      return;
+    }
     setSlab(slabValue);
     setDepth(depthValue);
     if (zSlab < zDepth) {
@@ -714,6 +754,8 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
    */
   @Override
   public boolean setC(short colix) {
+    if (isRecording(colix, (short) 0, (short) 0))
+      bands.op(BandRenderer.SET_C).i(colix);
     boolean isLast = C.isColixLastAvailable(colix);
     if (!isLast && colix == colixCurrent && currentShadeIndex == -1)
       return true;
@@ -744,10 +786,17 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
     }
     shadesCurrent = getShades(colix);
     currentShadeIndex = -1;
-    setColor(getColorArgbOrGray(colix));
+    super.setColor(getColorArgbOrGray(colix));
     return true;
   }
 
+  @Override
+  public void setColor(int argb) {
+    if (bands != null)
+      bands.op(BandRenderer.SET_COLOR).i(argb);
+    super.setColor(argb);
+  }
+
   Pixelator setScreened(boolean isScreened) {
     if (wasScreened != isScreened) {
       wasScreened = isScreened;
@@ -770,6 +819,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void drawFilledCircle(short colixRing, short colixFill, int diameter,
                                int x, int y, int z) {
+    if (isRecording(colixRing, colixFill, (short) 0)) {
+      bands.op(BandRenderer.FILLED_CIRCLE).i(colixRing).i(colixFill).i(diameter).i(x).i(y)
+          .i(z);
+      return;
+    }
     // Halos, Draw handles
     if (isClippedZ(z))
       return;
@@ -799,6 +853,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void volumeRender4(int diameter, int x, int y, int z) {
+    if (bands != null) {
+      bands.op(BandRenderer.VOLUME_RENDER).i(diameter).i(x).i(y).i(z);
+      return;
+    }
     if (diameter == 1) {
       plotPixelClippedArgb(argbCurrent, x, y, z, width, zbuf, pixel);
       return;
@@ -831,6 +889,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
    */
   @Override
   public void fillSphereXYZ(int diameter, int x, int y, int z) {
+    if (bands != null) {
+      bands.op(BandRenderer.FILL_SPHERE).i(diameter).i(x).i(y).i(z);
+      return;
+    }
     switch (diameter) {
     case 1:
       plotPixelClippedArgb(argbCurrent, x, y, z, width, zbuf, pixel);
@@ -848,6 +910,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void volumeRender(boolean TF) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      volumeRender(TF);
+      bands = b;
+      return;
+    }
     if (TF) {
       saveAmbient = getAmbientPercent();
       saveDiffuse = getDiffusePercent();
@@ -893,6 +961,13 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void fillEllipsoid(P3 center, P3[] points, int x, int y, int z,
                             int diameter, M3 mToEllipsoidal, double[] coef,
                             M4 mDeriv, int selectedOctant, P3[] octantPoints) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      fillEllipsoid(center, points, x, y, z, diameter, mToEllipsoidal, coef,
+          mDeriv, selectedOctant, octantPoints);
+      bands = b;
+      return;
+    }
     switch (diameter) {
     case 1:
       plotPixelClippedArgb(argbCurrent, x, y, z, width, zbuf, pixel);
@@ -924,6 +999,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
    */
   @Override
   public void drawRect(int x, int y, int z, int zSlab, int rWidth, int rHeight) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      drawRect(x, y, z, zSlab, rWidth, rHeight);
+      bands = b;
+      return;
+    }
     // labels (and rubberband, not implemented) and navigation cursor
     if (zSlab != 0 && isClippedZ(zSlab))
       return;
@@ -1006,6 +1087,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void fillTextRect(int x, int y, int z, int zSlab, int widthFill,
                        int heightFill) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      fillTextRect(x, y, z, zSlab, widthFill, heightFill);
+      bands = b;
+      return;
+    }
     // hover and labels only -- slab at atom or front -- simple Z/window clip
     if (isClippedZ(zSlab))
       return;
@@ -1060,6 +1147,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void drawString(String str, Font font3d, int xBaseline, int yBaseline,
                          int z, int zSlab, short bgColix) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      drawString(str, font3d, xBaseline, yBaseline, z, zSlab, bgColix);
+      bands = b;
+      return;
+    }
     //axis, labels, measures, echo    
     currentShadeIndex = 0;
     if (str == null)
@@ -1089,6 +1182,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void drawStringNoSlab(String str, Font font3d, int xBaseline,
                                int yBaseline, int z, short bgColix) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      drawStringNoSlab(str, font3d, xBaseline, yBaseline, z, bgColix);
+      bands = b;
+      return;
+    }
     // echo, frank, hover, molecularOrbital, uccage
     if (str == null)
       return;
@@ -1110,6 +1209,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void renderAllStrings(Object jmolRenderer) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      renderAllStrings(jmolRenderer);
+      bands = b;
+      return;
+    }
     if (strings == null)
       return;
     if (stringCount >= 2) {
@@ -1129,6 +1234,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void plotText(int x, int y, int z, int argb, int bgargb, String text,
                        Font font3d, JmolRendererInterface jmolRenderer) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      plotText(x, y, z, argb, bgargb, text, font3d, jmolRenderer);
+      bands = b;
+      return;
+    }
     TextRenderer.plot(x, y, z, argb, bgargb, text, font3d, this, jmolRenderer,
         antialiasThisFrame);
   }
@@ -1136,6 +1247,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void drawImage(Object objImage, int x, int y, int z, int zSlab,
                         short bgcolix, int width, int height) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      drawImage(objImage, x, y, z, zSlab, bgcolix, width, height);
+      bands = b;
+      return;
+    }
     // overridden in Export
     if (objImage != null && width > 0 && height > 0 && !isClippedZ(zSlab))
       plotImage(x, y, z, objImage, null, bgcolix, width, height);
@@ -1145,6 +1262,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void plotImage(int x, int y, int z, Object image,
                         JmolRendererInterface jmolRenderer, short bgcolix,
                         int imageWidth, int imageHeight) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      plotImage(x, y, z, image, jmolRenderer, bgcolix, imageWidth, imageHeight);
+      bands = b;
+      return;
+    }
     // overridden in __Exporter
     setC(bgcolix);
     if (!isPass2)
@@ -1245,6 +1368,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void drawPixel(int x, int y, int z) {
+    if (bands != null) {
+      bands.op(BandRenderer.PIXEL).i(x).i(y).i(z);
+      return;
+    }
     // measures - render angle
     plotPixelClippedArgb(argbCurrent, x, y, z, width, zbuf, pixel);
   }
@@ -1252,6 +1379,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void drawPoints(int count, int[] coordinates, int scale) {
     // for dots only
+    if (bands != null) {
+      bands.op(BandRenderer.POINTS).i(count).i(scale);
+      for (int i = 0, n = count * 3; i < n; i++)
+        bands.i(coordinates[i]);
+      return;
+    }
     if (scale > 1) {
       float s2 = scale * scale * 0.8f;
       for (int i = -scale; i < scale; i++) {
@@ -1273,6 +1406,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void drawDashedLineBits(int run, int rise, P3 pointA, P3 pointB) {
+    if (bands != null) {
+      bands.op(BandRenderer.DASHED_LINE).i(run).i(rise).p(pointA).p(pointB);
+      return;
+    }
     if (isAntialiased()) {
       run += run;
       rise += rise;
@@ -1305,6 +1442,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void drawLineXYZ(int x1, int y1, int z1, int x2, int y2, int z2) {
+    if (bands != null) {
+      bands.op(BandRenderer.LINE_XYZ).i(x1).i(y1).i(z1).i(x2).i(y2).i(z2);
+      return;
+    }
     // stars, text
     line3d.plotLineOld(argbCurrent, argbCurrent, x1, y1, z1, x2, y2, z2);
   }
@@ -1312,6 +1453,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void drawLine(short colixA, short colixB, int x1, int y1, int z1,
                        int x2, int y2, int z2) {
+    if (isRecording(colixA, colixB, (short) 0)) {
+      bands.op(BandRenderer.LINE).i(colixA).i(colixB).i(x1).i(y1).i(z1).i(x2)
+          .i(y2).i(z2);
+      return;
+    }
     // backbone and sticks
     if (!setC(colixA))
       colixA = 0;
@@ -1324,6 +1470,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void drawLineBits(short colixA, short colixB, P3 pointA, P3 pointB) {
+    if (isRecording(colixA, colixB, (short) 0)) {
+      bands.op(BandRenderer.LINE_BITS).i(colixA).i(colixB).p(pointA).p(pointB);
+      return;
+    }
     // drawQuadBits, drawTriangleBits
     if (!setC(colixA))
       colixA = 0;
@@ -1339,6 +1489,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void drawLinePixels(P3i a, P3i b, int z, int zslab) {
+    if (bands != null) {
+      BandRenderer br = pauseBands();
+      drawLinePixels(a, b, z, zslab);
+      bands = br;
+      return;
+    }
     sA.setT(a);
     sB.setT(b);
     sA.z = sB.z = z;//(zslab == Integer.MIN_VALUE ? 2 : zslab);
@@ -1352,6 +1508,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void drawLineAB(P3 pointA, P3 pointB) {
+    if (bands != null) {
+      bands.op(BandRenderer.LINE_AB).p(pointA).p(pointB);
+      return;
+    }
     // draw quadrilateral and hermite
     setScreeni(pointA, sA);
     setScreeni(pointB, sB);
@@ -1362,6 +1522,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void fillCylinderXYZ(short colixA, short colixB, byte endcaps,
                               int diameter, int xA, int yA, int zA, int xB,
                               int yB, int zB) {
+    if (isRecording(colixA, colixB, (short) 0)) {
+      bands.op(BandRenderer.CYLINDER_XYZ).i(colixA).i(colixB).i(endcaps)
+          .i(diameter).i(xA).i(yA).i(zA).i(xB).i(yB).i(zB);
+      return;
+    }
     //Backbone, Mps, Sticks
     if (diameter > ht3)
       return;
@@ -1393,6 +1558,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void fillCylinderScreen3I(byte endcaps, int diameter, P3 screenA,
                                    P3 screenB, P3 pt0f, P3 pt1f, float radius) {
+    if (bands != null) {
+      bands.op(BandRenderer.CYLINDER_SCREEN).i(endcaps).i(diameter).p(screenA)
+          .p(screenB);
+      return;
+    }
     //nucleic cartoon, draw arrowhead
     // this needs to be old style, not exact for performance in JavaScript.  
     if (diameter <= ht3)
@@ -1402,6 +1572,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void fillCylinder(byte endcaps, int diameter, P3i screenA, P3i screenB) {
+    if (bands != null) {
+      bands.op(BandRenderer.CYLINDER).i(endcaps).i(diameter).pi(screenA)
+          .pi(screenB);
+      return;
+    }
     // mesh(low-precision)
     if (diameter <= ht3)
       cylinder3d.renderOld(colixCurrent, colixCurrent, 0, endcaps, diameter,
@@ -1411,6 +1586,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void fillCylinderBits(byte endcaps, int diameter, P3 screenA,
                                P3 screenB) {
+    if (bands != null) {
+      bands.op(BandRenderer.CYLINDER_BITS).i(endcaps).i(diameter).p(screenA)
+          .p(screenB);
+      return;
+    }
     // dipole cross, cartoonRockets, draw line
     if (diameter <= ht3 && screenA.z != 1 && screenB.z != 1) {
       if (diameter == 0 || diameter == 1) {
@@ -1430,6 +1610,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void fillCylinderBits2(short colixA, short colixB, byte endcaps,
                                 int diameter, P3 screenA, P3 screenB) {
+    if (isRecording(colixA, colixB, (short) 0)) {
+      bands.op(BandRenderer.CYLINDER_BITS2).i(colixA).i(colixB).i(endcaps)
+          .i(diameter).p(screenA).p(screenB);
+      return;
+    }
     //Backbone, Mps, Sticks
     if (diameter > ht3)
       return;
@@ -1453,6 +1638,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void fillConeScreen3f(byte endcap, int screenDiameter, P3 screenBase,
                               P3 screenTip, boolean isBarb) {
+    if (bands != null) {
+      bands.op(BandRenderer.CONE).i(endcap).i(screenDiameter).p(screenBase)
+          .p(screenTip).i(isBarb ? 1 : 0);
+      return;
+    }
     // cartoons, rockets
     if (screenDiameter <= ht3)
       cylinder3d.renderConeOld(colixCurrent, endcap, screenDiameter, screenBase.x,
@@ -1462,6 +1652,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void drawHermite4(int tension, P3 s0, P3 s1, P3 s2, P3 s3) {
+    if (bands != null) {
+      bands.op(BandRenderer.HERMITE4).i(tension).p(s0).p(s1).p(s2).p(s3);
+      return;
+    }
     // bioShapeRenderer
     ((HermiteRenderer) hermite3d).renderHermiteRope(false, tension, 0, 0, 0,
         s0, s1, s2, s3);
@@ -1471,6 +1665,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void drawHermite7(boolean fill, boolean border, int tension, P3 s0,
                            P3 s1, P3 s2, P3 s3, P3 s4, P3 s5, P3 s6,
                            P3 s7, int aspectRatio, short colixBack) {
+    if (isRecording(colixBack, (short) 0, (short) 0)) {
+      bands.op(BandRenderer.HERMITE7).i(fill ? 1 : 0).i(border ? 1 : 0)
+          .i(tension).p(s0).p(s1).p(s2).p(s3).p(s4).p(s5).p(s6).p(s7)
+          .i(aspectRatio).i(colixBack);
+      return;
+    }
     if (colixBack == 0) {
       ((HermiteRenderer) hermite3d).renderHermiteRibbon(fill, border, tension,
           s0, s1, s2, s3, s4, s5, s6, s7, aspectRatio, 0);
@@ -1488,6 +1688,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void fillHermite(int tension, int diameterBeg, int diameterMid,
                           int diameterEnd, P3 s0, P3 s1, P3 s2, P3 s3) {
+    if (bands != null) {
+      bands.op(BandRenderer.FILL_HERMITE).i(tension).i(diameterBeg).i(diameterMid)
+          .i(diameterEnd).p(s0).p(s1).p(s2).p(s3);
+      return;
+    }
     ((HermiteRenderer) hermite3d).renderHermiteRope(true, tension, diameterBeg,
         diameterMid, diameterEnd, s0, s1, s2, s3);
   }
@@ -1510,6 +1715,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void fillTriangleTwoSided(short normix, P3 screenA, P3 screenB,
                                    P3 screenC) {
+    if (bands != null) {
+      bands.op(BandRenderer.TRIANGLE_TWO_SIDED).i(normix).p(screenA).p(screenB)
+          .p(screenC);
+      return;
+    }
     // polyhedra
     setColorNoisy(getShadeIndex(normix));
     fillTriangleP3f(screenA, screenB, screenC, false);
@@ -1527,6 +1737,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void fillTriangle3f(P3 screenA, P3 screenB, P3 screenC,
                              boolean isSolid) {
+    if (bands != null) {
+      bands.op(BandRenderer.TRIANGLE3F).p(screenA).p(screenB).p(screenC)
+          .i(isSolid ? 1 : 0);
+      return;
+    }
     // rocket box, cartoon ribbon
     int i = getShadeIndexP3(screenA, screenB, screenC, isSolid);
     if (i < 0)
@@ -1542,6 +1757,14 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void fillTriangle3i(P3 screenA, P3 screenB, P3 screenC, T3 ptA,
                              T3 ptB, T3 ptC, boolean doShade) {
     // cartoon DNA plates; preset color
+    if (bands != null) {
+      bands.op(BandRenderer.TRIANGLE3I).p(screenA).p(screenB)
+          .i(screenC == null ? 0 : 1);
+      if (screenC != null)
+        bands.p(screenC);
+      bands.i(doShade ? 1 : 0);
+      return;
+    }
     if (doShade) {
       V3 v = vectorAB;
       v.set(screenB.x - screenA.x, screenB.y - screenA.y, screenB.z - screenA.z);
@@ -1566,6 +1789,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void fillTriangle3CN(P3i screenA, short colixA, short normixA,
                               P3i screenB, short colixB, short normixB,
                               P3i screenC, short colixC, short normixC) {
+    if (isRecording(colixA, colixB, colixC)) {
+      bands.op(BandRenderer.TRIANGLE3CN).pi(screenA).i(colixA).i(normixA)
+          .pi(screenB).i(colixB).i(normixB).pi(screenC).i(colixC).i(normixC);
+      return;
+    }
     ((TriangleRenderer) triangle3d).fillTriangle(screenA, screenB, screenC,
         checkGouraud(colixA, colixB, colixC, normixA, normixB, normixC));
   }
@@ -1574,6 +1802,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void fillTriangle3CNBits(P3 screenA, short colixA, short normixA, P3 screenB,
                                   short colixB, short normixB, P3 screenC, short colixC,
                                   short normixC, boolean twoSided) {
+    if (isRecording(colixA, colixB, colixC)) {
+      bands.op(BandRenderer.TRIANGLE3CN_BITS).p(screenA).i(colixA).i(normixA)
+          .p(screenB).i(colixB).i(normixB).p(screenC).i(colixC).i(normixC)
+          .i(twoSided ? 1 : 0);
+      return;
+    }
     // mesh, isosurface
     fillTriangleP3f(screenA, screenB, screenC,
         checkGouraud(colixA, colixB, colixC, normixA, normixB, normixC));
@@ -1626,6 +1860,11 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void fillQuadrilateral(P3 screenA, P3 screenB, P3 screenC, P3 screenD, boolean isSolid) {
+    if (bands != null) {
+      bands.op(BandRenderer.QUADRILATERAL).p(screenA).p(screenB).p(screenC)
+          .p(screenD).i(isSolid ? 1 : 0);
+      return;
+    }
     // cartoon ribbon, rocket boxes
     int i = getShadeIndexP3(screenA, screenB, screenC, isSolid);
     if (i < 0)
@@ -1644,6 +1883,10 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void plotPixelClippedP3i(P3i screen) {
+    if (bands != null) {
+      bands.op(BandRenderer.PIXEL_P3I).pi(screen);
+      return;
+    }
     // hermite only; export checks for clipping; overridden in Export3D
     plotPixelClippedArgb(argbCurrent, screen.x, screen.y, screen.z, width,
         zbuf, pixel);
@@ -1671,6 +1914,13 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   public void plotImagePixel(int argb, int x, int y, int z, byte shade,
                              int bgargb, int width, int height, int[] zbuf,
                              Object p, int transpLog) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      plotImagePixel(argb, x, y, z, shade, bgargb, width, height, zbuf, p,
+          transpLog);
+      bands = b;
+      return;
+    }
     // drawString via text3d.plotClipped; overridden in Export
     if (x < 0 || x >= width || y < 0 || y >= height)
       return;
@@ -1682,6 +1932,7 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
     // cylinder3d.renderFlatEndcap, triangle3d.fillRaster
     int depth, slab;
     if (count <= 0 || y < 0 || y >= height || x >= width
+        || y < bandTop || y >= bandBottom
         || (zAtLeft < (slab = this.slab) && zPastRight < slab)
         || (zAtLeft > (depth = this.depth) && zPastRight > depth))
       return;
@@ -1744,7 +1995,7 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
                                  int zPastRight, Rgb16 rgb16Left,
                                  Rgb16 rgb16Right) {
     // for isosurface Triangle3D.fillRaster
-    if (count <= 0)
+    if (count <= 0 || y < bandTop || y >= bandBottom)
       return;
     int seed = ((x << 16) + (y << 1) ^ 0x33333333) & 0x7FFFFFFF;
     // scale the z coordinates;
@@ -1798,6 +2049,7 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
     int depth, slab;
 
     if (count <= 0 || y < 0 || y >= height || x >= width
+        || y < bandTop || y >= bandBottom
         || (zAtLeft < (slab = this.slab) && zPastRight < slab)
         || (zAtLeft > (depth = this.depth) && zPastRight > depth))
       return;
@@ -1854,7 +2106,7 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
                                  Rgb16 rgb16Right, float a, float b) {
     // for isosurface Triangle3D.fillRaster
     
-    if (count <= 0)
+    if (count <= 0 || y < bandTop || y >= bandBottom)
       return;
     int seed = ((x << 16) + (y << 1) ^ 0x33333333) & 0x7FFFFFFF;
     // scale the z coordinates;
@@ -1969,6 +2221,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
 
   @Override
   public void renderBackground(JmolRendererInterface jmolRenderer) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      renderBackground(jmolRenderer);
+      bands = b;
+      return;
+    }
     if (backgroundImage != null)
       plotImage(Integer.MIN_VALUE, 0, Integer.MIN_VALUE, backgroundImage,
           jmolRenderer, (short) 0, 0, 0);
@@ -2053,6 +2311,195 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   }
 
 
+  /////////// band-parallel rendering ///////////
+
+  /**
+   * @param colixA
+   * @param colixB
+   * @param colixC
+   * @return true if calls are being recorded for the bands; a color that
+   *         changes shared shading ends band-parallel rendering for the rest
+   *         of the frame
+   */
+  private boolean isRecording(short colixA, short colixB, short colixC) {
+    if (bands == null)
+      return false;
+    if (bands.canRecord(colixA, colixB, colixC))
+      return true;
+    bands.flush();
+    bands = null;
+    return false;
+  }
+
+  /**
+   * Replay anything recorded so far and detach the bands, so that this
+   * Graphics3D can carry out a call itself.
+   * 
+   * @return the bands, to be restored after the call
+   */
+  private BandRenderer pauseBands() {
+    BandRenderer b = bands;
+    b.flush();
+    bands = null;
+    return b;
+  }
+
+  /**
+   * @param ya
+   * @param yb
+   * @return true if no row from ya to yb (in either order, give or take two)
+   *         is drawn by this band
+   */
+  boolean isOutsideBand(int ya, int yb) {
+    return (ya < yb ? yb + 2 < bandTop || ya - 2 >= bandBottom
+        : ya + 2 < bandTop || yb - 2 >= bandBottom);
+  }
+
+  /**
+   * Create a Graphics3D that will draw one band of this one's screen, using
+   * its shader and, once started, its buffers.
+   * 
+   * @return the band
+   */
+  Graphics3D newBand() {
+    final Graphics3D b = new Graphics3D();
+    b.vwr = vwr;
+    b.apiPlatform = apiPlatform;
+    b.shader = shader;
+    b.pixel = b.pixel0 = new Pixelator(b) {
+      @Override
+      void addPixel(int offset, int z, int p) {
+        if (offset >= b.bandOffset0 && offset < b.bandOffset1)
+          super.addPixel(offset, z, p);
+      }
+    };
+    b.pixelT0 = new PixelatorT(b) {
+      @Override
+      void addPixel(int offset, int z, int p) {
+        if (offset >= b.bandOffset0 && offset < b.bandOffset1)
+          super.addPixel(offset, z, p);
+      }
+    };
+    b.line3d = new LineRenderer(b);
+    b.sphere3d = new SphereRenderer(b);
+    b.cylinder3d = new CylinderRenderer(b);
+    return b;
+  }
+
+  /**
+   * Start this band with the state of the Graphics3D that is recording.
+   * 
+   * @param g
+   * @param top
+   *        first row
+   * @param bottom
+   *        row past the last
+   */
+  void setBand(Graphics3D g, int top, int bottom) {
+    if (windowWidth != g.windowWidth || windowHeight != g.windowHeight
+        || antialiasThisFrame != g.antialiasThisFrame)
+      line3d.clearLineCache();
+    windowWidth = g.windowWidth;
+    windowHeight = g.windowHeight;
+    antialiasThisFrame = g.antialiasThisFrame;
+    setWidthHeight(antialiasThisFrame);
+    bandTop = top;
+    bandBottom = bottom;
+    bandOffset0 = top * width;
+    bandOffset1 = bottom * width;
+    pbuf = g.pbuf;
+    zbuf = g.zbuf;
+    pbufT = g.pbufT;
+    zbufT = g.zbufT;
+    bgcolor = pixel0.bgcolor = pixelT0.bgcolor = g.bgcolor;
+    pixel0.setBuf();
+    pixelT0.setBuf();
+    slab = g.slab;
+    depth = g.depth;
+    isPass2 = g.isPass2;
+    pass2Flag01 = g.pass2Flag01;
+    twoPass = g.twoPass;
+    renderLow = g.renderLow;
+    translucentCoverOnly = g.translucentCoverOnly;
+    inGreyscaleMode = g.inGreyscaleMode;
+    changeableColixMap = g.changeableColixMap;
+    haveTranslucentObjects = false;
+    System.arraycopy(g.shadeIndexes, 0, shadeIndexes, 0, normixCount);
+    System.arraycopy(g.shadeIndexes2Sided, 0, shadeIndexes2Sided, 0,
+        normixCount);
+    if (g.circle3d != null)
+      addRenderer(T.circle);
+    if (g.hermite3d != null)
+      addRenderer(T.hermitelevel);
+    if (g.triangle3d != null) {
+      addRenderer(T.triangles);
+      ((PrecisionRenderer) triangle3d).isOrthographic = ((PrecisionRenderer) g.triangle3d).isOrthographic;
+    }
+    ((PrecisionRenderer) line3d).isOrthographic = ((PrecisionRenderer) g.line3d).isOrthographic;
+    g.getShades(g.colixCurrent);
+    setColorState(g);
+  }
+
+  /**
+   * Make sure that the bands will only read shared shading.
+   */
+  void prepareBands() {
+    getShades(C.BLACK);
+    sphere3d.createSphereShapes();
+  }
+
+  /**
+   * Take up the final state of the bands, which is the same for all of them.
+   * 
+   * @param band
+   */
+  void endBands(Graphics3D band) {
+    setColorState(band);
+  }
+
+  private void setColorState(Graphics3D g) {
+    colixCurrent = g.colixCurrent;
+    argbCurrent = g.argbCurrent;
+    argbNoisyUp = g.argbNoisyUp;
+    argbNoisyDn = g.argbNoisyDn;
+    shadesCurrent = g.shadesCurrent;
+    currentShadeIndex = g.currentShadeIndex;
+    translucencyMask = g.translucencyMask;
+    translucencyLog = g.translucencyLog;
+    lastRawColor = g.lastRawColor;
+    wasScreened = g.wasScreened;
+    zMargin = g.zMargin;
+    pixel = getPixelator(g.pixel, g);
+  }
+
+  /**
+   * @param p
+   *        a pixelator of g
+   * @param g
+   * @return the pixelator of this Graphics3D with the same role
+   */
+  private Pixelator getPixelator(Pixelator p, Graphics3D g) {
+    if (p == null)
+      return null;
+    if (p == g.pixel0)
+      return pixel0;
+    if (p == g.pixelT0)
+      return pixelT0;
+    Pixelator q;
+    if (p == g.pixelShaded) {
+      if (pixelShaded == null)
+        pixelShaded = new PixelatorShaded(this);
+      q = pixelShaded.setFrom(g.pixelShaded);
+    } else {
+      if (pixelScreened == null)
+        pixelScreened = new PixelatorScreened(this, pixel0);
+      q = pixelScreened;
+      q.width = p.width;
+    }
+    q.p0 = getPixelator(p.p0, g);
+    return q;
+  }
+
   /////////// special rendering ///////////
 
   /**
@@ -2065,6 +2512,12 @@ final public class Graphics3D extends GData implements JmolRendererInterface {
   @Override
   public void renderCrossHairs(int[] minMax, int screenWidth, int screenHeight,
                                P3 navOffset, float navDepth) {
+    if (bands != null) {
+      BandRenderer b = pauseBands();
+      renderCrossHairs(minMax, screenWidth, screenHeight, navOffset, navDepth);
+      bands = b;
+      return;
+    }
     // this is the square and crosshairs for the navigator
     boolean antialiased = isAntialiased();
     setC(navDepth < 0 ? C.RED : navDepth > 100 ? C.GREEN : C.GOLD);
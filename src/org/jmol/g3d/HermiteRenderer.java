@@ -60,8 +60,8 @@ import javajs.util.V3;
  */
 public class HermiteRenderer implements G3DRenderer {
 
-  private static V3 vAB = new V3();
-  private static V3 vAC = new V3();
+  private final V3 vAB = new V3();
+  private final V3 vAC = new V3();
 
   /* really a private class to g3d and export3d */
 
@@ -366,7 +366,7 @@ public class HermiteRenderer implements G3DRenderer {
     }
   }
  
-  private static int isFront(P3 a, P3 b, P3 c) {
+  private int isFront(P3 a, P3 b, P3 c) {
     vAB.sub2(b, a);
     vAC.sub2(c, a);
     vAB.cross(vAB, vAC);
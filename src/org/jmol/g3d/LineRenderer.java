@@ -204,6 +204,8 @@ final class LineRenderer extends PrecisionRenderer {
       case VISIBILITY_UNCLIPPED:
         clipped = false;
       }
+    if (screenMask == 0 && g3d.isOutsideBand(y, y + dy))
+      return;
     // special shading for bonds
     int[] zbuf = g3d.zbuf;
     int width = g3d.width;
@@ -252,6 +254,10 @@ final class LineRenderer extends PrecisionRenderer {
     int zCurrentScaled = z << 10;
     int argbUp = argb1Up;
     int argbDn = argb1Dn;
+    // with parallelImages, noise depends only upon position, not upon what
+    // has been drawn before
+    boolean fixedNoise = shader.fixedNoise;
+    int seed = ((x << 16) + (y << 1) ^ 0x33333333) & 0x7FFFFFFF;
     if (dy <= dx) {
       int roundingFactor = dx - 1;
       if (dz < 0)
@@ -282,8 +288,10 @@ final class LineRenderer extends PrecisionRenderer {
         if (argb != 0 && n < n2 && offset >= 0 && offset < offsetMax
             && runIndex < rise) {
           int zCurrent = zCurrentScaled >> 10;
+          if (fixedNoise)
+            seed = ((seed << 16) + (seed << 1) + seed) & 0x7FFFFFFF;
           if (zCurrent < zbuf[offset]) {
-            int rand8 = shader.nextRandom8Bit();
+            int rand8 = (fixedNoise ? seed >> 23 : shader.nextRandom8Bit());
             p.addPixel(offset, zCurrent, rand8 < 85 ? argbDn
                 : (rand8 > 170 ? argbUp : argb));
           }
@@ -320,8 +328,10 @@ final class LineRenderer extends PrecisionRenderer {
         if (argb != 0 && n < n2 && offset >= 0 && offset < offsetMax
             && runIndex < rise) {
           int zCurrent = zCurrentScaled >> 10;
+          if (fixedNoise)
+            seed = ((seed << 16) + (seed << 1) + seed) & 0x7FFFFFFF;
           if (zCurrent < zbuf[offset]) {
-            int rand8 = g3d.shader.nextRandom8Bit();
+            int rand8 = (fixedNoise ? seed >> 23 : shader.nextRandom8Bit());
             p.addPixel(offset, zCurrent, rand8 < 85 ? argbDn
                 : (rand8 > 170 ? argbUp : argb));
           }
@@ -352,6 +362,8 @@ final class LineRenderer extends PrecisionRenderer {
     z2t = bz;
     if (clipped && getTrimmedLineImpl() == VISIBILITY_OFFSCREEN)
       return;
+    if (screenMask == 0 && g3d.isOutsideBand(y, by))
+      return;
     // special shading for rockets; somewhat slower than above;
     int[] zbuf = g3d.zbuf;
     int width = g3d.width;
@@ -399,6 +411,8 @@ final class LineRenderer extends PrecisionRenderer {
       p = g3d.setScreened((screenMask & 1) == 1);
       g3d.currentShadeIndex = 0;
     }
+    boolean fixedNoise = shader.fixedNoise;
+    int seed = ((x << 16) + (y << 1) ^ 0x33333333) & 0x7FFFFFFF;
     // "x" is not necessarily the x-axis.
 
     //  x----x1t-----------x2t---x2
@@ -428,8 +442,10 @@ final class LineRenderer extends PrecisionRenderer {
       if (argb != 0 && isInWindow && offset >= 0 && offset < offsetMax
           && runIndex < rise) {
         zCurrent = getZCurrent(a, b, i);
+        if (fixedNoise)
+          seed = ((seed << 16) + (seed << 1) + seed) & 0x7FFFFFFF;
         if (zCurrent < zbuf[offset]) {
-          int rand8 = shader.nextRandom8Bit();
+          int rand8 = (fixedNoise ? seed >> 23 : shader.nextRandom8Bit());
           p.addPixel(offset, (int) zCurrent, rand8 < 85 ? argbDn
               : (rand8 > 170 ? argbUp : argb));
         }
@@ -466,6 +482,8 @@ final class LineRenderer extends PrecisionRenderer {
     z2t = bz;
     if (clipped && getTrimmedLineImpl() == VISIBILITY_OFFSCREEN)
       return;
+    if (screenMask == 0 && g3d.isOutsideBand(y, by))
+      return;
     // special shading for rockets; somewhat slower than above;
     int[] zbuf = g3d.zbuf;
     int width = g3d.width;
@@ -513,6 +531,8 @@ final class LineRenderer extends PrecisionRenderer {
       p = g3d.setScreened((screenMask & 1) == 1);
       g3d.currentShadeIndex = 0;
     }
+    boolean fixedNoise = shader.fixedNoise;
+    int seed = ((x << 16) + (y << 1) ^ 0x33333333) & 0x7FFFFFFF;
     // "x" is not necessarily the x-axis.
 
     //  x----x1t-----------x2t---x2
@@ -542,8 +562,10 @@ final class LineRenderer extends PrecisionRenderer {
       if (argb != 0 && isInWindow && offset >= 0 && offset < offsetMax
           && runIndex < rise) {
         zCurrent = getZCurrent(a, b, i);
+        if (fixedNoise)
+          seed = ((seed << 16) + (seed << 1) + seed) & 0x7FFFFFFF;
         if (zCurrent < zbuf[offset]) {
-          int rand8 = shader.nextRandom8Bit();
+          int rand8 = (fixedNoise ? seed >> 23 : shader.nextRandom8Bit());
           p.addPixel(offset, (int) zCurrent, rand8 < 85 ? argbDn
               : (rand8 > 170 ? argbUp : argb));
         }
@@ -584,6 +606,8 @@ final class LineRenderer extends PrecisionRenderer {
         ptB.set(x2t, y2t, z2t);
       }
     }
+    if (g3d.isOutsideBand(ptA.y, ptB.y))
+      return;
     int[] zbuf = g3d.zbuf;
     int width = g3d.width;
     int runIndex = 0;
@@ -808,6 +832,8 @@ final class LineRenderer extends PrecisionRenderer {
                                   int dx, int dy, int dz, boolean clipped,
                                   int run, int rise) {
     // standard, dashed or not dashed -- isosurface mesh
+    if (g3d.isOutsideBand(y, y + dy))
+      return;
     int[] zbuf = g3d.zbuf;
     int width = g3d.width;
     int runIndex = 0;
@@ -55,6 +55,15 @@ class PixelatorShaded extends Pixelator {
     return this;
   }
 
+  /**
+   * @param ps
+   *        the PixelatorShaded of another Graphics3D
+   * @return this, with the same settings; for band-parallel rendering
+   */
+  Pixelator setFrom(PixelatorShaded ps) {
+    return set(ps.zSlab, ps.zDepth, ps.zShadePower);
+  }
+
   /**
   *   @j2sOverride
   */
@@ -100,8 +100,9 @@ public class SphereRenderer {
     int minX = x - radius;
     int maxX = x + radius;
     int minY = y - radius;
-    int maxY = y + radius;    
-    shader.nOut = shader.nIn = 0;
+    int maxY = y + radius;
+    if (maxY < g3d.bandTop || minY >= g3d.bandBottom)
+      return;
     zbuf = g3d.zbuf;
     height = g3d.height;
     width = g3d.width;
@@ -109,6 +110,7 @@ public class SphereRenderer {
     Shader sh = shader;
     this.mat = mat;
     if (mat != null) {
+      sh.nOut = sh.nIn = 0;
       this.coef = coef;
       this.mDeriv = mDeriv;
       this.selectedOctant = selectedOctant;
@@ -141,52 +143,7 @@ public class SphereRenderer {
         this.mDeriv = null;
       }
     } else {
-      int[] ss = sh.sphereShapeCache[diameter - 1];
-      if (ss == null) {
-        int countSE = 0;
-        boolean d = (diameter & 1) != 0;
-        float radiusF = diameter / 2.0f;
-        float radiusF2 = radiusF * radiusF;
-        radius = (diameter + 1) / 2;
-        float ys = d ? 0 : 0.5f;
-        for (int i = 0; i < radius; ++i, ++ys) {
-          float y2 = ys * ys;
-          float xs = d ? 0 : 0.5f;
-          for (int j = 0; j < radius; ++j, ++xs) {
-            float x2 = xs * xs;
-            float z2 = radiusF2 - y2 - x2;
-            if (z2 >= 0)
-              ++countSE;
-          }
-        }        
-        ss = new int[countSE];
-        int offset = 0;
-        ys = d ? 0 : 0.5f;
-        for (int i = 0; i < radius; ++i, ++ys) {
-          float y2 = ys * ys;
-          float xs = d ? 0 : 0.5f;
-          for (int j = 0; j < radius; ++j, ++xs) {
-            float x2 = xs * xs;
-            float z2 = radiusF2 - y2 - x2;
-            if (z2 >= 0) {
-              float zs = (float)Math.sqrt(z2);
-              int height = (int)zs;
-              int shadeIndexSE = sh.getShadeN( xs,  ys, zs, radiusF);
-              int shadeIndexSW = sh.getShadeN(-xs,  ys, zs, radiusF);
-              int shadeIndexNE = sh.getShadeN( xs, -ys, zs, radiusF);
-              int shadeIndexNW = sh.getShadeN(-xs, -ys, zs, radiusF);
-              int packed = (height |
-                            (shadeIndexSE << 7) |
-                            (shadeIndexSW << 13) |
-                            (shadeIndexNE << 19) |
-                            (shadeIndexNW << 25));
-              ss[offset++] = packed;
-            }
-          }
-          ss[offset - 1] |= 0x80000000;
-        }
-        sh.sphereShapeCache[diameter - 1] = ss;
-      }
+      int[] ss = getSphereShape(diameter);
       if (minX < 0 || maxX >= width || minY < 0 || maxY >= height
           || minZ < slab || z > depth)
         renderSphereClipped(ss, x, y, z, diameter, shades);
@@ -196,6 +153,76 @@ public class SphereRenderer {
     zbuf = null;
   } 
   
+  /**
+   * Get the packed shape of a sphere of diameter up to Shader.maxSphereCache,
+   * creating it if necessary. With parallelImages, the noise in the shading is
+   * started afresh for each diameter, so a given sphere always looks the same.
+   * 
+   * @param diameter
+   * @return packed height and four shade indexes per pixel
+   */
+  int[] getSphereShape(int diameter) {
+    Shader sh = shader;
+    int[] ss = sh.sphereShapeCache[diameter - 1];
+    if (ss != null)
+      return ss;
+    if (sh.fixedNoise)
+      sh.resetSeed(diameter);
+    int countSE = 0;
+    boolean d = (diameter & 1) != 0;
+    float radiusF = diameter / 2.0f;
+    float radiusF2 = radiusF * radiusF;
+    int radius = (diameter + 1) / 2;
+    float ys = d ? 0 : 0.5f;
+    for (int i = 0; i < radius; ++i, ++ys) {
+      float y2 = ys * ys;
+      float xs = d ? 0 : 0.5f;
+      for (int j = 0; j < radius; ++j, ++xs) {
+        float x2 = xs * xs;
+        float z2 = radiusF2 - y2 - x2;
+        if (z2 >= 0)
+          ++countSE;
+      }
+    }
+    ss = new int[countSE];
+    int offset = 0;
+    ys = d ? 0 : 0.5f;
+    for (int i = 0; i < radius; ++i, ++ys) {
+      float y2 = ys * ys;
+      float xs = d ? 0 : 0.5f;
+      for (int j = 0; j < radius; ++j, ++xs) {
+        float x2 = xs * xs;
+        float z2 = radiusF2 - y2 - x2;
+        if (z2 >= 0) {
+          float zs = (float)Math.sqrt(z2);
+          int height = (int)zs;
+          int shadeIndexSE = sh.getShadeN( xs,  ys, zs, radiusF);
+          int shadeIndexSW = sh.getShadeN(-xs,  ys, zs, radiusF);
+          int shadeIndexNE = sh.getShadeN( xs, -ys, zs, radiusF);
+          int shadeIndexNW = sh.getShadeN(-xs, -ys, zs, radiusF);
+          int packed = (height |
+                        (shadeIndexSE << 7) |
+                        (shadeIndexSW << 13) |
+                        (shadeIndexNE << 19) |
+                        (shadeIndexNW << 25));
+          ss[offset++] = packed;
+        }
+      }
+      ss[offset - 1] |= 0x80000000;
+    }
+    return sh.sphereShapeCache[diameter - 1] = ss;
+  }
+
+  /**
+   * Create any missing cached sphere shapes before band-parallel rendering,
+   * so that the bands only read the cache.
+   */
+  void createSphereShapes() {
+    for (int d = Shader.maxSphereCache; d > 0; d--)
+      if (d <= maxOddSizeSphere || (d & 1) == 0)
+        getSphereShape(d);
+  }
+
   private void renderSphereUnclipped(int[] sphereShape, int z, int diameter, int[] shades) {
     int offsetSphere = 0;
     int evenSizeCorrection = 1 - (diameter & 1);
@@ -0,0 +1,465 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.jmol.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+
+import javajs.J2SIgnoreImport;
+import javajs.api.GenericZipTools;
+import javajs.util.Lst;
+import javajs.util.Rdr;
+import javajs.util.SB;
+
+import org.jmol.util.Logger;
+
+/**
+ * Random access to the entries of a local zip file through its central
+ * directory, so that listing a large zip file or reading one entry from it
+ * does not mean reading the whole file. Java only.
+ *
+ * The central directory (including ZIP64) is read once and its entry offsets
+ * kept, by path, until the file's length or modification time changes. An
+ * entry is read with positional reads of just its own bytes; STORED entries go
+ * straight from the file channel into the returned array, and DEFLATED entries
+ * are inflated from their compressed bytes alone.
+ *
+ * Anything not handled here -- files not starting with a local header (PNGJ,
+ * gzip, tar), encrypted entries, other compression methods, or a bad CRC --
+ * returns null, and the caller reads the file as a stream as before.
+ *
+ */
+@J2SIgnoreImport({ File.class, RandomAccessFile.class, ByteBuffer.class,
+    FileChannel.class, CRC32.class, Inflater.class })
+public class ZipIndex {
+
+  private final static int MAX_INDEXES = 32;
+  private final static int LOC_SIG = 0x04034b50;
+  private final static int CEN_SIG = 0x02014b50;
+  private final static int END_SIG = 0x06054b50;
+  private final static int END64_SIG = 0x06064b50;
+  private final static int END64_LOC_SIG = 0x07064b50;
+  private final static int LOC_HEADER = 30;
+  private final static int CEN_HEADER = 46;
+  private final static int END_HEADER = 22;
+
+  private static Map<String, ZipIndex> indexes = new Hashtable<String, ZipIndex>();
+
+  private final String path;
+  private final long length, lastModified;
+  private long cenPos;
+
+  private String[] names;
+  private long[] offsets, csizes, sizes;
+  private int[] methods, crcs;
+  private boolean[] isEncrypted;
+  private final Map<String, Integer> htEntries = new Hashtable<String, Integer>();
+
+  private ZipIndex(String path, long length, long lastModified) {
+    this.path = path;
+    this.length = length;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * @param fileName
+   *        local file path
+   * @return the index for this file, or null if it is not a plain zip file
+   */
+  public static ZipIndex getIndex(String fileName) {
+    File f = new File(fileName);
+    if (!f.isFile())
+      return null;
+    String path = f.getAbsolutePath();
+    long length = f.length();
+    long lastModified = f.lastModified();
+    synchronized (indexes) {
+      ZipIndex zi = indexes.get(path);
+      if (zi != null && zi.length == length && zi.lastModified == lastModified)
+        return zi;
+    }
+    ZipIndex zi = new ZipIndex(path, length, lastModified);
+    RandomAccessFile raf = null;
+    try {
+      raf = new RandomAccessFile(f, "r");
+      if (!zi.readDirectory(raf.getChannel()))
+        return null;
+    } catch (Throwable e) {
+      Logger.error("ZipIndex could not read " + path + ": " + e);
+      return null;
+    } finally {
+      close(raf);
+    }
+    synchronized (indexes) {
+      if (indexes.size() >= MAX_INDEXES)
+        indexes.clear();
+      indexes.put(path, zi);
+    }
+    return zi;
+  }
+
+  private boolean readDirectory(FileChannel ch) throws IOException {
+    if (length < END_HEADER || getInt(read(ch, 0, 4), 0) != LOC_SIG)
+      return false;
+    // the end record is followed only by a comment of at most 65535 bytes
+    int n = (int) Math.min(length, END_HEADER + 0xFFFF);
+    long tailPos = length - n;
+    byte[] tail = read(ch, tailPos, n);
+    int pt = n - END_HEADER;
+    while (pt >= 0 && getInt(tail, pt) != END_SIG)
+      pt--;
+    if (pt < 0)
+      return false;
+    long nEntries = getShort(tail, pt + 10);
+    long cenSize = getUInt(tail, pt + 12);
+    long cenPos = getUInt(tail, pt + 16);
+    if (nEntries == 0xFFFF || cenSize == 0xFFFFFFFFL || cenPos == 0xFFFFFFFFL) {
+      // ZIP64: the locator just before the end record points to the zip64 end record
+      long locPos = tailPos + pt - 20;
+      if (locPos < 0)
+        return false;
+      byte[] loc = read(ch, locPos, 20);
+      if (getInt(loc, 0) != END64_LOC_SIG)
+        return false;
+      byte[] end64 = read(ch, getLong(loc, 8), 56);
+      if (getInt(end64, 0) != END64_SIG)
+        return false;
+      nEntries = getLong(end64, 32);
+      cenSize = getLong(end64, 40);
+      cenPos = getLong(end64, 48);
+    }
+    if (cenPos + cenSize > length || cenSize > Integer.MAX_VALUE
+        || nEntries > cenSize / CEN_HEADER)
+      return false;
+    this.cenPos = cenPos;
+    byte[] cen = read(ch, cenPos, (int) cenSize);
+    n = (int) nEntries;
+    names = new String[n];
+    offsets = new long[n];
+    csizes = new long[n];
+    sizes = new long[n];
+    methods = new int[n];
+    crcs = new int[n];
+    isEncrypted = new boolean[n];
+    pt = 0;
+    for (int i = 0; i < n; i++) {
+      if (pt + CEN_HEADER > cenSize || getInt(cen, pt) != CEN_SIG)
+        return false;
+      isEncrypted[i] = ((getShort(cen, pt + 8) & 1) != 0);
+      methods[i] = getShort(cen, pt + 10);
+      crcs[i] = getInt(cen, pt + 16);
+      csizes[i] = getUInt(cen, pt + 20);
+      sizes[i] = getUInt(cen, pt + 24);
+      int nameLen = getShort(cen, pt + 28);
+      int extraLen = getShort(cen, pt + 30);
+      int commentLen = getShort(cen, pt + 32);
+      offsets[i] = getUInt(cen, pt + 42);
+      pt += CEN_HEADER;
+      if (pt + nameLen + extraLen > cenSize)
+        return false;
+      String name = names[i] = new String(cen, pt, nameLen, "UTF-8");
+      pt += nameLen;
+      setZip64(cen, pt, pt + extraLen, i);
+      pt += extraLen + commentLen;
+      // as for a stream, the first entry of a given name is the one found
+      if (!htEntries.containsKey(name))
+        htEntries.put(name, Integer.valueOf(i));
+    }
+    return true;
+  }
+
+  /**
+   * Replace 0xFFFFFFFF sizes and offset with their values in a zip64 extra
+   * field, which has just the ones needed, in this order.
+   *
+   * @param cen
+   * @param pt
+   * @param end
+   * @param i
+   */
+  private void setZip64(byte[] cen, int pt, int end, int i) {
+    while (pt + 4 <= end) {
+      int id = getShort(cen, pt);
+      int len = getShort(cen, pt + 2);
+      pt += 4;
+      if (id == 1) {
+        int p = pt;
+        if (sizes[i] == 0xFFFFFFFFL && p + 8 <= end) {
+          sizes[i] = getLong(cen, p);
+          p += 8;
+        }
+        if (csizes[i] == 0xFFFFFFFFL && p + 8 <= end) {
+          csizes[i] = getLong(cen, p);
+          p += 8;
+        }
+        if (offsets[i] == 0xFFFFFFFFL && p + 8 <= end)
+          offsets[i] = getLong(cen, p);
+        return;
+      }
+      pt += len;
+    }
+  }
+
+  /**
+   * As for ZipTools.getZipDirectoryAndClose.
+   *
+   * @param manifestID
+   *        if not null, the first entry is the manifest, if found, or ""
+   * @return entry names, without "__MACOS" resource forks
+   */
+  public String[] getDirectory(String manifestID) {
+    Lst<String> v = new Lst<String>();
+    String manifest = null;
+    for (int i = 0; i < names.length; i++) {
+      String fileName = names[i];
+      if (manifestID != null && fileName.startsWith(manifestID)) {
+        byte[] bytes = getEntryBytes(i);
+        if (bytes == null)
+          return null;
+        manifest = Rdr.fixUTF(bytes);
+      } else if (!fileName.startsWith("__MACOS")) {
+        v.addLast(fileName);
+      }
+    }
+    if (manifestID != null)
+      v.add(0, manifest == null ? "" : manifest + "\n############\n");
+    return v.toArray(new String[v.size()]);
+  }
+
+  /**
+   * As for ZipTools.getZipFileDirectory starting at list[1]; files within
+   * this entry are read as a stream.
+   *
+   * @param jzt
+   * @param list
+   * @param asBufferedInputStream
+   * @return directory listing or subfile contents, or null if the entry could
+   *         not be read here
+   */
+  public Object getZipFileDirectory(GenericZipTools jzt, String[] list,
+                                    boolean asBufferedInputStream) {
+    if (list.length < 2)
+      return null;
+    String fileName = list[1];
+    boolean isAll = (fileName.equals("."));
+    if (isAll || fileName.lastIndexOf("/") == fileName.length() - 1) {
+      SB ret = new SB();
+      for (int i = 0; i < names.length; i++)
+        if (isAll || names[i].startsWith(fileName))
+          ret.append(names[i]).appendC('\n');
+      String str = ret.toString();
+      return (asBufferedInputStream ? Rdr.getBIS(str.getBytes()) : str);
+    }
+    int pt = fileName.indexOf(":asBinaryString");
+    boolean asBinaryString = (pt > 0);
+    if (asBinaryString)
+      fileName = fileName.substring(0, pt);
+    Integer i = htEntries.get(fileName.replace('\\', '/'));
+    if (i == null)
+      return "";
+    byte[] bytes = getEntryBytes(i.intValue());
+    if (bytes == null)
+      return null;
+    if (Rdr.isZipB(bytes) || Rdr.isPngZipB(bytes))
+      return jzt.getZipFileDirectory(Rdr.getBIS(bytes), list, 2,
+          asBufferedInputStream);
+    if (asBufferedInputStream)
+      return Rdr.getBIS(bytes);
+    if (asBinaryString) {
+      SB ret = new SB();
+      for (int j = 0; j < bytes.length; j++)
+        ret.append(Integer.toHexString(bytes[j] & 0xFF)).appendC(' ');
+      return ret.toString();
+    }
+    if (Rdr.isGzipB(bytes))
+      try {
+        bytes = Rdr.getLimitedStreamBytes(jzt.getUnGzippedInputStream(bytes),
+            -1);
+      } catch (IOException e) {
+        return "";
+      }
+    return Rdr.fixUTF(bytes);
+  }
+
+  /**
+   * As for ZipTools.getZipFileContentsAsBytes starting at list[1].
+   *
+   * @param jzt
+   * @param list
+   * @return entry bytes, or null if the entry could not be read here
+   */
+  public Object getZipFileContentsAsBytes(GenericZipTools jzt, String[] list) {
+    String fileName = list[1];
+    if (fileName.lastIndexOf("/") == fileName.length() - 1)
+      return new byte[0];
+    Integer i = htEntries.get(fileName);
+    if (i == null)
+      return new byte[0];
+    byte[] bytes = getEntryBytes(i.intValue());
+    return (bytes != null && (Rdr.isZipB(bytes) || Rdr.isPngZipB(bytes))
+        && list.length > 2 ? jzt.getZipFileContentsAsBytes(Rdr.getBIS(bytes),
+        list, 2) : bytes);
+  }
+
+  /**
+   * The local header, data, and data descriptor of one entry, which a
+   * ZipInputStream reads as a zip file of just that entry. Not for Spartan
+   * zip files, which are read as a whole.
+   *
+   * @param name
+   * @return entry record, or null if not available
+   */
+  public byte[] getEntryRecord(String name) {
+    if (name.startsWith("/"))
+      name = name.substring(1);
+    Integer index = htEntries.get(name);
+    if (index == null)
+      return null;
+    long end = cenPos;
+    for (int i = names.length; --i >= 0;) {
+      if (names[i].endsWith(".spardir/") || names[i].indexOf("_spartandir") >= 0)
+        return null;
+      if (offsets[i] > offsets[index.intValue()] && offsets[i] < end)
+        end = offsets[i];
+    }
+    long pos = offsets[index.intValue()];
+    if (end - pos > Integer.MAX_VALUE)
+      return null;
+    RandomAccessFile raf = null;
+    try {
+      raf = new RandomAccessFile(path, "r");
+      return read(raf.getChannel(), pos, (int) (end - pos));
+    } catch (Throwable e) {
+      Logger.error("ZipIndex could not read " + name + " from " + path + ": "
+          + e);
+      return null;
+    } finally {
+      close(raf);
+    }
+  }
+
+  /**
+   * @param i
+   * @return the uncompressed bytes of entry i, or null if they could not be
+   *         read here
+   */
+  private byte[] getEntryBytes(int i) {
+    if (isEncrypted[i] || methods[i] != 0 && methods[i] != 8
+        || sizes[i] > Integer.MAX_VALUE - 8 || csizes[i] > Integer.MAX_VALUE - 8)
+      return null;
+    RandomAccessFile raf = null;
+    Inflater inflater = null;
+    try {
+      raf = new RandomAccessFile(path, "r");
+      FileChannel ch = raf.getChannel();
+      // the local header's name and extra field may differ in length from the central one's
+      byte[] loc = read(ch, offsets[i], LOC_HEADER);
+      if (getInt(loc, 0) != LOC_SIG)
+        return null;
+      long pos = offsets[i] + LOC_HEADER + getShort(loc, 26)
+          + getShort(loc, 28);
+      byte[] bytes;
+      if (methods[i] == 0) {
+        bytes = read(ch, pos, (int) sizes[i]);
+      } else {
+        // one extra byte, as Inflater in nowrap mode may need it
+        byte[] data = new byte[(int) csizes[i] + 1];
+        readFully(ch, ByteBuffer.wrap(data, 0, data.length - 1), pos);
+        bytes = new byte[(int) sizes[i]];
+        inflater = new Inflater(true);
+        inflater.setInput(data);
+        int n = 0;
+        while (n < bytes.length) {
+          int m = inflater.inflate(bytes, n, bytes.length - n);
+          if (m == 0 && (inflater.finished() || inflater.needsInput()
+              || inflater.needsDictionary()))
+            return null;
+          n += m;
+        }
+      }
+      CRC32 crc = new CRC32();
+      crc.update(bytes, 0, bytes.length);
+      return ((int) crc.getValue() == crcs[i] ? bytes : null);
+    } catch (Throwable e) {
+      Logger.error("ZipIndex could not read " + names[i] + " from " + path
+          + ": " + e);
+      return null;
+    } finally {
+      if (inflater != null)
+        inflater.end();
+      close(raf);
+    }
+  }
+
+  private static byte[] read(FileChannel ch, long pos, int n)
+      throws IOException {
+    byte[] b = new byte[n];
+    readFully(ch, ByteBuffer.wrap(b), pos);
+    return b;
+  }
+
+  private static void readFully(FileChannel ch, ByteBuffer buf, long pos)
+      throws IOException {
+    while (buf.hasRemaining()) {
+      int n = ch.read(buf, pos);
+      if (n < 0)
+        throw new IOException("unexpected end of file");
+      pos += n;
+    }
+  }
+
+  private static void close(RandomAccessFile raf) {
+    if (raf != null)
+      try {
+        raf.close();
+      } catch (Exception e) {
+        // ignore
+      }
+  }
+
+  private static int getShort(byte[] b, int pt) {
+    return (b[pt] & 0xFF) | ((b[pt + 1] & 0xFF) << 8);
+  }
+
+  private static int getInt(byte[] b, int pt) {
+    return getShort(b, pt) | (getShort(b, pt + 2) << 16);
+  }
+
+  private static long getUInt(byte[] b, int pt) {
+    return getInt(b, pt) & 0xFFFFFFFFL;
+  }
+
+  private static long getLong(byte[] b, int pt) {
+    return getUInt(b, pt) | (getUInt(b, pt + 4) << 32);
+  }
+
+}
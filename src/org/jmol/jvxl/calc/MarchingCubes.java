@@ -30,6 +30,7 @@ import org.jmol.jvxl.api.VertexDataServer;
 import org.jmol.jvxl.data.JvxlCoder;
 import org.jmol.jvxl.data.VolumeData;
 import org.jmol.jvxl.readers.Parameters;
+import org.jmol.quantum.QuantumCalculation;
 
 import javajs.util.SB;
 import javajs.util.P3;
@@ -212,11 +213,50 @@ public class MarchingCubes extends TriangleData {
   private boolean isInside;
   private P3i offset;
   private float[][][] voxelData;
-  
+
+  private PlanePipeline pipeline;
+  private float[][] pipelinePlanes;
+
+  /**
+   * Read or calculate planes on other threads while this one processes the
+   * planes already delivered. Only for readers whose getValue(x, y, z, ptyz)
+   * is no more than a lookup in the plane returned by getPlane(x); values are
+   * then taken directly from the planes delivered by the pipeline.
+   * 
+   * Java only.
+   * 
+   * @param nBuffers
+   *        number of planes that may be held, at least 3
+   * @param workers
+   *        null to read planes with getPlane(x) on one thread, or one
+   *        calculation per thread to calculate them independently
+   */
+  public void setPipelined(int nBuffers, QuantumCalculation[] workers) {
+    if (mode == MODE_PLANES && isXLowToHigh && !isContoured && cubeCountX > 0)
+      pipeline = (workers == null ? new PlanePipeline(surfaceReader,
+          cubeCountX + 1, yzCount, nBuffers) : new PlanePipeline(workers,
+          cubeCountX + 1, yzCount, nBuffers));
+  }
+
   public String getEdgeData() {
 
     if (cubeCountX < 0 || cubeCountY < 0 || cubeCountZ < 0)
       return "";
+    if (pipeline == null)
+      return getEdgeDataMC();
+    long t = System.currentTimeMillis();
+    pipelinePlanes = new float[2][];
+    pipeline.start();
+    try {
+      return getEdgeDataMC();
+    } finally {
+      pipeline.finish(System.currentTimeMillis() - t);
+      pipeline = null;
+      pipelinePlanes = null;
+    }
+  }
+
+  private String getEdgeDataMC() {
     mappingPlane = volumeData.mappingPlane;
 
     // Logger.startTimer();
@@ -412,7 +452,10 @@ public class MarchingCubes extends TriangleData {
   private void getPlane(int i, boolean andSwap) {
     if (i < 0 || i > cubeCountX)
       return;
-    /*float[] p = */surfaceReader.getPlane(i);
+    if (pipeline != null)
+      pipelinePlanes[i % 2] = pipeline.getPlane(i);
+    else
+      /*float[] p = */surfaceReader.getPlane(i);
     //dumpPlane(i, p);
     if (andSwap) {
       float[] plane = yzPlanes[0];
@@ -467,7 +510,8 @@ public class MarchingCubes extends TriangleData {
     //if (bsValues.get(pt))
       //return tempValues[ptyz];
     bsValues.set(pt);
-    float value = surfaceReader.getValue(x, y, z, ptyz);
+    float value = (pipelinePlanes == null ? surfaceReader.getValue(x, y, z,
+        ptyz) : pipelinePlanes[x % 2][ptyz]);
     if (isSquared)
       value *= value;
     tempValues[ptyz] = value;
@@ -0,0 +1,221 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.jmol.jvxl.calc;
+
+import org.jmol.jvxl.api.VertexDataServer;
+import org.jmol.quantum.QuantumCalculation;
+import org.jmol.util.Logger;
+
+/**
+ * Produces the planes of a progressive reader or of a calculated grid on
+ * other threads, so that MarchingCubes can work through plane x while plane
+ * x + 1 and those after it are still being read or calculated.
+ *
+ * A file reader's planes are read strictly in order, 0 to nPlanes - 1, by a
+ * single thread. A calculated grid's planes are independent of each other, so
+ * each of several threads, with its own calculation (see
+ * QuantumCalculation.getPlaneWorker), takes the next plane not yet taken.
+ * Each plane goes into one of a small ring of buffers. A producer waits when
+ * the ring is full, and MarchingCubes waits when the plane it needs is not
+ * yet ready. MarchingCubes always needs the current plane and the one before
+ * it, so a plane's buffer is reused only when MarchingCubes has asked for the
+ * plane two after it. Memory is therefore just a few planes of ny * nz values
+ * rather than the full grid.
+ *
+ * Java only.
+ *
+ */
+class PlanePipeline {
+
+  private final VertexDataServer reader;
+  private final QuantumCalculation[] workers;
+  private final int nPlanes;
+  private final int yzCount;
+  private final float[][] buffers;
+  private final int nBuffers;
+
+  /**
+   * the plane each buffer holds, once it is ready
+   */
+  private final int[] bufferPlanes;
+
+  /**
+   * the next plane for a producer to take
+   */
+  private int nextPlane;
+
+  /**
+   * number of planes ready
+   */
+  private int nReady;
+
+  /**
+   * the first plane MarchingCubes may still be using
+   */
+  private int iLow;
+
+  private boolean isStopped;
+  private Throwable error;
+  private Thread[] threads;
+
+  private long timeRead, timeWait;
+
+  /**
+   * @param reader
+   *        a progressive reader, read on one thread
+   * @param nPlanes
+   * @param yzCount
+   * @param nBuffers
+   *        at least 3
+   */
+  PlanePipeline(VertexDataServer reader, int nPlanes, int yzCount,
+      int nBuffers) {
+    this(reader, null, nPlanes, yzCount, nBuffers);
+  }
+
+  /**
+   * @param workers
+   *        one calculation per thread
+   * @param nPlanes
+   * @param yzCount
+   * @param nBuffers
+   *        at least the number of workers + 2
+   */
+  PlanePipeline(QuantumCalculation[] workers, int nPlanes, int yzCount,
+      int nBuffers) {
+    this(null, workers, nPlanes, yzCount, Math.max(nBuffers,
+        workers.length + 2));
+  }
+
+  private PlanePipeline(VertexDataServer reader, QuantumCalculation[] workers,
+      int nPlanes, int yzCount, int nBuffers) {
+    this.reader = reader;
+    this.workers = workers;
+    this.nPlanes = nPlanes;
+    this.yzCount = yzCount;
+    this.nBuffers = nBuffers = Math.max(nBuffers, 3);
+    buffers = new float[nBuffers][yzCount];
+    bufferPlanes = new int[nBuffers];
+    for (int i = nBuffers; --i >= 0;)
+      bufferPlanes[i] = -1;
+  }
+
+  void start() {
+    int n = (workers == null ? 1 : workers.length);
+    threads = new Thread[n];
+    for (int i = 0; i < n; i++) {
+      final int iWorker = i;
+      Thread t = threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          produce(iWorker);
+        }
+      }, "PlanePipeline" + i);
+      t.setDaemon(true);
+      t.start();
+    }
+  }
+
+  void produce(int iWorker) {
+    try {
+      while (true) {
+        int x;
+        synchronized (this) {
+          x = nextPlane++;
+          while (x < nPlanes && x - iLow >= nBuffers && !isStopped)
+            wait();
+          if (x >= nPlanes || isStopped)
+            return;
+        }
+        long t = System.currentTimeMillis();
+        float[] buffer = buffers[x % nBuffers];
+        if (workers == null)
+          System.arraycopy(reader.getPlane(x), 0, buffer, 0, yzCount);
+        else
+          workers[iWorker].getPlane(x, buffer);
+        t = System.currentTimeMillis() - t;
+        synchronized (this) {
+          timeRead += t;
+          bufferPlanes[x % nBuffers] = x;
+          nReady++;
+          notifyAll();
+        }
+      }
+    } catch (Throwable e) {
+      synchronized (this) {
+        error = e;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Wait for plane x; planes before x - 1 are released to the producers.
+   *
+   * @param x
+   * @return a buffer holding the values of plane x
+   */
+  synchronized float[] getPlane(int x) {
+    long t = System.currentTimeMillis();
+    iLow = x - 1;
+    notifyAll();
+    try {
+      while (bufferPlanes[x % nBuffers] != x && error == null)
+        wait();
+    } catch (InterruptedException e) {
+      error = e;
+    }
+    timeWait += System.currentTimeMillis() - t;
+    if (error != null)
+      throw new RuntimeException("PlanePipeline: " + error, error);
+    return buffers[x % nBuffers];
+  }
+
+  /**
+   * Stop producing, if MarchingCubes has quit early, and wait for the
+   * producer threads to finish, so that the reader is not left in use.
+   *
+   * @param timeTotal
+   *        milliseconds for the whole Marching Cubes pass
+   */
+  void finish(long timeTotal) {
+    synchronized (this) {
+      isStopped = true;
+      notifyAll();
+    }
+    for (int i = threads.length; --i >= 0;)
+      try {
+        threads[i].join();
+      } catch (InterruptedException e) {
+        // ignore
+      }
+    Logger.info("MarchingCubes: " + nReady + " planes "
+        + (workers == null ? "read on a second thread"
+            : "calculated on " + workers.length + " threads")
+        + " in " + timeRead + (workers == null ? " ms" : " ms (all threads)")
+        + "; total " + timeTotal + " ms, " + timeWait
+        + " ms of which waiting for planes");
+  }
+
+}
@@ -130,6 +130,7 @@ public class JvxlData {
   public float pointsPerAngstrom; 
   public int nPointsX, nPointsY, nPointsZ;
   public long nBytes;
+  public int voxelMapBytes; // sparse plane data used for mapping
   public int nContours;
   public int nEdges;
   public int nSurfaceInts;
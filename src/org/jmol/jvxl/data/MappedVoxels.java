@@ -0,0 +1,129 @@
+/* $RCSfile$
+ * $Author: hansonr $
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2007 Miguel, Bob, Jmol Development
+ *
+ * Contact: hansonr@stolaf.edu
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.jmol.jvxl.data;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import javajs.J2SIgnoreImport;
+
+import org.jmol.util.Logger;
+
+/**
+ * Voxel values read on demand from a memory-mapped local map file rather than
+ * from a float[nx][ny][nz] array, so that data for mapping need not fit in
+ * the heap. Java only.
+ *
+ * Subclasses supply getValue(x, y, z) for their file layout, using getByte,
+ * getShort, and getFloat with byte positions relative to the start of the
+ * voxel data.
+ *
+ */
+@J2SIgnoreImport({ File.class, RandomAccessFile.class, ByteBuffer.class,
+    ByteOrder.class, FileChannel.class })
+public abstract class MappedVoxels {
+
+  /**
+   * bytes per mapped segment (1 GB); a multiple of any voxel size, so a voxel
+   * never spans two segments
+   */
+  private final static int SEGMENT_SHIFT = 30;
+  private final static long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+  private ByteBuffer[] segments;
+
+  /**
+   * @param path
+   *        local file
+   * @param offset
+   *        start of voxel data
+   * @param length
+   *        bytes of voxel data
+   * @param isBigEndian
+   * @return true if mapped
+   */
+  public boolean map(String path, long offset, long length, boolean isBigEndian) {
+    RandomAccessFile raf = null;
+    try {
+      File f = new File(path);
+      if (!f.isFile() || f.length() < offset + length)
+        return false; // compressed or truncated
+      raf = new RandomAccessFile(f, "r");
+      FileChannel ch = raf.getChannel();
+      int n = (int) ((length + SEGMENT_MASK) >> SEGMENT_SHIFT);
+      segments = new ByteBuffer[n];
+      ByteOrder order = (isBigEndian ? ByteOrder.BIG_ENDIAN
+          : ByteOrder.LITTLE_ENDIAN);
+      for (int i = 0; i < n; i++) {
+        long pos = ((long) i) << SEGMENT_SHIFT;
+        segments[i] = ch.map(FileChannel.MapMode.READ_ONLY, offset + pos,
+            Math.min(length - pos, 1L << SEGMENT_SHIFT)).order(order);
+      }
+      Logger.info("MappedVoxels: " + length + " bytes of " + path
+          + " mapped for voxel data");
+      return true;
+    } catch (Throwable e) {
+      Logger.error("MappedVoxels could not map " + path + ": " + e);
+      segments = null;
+      return false;
+    } finally {
+      // the mapping remains valid after the file is closed
+      if (raf != null)
+        try {
+          raf.close();
+        } catch (Exception e) {
+          // ignore
+        }
+    }
+  }
+
+  protected byte getByte(long pos) {
+    return segments[(int) (pos >> SEGMENT_SHIFT)].get((int) (pos & SEGMENT_MASK));
+  }
+
+  protected short getShort(long pos) {
+    return segments[(int) (pos >> SEGMENT_SHIFT)]
+        .getShort((int) (pos & SEGMENT_MASK));
+  }
+
+  protected float getFloat(long pos) {
+    return segments[(int) (pos >> SEGMENT_SHIFT)]
+        .getFloat((int) (pos & SEGMENT_MASK));
+  }
+
+  /**
+   * @param x
+   *        slowest
+   * @param y
+   * @param z
+   *        fastest
+   * @return value at this grid point
+   */
+  public abstract float getValue(int x, int y, int z);
+
+}
@@ -112,8 +112,6 @@
 
 package org.jmol.jvxl.data;
 
-import java.util.Hashtable;
-import java.util.Map;
 
 import javajs.util.M3;
 import javajs.util.P3;
@@ -147,11 +145,30 @@ public class VolumeData {
   
   public void setVoxelDataAsArray(float[][][] voxelData) {
     this.voxelData = voxelData;
-    if (voxelData != null)
+    if (voxelData != null) {
       sr = null;
+      voxelMap = null;
+      mappedVoxels = null;
+    }
+  }
+
+  private VoxelMap voxelMap; // alternative to voxelData for sparse (plane interesected) data
+  private MappedVoxels mappedVoxels; // alternative to voxelData for large map files
+
+  /**
+   * @param mv
+   *        file-backed voxel values, or null to release them
+   */
+  public void setMappedVoxels(MappedVoxels mv) {
+    mappedVoxels = mv;
+    if (mv != null) {
+      sr = null;
+      voxelMap = null;
+      isSquared = false;
+      invertCutoff = Float.NaN;
+    }
   }
 
-  private Map<Integer, Float> voxelMap; // alternative to voxelData for sparse (plane interesected) data
   public final float[] volumetricVectorLengths = new float[3];
   private float maxVectorLength;
   private float minToPlaneDistance;
@@ -283,10 +300,20 @@ public class VolumeData {
   }
 
   public void setVoxelMap() {
-    voxelMap = new Hashtable<Integer, Float>();
+    // a plane cuts roughly one face's worth of voxels
+    int nx = voxelCounts[0], ny = voxelCounts[1], nz = voxelCounts[2];
+    voxelMap = new VoxelMap(Math.min(1 << 20,
+        Math.max(nx * ny, Math.max(ny * nz, nx * nz))));
     getYzCount();
   }
 
+  /**
+   * @return bytes used by the sparse plane data, or 0
+   */
+  public int getVoxelMapBytes() {
+    return (voxelMap == null ? 0 : voxelMap.getBytes());
+  }
+
   private boolean setMatrix() {
     for (int i = 0; i < 3; i++)
       volumetricMatrix.setColumnV(i, volumetricVectors[i]);
@@ -307,6 +334,8 @@ public class VolumeData {
   
   public void setPlaneParameters(P4 plane) {
     thePlane = plane;
+    if (plane == null)
+      return;
     thePlaneNormalMag = (float) Math.sqrt(plane.x * plane.x + plane.y * plane.y
         + plane.z * plane.z);
   }
@@ -324,8 +353,8 @@ public class VolumeData {
 
   public boolean isNearPlane(int x, int y, int z, float toPlaneParameter) {
     voxelPtToXYZ(x, y, z, ptXyzTemp);
-    return ((thePlane.x * ptXyzTemp.x + thePlane.y * ptXyzTemp.y + thePlane.z
-        * ptXyzTemp.z + thePlane.w) < toPlaneParameter);
+    return (Math.abs(thePlane.x * ptXyzTemp.x + thePlane.y * ptXyzTemp.y
+        + thePlane.z * ptXyzTemp.z + thePlane.w) < toPlaneParameter);
   }
 
   
@@ -368,12 +397,19 @@ public class VolumeData {
   }
 
   
+  /**
+   * Safe to call from more than one thread.
+   * 
+   * @param x
+   * @param y
+   * @param z
+   * @param pt3i
+   */
   public void xyzToVoxelPt(float x, float y, float z, T3i pt3i) {
-    ptXyzTemp.set(x, y, z);
-    ptXyzTemp.sub(volumetricOrigin);
-    inverseMatrix.rotate(ptXyzTemp);
-    pt3i.set(Math.round(ptXyzTemp.x), Math.round(ptXyzTemp.y), Math
-        .round(ptXyzTemp.z));
+    P3 pt = P3.new3(x, y, z);
+    pt.sub(volumetricOrigin);
+    inverseMatrix.rotate(pt);
+    pt3i.set(Math.round(pt.x), Math.round(pt.y), Math.round(pt.z));
   }
 
   public boolean isPeriodic;
@@ -411,10 +447,14 @@ public class VolumeData {
   }
 
   public float getVoxelValue(int x, int y, int z) {
-    if (voxelMap == null)
+    if (voxelMap != null)
+      return voxelMap.get(getPointIndex(x, y, z));
+    if (mappedVoxels == null)
       return voxelData[x][y][z];
-    Float f = voxelMap.get(Integer.valueOf(getPointIndex(x, y, z)));
-    return (f == null ? Float.NaN : f.floatValue());
+    float v = mappedVoxels.getValue(x, y, z);
+    if (isSquared)
+      v *= v;
+    return (Float.isNaN(invertCutoff) ? v : invertCutoff - v);
   }
 
   public static float getFractional2DValue(float fx, float fy, float x11,
@@ -475,6 +515,7 @@ public class VolumeData {
   }
 
   private boolean isSquared;
+  private float invertCutoff = Float.NaN;
 
   
   public void filterData(boolean isSquared, float invertCutoff) {
@@ -483,6 +524,13 @@ public class VolumeData {
       this.isSquared = isSquared;
       return;
     }
+    if (mappedVoxels != null) {
+      // applied in getVoxelValue; the file is read-only
+      this.isSquared |= isSquared;
+      if (doInvert)
+        this.invertCutoff = invertCutoff;
+      return;
+    }
     int nx = voxelCounts[0];
     int ny = voxelCounts[1];
     int nz = voxelCounts[2];
@@ -548,7 +596,7 @@ public class VolumeData {
   public void setVoxelMapValue(int x, int y, int z, float v) {
     if (voxelMap == null)
       return;
-    voxelMap.put(Integer.valueOf(getPointIndex(x, y, z)), Float.valueOf(v));
+    voxelMap.put(getPointIndex(x, y, z), v);
   }
 
   private final V3 edgeVector = new V3();
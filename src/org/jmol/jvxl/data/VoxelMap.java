@@ -0,0 +1,113 @@
+/* $RCSfile$
+ * $Author: hansonr $
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2007 Miguel, Bob, Jmol Development
+ *
+ * Contact: hansonr@stolaf.edu
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.jmol.jvxl.data;
+
+/**
+ * Sparse voxel values for data mapped onto a plane, keyed by point index.
+ *
+ * An open-addressed int-to-float table with linear probing, so that no
+ * Integer or Float objects are created per voxel. Keys are nonnegative; -1
+ * marks an empty slot. The table is kept at most half full.
+ *
+ */
+class VoxelMap {
+
+  private int[] keys;
+  private float[] values;
+  private int mask;
+  private int n;
+
+  VoxelMap(int capacity) {
+    int size = 16;
+    while (size < capacity * 2)
+      size <<= 1;
+    allocate(size);
+  }
+
+  private void allocate(int size) {
+    keys = new int[size];
+    values = new float[size];
+    for (int i = size; --i >= 0;)
+      keys[i] = -1;
+    mask = size - 1;
+  }
+
+  /**
+   * spread consecutive point indices; shifts only, so no overflow issues in
+   * JavaScript
+   *
+   * @param key
+   * @return starting slot
+   */
+  private int slot(int key) {
+    return (key ^ (key >>> 11) ^ (key >>> 19)) & mask;
+  }
+
+  void put(int key, float v) {
+    int i = slot(key);
+    for (int k; (k = keys[i]) != -1; i = (i + 1) & mask)
+      if (k == key) {
+        values[i] = v;
+        return;
+      }
+    keys[i] = key;
+    values[i] = v;
+    if (++n * 2 > keys.length)
+      rehash();
+  }
+
+  /**
+   * @param key
+   * @return value or NaN if not present
+   */
+  float get(int key) {
+    for (int i = slot(key), k; (k = keys[i]) != -1; i = (i + 1) & mask)
+      if (k == key)
+        return values[i];
+    return Float.NaN;
+  }
+
+  private void rehash() {
+    int[] oldKeys = keys;
+    float[] oldValues = values;
+    allocate(oldKeys.length * 2);
+    n = 0;
+    for (int i = oldKeys.length; --i >= 0;)
+      if (oldKeys[i] != -1)
+        put(oldKeys[i], oldValues[i]);
+  }
+
+  int size() {
+    return n;
+  }
+
+  /**
+   * @return memory used by the table, in bytes
+   */
+  int getBytes() {
+    return keys.length * 8;
+  }
+
+}
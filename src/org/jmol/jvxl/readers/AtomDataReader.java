@@ -29,6 +29,7 @@ import javajs.util.AU;
 import javajs.util.M4;
 import javajs.util.P3;
 import javajs.util.P3i;
+import javajs.util.P4;
 import javajs.util.SB;
 import javajs.util.T3;
 import javajs.util.V3;
@@ -40,9 +41,12 @@ import org.jmol.c.VDW;
 import javajs.util.BS;
 import org.jmol.jvxl.data.JvxlCoder;
 import org.jmol.jvxl.data.MeshData;
+import org.jmol.quantum.QuantumCalculation;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.BSUtil;
 import org.jmol.util.ContactPair;
 import org.jmol.util.Logger;
+import org.jmol.viewer.Viewer;
 
 abstract class AtomDataReader extends VolumeDataReader {
 
@@ -113,6 +117,39 @@ abstract class AtomDataReader extends VolumeDataReader {
       volumeData.setPlaneParameters(params.thePlane);
   }
 
+  /**
+   * A calculated grid (Java only, with more than one thread) can have its
+   * planes calculated as Marching Cubes needs them, on several threads,
+   * rather than filling the full voxel array first. The grid is then taken x
+   * low to high, as from a progressive file reader. Not for mapping, planes,
+   * contours, or lattices.
+   * 
+   * @param isMapData
+   * @return true if the grid will be calculated in planes
+   */
+  protected boolean setCalculatedPlanes(boolean isMapData) {
+    if (Viewer.isJS || isMapData || params.thePlane != null
+        || params.isContoured || params.mapLattice != null
+        || sg.atomDataServer == null
+        || ((Viewer) sg.atomDataServer).getParallelThreads() < 2)
+      return false;
+    isProgressive = isXLowToHigh = true;
+    return true;
+  }
+
+  /**
+   * One plane worker per thread, for Marching Cubes, in place of voxel data.
+   * 
+   * @param qc
+   *        the calculation, set up for the full grid
+   */
+  protected void setPlaneWorkers(QuantumCalculation qc) {
+    int n = ((Viewer) sg.atomDataServer).getParallelThreads();
+    planeWorkers = new QuantumCalculation[n];
+    for (int i = 0; i < n; i++)
+      planeWorkers[i] = qc.getPlaneWorker();
+  }
+
   protected void markPlaneVoxels(P3 p, float r) {
     for (int i = 0, pt = thisX * yzCount, pt1 = pt + yzCount; pt < pt1; pt++, i++) {
       volumeData.getPoint(pt, ptV);
@@ -496,11 +533,160 @@ abstract class AtomDataReader extends VolumeDataReader {
   protected final P3i pt1 = new P3i();
   protected final P3 ptV = new P3();
 
+  protected final static int MARK_SPHERES = 0;
+
+  /**
+   * number of x slabs to mark voxels in at the same time; set by readers
+   * that support it
+   */
+  protected int nThreads = 1;
+
+  private VoxelSlab slab0;
+  private float sphereR0, sphereDistance;
+
+  /**
+   * The x planes x0 <= i < x1 marked by one worker, with that worker's own
+   * grid limits, scratch objects, and surface voxel bit sets.
+   */
+  protected class VoxelSlab {
+    int x0, x1;
+    final P3i pt0 = new P3i();
+    final P3i pt1 = new P3i();
+    final P3 ptV = new P3();
+    final P3 ptY0 = new P3();
+    final P3 ptZ0 = new P3();
+    final P3 p = new P3();
+    final P4 plane = new P4();
+    final V3 vTemp = new V3();
+    final V3 vTemp2 = new V3();
+    BS bsSurfaceVoxels, bsSurfaceDone, bsThisPass;
+
+    VoxelSlab(int x0, int x1) {
+      this.x0 = x0;
+      this.x1 = x1;
+    }
+
+    /**
+     * Set pt0 and pt1 to the grid limits for a sphere, clipped to this slab,
+     * and ptV to the first voxel, developed along x just as the full loop
+     * would have done, so that every voxel position is bit-for-bit the same
+     * no matter how the grid is split.
+     * 
+     * @param ptA
+     * @param rA
+     * @return false if the sphere does not reach this slab
+     */
+    boolean setLimits(P3 ptA, float rA) {
+      setGridLimitsForAtom(ptA, rA, pt0, pt1);
+      if (isProgressive) {
+        pt0.x = thisX;
+        pt1.x = thisX + 1;
+        volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
+        return true;
+      }
+      if (pt1.x > x1)
+        pt1.x = x1;
+      if (pt0.x >= pt1.x || pt1.x <= x0)
+        return false;
+      volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
+      for (; pt0.x < x0; pt0.x++)
+        ptV.add(volumetricVectors[0]);
+      return true;
+    }
+  }
+
+  /**
+   * Mark voxels for a set of spheres, tori, or faces. Unless the data are
+   * progressive, the grid is split into x slabs, one per thread. Each slab
+   * visits all the items in the same order, writing only to its own planes,
+   * so the voxel values are identical to a single-threaded calculation.
+   * 
+   * @param mode
+   */
+  protected void markVoxels(int mode) {
+    if (nThreads == 1 || isProgressive || nPointsX < 2) {
+      if (slab0 == null)
+        slab0 = new VoxelSlab(0, nPointsX);
+      slab0.x1 = nPointsX;
+      slab0.bsSurfaceVoxels = bsSurfaceVoxels;
+      setSlabData(mode, slab0, true);
+      markSlab(mode, slab0);
+      return;
+    }
+    long t0 = System.currentTimeMillis();
+    int[] b = ParallelTasks.getRanges(nPointsX, nThreads);
+    int n = b.length - 1;
+    final VoxelSlab[] slabs = new VoxelSlab[n];
+    Runnable[] tasks = new Runnable[n];
+    final int m = mode;
+    for (int i = 0; i < n; i++) {
+      final VoxelSlab s = slabs[i] = new VoxelSlab(b[i], b[i + 1]);
+      if (bsSurfaceVoxels != null)
+        s.bsSurfaceVoxels = new BS();
+      setSlabData(mode, s, false);
+      tasks[i] = new Runnable() {
+        @Override
+        public void run() {
+          markSlab(m, s);
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    for (int i = 0; i < n; i++) {
+      if (bsSurfaceVoxels != null)
+        bsSurfaceVoxels.or(slabs[i].bsSurfaceVoxels);
+      mergeSlabData(mode, slabs[i]);
+    }
+    Logger.info("AtomDataReader: voxels marked on " + n + " threads in "
+        + (System.currentTimeMillis() - t0) + " ms");
+  }
+
+  /**
+   * Set any additional bit sets a slab will need for this mode.
+   * 
+   * @param mode
+   * @param s
+   * @param isShared
+   *        true if this is the only slab, so that shared sets can be used
+   *        directly
+   */
+  protected void setSlabData(int mode, VoxelSlab s, boolean isShared) {
+    // IsoSolventReader only
+  }
+
+  /**
+   * Merge a slab's additional bit sets after a parallel run.
+   * 
+   * @param mode
+   * @param s
+   */
+  protected void mergeSlabData(int mode, VoxelSlab s) {
+    // IsoSolventReader only
+  }
+
+  protected void markSlab(int mode, VoxelSlab s) {
+    markSphereSlab(s);
+  }
+
   protected void markSphereVoxels(float r0, float distance) {
+    sphereR0 = r0;
+    sphereDistance = distance;
+    markVoxels(MARK_SPHERES);
+  }
+
+  private void markSphereSlab(VoxelSlab s) {
+    float r0 = sphereR0;
+    float distance = sphereDistance;
     boolean isWithin = (distance != Float.MAX_VALUE && point != null);
     T3 v0 = volumetricVectors[0];
     T3 v1 = volumetricVectors[1];
     T3 v2 = volumetricVectors[2];
+    P3i pt0 = s.pt0;
+    P3i pt1 = s.pt1;
+    P3 ptV = s.ptV;
+    P3 ptY0 = s.ptY0;
+    P3 ptZ0 = s.ptZ0;
+    BS bsSurfaceVoxels = s.bsSurfaceVoxels;
     for (int iAtom = thisAtomSet.nextSetBit(0); iAtom >= 0; iAtom = thisAtomSet
         .nextSetBit(iAtom + 1)) {
       if (!havePlane && validSpheres != null && !validSpheres.get(iAtom))
@@ -512,14 +698,8 @@ abstract class AtomDataReader extends VolumeDataReader {
       if (isWithin && ptA.distance(point) > distance + rA + 0.5)
         continue;
       float rA0 = rA + r0;
-      setGridLimitsForAtom(ptA, rA0, pt0, pt1);
-      //pt1.y = nPointsY;
-      //pt1.z = nPointsZ;
-      if (isProgressive) {
-        pt0.x = thisX;
-        pt1.x = thisX + 1;
-      }
-      volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
+      if (!s.setLimits(ptA, rA0))
+        continue;
       for (int i = pt0.x; i < pt1.x; i++, ptV.add2(v0, ptY0)) {
         ptY0.setT(ptV);
         for (int j = pt0.y; j < pt1.y; j++, ptV.add2(v1, ptZ0)) {
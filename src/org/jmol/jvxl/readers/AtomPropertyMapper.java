@@ -25,6 +25,7 @@ package org.jmol.jvxl.readers;
 
 
 import org.jmol.quantum.MepCalculation;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.Logger;
 import org.jmol.viewer.Viewer;
 
@@ -88,9 +89,17 @@ class AtomPropertyMapper extends AtomDataReader {
     }
     if (!doSmoothProperty && maxDistance == Integer.MAX_VALUE)
       maxDistance = 5; // usually just local to a group
+    if (mepCalc != null && !Float.isNaN(params.mep_rangeAngstroms)
+        && params.mep_rangeAngstroms > 0)
+      maxDistance = params.mep_rangeAngstroms;
+    nThreads = ((Viewer) sg.atomDataServer).getParallelThreads();
     //if (maxDistance == Integer.MAX_VALUE && calcType != params.mep_calcType)
       //maxDistance = 5; // max distance just for mep 
     getAtoms(params.bsSelected, doAddHydrogens, true, false, false, true, false, Float.NaN, null);
+    if (mepCalc != null && maxDistance != Integer.MAX_VALUE)
+      Logger.info(mepType + ": atoms more than " + maxDistance
+          + " Angstroms away ignored; maximum error "
+          + mepCalc.getMaxTruncationError(atomProp, null, maxDistance, calcType));
     if (meshDataServer != null)
       meshDataServer.fillMeshData(meshData, MeshData.MODE_GET_VERTICES, null);
     if (!doSmoothProperty && meshData.vertexSource != null) {
@@ -145,22 +154,82 @@ class AtomPropertyMapper extends AtomDataReader {
   }
 
   
-  private int iAtomSurface;
+  private final int[] iAtomSurface = new int[1];
   @Override
   public int getSurfaceAtomIndex() {
-    return iAtomSurface;
+    return iAtomSurface[0];
   }
   
   @Override
   public float getValueAtPoint(T3 pt, boolean getSource) {
     if (haveOneProperty && !getSource)
       return theProperty;
+    return getValue(pt, iter, iAtomSurface, 0);
+  }
+
+  /**
+   * Map vertices on several threads, each with its own atom iterator. Each
+   * vertex gets exactly the value getValueAtPoint would have given it.
+   */
+  @Override
+  protected float[] getVertexValues(int i0, boolean needSource) {
+    int n = meshData.vc - i0;
+    if (nThreads == 1 || n < MIN_PARALLEL_VERTICES || haveOneProperty
+        || params.isSquared || volumeData.mappingPlane != null)
+      return null;
+    long t0 = System.currentTimeMillis();
+    final float[] values = new float[meshData.vc];
+    final int[] sources = (needSource ? meshData.vertexSource : null);
+    final T3[] vs = meshData.vs;
+    // make sure the atom tree is in place before the threads start
+    sg.atomDataServer.setIteratorForPoint(iter, modelIndex, vs[i0],
+        maxDistance);
+    int[] b = ParallelTasks.getRanges(n, nThreads);
+    int nt = b.length - 1;
+    Runnable[] tasks = new Runnable[nt];
+    final AtomIndexIterator[] iters = new AtomIndexIterator[nt];
+    // thread-safe iterators, each with its own cube iterator
+    Viewer vwr = (Viewer) sg.atomDataServer;
+    boolean setParallel = !vwr.isParallel() && vwr.setParallel(true);
+    for (int t = 0; t < nt; t++) {
+      final AtomIndexIterator it = iters[t] = sg.atomDataServer
+          .getSelectedAtomIterator(bsMySelected, false, false, false);
+      final int j0 = i0 + b[t], j1 = i0 + b[t + 1];
+      tasks[t] = new Runnable() {
+        @Override
+        public void run() {
+          for (int i = j0; i < j1; i++)
+            values[i] = getValue(vs[i], it, sources, i);
+        }
+      };
+    }
+    if (setParallel)
+      vwr.setParallel(false);
+    ParallelTasks.runAll(tasks);
+    for (int t = 0; t < nt; t++)
+      iters[t].release();
+    Logger.info("AtomPropertyMapper: " + n + " vertices on " + nt
+        + " threads in " + (System.currentTimeMillis() - t0) + " ms");
+    return values;
+  }
+
+  private final static int MIN_PARALLEL_VERTICES = 1000;
+
+  /**
+   * @param pt
+   * @param iter
+   * @param sources
+   *        for the index of the nearest atom, or null
+   * @param isrc
+   * @return value at this point
+   */
+  private float getValue(T3 pt, AtomIndexIterator iter, int[] sources, int isrc) {
     float dmin = Float.MAX_VALUE;
     float dminNearby = Float.MAX_VALUE;
     float value = (doSmoothProperty ? 0 : Float.NaN);
     float vdiv = 0;
+    int iAtomSurface = -1;
     sg.atomDataServer.setIteratorForPoint(iter, modelIndex, pt, maxDistance);
-    iAtomSurface = -1;
     while (iter.hasNext()) {
       int ia = iter.next();
       int myAtom = myIndex[ia];
@@ -194,6 +263,8 @@ class AtomPropertyMapper extends AtomDataReader {
       }
     }
     //System.out.println(pt + " " + value + " " + vdiv + " " + value / vdiv);
+    if (sources != null)
+      sources[isrc] = iAtomSurface;
     return (mepCalc != null ? value : doSmoothProperty ? (vdiv == 0
         || dminNearby < dmin ? Float.NaN : value / vdiv) : value);
   }
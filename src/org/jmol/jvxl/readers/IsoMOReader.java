@@ -114,7 +114,11 @@ class IsoMOReader extends AtomDataReader {
           className, (Viewer) sg.atomDataServer, "file");
       if (isNci) {
         qpc = (QuantumPlaneCalculation) q;
+        ((NciCalculation) q).setThreads(((Viewer) sg.atomDataServer)
+            .getParallelThreads());
       } else {
+        ((MOCalculation) q).setThreads(((Viewer) sg.atomDataServer)
+            .getParallelThreads());
         if (linearCombination == null) {
           for (int i = params.title.length; --i >= 0;)
             fixTitleLine(i, mo);
@@ -133,6 +137,9 @@ class IsoMOReader extends AtomDataReader {
         }
       }
       isElectronDensityCalc = (coef == null && linearCombination == null && !isNci);
+      if (!isNci && !isElectronDensityCalc && !params.isSquaredLinear
+          && params.psi_monteCarloCount <= 0)
+        setCalculatedPlanes(isMapData);
     }
     volumeData.sr = null;
     if (isMapData && !isElectronDensityCalc && !haveVolumeData) {
@@ -259,6 +266,8 @@ class IsoMOReader extends AtomDataReader {
       return;
     if (params.psi_monteCarloCount <= 0) {
       readSurfaceDataVDR(isMapData);
+      if (isProgressive && !isMapData && setupCalculation())
+        setPlaneWorkers(q);
       return;
     }
     if (points != null)
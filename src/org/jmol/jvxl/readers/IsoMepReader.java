@@ -52,14 +52,32 @@ class IsoMepReader extends AtomDataReader {
     getAtoms(params.bsSelected, doAddHydrogens, true, false, false, false, false, params.mep_marginAngstroms, null);
     setHeader("MEP", "");
     setRanges(params.mep_ptsPerAngstrom, params.mep_gridMax, 0);    
+    setCalculatedPlanes(isMapData);
+  }
+
+  @Override
+  protected void readSurfaceData(boolean isMapData) throws Exception {
+    readSurfaceDataVDR(isMapData);
+    if (isProgressive && !isMapData) {
+      MepCalculation m = newCalculation();
+      m.setupCalculation(volumeData, bsMySelected, atomData.xyz,
+          atomData.atoms, params.theProperty, params.mep_calcType);
+      setPlaneWorkers(m);
+    }
   }
 
   @Override
   protected void generateCube() {
     newVoxelDataCube();
+    newCalculation().calculate(volumeData, bsMySelected, atomData.xyz,
+        atomData.atoms, params.theProperty, params.mep_calcType);
+  }
+
+  private MepCalculation newCalculation() {
     MepCalculation m = (MepCalculation) Interface.getOption("quantum." + type + "Calculation", 
         (Viewer) sg.atomDataServer, "file");
-    m.calculate(volumeData, bsMySelected, atomData.xyz, atomData.atoms,
-          params.theProperty, params.mep_calcType);
+    m.setThreads(((Viewer) sg.atomDataServer).getParallelThreads());
+    m.setRange(params.mep_rangeAngstroms);
+    return m;
   }
 }
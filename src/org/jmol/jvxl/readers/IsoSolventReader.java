@@ -36,7 +36,7 @@ import org.jmol.util.MeshSurface;
 
 import javajs.util.P3;
 import javajs.util.Measure;
-//import javajs.util.P3i;
+import javajs.util.P3i;
 import javajs.util.P4;
 import javajs.util.T3;
 
@@ -48,6 +48,8 @@ import org.jmol.api.AtomIndexIterator;
 //import org.jmol.bspt.CubeIterator;
 import javajs.util.BS;
 import org.jmol.jvxl.data.MeshData;
+import org.jmol.thread.ParallelTasks;
+import org.jmol.viewer.Viewer;
 
 class IsoSolventReader extends AtomDataReader {
 
@@ -153,8 +155,6 @@ class IsoSolventReader extends AtomDataReader {
   protected Lst<Edge> vEdges;
   private Lst<Face> vFaces;
   
-  final private P3 ptS1 = new P3();
-  final private P3 ptS2 = new P3();
   final protected V3 vTemp = new V3();
   final protected P4 plane = new P4();
   final protected P3 ptTemp2 = new P3();
@@ -230,7 +230,8 @@ class IsoSolventReader extends AtomDataReader {
     }
     if (thisAtomSet == null)
       thisAtomSet = BSUtil.setAll(myAtomCount);
-      
+    if (sg.atomDataServer != null)
+      nThreads = ((Viewer) sg.atomDataServer).getParallelThreads();
 
   }
 
@@ -592,7 +593,7 @@ class IsoSolventReader extends AtomDataReader {
       vEdges = new  Lst<Edge>();
       bsLocale = new BS[myAtomCount];
       htEdges = new Hashtable<String, Edge>();
-      //long t = System.currentTimeMillis();
+      long t = System.currentTimeMillis();
       getEdges();
       //System.out.println("e " + (System.currentTimeMillis() - t));
       Logger.info(vEdges.size() + " edges");
@@ -605,6 +606,9 @@ class IsoSolventReader extends AtomDataReader {
       //System.out.println("f " + (System.currentTimeMillis() - t));
 
       Logger.info(vFaces.size() + " faces");
+      if (nThreads > 1)
+        Logger.info("IsoSolventReader: edges and faces found on " + nThreads
+            + " threads in " + (System.currentTimeMillis() - t) + " ms");
       bsLocale = null;
       htEdges = null;
 
@@ -680,7 +684,40 @@ class IsoSolventReader extends AtomDataReader {
      */
     for (int iatomA = 0; iatomA < myAtomCount; iatomA++)
       bsLocale[iatomA] = new BS();
-    for (int iatomA = 0; iatomA < myAtomCount; iatomA++) {
+    final SolventTask[] tasks = getSolventTasks(myAtomCount);
+    Runnable[] r = new Runnable[tasks.length];
+    for (int t = 0; t < tasks.length; t++) {
+      final SolventTask task = tasks[t];
+      r[t] = new Runnable() {
+        @Override
+        public void run() {
+          getEdges(task);
+        }
+      };
+    }
+    runSolventTasks(r);
+    // merge in atom order, just as a single pass would have found them
+    for (int t = 0; t < tasks.length; t++) {
+      Lst<Edge> edges = tasks[t].edges;
+      for (int i = 0, n = edges.size(); i < n; i++) {
+        Edge edge = edges.get(i);
+        vEdges.addLast(edge);
+        bsLocale[edge.ia].set(edge.ib);
+        bsLocale[edge.ib].set(edge.ia);
+        htEdges.put(edge.toString(), edge);
+      }
+      tasks[t].release();
+    }
+  }
+
+  /**
+   * Find the edges of atoms task.i0 <= iatomA < task.i1.
+   * 
+   * @param task
+   */
+  void getEdges(SolventTask task) {
+    AtomIndexIterator iter = task.iter;
+    for (int iatomA = task.i0; iatomA < task.i1; iatomA++) {
       P3 ptA = atomXyzTruncated[iatomA];
       float rA = rs[iatomA];
       sg.atomDataServer.setIteratorForAtom(iter, atomIndex[iatomA], rA + maxRS);
@@ -694,15 +731,81 @@ class IsoSolventReader extends AtomDataReader {
         float dAB = ptA.distance(ptB);
         if (dAB >= rA + rB)
           continue;
-        Edge edge = new Edge(this, iatomA, iatomB, dAB);
-        vEdges.addLast(edge);
-        bsLocale[iatomA].set(iatomB);
-        bsLocale[iatomB].set(iatomA);
-        htEdges.put(edge.toString(), edge);
+        task.edges.addLast(new Edge(this, iatomA, iatomB, dAB));
       }
     }
   }
 
+  /**
+   * One worker's share of getEdges (atoms i0 <= i < i1) or getFaces (edges
+   * i0 <= i < i1), with its own atom iterator and scratch objects. Results are
+   * kept in order and merged on the calling thread, so vEdges and vFaces come
+   * out exactly as a single-threaded pass would make them.
+   */
+  class SolventTask {
+    final int i0, i1;
+    AtomIndexIterator iter;
+    final P3 p = new P3();
+    final P3 ptTemp = new P3();
+    final P3 ptS1 = new P3();
+    final P3 ptS2 = new P3();
+    final P4 plane = new P4();
+    final V3 vTemp2 = new V3();
+    final BS bs = new BS();
+    final Lst<Edge> edges = new Lst<Edge>();
+    /**
+     * every face checked, in order; pS is null for a blocked face
+     */
+    final Lst<Face> faces = new Lst<Face>();
+
+    SolventTask(int i0, int i1, AtomIndexIterator iter) {
+      this.i0 = i0;
+      this.i1 = i1;
+      this.iter = iter;
+    }
+
+    void release() {
+      if (iter != IsoSolventReader.this.iter)
+        iter.release();
+      iter = null;
+    }
+  }
+
+  /**
+   * Split n items into one range per thread, each with its own thread-safe
+   * atom iterator; a single range uses the reader's iterator.
+   * 
+   * @param n
+   * @return tasks in item order
+   */
+  private SolventTask[] getSolventTasks(int n) {
+    int[] b = (nThreads == 1 || n < nThreads ? new int[] { 0, n }
+        : ParallelTasks.getRanges(n, nThreads));
+    int nt = b.length - 1;
+    SolventTask[] tasks = new SolventTask[nt];
+    if (nt == 1) {
+      tasks[0] = new SolventTask(0, n, iter);
+      return tasks;
+    }
+    // make sure the atom tree is in place before the threads start
+    sg.atomDataServer.setIteratorForAtom(iter, atomIndex[0], 0);
+    Viewer vwr = (Viewer) sg.atomDataServer;
+    boolean setParallel = !vwr.isParallel() && vwr.setParallel(true);
+    for (int t = 0; t < nt; t++)
+      tasks[t] = new SolventTask(b[t], b[t + 1], sg.atomDataServer
+          .getSelectedAtomIterator(bsMySelected, true, false, false));
+    if (setParallel)
+      vwr.setParallel(false);
+    return tasks;
+  }
+
+  private void runSolventTasks(Runnable[] r) {
+    if (r.length == 1)
+      r[0].run();
+    else
+      ParallelTasks.runAll(r);
+  }
+
   int nTest = 0;
 
   private class Edge extends P3 {
@@ -776,7 +879,7 @@ class IsoSolventReader extends AtomDataReader {
       this.ia = ia;
       this.ib = ib;
       this.ic = ic;
-      this.pS = P3.newP(pS);
+      this.pS = (pS == null ? null : P3.newP(pS));
     }
 
 //    protected void dump() {
@@ -817,10 +920,39 @@ class IsoSolventReader extends AtomDataReader {
      *     use Marching Cubes. 
      *      
      */
-    BS bs = new BS();
     params.surfaceAtoms = validSpheres = new BS();
     noFaceSpheres = BSUtil.setAll(myAtomCount);
-    for (int i = vEdges.size(); --i >= 0;) {
+    final SolventTask[] tasks = getSolventTasks(vEdges.size());
+    Runnable[] r = new Runnable[tasks.length];
+    for (int t = 0; t < tasks.length; t++) {
+      final SolventTask task = tasks[t];
+      r[t] = new Runnable() {
+        @Override
+        public void run() {
+          getFaces(task);
+        }
+      };
+    }
+    runSolventTasks(r);
+    // merge from the last edge down, as a single pass would have
+    for (int t = tasks.length; --t >= 0;) {
+      Lst<Face> faces = tasks[t].faces;
+      for (int i = 0, n = faces.size(); i < n; i++)
+        addFace(faces.get(i));
+      tasks[t].release();
+    }
+    //for (int i = vEdges.size(); --i >= 0;)
+      //vEdges.get(i).setType();
+  }
+
+  /**
+   * Check the faces of edges task.i1 > i >= task.i0.
+   * 
+   * @param task
+   */
+  void getFaces(SolventTask task) {
+    BS bs = task.bs;
+    for (int i = task.i1; --i >= task.i0;) {
       Edge edge = vEdges.get(i);
       int ia = edge.ia;
       int ib = edge.ib;
@@ -829,36 +961,16 @@ class IsoSolventReader extends AtomDataReader {
       bs.and(bsLocale[ib]);
       //System.out.println(ia + " " + bsLocale[ia] + " " + ib + " " + bsLocale[ib] + " " + bs);
       for (int ic = bs.nextSetBit(ib + 1); ic >= 0; ic = bs.nextSetBit(ic + 1)) {
-        if (getSolventPoints(edge, ia, ib, ic)) {
+        if (getSolventPoints(task, edge, ia, ib, ic)) {
           //System.out.println("checking face " + ia + " " + ib + " " + ic );
-          Face f;
-          boolean isOK = false;
-          if ((f = validateFace(ia, ib, ic, edge, ptS1)) != null) {
-            vFaces.addLast(f);
-            isOK = true;
-            //f.dump();
-          }
-          if ((f = validateFace(ia, ib, ic, edge, ptS2)) != null) {
-            vFaces.addLast(f);
-            //if (!isOK)
-              //f.dump();
-            isOK = true;
-          }
-          if (isOK) {
-            //System.out.println("checking face " + ia + " " + ib + " " + ic + " OK");
-            noFaceSpheres.clear(ia);
-            noFaceSpheres.clear(ib);
-            noFaceSpheres.clear(ic);
-          }
+          task.faces.addLast(validateFace(task, ia, ib, ic, task.ptS1));
+          task.faces.addLast(validateFace(task, ia, ib, ic, task.ptS2));
         }
       }
     }
-    //for (int i = vEdges.size(); --i >= 0;)
-      //vEdges.get(i).setType();
   }
 
-  
-  private Face validateFace(int ia, int ib, int ic, Edge edge, P3 ptS) {
+  private Face validateFace(SolventTask task, int ia, int ib, int ic, P3 ptS) {
     /*
      * We must check each solvent position to see if there
      * are any atoms present that would overlap with it. 
@@ -870,6 +982,7 @@ class IsoSolventReader extends AtomDataReader {
      * 
      * 
      */
+    AtomIndexIterator iter = task.iter;
     sg.atomDataServer.setIteratorForPoint(iter, modelIndex, ptS, maxRS);
     boolean isValid = true;
     while (iter.hasNext()) {
@@ -883,22 +996,71 @@ class IsoSolventReader extends AtomDataReader {
         break;
       }
     }
-    Edge bc = findEdge(ib, ic);
-    Edge ca = findEdge(ia, ic);
-    Face f = (isValid ? new Face(ia, ib, ic, ptS) : null);
-    edge.addFace(f);
-    bc.addFace(f);
-    ca.addFace(f);    
-    if (!isValid)
-      return null;
+    return new Face(ia, ib, ic, isValid ? ptS : null);
+  }
+
+  /**
+   * Record a checked face with its three edges and, if it is valid, in vFaces.
+   * 
+   * @param f
+   *        pS is null if the face is blocked
+   */
+  private void addFace(Face f) {
+    int ia = f.ia, ib = f.ib, ic = f.ic;
+    if (f.pS == null)
+      f = null;
+    findEdge(ia, ib).addFace(f);
+    findEdge(ib, ic).addFace(f);
+    findEdge(ia, ic).addFace(f);    
+    if (f == null)
+      return;
+    vFaces.addLast(f);
     validSpheres.set(ia);
     validSpheres.set(ib);
     validSpheres.set(ic);
+    noFaceSpheres.clear(ia);
+    noFaceSpheres.clear(ib);
+    noFaceSpheres.clear(ic);
     //f.dump();
-    return f;
   }
 
+  private final static int MARK_TOROIDS = 1;
+  private final static int MARK_FACES_OUTSIDE = 2;
+  private final static int MARK_FACES_INSIDE = 3;
+
   private void markFaceVoxels(boolean firstPass) {
+    markVoxels(firstPass ? MARK_FACES_OUTSIDE : MARK_FACES_INSIDE);
+  }
+
+  @Override
+  protected void markSlab(int mode, VoxelSlab s) {
+    switch (mode) {
+    case MARK_TOROIDS:
+      markToroidSlab(s);
+      break;
+    case MARK_FACES_OUTSIDE:
+    case MARK_FACES_INSIDE:
+      markFaceSlab(s, mode == MARK_FACES_OUTSIDE);
+      break;
+    default:
+      super.markSlab(mode, s);
+    }
+  }
+
+  @Override
+  protected void setSlabData(int mode, VoxelSlab s, boolean isShared) {
+    s.bsSurfaceDone = (isShared || mode != MARK_FACES_OUTSIDE ? bsSurfaceDone
+        : new BS());
+    s.bsThisPass = new BS();
+  }
+
+  @Override
+  protected void mergeSlabData(int mode, VoxelSlab s) {
+    if (s.bsSurfaceDone != bsSurfaceDone)
+      bsSurfaceDone.or(s.bsSurfaceDone);
+  }
+
+  private void markFaceSlab(VoxelSlab s, boolean firstPass) {
     /*
      * We mark voxels for faces in two passes. In general,
      * we only mark voxels within the trigonal cone formed by the planes
@@ -920,10 +1082,17 @@ class IsoSolventReader extends AtomDataReader {
      * In the second pass we are marking inside (-) voxels.
      * 
      */
-    BS bsThisPass = new BS();
+    BS bsThisPass = s.bsThisPass;
+    BS bsSurfaceDone = s.bsSurfaceDone;
+    BS bsSurfaceVoxels = s.bsSurfaceVoxels;
     T3 v0 = volumetricVectors[0];
     T3 v1 = volumetricVectors[1];
     T3 v2 = volumetricVectors[2];
+    P3i pt0 = s.pt0;
+    P3i pt1 = s.pt1;
+    P3 ptV = s.ptV;
+    P3 ptY0 = s.ptY0;
+    P3 ptZ0 = s.ptZ0;
 
     for (int fi = vFaces.size(); --fi >= 0;) {
       Face f = vFaces.get(fi);
@@ -935,8 +1104,8 @@ class IsoSolventReader extends AtomDataReader {
       // voxels that have already been over-written by another face.
       // If they have, we go for the more positive one (further out);
       // if not, then we go for the less positive one (further in);
-      setGridLimitsForAtom(ptS, sr, pt0, pt1);
-      volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
+      if (!s.setLimits(ptS, sr))
+        continue;
       for (int i = pt0.x; i < pt1.x; i++, ptV.add2(v0, ptY0)) {
         ptY0.setT(ptV);
         for (int j = pt0.y; j < pt1.y; j++, ptV.add2(v1, ptZ0)) {
@@ -949,8 +1118,8 @@ class IsoSolventReader extends AtomDataReader {
             int ipt = volumeData.getPointIndex(i, j, k);
             if (firstPass && value > 0)
               bsSurfaceDone.set(ipt);
-            if (Measure.isInTetrahedron(ptV, ptA, ptB, ptC, ptS, plane, vTemp,
-                vTemp2, false)) {
+            if (Measure.isInTetrahedron(ptV, ptA, ptB, ptC, ptS, s.plane,
+                s.vTemp, s.vTemp2, false)) {
               if (!firstPass ? !bsSurfaceDone.get(ipt) && value < 0
                   && value > -volumeData.maxGrid * 1.8f
                   && (value > v) == bsThisPass.get(ipt)
@@ -1042,12 +1211,21 @@ class IsoSolventReader extends AtomDataReader {
 //  }
   
   private void markToroidVoxels() {
+    markVoxels(MARK_TOROIDS);
+  }
+
+  private void markToroidSlab(VoxelSlab s) {
     
     // this is the bottleneck right here:
     
     T3 v0 = volumetricVectors[0];
     T3 v1 = volumetricVectors[1];
     T3 v2 = volumetricVectors[2];
+    P3i pt0 = s.pt0;
+    P3i pt1 = s.pt1;
+    P3 ptV = s.ptV;
+    P3 ptY0 = s.ptY0;
+    P3 ptZ0 = s.ptZ0;
     for (int ei = vEdges.size(); --ei >= 0;) {
       Edge edge = vEdges.get(ei);
       if (!edge.isValid())
@@ -1056,21 +1234,14 @@ class IsoSolventReader extends AtomDataReader {
       int ib = edge.ib;
       P3 ptA = atomXyzTruncated[ia];
       P3 ptB = atomXyzTruncated[ib];
-      rAS = rs[ia];
-      rBS = rs[ib];
-      rAS2 = rs2[ia];//rAS * rAS;
-      rBS2 = rs2[ib];//rBS * rBS;
-      dAB = edge.d;
-      dAB2 = edge.d2;
-      ecosASB2 = edge.cosASB2;
-      setGridLimitsForAtom(edge, edge.maxr, pt0, pt1);
-      volumeData.voxelPtToXYZ(pt0.x, pt0.y, pt0.z, ptV);
+      if (!s.setLimits(edge, edge.maxr))
+        continue;
       for (int i = pt0.x; i < pt1.x; i++, ptV.add2(v0, ptY0)) {
         ptY0.setT(ptV);
         for (int j = pt0.y; j < pt1.y; j++, ptV.add2(v1, ptZ0)) {
           ptZ0.setT(ptV);
           for (int k = pt0.z; k < pt1.z; k++, ptV.add(v2)) {
-            float dVS = checkSpecialVoxel(ptA, ptB, ptV);
+            float dVS = checkSpecialVoxel(edge, ptA, ptB, ptV, s.p);
             if (Float.isNaN(dVS))
               continue;
             float value = sr - dVS;
@@ -1114,7 +1285,8 @@ class IsoSolventReader extends AtomDataReader {
 
   }
 
-  private boolean getSolventPoints(Edge edge, int ia, int ib, int ic) {
+  private boolean getSolventPoints(SolventTask task, Edge edge, int ia,
+                                   int ib, int ic) {
     /*
      *
      * Note: in these tight loops, using floats is faster than doubles 
@@ -1141,6 +1313,9 @@ class IsoSolventReader extends AtomDataReader {
      * 
      */
 
+    P3 p = task.p;
+    P4 plane = task.plane;
+    P3 ptTemp = task.ptTemp;
     float rAS = rs[ia];
     V3 v = edge.v;
     float cosAngleBAS = (edge.d2 + rs2[ia] - rs2[ib]) / (2 * edge.d * rAS);
@@ -1163,15 +1338,15 @@ class IsoSolventReader extends AtomDataReader {
     float cosTheta = (dsp2 + dpT * dpT - dST2) / (2 * dPS * dpT);
     if (Math.abs(cosTheta) >= 0.99) 
       return false; // very close to all points A, B, P, S, T, and C all in same plane
-    V3 vXS = vTemp2;
+    V3 vXS = task.vTemp2;
     vXS.sub2(ptTemp, p);
     vXS.normalize();
     ptTemp.scaleAdd2(dPS * cosTheta, vXS, p);
     vXS.cross(v, vXS);
     vXS.normalize();
     vXS.scale((float) (Math.sqrt(1 - cosTheta * cosTheta) * dPS));
-    ptS1.add2(ptTemp, vXS);
-    ptS2.sub2(ptTemp, vXS);
+    task.ptS1.add2(ptTemp, vXS);
+    task.ptS2.sub2(ptTemp, vXS);
     return true;
   }
 
@@ -1189,7 +1364,7 @@ class IsoSolventReader extends AtomDataReader {
   //    }
   //  }
   //
-  private float checkSpecialVoxel(P3 ptA, P3 ptB, P3 ptV) {
+  private float checkSpecialVoxel(Edge edge, P3 ptA, P3 ptB, P3 ptV, P3 p) {
     /*
      * Checking here for voxels that are in the situation:
      * 
@@ -1247,6 +1422,10 @@ class IsoSolventReader extends AtomDataReader {
      * (solvent radius - dVS).
      * 
      */
+    float rAS = rs[edge.ia];
+    float rBS = rs[edge.ib];
+    float rAS2 = rs2[edge.ia];
+    float rBS2 = rs2[edge.ib];
     float dAV = ptA.distance(ptV);
     float dAV2 = ptA.distanceSquared(ptV);
     float f = rAS / dAV;
@@ -1258,7 +1437,7 @@ class IsoSolventReader extends AtomDataReader {
       // If the distance of this point to B is less than the distance
       // of S to B, then we need to check this point
       // to see if we are somewhere in the arc SAB, within the solvent sphere of A
-      return (ptB.distanceSquared(p) >= rBS2 ? Float.NaN : solventDistance(rAS,
+      return (ptB.distanceSquared(p) >= rBS2 ? Float.NaN : solventDistance(edge, rAS,
           rAS2, rBS2, dAV, dAV2, ptB.distanceSquared(ptV)));
     }
     float dBV = ptB.distance(ptV);
@@ -1266,16 +1445,13 @@ class IsoSolventReader extends AtomDataReader {
       // calculate point on solvent sphere bbbb projected through ptV
       p.set(ptB.x + (ptV.x - ptB.x) * f, ptB.y + (ptV.y - ptB.y) * f, ptB.z
           + (ptV.z - ptB.z) * f);
-      return (ptA.distanceSquared(p) >= rAS2 ? Float.NaN : solventDistance(rBS,
+      return (ptA.distanceSquared(p) >= rAS2 ? Float.NaN : solventDistance(edge, rBS,
           rBS2, rAS2, dBV, dBV * dBV, dAV2));
     }
     // not within solvent sphere of A or B
     return Float.NaN;
   }
 
-  private float rAS, rBS, rAS2, rBS2, dAB, dAB2;
-  private float ecosASB2;
-  
   /*
    *         S
    *        /|\
@@ -1286,14 +1462,16 @@ class IsoSolventReader extends AtomDataReader {
    *   A           B
    * 
    */
-  private float solventDistance(float rAS, float rAS2, float rBS2, float dAV,
-                                  float dAV2, float dBV2) {
+  private float solventDistance(Edge edge, float rAS, float rAS2, float rBS2,
+                                float dAV, float dAV2, float dBV2) {
+    float dAB = edge.d;
+    float dAB2 = edge.d2;
     float angleVAB = (float) Math.acos((dAV2 + dAB2 - dBV2) / (2 * dAV * dAB));
     float angleSAB = (float) Math.acos((rAS2 + dAB2 - rBS2) / (2 * rAS * dAB));
     float dVS2 = (float)(rAS2 + dAV2 - 2 * rAS * dAV * Math.cos(angleSAB - angleVAB));
     float dVS = (float)Math.sqrt(dVS2);
     // check for voxel in trough
-    return (ecosASB2 < (rAS2 + dVS2 - dAV * dAV) / (dVS * rAS) ? (float) dVS : Float.NaN);
+    return (edge.cosASB2 < (rAS2 + dVS2 - dAV * dAV) / (dVS * rAS) ? (float) dVS : Float.NaN);
   }
 
   ///////////////// debugging ////////////////
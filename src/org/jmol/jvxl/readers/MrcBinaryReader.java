@@ -26,6 +26,7 @@ package org.jmol.jvxl.readers;
 
 import java.io.BufferedReader;
 
+import org.jmol.jvxl.data.MappedVoxels;
 import org.jmol.util.Logger;
 
 import javajs.util.SB;
@@ -52,7 +53,7 @@ class MrcBinaryReader extends MapFileReader {
    */
   @Override
   void init2(SurfaceGenerator sg, BufferedReader br) {
-    String fileName = (String) ((Object[]) sg.getReaderData())[0];
+    fileName = (String) ((Object[]) sg.getReaderData())[0];
     init2MFR(sg, br);
     binarydoc = newBinaryDocument();
     setStream(fileName, true);
@@ -106,6 +107,13 @@ class MrcBinaryReader extends MapFileReader {
     
   protected String[] labels;
 
+  private String fileName;
+  private boolean isBigEndian;
+
+  private static boolean isMrcHeader(int nx, int mode) {
+    return (mode >= 0 && mode <= 6 && nx > 0 && nx <= 0xFFFF);
+  }
+
   @Override
   protected void readParameters() throws Exception {
 
@@ -118,29 +126,27 @@ class MrcBinaryReader extends MapFileReader {
     int nlabel;
 
     n0 = binarydoc.readInt(); // CCP4 "extent[0-2]"
-    if (n0 < 0 || n0 > 1<<8) {
-      setStream(null, false);
-      n0 = binarydoc.swapBytesI(n0);
-      //removed for PDBE CCP4 files
-      //if (params.thePlane == null)
-        //params.insideOut = !params.insideOut;
-      if (n0 < 0 || n0 > 1000) {
-        Logger.info("nx=" + n0 + " not displayable as MRC file");
-        throw new Exception("MRC file type not readable");
-      }
-      Logger.info("reading little-endian MRC file");
-    }
     n1 = binarydoc.readInt();
     n2 = binarydoc.readInt();
-
     mode = binarydoc.readInt();
 
-    if (mode < 0 || mode > 6) {
+    // mode is 0-6, but 0 reads the same either way, so check nx as well;
+    // large (cryo-EM) grids are fine
+    isBigEndian = isMrcHeader(n0, mode);
+    if (!isBigEndian) {
       setStream(null, false);
       n0 = binarydoc.swapBytesI(n0);
       n1 = binarydoc.swapBytesI(n1);
       n2 = binarydoc.swapBytesI(n2);
       mode = binarydoc.swapBytesI(mode);
+      //removed for PDBE CCP4 files
+      //if (params.thePlane == null)
+        //params.insideOut = !params.insideOut;
+      if (!isMrcHeader(n0, mode)) {
+        Logger.info("nx=" + n0 + " not displayable as MRC file");
+        throw new Exception("MRC file type not readable");
+      }
+      Logger.info("reading little-endian MRC file");
     }
 
     Logger.info("MRC header: mode: " + mode);
@@ -314,6 +320,38 @@ class MrcBinaryReader extends MapFileReader {
     return voxelValue;
   }
 
+  @Override
+  protected MappedVoxels getMappedVoxels() {
+    final int bytesPerVoxel = (mode == 0 ? 1 : mode == 1 || mode == 6 ? 2
+        : mode == 4 ? 8 : 4);
+    long n = (long) n0 * n1 * n2;
+    String path = getMappableFileName(fileName, n);
+    if (path == null)
+      return null;
+    MappedVoxels mv = new MappedVoxels() {
+      @Override
+      public float getValue(int x, int y, int z) {
+        long pos = (((long) x * n1 + y) * n0 + z) * bytesPerVoxel;
+        switch (mode) {
+        case 0:
+          return getByte(pos);
+        case 1:
+        case 3:
+          return getShort(pos);
+        case 6:
+          return getShort(pos) & 0xFFFF;
+        default:
+          return getFloat(pos);
+        }
+      }
+    };
+    long pos = binarydoc.getPosition();
+    if (!mv.map(path, pos, n * bytesPerVoxel, isBigEndian))
+      return null;
+    nBytes = pos + n * bytesPerVoxel;
+    return mv;
+  }
+
   private static byte[] b8 = new byte[8];
   
   @Override
@@ -253,6 +253,7 @@ public class Parameters {
     logMessages = Logger.debugging;
     mapLattice = null;
     mep_calcType = -1;
+    mep_rangeAngstroms = Float.NaN;
     minSet = 0;
     modelIndex = -1;
     modelInvRotation = null;
@@ -659,6 +660,7 @@ public class Parameters {
   float mep_ptsPerAngstrom = 3f;
   float mep_marginAngstroms = 1f; // may have to adjust this
   public int mep_calcType = -1;
+  float mep_rangeAngstroms = Float.NaN; // 16.1.49 isosurface MEP/MLP RANGE x.x
 
   void setMep(float[] charges, boolean isMLP) {
     dataType = (isMLP ? SURFACE_MLP : SURFACE_MEP);
@@ -831,6 +831,11 @@ public class SurfaceGenerator {
       return true;
     }
 
+    if ("mepRange" == propertyName) {
+      params.mep_rangeAngstroms = ((Float) value).floatValue();
+      return true;
+    }
+
     if ("mep" == propertyName) {
       params.setMep((float[]) value, false); // mep charges
       processState();
@@ -1129,9 +1134,16 @@ public class SurfaceGenerator {
       }
       params.isSquared = isSquared;
       params.mappedDataMin = Float.MAX_VALUE;
+      // file readers need only keep the voxels near the plane
+      surfaceReader.volumeData.setPlaneParameters(params.thePlane);
       surfaceReader.readVolumeData(true);
       if (params.mapLattice != null)
         surfaceReader.volumeData.isPeriodic = true;
+      colorIsosurface();
+      surfaceReader.volumeData.setPlaneParameters(null);
+      surfaceReader.closeReader();
+      surfaceReader = null;
+      return;
     } else if (!params.colorBySets && !params.colorDensity) {
       surfaceReader.readAndSetVolumeParameters(true);
       params.mappedDataMin = Float.MAX_VALUE;
@@ -33,6 +33,7 @@ import org.jmol.jvxl.data.JvxlCoder;
 import org.jmol.jvxl.data.JvxlData;
 import org.jmol.jvxl.data.MeshData;
 import org.jmol.jvxl.data.VolumeData;
+import org.jmol.quantum.QuantumCalculation;
 import org.jmol.quantum.QuantumPlaneCalculation;
 import org.jmol.util.BoxInfo;
 import org.jmol.util.C;
@@ -494,6 +495,8 @@ public abstract class SurfaceReader implements VertexDataServer {
     if (!discardAll)
       return;
     voxelData = null;
+    planeWorkers = null;
+    volumeData.setMappedVoxels(null);
     sg.marchingSquares = marchingSquares = null;
     marchingCubes = null;
   }
@@ -558,6 +561,12 @@ public abstract class SurfaceReader implements VertexDataServer {
   protected int yzCount;
 
   protected QuantumPlaneCalculation qpc;
+
+  /**
+   * for a calculated grid with no voxel data, calculations that each produce
+   * planes independently; see VolumeDataReader.setPlaneWorkers
+   */
+  protected QuantumCalculation[] planeWorkers;
   
   @Override
   public float[] getPlane(int x) {
@@ -569,6 +578,8 @@ public abstract class SurfaceReader implements VertexDataServer {
       initPlanes();
     if (qpc != null) // NCICalculation only
       qpc.getPlane(x, yzPlanes[x % 2]);
+    else if (planeWorkers != null)
+      planeWorkers[0].getPlane(x, yzPlanes[x % 2]);
     return yzPlanes[x % 2];
   }
 
@@ -617,6 +628,9 @@ public abstract class SurfaceReader implements VertexDataServer {
     params.contourType = contourType;
     params.isXLowToHigh = isXLowToHigh;
     marchingCubes = new MarchingCubes(this, volumeData, params, jvxlVoxelBitSet);
+    int nBuffers = getPipelineBuffers();
+    if (nBuffers > 0)
+      marchingCubes.setPipelined(nBuffers, planeWorkers);
     String data = marchingCubes.getEdgeData();
     if (params.thePlane == null)
       edgeData = data;
@@ -631,6 +645,18 @@ public abstract class SurfaceReader implements VertexDataServer {
   protected void postProcessVertices() {
     // optional
   }
+
+  /**
+   * Progressive readers whose getValue(x, y, z, ptyz) is simply getValue2 can
+   * have their planes read on a second thread while Marching Cubes runs;
+   * calculated grids with plane workers have their planes calculated on
+   * several.
+   * 
+   * @return number of planes to buffer, or 0 for no pipelining
+   */
+  protected int getPipelineBuffers() {
+    return (planeWorkers == null ? 0 : planeWorkers.length + 2);
+  }
   
   /////////////////  MarchingReader Interface Methods ///////////////////
 
@@ -834,6 +860,8 @@ public abstract class SurfaceReader implements VertexDataServer {
       float max = -Float.MAX_VALUE;
       float value;
       initializeMapping();
+      float[] values = (params.colorBySets || params.colorByPhase ? null
+          : getVertexValues(meshData.mergeVertexCount0, haveSurfaceAtoms));
       for (int i = meshData.vc; --i >= meshData.mergeVertexCount0;) {
         /* right, so what we are doing here is setting a range within the 
          * data for which we want red-->blue, but returning the actual
@@ -848,6 +876,8 @@ public abstract class SurfaceReader implements VertexDataServer {
         //else if (jvxlDataIs2dContour)
         //marchingSquares
         //    .getInterpolatedPixelValue(meshData.vertices[i]);
+        } else if (values != null) {
+          value = values[i];
         } else {
           boolean needSource = haveSurfaceAtoms;//(haveSurfaceAtoms && meshData.vertexSource[i] < 0);
           value = volumeData.lookupInterpolatedVoxelValue(meshData.vs[i], needSource);
@@ -863,6 +893,7 @@ public abstract class SurfaceReader implements VertexDataServer {
       }
       if (params.rangeSelected && minMax == null)
         minMax = new float[] { min, max };
+      jvxlData.voxelMapBytes = volumeData.getVoxelMapBytes();
       finalizeMapping();
     }
     params.setMapRanges(this, true);
@@ -1133,6 +1164,20 @@ public abstract class SurfaceReader implements VertexDataServer {
     // initiate any iterators
   }
 
+  /**
+   * Readers that can map many vertices at once do that here.
+   * 
+   * @param i0
+   *        first vertex to map
+   * @param needSource
+   *        also fill meshData.vertexSource
+   * @return values for vertices i0 through meshData.vc - 1, or null to map
+   *         them one at a time using volumeData
+   */
+  protected float[] getVertexValues(int i0, boolean needSource) {
+    return null;
+  }
+
   protected void finalizeMapping() {
     // release any iterators
   }
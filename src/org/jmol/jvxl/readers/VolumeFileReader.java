@@ -33,6 +33,7 @@ import javajs.util.V3;
 
 import org.jmol.api.Interface;
 import org.jmol.atomdata.AtomData;
+import org.jmol.jvxl.data.MappedVoxels;
 import javajs.util.BS;
 import org.jmol.quantum.NciCalculation;
 import org.jmol.util.Logger;
@@ -49,6 +50,7 @@ abstract class VolumeFileReader extends SurfaceFileReader {
   protected boolean canDownsample;
   protected int[] downsampleRemainders;
   private boolean getNCIPlanes;
+  private final static int PIPELINE_BUFFERS = 4;
   protected int nData;
   protected boolean readerClosed;
 
@@ -288,6 +290,16 @@ abstract class VolumeFileReader extends SurfaceFileReader {
         if (nSkipZ != 0)
           skipVoxels(nSkipZ);
       }
+    } else if (isMapData && nSkipX == 0 && nSkipY == 0 && nSkipZ == 0
+        && (mappedVoxels = getMappedVoxels()) != null) {
+      // large local file: values are read from the file as needed;
+      // one pass here just for the data statistics
+      volumeData.setMappedVoxels(mappedVoxels);
+      voxelData = null;
+      for (int x = 0; x < nPointsX; ++x)
+        for (int y = 0; y < nPointsY; ++y)
+          for (int z = 0; z < nPointsZ; ++z)
+            recordData(mappedVoxels.getValue(x, y, z));
     } else {
       voxelData = AU.newFloat3(nPointsX, -1);
       // Note downsampling not allowed for JVXL files
@@ -316,6 +328,36 @@ abstract class VolumeFileReader extends SurfaceFileReader {
     volumeData.setVoxelDataAsArray(voxelData);
   }
 
+  private MappedVoxels mappedVoxels;
+
+  /**
+   * Readers of binary map files may return voxel values backed by the file
+   * itself, so that a large map used for coloring need not be read into
+   * memory.
+   * 
+   * @return null if not available or not needed
+   */
+  protected MappedVoxels getMappedVoxels() {
+    return null;
+  }
+
+  /**
+   * @param fileName
+   * @param n
+   *        number of voxels
+   * @return local file path if a float array of the data would take more
+   *         than a quarter of the heap
+   */
+  protected String getMappableFileName(String fileName, long n) {
+    if (Viewer.isJS || fileName == null
+        || n * 4 < Runtime.getRuntime().maxMemory() / 4)
+      return null;
+    if (fileName.startsWith("file:"))
+      fileName = fileName.substring(fileName.startsWith("file:///") ? 7 : 5);
+    return (fileName.indexOf("://") < 0 && fileName.indexOf("|") < 0 ? fileName
+        : null);
+  }
+
   // For a progressive reader, we need to build two planes at a time
   // and keep them indexed. reading x low to high, we will first encounter
   // plane 0, then plane 1.
@@ -339,6 +381,16 @@ abstract class VolumeFileReader extends SurfaceFileReader {
   private float[][] yzPlanesRaw;
   private int iPlaneNCI;
 
+  @Override
+  protected int getPipelineBuffers() {
+    // not for NCI, where qpc works on these planes for Marching Cubes as well,
+    // or JVXL, where Marching Cubes reads edge fractions from the same file
+    return (Viewer.isJS || isJvxl || getNCIPlanes || qpc != null || boundingBox != null
+        || sg.atomDataServer == null
+        || ((Viewer) sg.atomDataServer).getParallelThreads() < 2 ? 0
+        : PIPELINE_BUFFERS);
+  }
+
   /**
    * Retrieve raw file planes and pass them to the calculation object for
    * processing into new data.
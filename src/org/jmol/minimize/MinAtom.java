@@ -41,7 +41,9 @@ public class MinAtom {
   private Lst<MinBond> bonds = new  Lst<MinBond>();
   public int nBonds;
   int[] bondedAtoms;
-  public BS bsVdw = new BS();
+  
+  // 1-2 and 1-3 partners -- no VDW or ES interaction
+  public BS bsVdwExcluded = new BS();
 
 
   // UFF only
@@ -59,12 +61,10 @@ public class MinAtom {
     return "#" + index + "@" + atom.i + " " + sType + " " + coord[0] + "," + coord[1] + "," + coord[2];
   }
 
-  MinAtom(int index, Atom atom, double[] coord, int ac) {
+  MinAtom(int index, Atom atom, double[] coord) {
     this.index = index;
     this.atom = atom;
     this.coord = coord;
-    bsVdw.setBits(index + 1, ac);
-    bsVdw.clear(index);
   }
 
   void set() {
@@ -97,7 +97,7 @@ public class MinAtom {
   public void addBond(MinBond bond, int i) {
     bonds.addLast(bond);
     nBonds++;
-    bsVdw.clear(i);
+    bsVdwExcluded.set(i);
   }
 
   public int getBondIndex(int j) {
@@ -77,6 +77,16 @@ public class Minimizer {
   private int steps = 50;
   private double crit = 1e-3;
 
+  // nonbonded (VDW, ES) cutoff and Verlet skin, in Angstroms; 0 for all pairs
+  public double vdwCutoff = 0, vdwSkin = 2;
+  
+  // shift MMFF electrostatics to zero at vdwCutoff
+  public boolean esShift;
+
+  // term lists are evaluated in chunks when nThreads > 1
+  public int nThreads = 1;
+  public boolean isDeterministic = true;
+
   public String units = "kJ/mol";
   
   private ForceField pFF;
@@ -179,6 +189,13 @@ public class Minimizer {
         steps = ((Integer) val).intValue();
     }
     this.steps = steps;
+    val = vwr.getP("minimizationCutoff");
+    vdwCutoff = (val instanceof Float ? Math.max(((Float) val).floatValue(), 0) : 0);
+    val = vwr.getP("minimizationSkin");
+    vdwSkin = (val instanceof Float ? Math.max(((Float) val).floatValue(), 0) : 2);
+    esShift = vwr.getBoolean(T.minimizationshiftes);
+    nThreads = vwr.getParallelThreads();
+    isDeterministic = vwr.getBoolean(T.minimizationdeterministic);
     try {
       setEnergyUnits();
 
@@ -371,7 +388,7 @@ public class Minimizer {
       elemnoMax = Math.max(elemnoMax, atomicNo);
       bsElements.set(atomicNo);
       minAtoms[pt] = new MinAtom(pt, atom, new double[] { atom.x, atom.y,
-          atom.z }, ac);
+          atom.z });
       minAtoms[pt].sType = atom.getAtomName();
     }
     if (bsFixed != null)
@@ -474,7 +491,7 @@ public class Minimizer {
           if ((ic = atomList[j]) > ia) {
             vAngles.addLast(new MinAngle(new int[] { ia, ib, ic, i,
                 minAtoms[ib].getBondIndex(j)}));
-            minAtoms[ia].bsVdw.clear(ic);
+            minAtoms[ia].bsVdwExcluded.set(ic);
           }
       }
       if (minAtoms[ia].nBonds > 1) {
@@ -484,7 +501,7 @@ public class Minimizer {
             vAngles
                 .addLast(new MinAngle(new int[] { ic, ia, ib, minAtoms[ia].getBondIndex(j),
                     i}));
-            minAtoms[ic].bsVdw.clear(ib);
+            minAtoms[ic].bsVdwExcluded.set(ib);
           }
       }
     }
@@ -35,6 +35,7 @@ import org.jmol.minimize.MinBond;
 import org.jmol.minimize.MinObject;
 import org.jmol.minimize.MinTorsion;
 import org.jmol.minimize.Util;
+import org.jmol.thread.ParallelTasks;
 
 import javajs.util.AU;
 import javajs.util.Lst;
@@ -109,6 +110,13 @@ abstract class Calculations {
 
   abstract double compute(int iType, Object[] dataIn);
 
+  /**
+   * @return a new Calculations sharing this one's atoms and parameters but
+   *         with its own Calculation objects and scratch vectors, for use on
+   *         a worker thread
+   */
+  abstract Calculations getWorker();
+
   public void setConstraints(Lst<MMConstraint> constraints) {
     if (constraints == null || constraints.isEmpty())
       return;
@@ -131,6 +139,14 @@ abstract class Calculations {
   }
 
   void addForce(V3d v, int i, double dE) {
+    if (forces != null) {
+      // worker thread
+      int pt = i * 3;
+      forces[pt++] += v.x * dE;
+      forces[pt++] += v.y * dE;
+      forces[pt] += v.z * dE;
+      return;
+    }
     minAtoms[i].force[0] += v.x * dE;
     minAtoms[i].force[1] += v.y * dE;
     minAtoms[i].force[2] += v.z * dE;
@@ -167,11 +183,42 @@ abstract class Calculations {
     isPreliminary = TF;
   }
 
+  private Calculation pairCalc1, pairCalc2;
+  private PairList pairList;
+
+  /**
+   * MMFF electrostatics shift to zero at this distance; 0 for no shift
+   */
+  double esCutoff;
+
+  /**
+   * Fill the VDW (and, for MMFF, ES) lists. With minimizationCutoff set, the
+   * pairs come from a cell-based Verlet list, and, if minimizationShiftES is
+   * set, MMFF electrostatics are shifted to zero at the cutoff; otherwise all
+   * nonexcluded pairs are listed.
+   * 
+   * @param calc1
+   * @param pc1
+   * @param calc2
+   * @param pc2
+   */
   protected void pairSearch(Lst<Object[]> calc1, Calculation pc1, 
                             Lst<Object[]> calc2, Calculation pc2) {
+    pairCalc1 = pc1;
+    pairCalc2 = pc2;
+    double cutoff = ff.minimizer.vdwCutoff;
+    esCutoff = (ff.minimizer.esShift ? cutoff : 0);
+    if (cutoff > 0) {
+      if (pairList == null)
+        pairList = new PairList(this);
+      pairList.build(cutoff, ff.minimizer.vdwSkin, calc1, pc1, calc2, pc2);
+      return;
+    }
+    pairList = null;
     for (int i = 0; i < ac - 1; i++) {
-      BS bsVdw = minAtoms[i].bsVdw;
-      for (int j = bsVdw.nextSetBit(0); j >= 0; j = bsVdw.nextSetBit(j + 1)) {
+      BS bsExcluded = minAtoms[i].bsVdwExcluded;
+      for (int j = bsExcluded.nextClearBit(i + 1); j < ac; j = bsExcluded
+          .nextClearBit(j + 1)) {
         pc1.setData(calc1, i, j, 0);
         if (pc2 != null)
           pc2.setData(calc2, i, j, 0);
@@ -179,9 +226,28 @@ abstract class Calculations {
     }
   }
 
+  /**
+   * Rebuild the nonbonded lists if the cutoff has changed or if atoms have
+   * moved more than half the Verlet skin.
+   */
+  private void checkPairList() {
+    double cutoff = ff.minimizer.vdwCutoff;
+    if (pairList == null ? cutoff <= 0 || pairCalc1 == null
+        : !pairList.isStale(cutoff, ff.minimizer.vdwSkin))
+      return;
+    calculations[CALC_VDW] = new Lst<Object[]>();
+    if (pairCalc2 != null)
+      calculations[CALC_ES] = new Lst<Object[]>();
+    pairSearch(calculations[CALC_VDW], pairCalc1, calculations[CALC_ES],
+        pairCalc2);
+  }
+
   private double calc(int iType, boolean gradients, boolean canConstrain) {
     logging = loggingEnabled && !silent;
     this.gradients = gradients;
+    boolean isPair = (iType == CALC_VDW || iType == CALC_ES);
+    if (isPair)
+      checkPairList();
     Lst<Object[]> calcs = calculations[iType];
     int nCalc;
     double energy = 0;
@@ -189,8 +255,13 @@ abstract class Calculations {
       return 0;
     if (logging)
       appendLogData(getDebugHeader(iType));
-    for (int ii = 0; ii < nCalc; ii++)
-      energy += compute(iType, calculations[iType].get(ii));
+    PairList pl = (isPair ? pairList : null);
+    int nThreads = ff.minimizer.nThreads;
+    if (nThreads > 1 && !logging && nCalc >= 2 * CHUNK_SIZE)
+      energy = calcParallel(iType, calcs, nCalc, pl, nThreads,
+          ff.minimizer.isDeterministic);
+    else
+      energy = sumTerms(iType, calcs, 0, nCalc, pl);
     if (logging)
       appendLogData(getDebugFooter(iType, energy));
     if (canConstrain && haveConstraints && constraintsByType[iType] != null)
@@ -198,6 +269,122 @@ abstract class Calculations {
     return energy;
   }
 
+  private double sumTerms(int iType, Lst<Object[]> calcs, int i0, int i1,
+                          PairList pl) {
+    double energy = 0;
+    if (pl == null) {
+      for (int ii = i0; ii < i1; ii++)
+        energy += compute(iType, calcs.get(ii));
+    } else {
+      for (int ii = i0; ii < i1; ii++) {
+        Object[] data = calcs.get(ii);
+        if (!pl.isOutside((int[]) data[0]))
+          energy += compute(iType, data);
+      }
+    }
+    return energy;
+  }
+
+  /**
+   * minimum number of terms handed to a worker
+   */
+  final static int CHUNK_SIZE = 256;
+
+  private Calculations[] workers;
+
+  /**
+   * worker only: force accumulator, 3 per atom
+   */
+  private double[] forces;
+
+  /**
+   * Evaluate one term list in chunks on the shared fork-join pool. Each
+   * worker has its own Calculation objects, scratch vectors, and force
+   * accumulator; forces are added back into the MinAtoms in worker order.
+   * 
+   * When deterministic, chunks are CHUNK_SIZE terms regardless of the number
+   * of threads and their energies are added in list order, so the total does
+   * not depend on scheduling or on parallelThreads. Otherwise there is one
+   * chunk per thread, and chunk energies are added as workers finish.
+   * 
+   * @param iType
+   * @param calcs
+   * @param nCalc
+   * @param pl
+   *        pair list to skip pairs beyond the cutoff, or null
+   * @param nThreads
+   * @param isDeterministic
+   * @return total energy for this term type
+   */
+  private double calcParallel(final int iType, final Lst<Object[]> calcs,
+                              int nCalc, final PairList pl, int nThreads,
+                              boolean isDeterministic) {
+    final int[] chunks = (isDeterministic ? ParallelTasks.getRanges(nCalc,
+        (nCalc + CHUNK_SIZE - 1) / CHUNK_SIZE) : ParallelTasks.getRanges(
+        nCalc, nThreads));
+    final int nChunks = chunks.length - 1;
+    final int nWorkers = Math.min(nThreads, nChunks);
+    if (workers == null || workers.length < nWorkers) {
+      Calculations[] w = new Calculations[nWorkers];
+      for (int i = 0; i < nWorkers; i++)
+        w[i] = (workers != null && i < workers.length ? workers[i]
+            : getWorker());
+      workers = w;
+    }
+    final double[] energies = (isDeterministic ? new double[nChunks] : null);
+    final double[] total = new double[1];
+    Runnable[] tasks = new Runnable[nWorkers];
+    for (int i = 0; i < nWorkers; i++) {
+      final Calculations w = workers[i];
+      w.gradients = gradients;
+      w.isPreliminary = isPreliminary;
+      w.esCutoff = esCutoff;
+      w.logging = false;
+      if (gradients) {
+        if (w.forces == null || w.forces.length != ac * 3)
+          w.forces = new double[ac * 3];
+        else
+          for (int j = w.forces.length; --j >= 0;)
+            w.forces[j] = 0;
+      }
+      final int i0 = i;
+      tasks[i] = new Runnable() {
+        @Override
+        public void run() {
+          // chunks are assigned to workers statically
+          for (int k = i0; k < nChunks; k += nWorkers) {
+            double e = w.sumTerms(iType, calcs, chunks[k], chunks[k + 1], pl);
+            if (energies == null) {
+              synchronized (total) {
+                total[0] += e;
+              }
+            } else {
+              energies[k] = e;
+            }
+          }
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    if (gradients) {
+      for (int i = 0; i < nWorkers; i++) {
+        double[] f = workers[i].forces;
+        for (int j = 0, pt = 0; j < ac; j++) {
+          double[] force = minAtoms[j].force;
+          force[0] += f[pt++];
+          force[1] += f[pt++];
+          force[2] += f[pt++];
+        }
+      }
+    }
+    if (energies == null)
+      return total[0];
+    double energy = 0;
+    for (int k = 0; k < nChunks; k++)
+      energy += energies[k];
+    return energy;
+  }
+
   double energyStrBnd(@SuppressWarnings("unused") boolean gradients) {
     return 0.0f;
   }
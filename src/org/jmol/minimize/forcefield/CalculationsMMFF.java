@@ -75,6 +75,12 @@ class CalculationsMMFF extends Calculations {
     return "kcal"; 
   }
 
+  @Override
+  Calculations getWorker() {
+    return new CalculationsMMFF(ff, ffParams, minAtoms, minBonds, minAngles,
+        minTorsions, null);
+  }
+
   @Override
   boolean setupCalculations() {
 
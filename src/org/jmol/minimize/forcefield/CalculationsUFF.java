@@ -96,6 +96,12 @@ class CalculationsUFF extends Calculations {
     return "kJ";
   }
 
+  @Override
+  Calculations getWorker() {
+    return new CalculationsUFF(ff, ffParams, minAtoms, minBonds, minAngles,
+        minTorsions, null);
+  }
+
   @Override
   boolean setupCalculations() {
 
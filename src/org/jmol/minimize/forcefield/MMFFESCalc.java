@@ -29,6 +29,9 @@ class MMFFESCalc extends Calculation {
       calcs.addForces(this, 2);
     }
 
+    if (calcs.esCutoff > 0)
+      energy -= f / (calcs.esCutoff + BUFF); // shifted to zero at the cutoff
+
     if (calcs.logging && Math.abs(energy) > 20)
       calcs.appendLogData(calcs.getDebugLine(Calculations.CALC_ES, this));
 
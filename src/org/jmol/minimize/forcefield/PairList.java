@@ -0,0 +1,187 @@
+/* $RCSfile$
+ * $Author: hansonr $
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2003-2005  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.jmol.minimize.forcefield;
+
+import java.util.Arrays;
+
+import javajs.util.BS;
+import javajs.util.Lst;
+
+import org.jmol.minimize.MinAtom;
+
+/**
+ * A Verlet neighbor list for the nonbonded (VDW and ES) terms, built using a
+ * uniform grid of cells of edge (cutoff + skin).
+ *
+ * Pairs are listed within cutoff + skin; only those within the cutoff are
+ * evaluated. The list is rebuilt only when some atom has moved more than half
+ * the skin since the last build. Pairs are emitted in the same (i, j > i)
+ * order as the all-pairs search, so the terms within the cutoff are summed in
+ * the same order as before.
+ *
+ */
+class PairList {
+
+  private Calculations calcs;
+
+  double cutoff = -1, skin = -1;
+  private double cutoff2;
+  private double[] xyz0;
+  int buildCount;
+
+  PairList(Calculations calcs) {
+    this.calcs = calcs;
+  }
+
+  /**
+   * @param cutoff
+   * @param skin
+   * @return true if the list must be (re)built
+   */
+  boolean isStale(double cutoff, double skin) {
+    if (xyz0 == null || cutoff != this.cutoff || skin != this.skin)
+      return true;
+    double d2max = skin * skin / 4;
+    MinAtom[] minAtoms = calcs.minAtoms;
+    for (int i = 0, pt = 0, n = calcs.ac; i < n; i++) {
+      double[] c = minAtoms[i].coord;
+      double dx = c[0] - xyz0[pt++];
+      double dy = c[1] - xyz0[pt++];
+      double dz = c[2] - xyz0[pt++];
+      if (dx * dx + dy * dy + dz * dz > d2max)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * @param pair
+   *        {ia, ib, ...}
+   * @return true if this pair is currently beyond the cutoff
+   */
+  boolean isOutside(int[] pair) {
+    double[] a = calcs.minAtoms[pair[0]].coord;
+    double[] b = calcs.minAtoms[pair[1]].coord;
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return (dx * dx + dy * dy + dz * dz > cutoff2);
+  }
+
+  void build(double cutoff, double skin, Lst<Object[]> calc1,
+             Calculation pc1, Lst<Object[]> calc2, Calculation pc2) {
+    this.cutoff = cutoff;
+    this.skin = skin;
+    cutoff2 = cutoff * cutoff;
+    MinAtom[] minAtoms = calcs.minAtoms;
+    int n = calcs.ac;
+    double r = cutoff + skin;
+    double r2 = r * r;
+    if (xyz0 == null)
+      xyz0 = new double[n * 3];
+    double x0 = Double.MAX_VALUE, y0 = x0, z0 = x0;
+    double x1 = -x0, y1 = -x0, z1 = -x0;
+    for (int i = 0, pt = 0; i < n; i++) {
+      double[] c = minAtoms[i].coord;
+      double x = xyz0[pt++] = c[0];
+      double y = xyz0[pt++] = c[1];
+      double z = xyz0[pt++] = c[2];
+      if (x < x0)
+        x0 = x;
+      if (x > x1)
+        x1 = x;
+      if (y < y0)
+        y0 = y;
+      if (y > y1)
+        y1 = y;
+      if (z < z0)
+        z0 = z;
+      if (z > z1)
+        z1 = z;
+    }
+    // cell edge is at least r; increase it if atoms are sparse,
+    // so that there are never more than ~8 cells per atom
+    double edge = r;
+    int nx, ny, nz;
+    while (true) {
+      nx = (int) ((x1 - x0) / edge) + 1;
+      ny = (int) ((y1 - y0) / edge) + 1;
+      nz = (int) ((z1 - z0) / edge) + 1;
+      if ((long) nx * ny * nz <= 8L * n + 27)
+        break;
+      edge *= 1.5;
+    }
+    int[] head = new int[nx * ny * nz];
+    Arrays.fill(head, -1);
+    int[] next = new int[n];
+    int[] cell = new int[n * 3];
+    for (int i = n; --i >= 0;) {
+      int pt = i * 3;
+      int cx = cell[pt] = (int) ((xyz0[pt] - x0) / edge);
+      int cy = cell[pt + 1] = (int) ((xyz0[pt + 1] - y0) / edge);
+      int cz = cell[pt + 2] = (int) ((xyz0[pt + 2] - z0) / edge);
+      int ic = (cx * ny + cy) * nz + cz;
+      next[i] = head[ic];
+      head[ic] = i;
+    }
+    int[] js = new int[16];
+    int nPairs = 0;
+    for (int i = 0; i < n - 1; i++) {
+      int pt = i * 3;
+      double x = xyz0[pt], y = xyz0[pt + 1], z = xyz0[pt + 2];
+      int cx = cell[pt], cy = cell[pt + 1], cz = cell[pt + 2];
+      BS bsExcluded = minAtoms[i].bsVdwExcluded;
+      int nj = 0;
+      for (int ix = Math.max(cx - 1, 0), ix1 = Math.min(cx + 1, nx - 1); ix <= ix1; ix++)
+        for (int iy = Math.max(cy - 1, 0), iy1 = Math.min(cy + 1, ny - 1); iy <= iy1; iy++)
+          for (int iz = Math.max(cz - 1, 0), iz1 = Math.min(cz + 1, nz - 1); iz <= iz1; iz++)
+            for (int j = head[(ix * ny + iy) * nz + iz]; j >= 0; j = next[j]) {
+              if (j <= i || bsExcluded.get(j))
+                continue;
+              int ptj = j * 3;
+              double dx = xyz0[ptj] - x;
+              double dy = xyz0[ptj + 1] - y;
+              double dz = xyz0[ptj + 2] - z;
+              if (dx * dx + dy * dy + dz * dz > r2)
+                continue;
+              if (nj == js.length)
+                js = Arrays.copyOf(js, nj * 2);
+              js[nj++] = j;
+            }
+      Arrays.sort(js, 0, nj);
+      for (int k = 0; k < nj; k++) {
+        pc1.setData(calc1, i, js[k], 0);
+        if (pc2 != null)
+          pc2.setData(calc2, i, js[k], 0);
+      }
+      nPairs += nj;
+    }
+    buildCount++;
+    if (buildCount == 1)
+      calcs.ff.minimizer.report(" " + nPairs + " nonbonded pairs within "
+          + (float) cutoff + " + " + (float) skin + " Angstroms", false);
+  }
+
+}
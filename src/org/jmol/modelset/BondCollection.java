@@ -156,9 +156,7 @@ abstract public class BondCollection extends AtomCollection {
           ((HBond) bo[i]).energy = energy;
       }
     } else {
-      if (bondCount == bo.length)
-        bo = (Bond[]) AU.arrayCopyObject(bo, bondCount
-            + BOND_GROWTH_INCREMENT);
+      checkBondArray();
       i = setBond(bondCount++,
           bondMutually(atom, atomOther, order, mad, energy)).index;
     }
@@ -167,6 +165,17 @@ abstract public class BondCollection extends AtomCollection {
     return bo[i];
   }
 
+  /**
+   * Make room for one more bond, growing by half again rather than by a fixed
+   * increment, so that autobonding a large model is not quadratic in the
+   * number of bonds. The array is trimmed when loading is complete.
+   */
+  private void checkBondArray() {
+    if (bondCount == bo.length)
+      bo = (Bond[]) AU.arrayCopyObject(bo, bondCount
+          + Math.max(BOND_GROWTH_INCREMENT, bondCount >> 1));
+  }
+
   protected Bond setBond(int index, Bond bond) {
     return bo[bond.index = index] = bond;
   }
@@ -221,9 +230,7 @@ abstract public class BondCollection extends AtomCollection {
 
   public int addHBond(Atom atom1, Atom atom2, int order, float energy) {
     // from autoHbond and BioModel.getRasmolHydrogenBonds
-    if (bondCount == bo.length)
-      bo = (Bond[]) AU.arrayCopyObject(bo, bondCount
-          + BOND_GROWTH_INCREMENT);
+    checkBondArray();
     return setBond(bondCount++, bondMutually(atom1, atom2, order, (short) 1,
         energy)).index;
   }
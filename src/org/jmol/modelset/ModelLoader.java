@@ -48,6 +48,7 @@ import org.jmol.util.Edge;
 import org.jmol.util.Elements;
 import org.jmol.util.JmolMolecule;
 import org.jmol.util.Logger;
+import org.jmol.util.PackedFrames;
 import org.jmol.viewer.JC;
 import org.jmol.viewer.Viewer;
 
@@ -170,8 +171,10 @@ public final class ModelLoader {
     fileHeader = (String) ms.getInfoM("fileHeader");
     Lst<P3[]> steps = (Lst<P3[]>) ms.getInfoM("trajectorySteps");
     isTrajectory = (steps != null);
-    if (isTrajectory)
+    if (isTrajectory) {
       ms.trajectory = newTrajectory(ms, steps);
+      ms.trajectory.setFrames((PackedFrames) ms.getInfoM("trajectoryFrames"), 0);
+    }
     isPyMOLsession = ms.getMSInfoB("isPyMOL");
     doAddPDBHydrogens = (jbr != null && !isTrajectory && !isPyMOLsession
         && !ms.getMSInfoB("pdbNoHydrogens") && (ms
@@ -180,6 +183,7 @@ public final class ModelLoader {
       info.remove("pdbNoHydrogens");
       info.remove("pdbAddHydrogens");
       info.remove("trajectorySteps");
+      info.remove("trajectoryFrames");
       if (isTrajectory)
         ms.vibrationSteps = (Lst<V3[]>) info.remove("vibrationSteps");
       if (info.containsKey("highPrecision")) {
@@ -376,6 +380,7 @@ public final class ModelLoader {
 
     freeze();
     finalizeShapes();
+    ModelSet msPrev = vwr.ms;
     vwr.setModelSet(ms);
     if (isSupercell && appendNew) {
       for (int i = baseModelIndex; i < ms.mc; i++) {
@@ -387,6 +392,9 @@ public final class ModelLoader {
       adapter.finish(asc);    
     if (modelSet0 != null) {
       modelSet0.releaseModelSet();
+    } else if (msPrev != null && msPrev != ms) {
+      // zap or a new load; release any mapped trajectory file
+      msPrev.releaseTrajectory();
     }
     modelSet0 = null;
   }
@@ -412,6 +420,12 @@ public final class ModelLoader {
           oldSet.vibrationSteps.addLast(null);
       }
       n = newSet.trajectory.steps.size();
+      if (newSet.trajectory.frames != null) {
+        // only one packed set per model set
+        oldSet.trajectory.unpack();
+        oldSet.trajectory.setFrames(newSet.trajectory.frames,
+            oldSet.trajectory.steps.size());
+      }
       for (int i = 0; i < n; i++) {
         oldSet.trajectory.steps.addLast(newSet.trajectory.steps.get(i));
         oldSet.vibrationSteps.addLast(newSet.vibrationSteps == null ? null
@@ -422,6 +436,8 @@ public final class ModelLoader {
     }
     newSet.vibrationSteps = oldSet.vibrationSteps;
     newSet.trajectory.steps = oldSet.trajectory.steps;
+    newSet.trajectory.setFrames(oldSet.trajectory.frames,
+        oldSet.trajectory.frame0);
     oldSet.trajectory = null;
   }
 
@@ -46,6 +46,7 @@ import org.jmol.modelsetbio.BioModel;
 import org.jmol.script.ScriptCompiler;
 import org.jmol.script.T;
 import org.jmol.shape.Shape;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.BSUtil;
 import org.jmol.util.BoxInfo;
 import org.jmol.util.Edge;
@@ -222,6 +223,7 @@ public class ModelSet extends BondCollection {
   }
 
   protected void releaseModelSet() {
+    releaseTrajectory();
     am = null;
     mc = 0;
     closest[0] = null;
@@ -246,6 +248,16 @@ public class ModelSet extends BondCollection {
     releaseModelSetBC();
   }
 
+  /**
+   * Release packed trajectory frames, which may hold a memory-mapped temporary
+   * file. A trajectory merged into a new model set has already been handed
+   * over and set to null here.
+   */
+  void releaseTrajectory() {
+    if (trajectory != null)
+      trajectory.release();
+  }
+
   //variables that will be reset when a new frame is instantiated
 
   private boolean echoShapeActive = false;
@@ -2694,7 +2706,6 @@ public class ModelSet extends BondCollection {
     int nNew = 0;
     if (showRebondTimes)// && Logger.debugging)
       Logger.startTimer("autobond");
-    int lastModelIndex = -1;
     boolean isAll = (bsA == null);
     BS bsCheck;
     int i0;
@@ -2710,10 +2721,60 @@ public class ModelSet extends BondCollection {
       }
       i0 = bsCheck.nextSetBit(0);
     }
-    AtomIndexIterator iter = getSelectedAtomIterator(null, false, false, true,
-        false);
+    int nThreads = vwr.getParallelThreads();
+    int nCheck = (isAll ? ac : bsCheck.cardinality());
+    if (nThreads > 1 && nCheck >= MIN_PARALLEL_AUTOBOND) {
+      nNew = autoBondParallel(nCheck, nThreads, bsA, bsB, bsCheck, bsExclude,
+          bsBonds, mad, state, bondTolerance, minBondDistance2);
+    } else if (i0 >= 0) {
+      AtomIndexIterator iter = getSelectedAtomIterator(null, false, false,
+          true, false);
+      nNew = autoBondRange(i0, ac, bsA, bsB, bsCheck, bsExclude, bsBonds, mad,
+          state, bondTolerance, minBondDistance2, iter, null);
+    }
+    if (showRebondTimes)
+      Logger.checkTimer("autobond", false);
+    return nNew;
+  }
+
+  /**
+   * minimum number of atoms to check before autobonding is split over
+   * threads
+   */
+  private final static int MIN_PARALLEL_AUTOBOND = 10000;
+
+  /**
+   * Autobond atoms i0 <= i < i1 (those in bsCheck, or all if bsCheck is
+   * null).
+   * 
+   * @param i0
+   * @param i1
+   * @param bsA
+   * @param bsB
+   * @param bsCheck
+   * @param bsExclude
+   * @param bsBonds
+   * @param mad
+   * @param state
+   * @param bondTolerance
+   * @param minBondDistance2
+   * @param iter
+   *        released on return
+   * @param pairs
+   *        if not null, only record bondable pairs here, in search order,
+   *        for later addition by autoBondCheck; nothing in the model set is
+   *        changed, so this may be run concurrently
+   * @return number of new bonds, or 0 if pairs is not null
+   */
+  private int autoBondRange(int i0, int i1, BS bsA, BS bsB, BS bsCheck,
+                            BS bsExclude, BS bsBonds, short mad, SB state,
+                            float bondTolerance, float minBondDistance2,
+                            AtomIndexIterator iter, BondPairs pairs) {
+    int nNew = 0;
+    int lastModelIndex = -1;
+    boolean isAll = (bsA == null);
     boolean useOccupation = false;
-    for (int i = i0; i >= 0 && i < ac; i = (isAll ? i + 1 : bsCheck
+    for (int i = i0; i >= 0 && i < i1; i = (isAll ? i + 1 : bsCheck
         .nextSetBit(i + 1))) {
       boolean isAtomInSetA = (isAll || bsA.get(i));
       boolean isAtomInSetB = (isAll || bsB.get(i));
@@ -2758,21 +2819,120 @@ public class ModelSet extends BondCollection {
             || useCharge && (Math.signum(atomNear.getFormalCharge()) == myFormalCharge)            
             )
           continue;
-        int order = (isBondable(myBondingRadius, atomNear.getBondingRadius(),
-            iter.foundDistance2(), minBondDistance2, bondTolerance) ? 1 : 0);
-        if (order > 0 && autoBondCheck(atom, atomNear, order, mad, bsBonds)) {
+        if (!isBondable(myBondingRadius, atomNear.getBondingRadius(),
+            iter.foundDistance2(), minBondDistance2, bondTolerance))
+          continue;
+        if (pairs != null) {
+          pairs.add(i, j);
+        } else if (autoBondCheck(atom, atomNear, 1, mad, bsBonds)) {
           nNew++;
-           if (state != null)
+          if (state != null)
             state.append("connect ({"+i+"}) ({"+j+"});");
         }
-     }
-      iter.release();
+      }
+    }
+    iter.release();
+    return nNew;
+  }
+
+  /**
+   * Search for bondable pairs in contiguous blocks of atoms -- so generally
+   * by model, and by chain or region within a large model -- on separate
+   * threads, then add the bonds on this thread in atom order, exactly as
+   * autoBondRange would have, so that bond indices match the serial result.
+   * 
+   * @param nCheck
+   * @param nThreads
+   * @param bsA
+   * @param bsB
+   * @param bsCheck
+   * @param bsExclude
+   * @param bsBonds
+   * @param mad
+   * @param state
+   * @param bondTolerance
+   * @param minBondDistance2
+   * @return number of new bonds
+   */
+  private int autoBondParallel(int nCheck, int nThreads, final BS bsA,
+                               final BS bsB, final BS bsCheck,
+                               final BS bsExclude, BS bsBonds, short mad,
+                               SB state, final float bondTolerance,
+                               final float minBondDistance2) {
+    long t0 = System.currentTimeMillis();
+    // several blocks per thread, since data frames and deleted atoms
+    // make some blocks much quicker than others
+    int[] b = ParallelTasks.getRanges(nCheck, nThreads * 4);
+    int n = b.length - 1;
+    if (bsCheck != null) {
+      // convert counts to atom indices
+      for (int i = bsCheck.nextSetBit(0), k = 0, ib = 0; ib <= n; i = bsCheck
+          .nextSetBit(i + 1), k++)
+        while (ib <= n && b[ib] == k)
+          b[ib++] = (i < 0 ? ac : i);
+    }
+    // trees must all be built before the search starts
+    initializeBspf();
+    BS bsModels = (bsCheck == null ? BSUtil.newBitSet2(0, mc) : getModelBS(
+        bsCheck, false));
+    for (int i = bsModels.nextSetBit(0); i >= 0; i = bsModels.nextSetBit(i + 1)) {
+      int m = am[i].trajectoryBaseIndex;
+      if (m < bspf.bspts.length && bspf.bspts[m] != null)
+        initializeBspt(m);
+    }
+    final BondPairs[] pairs = new BondPairs[n];
+    Runnable[] tasks = new Runnable[n];
+    for (int t = 0; t < n; t++) {
+      final int i0 = (bsCheck == null ? b[t] : bsCheck.nextSetBit(b[t]));
+      final int i1 = b[t + 1];
+      final BondPairs p = pairs[t] = new BondPairs();
+      tasks[t] = new Runnable() {
+        @Override
+        public void run() {
+          AtomIteratorWithinModel iter = new AtomIteratorWithinModel();
+          iter.initialize(bspf, null, false, false, true, true);
+          autoBondRange(i0, i1, bsA, bsB, bsCheck, bsExclude, null, (short) 0,
+              null, bondTolerance, minBondDistance2, iter, p);
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    long t1 = System.currentTimeMillis();
+    int nNew = 0;
+    for (int t = 0; t < n; t++) {
+      int[] ij = pairs[t].ij;
+      for (int k = 0, nk = pairs[t].n; k < nk; k += 2) {
+        int i = ij[k], j = ij[k + 1];
+        if (autoBondCheck(at[i], at[j], 1, mad, bsBonds)) {
+          nNew++;
+          if (state != null)
+            state.append("connect ({" + i + "}) ({" + j + "});");
+        }
+      }
     }
     if (showRebondTimes)
-      Logger.checkTimer("autoBond", false);
+      Logger.info("autobond: " + nCheck + " atoms searched in " + n
+          + " blocks on " + nThreads + " threads in " + (t1 - t0)
+          + " ms; bonds added in " + (System.currentTimeMillis() - t1)
+          + " ms");
     return nNew;
   }
 
+  /**
+   * bondable atom index pairs found by one autobonding thread
+   */
+  private static class BondPairs {
+    int[] ij = new int[1024];
+    int n;
+
+    void add(int i, int j) {
+      if (n == ij.length)
+        ij = AU.arrayCopyI(ij, n * 2);
+      ij[n++] = i;
+      ij[n++] = j;
+    }
+  }
+
   public boolean isBondable(float bondingRadiusA, float bondingRadiusB,
                             float distance2, float minBondDistance2,
                             float bondTolerance) {
@@ -31,6 +31,7 @@ import javajs.util.V3;
 
 import org.jmol.api.SymmetryInterface;
 import javajs.util.BS;
+import org.jmol.util.PackedFrames;
 import org.jmol.viewer.Viewer;
 
 import org.jmol.modelsetbio.BioModel;
@@ -41,6 +42,16 @@ public class Trajectory {
   ModelSet ms;
   Lst<P3[]> steps;
 
+  /**
+   * packed coordinates for models with null steps; model m is frame m - frame0
+   */
+  PackedFrames frames;
+  int frame0;
+  
+  private float[] buf1, buf2;
+  private final P3 p1 = new P3(), p2 = new P3();
+  private final V3 vib0 = new V3();
+
   public Trajectory() {
     
   }
@@ -52,9 +63,56 @@ public class Trajectory {
     return this;    
   }
 
+  void setFrames(PackedFrames frames, int frame0) {
+    this.frames = frames;
+    this.frame0 = frame0;
+    buf1 = buf2 = null;
+  }
+
+  /**
+   * Replace null steps with P3[] from the packed frames, for appending
+   * another packed trajectory.
+   */
+  void unpack() {
+    if (frames == null)
+      return;
+    for (int i = 0, n = frames.size(); i < n; i++)
+      steps.set(frame0 + i, frames.toP3Array(i));
+    release();
+  }
+
+  /**
+   * Clear the packed frames, deleting any mapped temporary file.
+   */
+  void release() {
+    if (frames != null)
+      frames.clear();
+    setFrames(null, 0);
+  }
+
+  private boolean isPacked(int m) {
+    return (frames != null && steps.get(m) == null && m >= frame0);
+  }
+
+  /**
+   * @param m
+   * @param buf
+   * @return coordinates for a packed model, in buf only if mapped
+   */
+  private float[] getFrame(int m, float[] buf) {
+    return frames.getFrame(m - frame0, buf);
+  }
+
   void setUnitCell(int imodel) {
     SymmetryInterface c = ms.getUnitCell(imodel);
     if (c != null && c.getCoordinatesAreFractional() && c.isSupercell()) {
+      if (isPacked(imodel)) {
+        for (int i = frames.n, f = imodel - frame0; --i >= 0;) {
+          c.toSupercell(frames.getPoint(f, i, p1));
+          frames.setPoint(f, i, p1);
+        }
+        return;
+      }
       P3[] list = ms.trajectory.steps.get(imodel);
       for (int i = list.length; --i >= 0;)
         if (list[i] != null)
@@ -75,8 +133,7 @@ public class Trajectory {
     am[baseModelIndex].selectedTrajectory = modelIndex;
     // dcd trajectories should cancel PDB crystal data. Not sure why they were there. Somewhat of a hack
     isFractional = !ms.getMSInfoB("ignoreUnitCell");
-    setAtomPositions(baseModelIndex, modelIndex, steps.get(modelIndex),
-        null, 0,
+    setAtomPositions(baseModelIndex, modelIndex, modelIndex, -1, 0,
         (ms.vibrationSteps == null ? null : ms.vibrationSteps.get(modelIndex)), isFractional);    
     int currentModelIndex = vwr.am.cmi;
     if (currentModelIndex >= 0 && currentModelIndex != modelIndex 
@@ -91,36 +148,56 @@ public class Trajectory {
    * possibly from an array. Takes care of all associated issues of changing
    * coordinates.
    * 
+   * Coordinates come either from a P3[] step or from a packed frame; no
+   * per-frame storage is allocated for either.
+   * 
    * @param baseModelIndex
    * @param modelIndex
-   * @param t1
-   * @param t2
+   * @param m1
+   *        model for the coordinates
+   * @param m2
+   *        second model for interpolation, or -1
    * @param f
    * @param vibs
    * @param isFractional
    */
   private void setAtomPositions(int baseModelIndex, int modelIndex,
-                                P3[] t1, P3[] t2,
+                                int m1, int m2,
                                 float f, V3[] vibs,
                                 boolean isFractional) {
     BS bs = new BS();
-    V3 vib = new V3();
+    V3 vib = vib0;
+    vib.set(0, 0, 0);
     Model[] am = ms.am;
     Atom[] at = ms.at;
     int iFirst = am[baseModelIndex].firstAtomIndex;
     int iMax = iFirst + ms.getAtomCountInModel(baseModelIndex);
+    P3[] t1 = steps.get(m1);
+    float[] f1 = null;
+    if (t1 == null) {
+      if (buf1 == null)
+        buf1 = new float[frames.n * 3];
+      f1 = getFrame(m1, buf1);
+    }
+    int n1 = (t1 == null ? f1.length / 3 : t1.length);
+    P3 p = p1;
     if (f == 0) {
-      for (int pt = 0, i = iFirst; i < iMax && pt < t1.length; i++, pt++) {
+      for (int pt = 0, i = iFirst; i < iMax && pt < n1; i++, pt++) {
         Atom a = at[i];
         if (a == null)
           continue;
         a.mi = (short) modelIndex;
-        if (t1[pt] == null)
-          continue;
+        if (f1 == null) {
+          if ((p = t1[pt]) == null)
+            continue;
+        } else {
+          int j = pt * 3;
+          p.set(f1[j], f1[j + 1], f1[j + 2]);
+        }
         if (isFractional)
-          a.setFractionalCoordTo(t1[pt], true);
+          a.setFractionalCoordTo(p, true);
         else
-          a.setT(t1[pt]);
+          a.setT(p);
         if (ms.vibrationSteps != null) {
           if (vibs != null && vibs[pt] != null)
             vib = vibs[pt];
@@ -129,17 +206,37 @@ public class Trajectory {
         bs.set(i);
       }
     } else {
-      P3 p = new P3();
-      int n = Math.min(t1.length, t2.length);
+      P3[] t2 = steps.get(m2);
+      float[] f2 = null;
+      if (t2 == null) {
+        if (buf2 == null)
+          buf2 = new float[frames.n * 3];
+        f2 = getFrame(m2, buf2);
+      }
+      int n = Math.min(n1, t2 == null ? f2.length / 3 : t2.length);
+      P3 q = p2;
       for (int pt = 0, i = iFirst; i < iMax && pt < n; i++, pt++) {
         Atom a = at[i];
         if (a == null)
           continue;
         a.mi = (short) modelIndex;
-        if (t1[pt] == null || t2[pt] == null)
-          continue;
-        p.sub2(t2[pt], t1[pt]);
-        p.scaleAdd2(f, p, t1[pt]);
+        int j = pt * 3;
+        if (f1 == null) {
+          if (t1[pt] == null)
+            continue;
+          q.setT(t1[pt]);
+        } else {
+          q.set(f1[j], f1[j + 1], f1[j + 2]);
+        }
+        if (f2 == null) {
+          if (t2[pt] == null)
+            continue;
+          p.setT(t2[pt]);
+        } else {
+          p.set(f2[j], f2[j + 1], f2[j + 2]);
+        }
+        p.sub(q);
+        p.scaleAdd2(f, p, q);
         if (isFractional)
           a.setFractionalCoordTo(p, true);
         else
@@ -188,9 +285,8 @@ public class Trajectory {
     }
     int baseModelIndex = ms.am[m1].trajectoryBaseIndex;
     ms.am[baseModelIndex].selectedTrajectory = m1;
-    setAtomPositions(baseModelIndex, m1, steps.get(m1),
-        steps.get(m2), f, (ms.vibrationSteps == null ? null
-            : ms.vibrationSteps.get(m1)), true);
+    setAtomPositions(baseModelIndex, m1, m1, m2, f,
+        (ms.vibrationSteps == null ? null : ms.vibrationSteps.get(m1)), true);
     int m = vwr.am.cmi;
     if (m >= 0 && m != m1 && ms.am[m].fileIndex == ms.am[m1].fileIndex)
       vwr.setCurrentModelIndexClear(m1, false);
@@ -200,15 +296,19 @@ public class Trajectory {
     int m = a.mi;
     boolean isFrac = (ms.unitCells != null && ms.unitCells[m]
         .getCoordinatesAreFractional());
-    P3 pt = steps.get(m)[a.i - ms.am[m].firstAtomIndex];
+    int i = a.i - ms.am[m].firstAtomIndex;
+    P3 pt = (isPacked(m) ? p1 : steps.get(m)[i]);
     pt.set(a.x, a.y, a.z);
     if (isFrac)
       ms.unitCells[m].toFractional(pt, true);
+    if (pt == p1)
+      frames.setPoint(m - frame0, i, pt);
   }
 
   public void getFractional(Atom a, P3 ptTemp) {
-    a.setFractionalCoordPt(ptTemp, steps.get(a.mi)[a.i
-        - ms.am[a.mi].firstAtomIndex], true);
+    int i = a.i - ms.am[a.mi].firstAtomIndex;
+    a.setFractionalCoordPt(ptTemp, (isPacked(a.mi) ? frames.getPoint(a.mi
+        - frame0, i, p1) : steps.get(a.mi)[i]), true);
   }
 
   public String getState() {
@@ -24,7 +24,10 @@
 package org.jmol.modelsetbio;
 
 import org.jmol.c.STR;
+import javajs.util.AU;
 import javajs.util.BS;
+
+import org.jmol.bspt.CubeIterator;
 import org.jmol.modelset.Atom;
 import org.jmol.modelset.Bond;
 import org.jmol.modelset.HBond;
@@ -234,7 +237,6 @@ public class AminoPolymer extends AlphaPolymer {
     P3 sourceAlphaPoint = source.getLeadAtom();
     P3 sourceNitrogenPoint = source.getNitrogenAtom();
     Atom nitrogen = source.getNitrogenAtom();
-    int[] m;
     for (int i = polymer.monomerCount; --i >= 0;) {
       if (polymer == this && (i == indexDonor || i + 1 == indexDonor 
           /* || i - 1 == indexDonor*/ ))
@@ -248,21 +250,8 @@ public class AminoPolymer extends AlphaPolymer {
       float dist2 = sourceAlphaPoint.distanceSquared(targetAlphaPoint);
       if (dist2 >= maxHbondAlphaDistance2)
         continue;
-      int energy = calcHbondEnergy(sourceNitrogenPoint, hydrogenPoint, target,
-          checkDistances);
-      if (energy < min[0][2]) {
-        m = min[1];
-        min[1] = min[0];
-        min[0] = m;
-      } else if (energy < min[1][2]) {
-        m = min[1];
-      } else {
-        continue;
-      }
-      m[0] = polymer.bioPolymerIndexInModel;
-      m[1] = (energy < -500 ? i : -1 - i); // so that it will not be found, but we can check it
-      m[2] = energy;
-
+      setMin(min, calcHbondEnergy(sourceNitrogenPoint, hydrogenPoint, target,
+          checkDistances), polymer.bioPolymerIndexInModel, i);
     }
     if (vHBonds != null)
       for (int i = 0; i < 2; i++)
@@ -273,6 +262,93 @@ public class AminoPolymer extends AlphaPolymer {
               min[i][2] / 1000f, vHBonds);
   }
 
+  /**
+   * Keep the two lowest energies for this donor; on a tie, the bond found first
+   * is kept.
+   * 
+   * @param min
+   * @param energy
+   * @param polymerIndex
+   * @param i
+   */
+  private static void setMin(int[][] min, int energy, int polymerIndex, int i) {
+    int[] m;
+    if (energy < min[0][2]) {
+      m = min[1];
+      min[1] = min[0];
+      min[0] = m;
+    } else if (energy < min[1][2]) {
+      m = min[1];
+    } else {
+      return;
+    }
+    m[0] = polymerIndex;
+    m[1] = (energy < -500 ? i : -1 - i); // so that it will not be found, but we can check it
+    m[2] = energy;
+  }
+
+  /**
+   * DSSP: the result of calcRasmolHydrogenBonds(polymer, null, null, null, 2,
+   * min, false, dsspIgnoreHydrogens) for each amino polymer in turn, but
+   * finding acceptors within maxHbondAlphaDistance of each donor using a
+   * CubeIterator over their alpha carbons rather than by scanning every monomer
+   * of every polymer. Candidates are checked in the same order as that scan, so
+   * that ties are resolved the same way. Only min is changed, so polymers may
+   * be processed in parallel, each with its own iterator.
+   * 
+   * @param iter
+   *        over the lead atoms of all monomers having a carbonyl oxygen
+   * @param order
+   *        scan order of each polymer, by bioPolymerIndexInModel
+   * @param min
+   * @param dsspIgnoreHydrogens
+   */
+  public void calcDsspHydrogenBonds(CubeIterator iter, int[] order,
+                                    int[][][] min, boolean dsspIgnoreHydrogens) {
+    P3 pt = new P3();
+    V3 vNH = new V3();
+    int[] ords = new int[32];
+    AminoMonomer[] targets = new AminoMonomer[32];
+    for (int i = 1; i < monomerCount; ++i) {
+      AminoMonomer source = (AminoMonomer) monomers[i];
+      if (!source.getNHPoint(pt, vNH, false, dsspIgnoreHydrogens)
+          || source.getCarbonylOxygenAtom() == null)
+        continue;
+      Atom alpha = source.getLeadAtom();
+      iter.initialize(alpha, maxHbondAlphaDistance, false);
+      int n = 0;
+      while (iter.hasMoreElements()) {
+        Atom a = (Atom) iter.nextElement();
+        AminoMonomer target = (AminoMonomer) a.group;
+        int k = target.monomerIndex;
+        if (target.bioPolymer == this && (k == i || k + 1 == i)
+            || alpha.distanceSquared(a) >= maxHbondAlphaDistance2)
+          continue;
+        if (n == ords.length) {
+          ords = AU.doubleLengthI(ords);
+          targets = (AminoMonomer[]) AU.doubleLength(targets);
+        }
+        // polymers in order, each from its last monomer to its first
+        int ord = order[target.bioPolymer.bioPolymerIndexInModel];
+        int j = n++;
+        for (; j > 0 && (ords[j - 1] > ord || ords[j - 1] == ord
+            && targets[j - 1].monomerIndex < k); j--) {
+          ords[j] = ords[j - 1];
+          targets[j] = targets[j - 1];
+        }
+        ords[j] = ord;
+        targets[j] = target;
+      }
+      P3 nitrogen = source.getNitrogenAtom();
+      for (int j = 0; j < n; j++) {
+        AminoMonomer target = targets[j];
+        setMin(min[i], calcHbondEnergy(nitrogen, pt, target, false),
+            target.bioPolymer.bioPolymerIndexInModel, target.monomerIndex);
+      }
+    }
+    iter.release();
+  }
+
   /**
    * based on RasMol 2.7.2.1.1 model
    * 
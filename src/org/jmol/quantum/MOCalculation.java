@@ -33,6 +33,7 @@ import javajs.util.BS;
 import org.jmol.jvxl.data.VolumeData;
 import org.jmol.modelset.Atom;
 import org.jmol.quantum.mo.DataAdder;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.Logger;
 
 
@@ -138,9 +139,27 @@ public class MOCalculation extends QuantumCalculation {
 
   private int[] highLEnabled;
   
+  private int nThreads = 1;
+  
+  // per-shell (or per-slater) accumulated time, in nanoseconds
+  private long[] shellTimes;
+  
   public MOCalculation() {
   }
 
+  /**
+   * Set the number of threads for grid evaluation. For n > 1, the x range of
+   * the grid is split into slabs, each processed by its own worker having its
+   * own coordinate and exponential scratch arrays. Each voxel still receives
+   * its contributions in the same shell and primitive order, so the voxel data
+   * are identical to the single-threaded calculation.
+   * 
+   * @param n
+   */
+  public void setThreads(int n) {
+    nThreads = Math.max(n, 1);
+  }
+
   public boolean setupCalculation(Map<String, Object> moData, boolean isSlaters, 
                                   VolumeData volumeData, BS bsSelected,
                         T3[] xyz, Atom[] atoms,
@@ -253,6 +272,13 @@ public class MOCalculation extends QuantumCalculation {
   //private double c = 1;
   @Override
   public void process() {
+    int n = (slaters == null ? shells.size() : slaters.length);
+    if (shellTimes == null || shellTimes.length != n)
+      shellTimes = new long[n];
+    if (nThreads > 1 && !havePoints && nX > 1) {
+      processParallel(n);
+      return;
+    }
     atomIndex = firstAtomOffset - 1;
     moCoeff = 0;
     if (slaters == null) {
@@ -268,16 +294,119 @@ public class MOCalculation extends QuantumCalculation {
 //        atomIndex = firstAtomOffset - 1;
 //        moCoeff = 0;
 //      }
-      for (int i = 0; i < nShells; i++)
+      for (int i = 0; i < nShells; i++) {
+        long t = System.nanoTime();
         processShell(i);
+        shellTimes[i] += System.nanoTime() - t;
+      }
       return;
     }
     for (int i = 0; i < slaters.length; i++) {
-      if (!processSlater(i))
+      long t = System.nanoTime();
+      boolean ok = processSlater(i);
+      shellTimes[i] += System.nanoTime() - t;
+      if (!ok)
         break;
     }
   }
 
+  /**
+   * Split the grid into x slabs, one per worker, and process all shells in
+   * each slab concurrently. Shells whose atom range does not reach a slab are
+   * skipped by that slab's worker.
+   * 
+   * @param nShells
+   *        number of shells or slaters
+   */
+  private void processParallel(int nShells) {
+    long t0 = System.currentTimeMillis();
+    int[] b = ParallelTasks.getRanges(nX, nThreads);
+    int n = b.length - 1;
+    final MOCalculation[] workers = new MOCalculation[n];
+    Runnable[] tasks = new Runnable[n];
+    for (int i = 0; i < n; i++) {
+      final MOCalculation w = workers[i] = getSlabWorker(b[i], b[i + 1]);
+      tasks[i] = new Runnable() {
+        @Override
+        public void run() {
+          w.process();
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    for (int i = 0; i < n; i++)
+      for (int j = nShells; --j >= 0;)
+        shellTimes[j] += workers[i].shellTimes[j];
+    Logger.info("MOCalculation: " + nShells
+        + (slaters == null ? " shells" : " slaters") + " on " + n
+        + " threads in " + (System.currentTimeMillis() - t0) + " ms");
+    if (Logger.debugging)
+      for (int j = 0; j < nShells; j++)
+        Logger.debug("MOCalculation: " + (slaters == null ? "shell " : "slater ")
+            + (j + 1) + " " + (shellTimes[j] / 1000) + " us (all threads)");
+  }
+
+  /**
+   * Create a worker sharing this calculation's read-only data and voxel
+   * arrays, but with its own scratch arrays and atoms, and limited to grid
+   * planes x0 <= ix < x1.
+   * 
+   * @param x0
+   * @param x1
+   * @return worker
+   */
+  private MOCalculation getSlabWorker(int x0, int x1) {
+    MOCalculation w = new MOCalculation();
+    w.initialize(nX, nY, nZ, null);
+    w.xBohr = xBohr;
+    w.yBohr = yBohr;
+    w.zBohr = zBohr;
+    w.originBohr = originBohr;
+    w.stepBohr = stepBohr;
+    w.unitFactor = unitFactor;
+    w.rangeBohrOrAngstroms = rangeBohrOrAngstroms;
+    w.xSlabMin = x0;
+    w.xSlabMax = x1;
+    w.voxelData = voxelData;
+    w.voxelDataTemp = voxelDataTemp;
+    w.calculationType = calculationType;
+    w.firstAtomOffset = firstAtomOffset;
+    w.shells = shells;
+    w.gaussians = gaussians;
+    w.slaters = slaters;
+    w.dfCoefMaps = dfCoefMaps;
+    w.coeffs = new double[coeffs.length];
+    w.moCoefficients = moCoefficients;
+    w.moFactor = moFactor;
+    w.normType = normType;
+    w.highLEnabled = highLEnabled;
+    w.doDebug = doDebug && x0 == 0;
+    w.qmAtoms = new QMAtom[qmAtoms.length];
+    for (int i = qmAtoms.length; --i >= 0;) {
+      QMAtom a = qmAtoms[i];
+      if (a != null)
+        w.qmAtoms[i] = new QMAtom(a.index, a, a.atom, w.X, w.Y, w.Z, w.X2,
+            w.Y2, w.Z2, 1);
+    }
+    return w;
+  }
+
+  /**
+   * A slab worker for one plane at a time, also with its own grid
+   * coordinates, and able to sum a linear combination of orbitals (but not
+   * of their squares).
+   */
+  @Override
+  public QuantumCalculation getPlaneWorker() {
+    if (isSquaredLinear || havePoints)
+      return null;
+    MOCalculation w = getSlabWorker(0, 0);
+    w.linearCombination = linearCombination;
+    w.coefs = coefs;
+    w.setPlaneWorker();
+    return w;
+  }
+
   private boolean checkCalculationType() {
     if (calculationType == null) {
       Logger.warn("calculation type not identified -- continuing");
@@ -334,7 +463,7 @@ public class MOCalculation extends QuantumCalculation {
     //System.out.println("shell " + iShell + " type " + basisType);
     if (atomIndex != lastAtom && (thisAtom = qmAtoms[atomIndex]) != null)
       thisAtom.setXYZ(this, true);
-    if (!allowType(basisType) || !setCoeffs(shell[1], true))
+    if (!allowType(basisType) || !setCoeffs(shell[1], true) || xMin >= xMax)
       return;
     if (havePoints)
       setMinMax(-1);
@@ -362,7 +491,8 @@ public class MOCalculation extends QuantumCalculation {
       String key = "=" + (atomIndex + 1) + ": " + QS.getQuantumShellTag(basisType);
       if (warned.indexOf(key) < 0) {
         warned += key;
-        Logger.warn(" Unsupported basis type for atomno" + key);
+        if (xSlabMin == 0)
+          Logger.warn(" Unsupported basis type for atomno" + key);
       }
       break;
     }
@@ -888,6 +1018,8 @@ public class MOCalculation extends QuantumCalculation {
     coef *= moFactor;
     if (atomIndex != lastAtom)
       thisAtom.setXYZ(this, true);
+    if (xMin >= xMax)
+      return true;
     int a = slater.x;
     int b = slater.y;
     int c = slater.z;
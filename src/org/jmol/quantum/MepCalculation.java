@@ -34,6 +34,7 @@ import javajs.util.Rdr;
 import javajs.util.BS;
 import org.jmol.jvxl.data.VolumeData;
 import org.jmol.modelset.Atom;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.Logger;
 import org.jmol.viewer.FileManager;
 import org.jmol.viewer.Viewer;
@@ -89,6 +90,8 @@ public class MepCalculation extends QuantumCalculation {
   private P3[] atomCoordAngstroms;
   private BS bsSelected;
   private Viewer vwr;
+  private int nThreads = 1;
+  private float range2 = Float.MAX_VALUE;
   
   public MepCalculation() {
     rangeBohrOrAngstroms = 8; // Angstroms
@@ -100,6 +103,52 @@ public class MepCalculation extends QuantumCalculation {
     this.vwr = vwr;
   }
 
+  /**
+   * Set the number of threads for grid evaluation. For n > 1, the x range of
+   * the grid is split into slabs, one per worker. Each voxel still receives
+   * its atom contributions in the same order, so the voxel data are identical
+   * to the single-threaded calculation.
+   * 
+   * @param n
+   */
+  public void setThreads(int n) {
+    nThreads = Math.max(n, 1);
+  }
+
+  /**
+   * Ignore atoms farther than this from a grid point. By default, each atom
+   * contributes only to a cube of 8 Angstroms on each side of it.
+   * 
+   * @param range
+   *        in Angstroms, or NaN for the default
+   */
+  public void setRange(float range) {
+    if (Float.isNaN(range) || range <= 0)
+      return;
+    rangeBohrOrAngstroms = range;
+    range2 = range * range;
+  }
+
+  /**
+   * An upper limit to the error at any point due to ignoring distant atoms,
+   * since no potential function increases with distance.
+   * 
+   * @param potentials
+   * @param bs
+   *        atoms to include, or null for all
+   * @param range
+   * @param calcType
+   * @return sum of |potential|, as its value at the given range
+   */
+  public float getMaxTruncationError(float[] potentials, BS bs, float range,
+                                     int calcType) {
+    float sum = 0;
+    for (int i = potentials.length; --i >= 0;)
+      if ((bs == null || bs.get(i)) && !Float.isNaN(potentials[i]))
+        sum += Math.abs(potentials[i]);
+    return valueFor(sum, range * range, calcType);
+  }
+
   /**
    * @param atoms 
    * @param potentials 
@@ -139,6 +188,23 @@ public class MepCalculation extends QuantumCalculation {
   public void calculate(VolumeData volumeData, BS bsSelected,
                         P3[] xyz, Atom[] atoms, float[] potentials,
                         int calcType) {
+    setupCalculation(volumeData, bsSelected, xyz, atoms, potentials, calcType);
+    process();
+  }
+
+  /**
+   * Set up for the full grid of volumeData, for calculate or getPlaneWorker.
+   * 
+   * @param volumeData
+   * @param bsSelected
+   * @param xyz
+   * @param atoms
+   * @param potentials
+   * @param calcType
+   */
+  public void setupCalculation(VolumeData volumeData, BS bsSelected,
+                               P3[] xyz, Atom[] atoms, float[] potentials,
+                               int calcType) {
     setup(calcType, potentials, atoms, bsSelected);
     voxelData = volumeData.getVoxelData();
     countsXYZ = volumeData.getVoxelCounts();
@@ -146,7 +212,22 @@ public class MepCalculation extends QuantumCalculation {
     setupCoordinates(volumeData.getOriginFloat(), volumeData
         .getVolumetricVectorLengths(), bsSelected, xyz, atoms, null, false);
     setXYZBohr(points);
-    process();
+    Logger.info("MepCalculation: atoms more than " + rangeBohrOrAngstroms
+        + " Angstroms away" + (range2 == Float.MAX_VALUE ? " in x, y, or z" : "")
+        + " ignored; maximum error "
+        + getMaxTruncationError(potentials, bsSelected, rangeBohrOrAngstroms,
+            distanceMode));
+  }
+
+  /**
+   * A slab worker for one plane at a time, also with its own grid
+   * coordinates.
+   */
+  @Override
+  public QuantumCalculation getPlaneWorker() {
+    MepCalculation w = getSlabWorker(0, 0);
+    w.setPlaneWorker();
+    return w;
   }
 
   public float getValueAtPoint(P3 pt) {
@@ -162,6 +243,11 @@ public class MepCalculation extends QuantumCalculation {
   
   @Override
   protected void process() {
+    if (nThreads > 1 && points == null && nX > 1) {
+      processParallel();
+      return;
+    }
+    float range2 = this.range2;
     for (int atomIndex = qmAtoms.length; --atomIndex >= 0;) {
       if ((thisAtom = qmAtoms[atomIndex]) == null)
         continue;
@@ -174,7 +260,9 @@ public class MepCalculation extends QuantumCalculation {
         for (int iy = yMax; --iy >= yMin;) {
           float dXY = dX + Y2[iy];
           for (int iz = zMax; --iz >= zMin;) {
-            voxelData[ix][iy][iz] += valueFor(x0, dXY + Z2[iz], distanceMode);
+            float d2 = dXY + Z2[iz];
+            if (d2 <= range2)
+              voxelData[ix][iy][iz] += valueFor(x0, d2, distanceMode);
           }
         }
       }
@@ -182,6 +270,63 @@ public class MepCalculation extends QuantumCalculation {
     
   }
 
+  private void processParallel() {
+    long t0 = System.currentTimeMillis();
+    int[] b = ParallelTasks.getRanges(nX, nThreads);
+    int n = b.length - 1;
+    Runnable[] tasks = new Runnable[n];
+    for (int i = 0; i < n; i++) {
+      final MepCalculation w = getSlabWorker(b[i], b[i + 1]);
+      tasks[i] = new Runnable() {
+        @Override
+        public void run() {
+          w.process();
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    int nAtoms = 0;
+    for (int i = qmAtoms.length; --i >= 0;)
+      if (qmAtoms[i] != null)
+        nAtoms++;
+    Logger.info("MepCalculation: " + nAtoms + " atoms on " + n
+        + " threads in " + (System.currentTimeMillis() - t0) + " ms");
+  }
+
+  /**
+   * Create a worker sharing this calculation's potentials and voxel array,
+   * but with its own coordinate arrays and atoms, and limited to grid planes
+   * x0 <= ix < x1.
+   * 
+   * @param x0
+   * @param x1
+   * @return worker
+   */
+  private MepCalculation getSlabWorker(int x0, int x1) {
+    MepCalculation w = new MepCalculation();
+    w.initialize(nX, nY, nZ, null);
+    w.xBohr = xBohr;
+    w.yBohr = yBohr;
+    w.zBohr = zBohr;
+    w.originBohr = originBohr;
+    w.stepBohr = stepBohr;
+    w.rangeBohrOrAngstroms = rangeBohrOrAngstroms;
+    w.range2 = range2;
+    w.distanceMode = distanceMode;
+    w.potentials = potentials;
+    w.xSlabMin = x0;
+    w.xSlabMax = x1;
+    w.voxelData = voxelData;
+    w.qmAtoms = new QMAtom[qmAtoms.length];
+    for (int i = qmAtoms.length; --i >= 0;) {
+      QMAtom a = qmAtoms[i];
+      if (a != null)
+        w.qmAtoms[i] = new QMAtom(a.index, a, a.atom, w.X, w.Y, w.Z, w.X2,
+            w.Y2, w.Z2, 1);
+    }
+    return w;
+  }
+
   public float valueFor(float x0, float d2, int distanceMode) {
     switch (distanceMode) {
     case ONE_OVER_D:
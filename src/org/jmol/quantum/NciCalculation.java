@@ -29,6 +29,7 @@ import javajs.util.T3;
 
 import javajs.util.BS;
 import org.jmol.jvxl.data.VolumeData;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.BSUtil;
 import org.jmol.util.Escape;
 import org.jmol.util.Logger;
@@ -124,6 +125,27 @@ public class NciCalculation extends QuantumPlaneCalculation {
   private BS bsOK;
   private boolean noValuesAtAll;
   private boolean useAbsolute;
+  private int nThreads = 1;
+
+  /**
+   * qmAtoms indices, highest first, of the atoms close enough in x to the
+   * current plane to contribute to it
+   */
+  private int[] atomList;
+  private int nAtomList;
+
+  /**
+   * Set the number of threads for the promolecular calculation. Planes are
+   * split into rows (getPlane) and cubes into x slabs (createCube, and the
+   * SCF intra/intermolecular filter), each worker having its own gradient,
+   * Hessian, and Eigen scratch. Each grid point still sums its atoms in the
+   * same order, so the values are identical to the single-threaded ones.
+   * 
+   * @param n
+   */
+  public void setThreads(int n) {
+    nThreads = Math.max(n, 1);
+  }
 
   public boolean setupCalculation(VolumeData volumeData,
                                   BS bsSelected, BS bsExcluded,
@@ -258,11 +280,97 @@ public class NciCalculation extends QuantumPlaneCalculation {
       return;
     bsOK = BS.newN(nX * nY * nZ);
     setXYZBohr(null);
-    for (int ix = 0, index = 0; ix < countsXYZ[0]; ix++)
+    if (nThreads > 1 && countsXYZ[0] > 1) {
+      int[] b = ParallelTasks.getRanges(countsXYZ[0], nThreads);
+      int n = b.length - 1;
+      final NciCalculation[] workers = new NciCalculation[n];
+      Runnable[] tasks = new Runnable[n];
+      for (int i = 0; i < n; i++) {
+        final NciCalculation w = workers[i] = getWorker(b[i], b[i + 1]);
+        w.bsOK = new BS();
+        tasks[i] = new Runnable() {
+          @Override
+          public void run() {
+            w.getBsOKSlab(w.xMin, w.xMax);
+          }
+        };
+      }
+      ParallelTasks.runAll(tasks);
+      for (int i = 0; i < n; i++)
+        bsOK.or(workers[i].bsOK);
+    } else {
+      getBsOKSlab(0, countsXYZ[0]);
+    }
+    Logger.info("NCI calculation SCF " + (type == TYPE_INTRA ? "intra" : "inter") + "molecular grid points = " + bsOK.cardinality());
+  }
+
+  private void getBsOKSlab(int x0, int x1) {
+    int yzCount = countsXYZ[1] * countsXYZ[2];
+    for (int ix = x0, index = x0 * yzCount; ix < x1; ix++) {
+      setAtomList(ix);
       for (int iy = 0; iy < countsXYZ[1]; iy++)
         for (int iz = 0; iz < countsXYZ[2]; index++, iz++)
           processAtoms(ix, iy, iz, index);
-    Logger.info("NCI calculation SCF " + (type == TYPE_INTRA ? "intra" : "inter") + "molecular grid points = " + bsOK.cardinality());
+    }
+  }
+
+  /**
+   * Create a worker with its own scratch, sharing this calculation's atoms,
+   * grid coordinates, voxel data, and filter, and limited to grid planes x0
+   * <= ix < x1.
+   * 
+   * @param x0
+   * @param x1
+   * @return worker
+   */
+  private NciCalculation getWorker(int x0, int x1) {
+    NciCalculation w = new NciCalculation();
+    w.havePoints = havePoints;
+    w.isReducedDensity = isReducedDensity;
+    w.rhoMin = rhoMin;
+    w.rhoPlot = rhoPlot;
+    w.rhoParam = rhoParam;
+    w.type = type;
+    w.nMolecules = nMolecules;
+    if (rhoMolecules != null)
+      w.rhoMolecules = new double[nMolecules];
+    w.isPromolecular = isPromolecular;
+    w.bsOK = bsOK;
+    w.useAbsolute = useAbsolute;
+    w.qmAtoms = qmAtoms;
+    w.countsXYZ = countsXYZ;
+    w.voxelData = voxelData;
+    w.xBohr = xBohr;
+    w.yBohr = yBohr;
+    w.zBohr = zBohr;
+    w.xMin = x0;
+    w.xMax = x1;
+    w.yMin = yMin;
+    w.yMax = yMax;
+    w.zMin = zMin;
+    w.zMax = zMax;
+    if (eigen != null)
+      w.initializeEigen();
+    return w;
+  }
+
+  /**
+   * Only atoms within dMax of plane ix in x can contribute to any of its
+   * points; see processAtoms.
+   * 
+   * @param ix
+   */
+  private void setAtomList(int ix) {
+    if (atomList == null)
+      atomList = new int[qmAtoms.length];
+    nAtomList = 0;
+    for (int i = qmAtoms.length; --i >= 0;) {
+      if (qmAtoms[i] == null)
+        continue;
+      double x = xBohr[ix] - qmAtoms[i].x;
+      if (Math.abs(x) <= dMax[qmAtoms[i].znuc])
+        atomList[nAtomList++] = i;
+    }
   }
 
   @Override
@@ -301,8 +409,17 @@ public class NciCalculation extends QuantumPlaneCalculation {
     isReducedDensity = true;
     initialize(countsXYZ[0], countsXYZ[1], countsXYZ[2], null);
     setXYZBohr(null);
+    if (nThreads > 1 && countsXYZ[1] > 1) {
+      getPlaneParallel(ix, yzPlane);
+      return;
+    }
+    setAtomList(ix);
+    getPlaneRows(ix, 0, countsXYZ[1], yzPlane);
+  }
+
+  private void getPlaneRows(int ix, int y0, int y1, float[] yzPlane) {
     int index = ix * yzCount;
-    for (int iy = 0, i = 0; iy < countsXYZ[1]; iy++)
+    for (int iy = y0, i = y0 * countsXYZ[2]; iy < y1; iy++)
       for (int iz = 0; iz < countsXYZ[2]; i++, iz++)
         if (bsOK == null || bsOK.get(index + i))
           yzPlane[i] = getValue(processAtoms(ix, iy, iz, -1), isReducedDensity);
@@ -310,11 +427,63 @@ public class NciCalculation extends QuantumPlaneCalculation {
           yzPlane[i] = Float.NaN;
   }
 
+  private void getPlaneParallel(final int ix, final float[] yzPlane) {
+    long t0 = (ix == 0 ? System.currentTimeMillis() : 0);
+    int[] b = ParallelTasks.getRanges(countsXYZ[1], nThreads);
+    int n = b.length - 1;
+    Runnable[] tasks = new Runnable[n];
+    for (int i = 0; i < n; i++) {
+      final NciCalculation w = getWorker(ix, ix + 1);
+      w.yzCount = yzCount;
+      final int y0 = b[i], y1 = b[i + 1];
+      tasks[i] = new Runnable() {
+        @Override
+        public void run() {
+          w.setAtomList(ix);
+          w.getPlaneRows(ix, y0, y1, yzPlane);
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    if (ix == 0)
+      Logger.info("NciCalculation: planes of " + countsXYZ[1] + " x "
+          + countsXYZ[2] + " points on " + n + " threads; first in "
+          + (System.currentTimeMillis() - t0) + " ms");
+  }
+
   @Override
   protected void process() {
     if (noValuesAtAll)
       return;
+    if (nThreads > 1 && !havePoints && xMax - xMin > 1) {
+      processParallel();
+      return;
+    }
+    processSlab();
+  }
+
+  private void processParallel() {
+    long t0 = System.currentTimeMillis();
+    int[] b = ParallelTasks.getRanges(xMax - xMin, nThreads);
+    int n = b.length - 1;
+    Runnable[] tasks = new Runnable[n];
+    for (int i = 0; i < n; i++) {
+      final NciCalculation w = getWorker(xMin + b[i], xMin + b[i + 1]);
+      tasks[i] = new Runnable() {
+        @Override
+        public void run() {
+          w.processSlab();
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    Logger.info("NciCalculation: " + (xMax - xMin) + " planes on " + n
+        + " threads in " + (System.currentTimeMillis() - t0) + " ms");
+  }
+
+  private void processSlab() {
     for (int ix = xMax; --ix >= xMin;) {
+      setAtomList(ix);
       for (int iy = yMin; iy < yMax; iy++) {
         float[] vd = voxelData[ix][(havePoints ? 0 : iy)];
         for (int iz = zMin; iz < zMax; iz++)
@@ -382,7 +551,8 @@ public class NciCalculation extends QuantumPlaneCalculation {
     } else {
       gxxTemp = gyyTemp = gzzTemp = gxyTemp = gyzTemp = gxzTemp = 0;
     }
-    for (int i = qmAtoms.length; --i >= 0;) {
+    for (int j = 0; j < nAtomList; j++) {
+      int i = atomList[j];
       int znuc = qmAtoms[i].znuc;
       double x = xBohr[ix] - qmAtoms[i].x;
       double y = yBohr[iy] - qmAtoms[i].y;
@@ -91,6 +91,10 @@ class QMAtom extends P3 {
           i = (int) Math.floor(1 + (x - qc.xBohr[0] + qc.rangeBohrOrAngstroms)
               / qc.stepBohr[0]);
           qc.xMax = (i >= qc.nX ? qc.nX : i + 1);
+          if (qc.xMin < qc.xSlabMin)
+            qc.xMin = qc.xSlabMin;
+          if (qc.xMax > qc.xSlabMax)
+            qc.xMax = qc.xSlabMax;
           i = (int) Math.floor((y - qc.yBohr[0] - qc.rangeBohrOrAngstroms)
               / qc.stepBohr[1]);
           qc.yMin = (i < 0 ? 0 : i);
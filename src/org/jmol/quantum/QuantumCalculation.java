@@ -54,6 +54,9 @@ abstract public class QuantumCalculation {
   protected T3[] points;
   public int xMin, xMax, yMin, yMax, zMin, zMax;
 
+  // x-slab limits for a parallel worker; the atom range is clipped to these 
+  protected int xSlabMin = 0, xSlabMax = Integer.MAX_VALUE;
+
   protected QMAtom[] qmAtoms;
   protected int atomIndex;
   protected QMAtom thisAtom;
@@ -244,4 +247,58 @@ abstract public class QuantumCalculation {
   
   public abstract void createCube();
 
+  /**
+   * a plane worker's values for the plane it is calculating
+   */
+  private float[][] planeData;
+
+  /**
+   * A copy of this calculation, set up for the full grid, that calculates
+   * single planes with getPlane, so that a surface can be created without
+   * the full voxel array, on several threads at once (Java only).
+   * 
+   * @return the worker, or null if this calculation does not have them
+   */
+  public QuantumCalculation getPlaneWorker() {
+    return null;
+  }
+
+  /**
+   * Give a new plane worker its own grid coordinates, since a calculation's
+   * may be changed by processPt while Marching Cubes runs, and just one
+   * plane of voxel data.
+   */
+  protected void setPlaneWorker() {
+    xBohr = new float[nX];
+    yBohr = new float[nY];
+    zBohr = new float[nZ];
+    setXYZBohr(null);
+    voxelData = voxelDataTemp = new float[nX][][];
+    planeData = new float[nY][nZ];
+  }
+
+  /**
+   * Calculate plane x into yzPlane, indexed y * nZ + z, the same values
+   * createCube puts in voxelData[x]. For a plane worker, this is
+   * processPoints() limited to a slab of just that plane.
+   * NciCalculation calculates its planes directly.
+   * 
+   * @param x
+   * @param yzPlane
+   */
+  public void getPlane(int x, float[] yzPlane) {
+    voxelData[x] = planeData;
+    xSlabMin = x;
+    xSlabMax = x + 1;
+    processPoints();
+    voxelData[x] = null;
+    for (int iy = 0, pt = 0; iy < nY; iy++) {
+      float[] vd = planeData[iy];
+      for (int iz = 0; iz < nZ; iz++, pt++) {
+        yzPlane[pt] = vd[iz];
+        vd[iz] = 0;
+      }
+    }
+  }
+
 }
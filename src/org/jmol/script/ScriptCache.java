@@ -0,0 +1,142 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.jmol.script;
+
+import java.util.Hashtable;
+import java.util.Map;
+
+/**
+ * A least-recently-used cache of compiled scripts for ScriptCompiler, keyed
+ * by script text and the compiler flags that matter, so that short scripts
+ * sent again and again are tokenized only once.
+ *
+ * The cached tokens are shared by every run of a script, just as a
+ * function's tokens are shared by every call: the if/else/loop pointers are
+ * put back from the compiled context each time it is handed out, and local
+ * variables are given new, empty values.
+ *
+ * Scripts that define functions, state scripts, and scripts with errors are
+ * not cached. The whole cache is discarded when Viewer.compileStamp changes --
+ * that is, when user functions, chain IDs, or chain case sensitivity change,
+ * since all of these affect how a script is compiled.
+ *
+ */
+class ScriptCache {
+
+  final static int MAX_SCRIPTS = 128;
+  final static int MAX_LENGTH = 4096;
+
+  private final Map<String, ScriptContext> htScripts = new Hashtable<String, ScriptContext>();
+  private final Map<String, int[]> htTicks = new Hashtable<String, int[]>();
+  private int tick;
+  private int stamp;
+  private int hits, misses, evictions, invalidations;
+
+  /**
+   * @param script
+   * @param isSilent
+   * @param debugScript
+   * @return key, or null if this script is too long to cache
+   */
+  static String getKey(String script, boolean isSilent, boolean debugScript) {
+    return (script.length() > MAX_LENGTH ? null : (isSilent ? "s" : "-")
+        + (debugScript ? "d" : "-") + script);
+  }
+
+  /**
+   * @param key
+   * @param compileStamp
+   *        current Viewer.compileStamp
+   * @return a new context for the compiled script, or null
+   */
+  ScriptContext get(String key, int compileStamp) {
+    if (compileStamp != stamp) {
+      if (htScripts.size() > 0)
+        invalidations++;
+      htScripts.clear();
+      htTicks.clear();
+      stamp = compileStamp;
+    }
+    ScriptContext sc = htScripts.get(key);
+    if (sc == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    htTicks.get(key)[0] = ++tick;
+    return newContext(sc);
+  }
+
+  /**
+   * @param key
+   * @param sc
+   *        just compiled and not yet run
+   * @param compileStamp
+   *        Viewer.compileStamp at the time of compilation
+   */
+  void put(String key, ScriptContext sc, int compileStamp) {
+    if (compileStamp != stamp)
+      return;
+    if (htScripts.size() >= MAX_SCRIPTS && !htScripts.containsKey(key)) {
+      String oldest = null;
+      int t = Integer.MAX_VALUE;
+      for (Map.Entry<String, int[]> e : htTicks.entrySet()) {
+        if (e.getValue()[0] < t) {
+          t = e.getValue()[0];
+          oldest = e.getKey();
+        }
+      }
+      htScripts.remove(oldest);
+      htTicks.remove(oldest);
+      evictions++;
+    }
+    htScripts.put(key, newContext(sc));
+    htTicks.put(key, new int[] { ++tick });
+  }
+
+  private static ScriptContext newContext(ScriptContext sc) {
+    ScriptContext c = new ScriptContext();
+    c.isComplete = true;
+    c.script = sc.script;
+    c.scriptExtensions = sc.scriptExtensions;
+    c.isEditor = sc.isEditor;
+    c.saveTokens(sc.restoreTokens());
+    c.lineIndices = sc.lineIndices;
+    c.lineNumbers = sc.lineNumbers;
+    if (sc.vars != null) {
+      c.vars = new Hashtable<String, SV>();
+      for (String name : sc.vars.keySet())
+        ScriptCompiler.addContextVariable(c.vars, name);
+    }
+    return c;
+  }
+
+  String getInfo() {
+    return "compiled scripts: " + htScripts.size() + " cached (maximum "
+        + MAX_SCRIPTS + "), " + hits + " hits, " + misses + " misses, "
+        + evictions + " evicted, " + invalidations + " invalidated";
+  }
+
+}
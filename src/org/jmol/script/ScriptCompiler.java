@@ -149,9 +149,24 @@ public class ScriptCompiler extends ScriptTokenParser {
   private ScriptFlowContext forceFlowContext;
   private boolean isWhere;
 
+  private ScriptCache cache;
+
   synchronized ScriptContext compile(String filename, String script,
                                      boolean isPredefining, boolean isSilent,
                                      boolean debugScript, boolean isCheckOnly) {
+    String key = (isPredefining || isCheckOnly ? null : ScriptCache.getKey(
+        script, isSilent, debugScript));
+    if (key != null) {
+      if (cache == null)
+        cache = new ScriptCache();
+      ScriptContext sc = cache.get(key, vwr.compileStamp);
+      if (sc != null) {
+        this.script = script;
+        isStateScript = false;
+        return sc;
+      }
+    }
+    int compileStamp = vwr.compileStamp;
     this.isCheckOnly = isCheckOnly;
     this.filename = filename;
     this.isSilent = isSilent;
@@ -185,9 +200,21 @@ public class ScriptCompiler extends ScriptTokenParser {
     sc.lineIndices = lineIndices;
     sc.lineNumbers = lineNumbers;
     sc.vars = contextVariables;
+    if (key != null && isOK && errorType == null && !isStateScript
+        && htUserFunctions.isEmpty() && compileStamp == vwr.compileStamp)
+      cache.put(key, sc, compileStamp);
     return sc;
   }
 
+  /**
+   * for SHOW CACHE
+   * 
+   * @return compiled script cache counts
+   */
+  public String getCacheInfo() {
+    return (cache == null ? "compiled scripts: none cached" : cache.getInfo());
+  }
+
   private void newContextVariable(String ident) {
     theToken = T.o(T.identifier, ident);
     if (pushCount > 0) {
@@ -890,6 +890,8 @@ public class T {
   public final static int loadatomdatatolerance          = floatparam | 19;  
   public final static int minbonddistance                = floatparam | 20;
   public final static int minimizationcriterion          = floatparam | 21;
+  public final static int minimizationcutoff             = floatparam | 41;
+  public final static int minimizationskin               = floatparam | 42;
   public final static int modulationscale                = floatparam | 22;
   public final static int mousedragfactor                = floatparam | 23;
   public final static int mousewheelfactor               = floatparam | 24;
@@ -924,6 +926,7 @@ public class T {
 
   public final static int ambientocclusion               = intparam | 1;               
   public final static int ambientpercent                 = intparam | 2;               
+  public final static int cachemaxmb                     = intparam | 3;
   public final static int animationfps                   = intparam | 4;
   public final static int axesmode                       = intparam | 5;
   public final static int bondradiusmilliangstroms       = intparam | 6;
@@ -955,6 +958,7 @@ public class T {
   public final static int propertyatomnumberfield        = intparam | 32;
   public final static int propertyatomnumbercolumncount  = intparam | 33;
   public final static int propertydatacolumncount        = intparam | 34;
+  public final static int parallelthreads                = intparam | 35;
   public final static int propertydatafield              = intparam | 36;
   public final static int repaintwaitms                  = intparam | 37;
   public final static int ribbonaspectratio              = intparam | 38;
@@ -991,6 +995,7 @@ public class T {
   public final static int autobond                       = booleanparam | 22;
   public final static int autofps                        = booleanparam | 24;
   public final static int autoplaymovie                  = booleanparam | 26;
+  public final static int cachesoftreferences            = booleanparam | 27;
 //  public final static int autoloadorientation            = booleanparam | 26;
   public final static int axesmolecular                  = booleanparam | 28;
   public final static int axesorientationrasmol          = booleanparam | 30;
@@ -1063,6 +1068,8 @@ public class T {
   public final static int messagestylechime              = booleanparam | 103;
   public final static int minimizationrefresh            = booleanparam | 104;
   public final static int minimizationsilent             = booleanparam | 105;
+  public final static int minimizationdeterministic      = booleanparam | 106;
+  public final static int parallelimages                 = booleanparam | 107;
   public final static int modulateoccupancy              = booleanparam | 108;  // 14.3.13
   public final static int monitorenergy                  = booleanparam | 109;
   public final static int multiplebondbananas            = booleanparam | 110;
@@ -1136,6 +1143,7 @@ public class T {
   public final static int zoomheight                     = booleanparam | 206;
   public final static int zoomlarge                      = booleanparam | 207;
   public final static int zshade                         = booleanparam | 208;
+  public final static int minimizationshiftes            = booleanparam | 209;
 
   
   // misc
@@ -2477,7 +2485,9 @@ public class T {
        "loadAtomDataTolerance",
        "minBondDistance",
        "minimizationCriterion",
+       "minimizationCutoff",
        "minimizationMaxAtoms",
+       "minimizationSkin",
        "modulationScale",
        "mouseDragFactor",
        "mouseWheelFactor",
@@ -2521,6 +2531,7 @@ public class T {
        "axesMode",
        "bondRadiusMilliAngstroms",
        "bondingVersion",
+       "cacheMaxMB",
        "delayMaximumMs",
        "diffusePercent",
        "diffuse",
@@ -2537,6 +2548,7 @@ public class T {
        "minimizationReportSteps",
        "minimizationSteps",
        "minPixelSelRadius",
+       "parallelThreads",
        "percentVdwAtom",
        "perspectiveModel",
        "phongExponent",
@@ -2593,6 +2605,7 @@ public class T {
        "bondPicking",
        "bonds",
        "bond",
+       "cacheSoftReferences",
        "cartoonBaseEdges",
        "cartoonBlocks",
        "cartoonBlockHeight",
@@ -2660,7 +2673,9 @@ public class T {
        "measurementLabels",
        "measurementNumbers",
        "messageStyleChime",
+       "minimizationDeterministic",
        "minimizationRefresh",
+       "minimizationShiftES",
        "minimizationSilent",
        "modelkitMode",
        "modelkit",
@@ -2673,6 +2688,7 @@ public class T {
        "navigateSurface",
        "navigationMode",
        "navigationPeriodic",
+       "parallelImages",
        "partialDots",
        "pdbAddHydrogens",
        "pdbGetHeader",
@@ -3553,7 +3569,9 @@ public class T {
         loadatomdatatolerance,              //        "loadAtomDataTolerance"
         minbonddistance,                    //        "minBondDistance"
         minimizationcriterion,              //        "minimizationCriterion"
+        minimizationcutoff,                 //        "minimizationCutoff"
         minimizationmaxatoms,               //        "minimizationMaxAtom"
+        minimizationskin,                   //        "minimizationSkin"
         modulationscale,                    //        "modulationScale"
         mousedragfactor,                    //        "mouseDragFactor"
         mousewheelfactor,                   //        "mouseWheelFactor"
@@ -3597,6 +3615,7 @@ public class T {
         axesmode,                           //        "axesMode"
         bondradiusmilliangstroms,           //        "bondRadiusMilliAngstroms"
         bondingversion,                     //        "bondingVersion"
+        cachemaxmb,                         //        "cacheMaxMB"
         delaymaximumms,                     //        "delayMaximumMs"
         diffusepercent,                     //        "diffusePercent"
         -1,                                 //        "diffuse"
@@ -3613,6 +3632,7 @@ public class T {
         minimizationreportsteps,            //        "minimizationReportSteps"
         minimizationsteps,                  //        "minimizationSteps"
         minpixelselradius,                  //        "minPixelSelRadius"
+        parallelthreads,                    //        "parallelThreads"
         percentvdwatom,                     //        "percentVdwAtom"
         perspectivemodel,                   //        "perspectiveModel"
         phongexponent,                      //        "phongExponent"
@@ -3669,6 +3689,7 @@ public class T {
         bondpicking,                        //        "bondPicking"
         bonds,                              //        "bonds"
         -1,                                 //        "bond"
+        cachesoftreferences,                //        "cacheSoftReferences"
         cartoonbaseedges,                   //        "cartoonBaseEdges"
         cartoonblocks,
         cartoonblockheight,
@@ -3736,7 +3757,9 @@ public class T {
         measurementlabels,                  //        "measurementLabels"
         measurementnumbers,                 //        "measurementNumbers"
         messagestylechime,                  //        "messageStyleChime"
+        minimizationdeterministic,          //        "minimizationDeterministic"
         minimizationrefresh,                //        "minimizationRefresh"
+        minimizationshiftes,                //        "minimizationShiftES"
         minimizationsilent,                 //        "minimizationSilent"
         modelkitmode,                       //        "modelkitMode"
         -1,
@@ -3749,6 +3772,7 @@ public class T {
         navigatesurface,                    //        "navigateSurface"
         navigationmode,                     //        "navigationMode"
         navigationperiodic,                 //        "navigationPeriodic"
+        parallelimages,                     //        "parallelImages"
         partialdots,                        //        "partialDots"
         pdbaddhydrogens,                    //        "pdbAddHydrogens"
         pdbgetheader,                       //        "pdbGetHeader"
@@ -4498,16 +4498,18 @@ public class CmdExt extends ScriptExt {
         else
           writeFileData = true;
       } else if (PT.isOneOf(data,";CIF;CIFP1;SDF;MOL;MOL67;V2000;V3000;CD;JSON;XYZ;XYZRN;XYZVIB;CML;QCJSON;PWMAT;PWSLAB;XSF;")) {
-        BS selected = vwr.bsA(), bsModel;
         // mechanism to pass information back from writer, changing the number of atoms written
-        vwr.setErrorMessage(null, " (" + selected.cardinality() + " atoms)");
-        data = vwr.getModelExtract(selected, isCoord, false, data);
-        msg = vwr.getErrorMessageUn();
-        vwr.setErrorMessage(null, null);
-        if (vwr.am.cmi >= 0 && !selected.equals(bsModel = vwr.getModelUndeletedAtomsBitSet(vwr.am.cmi)))
-          msg += "\nNote! Selected atom set " + selected + " is not the same as the current model " + bsModel;
-        if (data.startsWith("ERROR:"))
-          bytes = data;
+        vwr.setErrorMessage(null, " (" + vwr.bsA().cardinality() + " atoms)");
+        if (isCommand && !showOnly && PT.isOneOf(data, JC.STREAMED_MODEL_TYPES)) {
+          // written directly to the file in writeFileData
+          writeFileData = true;
+          type = "MODEL_" + data + "-coord " + isCoord;
+        } else {
+          data = vwr.getModelExtract(vwr.bsA(), isCoord, false, data);
+          msg = getModelExtractMessage();
+          if (data.startsWith("ERROR:"))
+            bytes = data;
+        }
       } else if (data == "CFI") {
         data = vwr.getModelFileData("selected", "cfi", false);
       } else if (data == "FUNCTION") {
@@ -4617,8 +4619,15 @@ public class CmdExt extends ScriptExt {
     if (bytes != null && bytes instanceof String)
       return writeMsg((String) bytes);
     // Just save the file data and return a confirmation message 
-    if (writeFileData)
-      return writeMsg(vwr.writeFileData(fileName, type, 0, null));
+    if (writeFileData) {
+      String ret = vwr.writeFileData(fileName, type, 0, null);
+      if (type.startsWith("MODEL_")) {
+        msg = getModelExtractMessage();
+        if (ret != null && ret.startsWith("OK"))
+          ret += msg;
+      }
+      return writeMsg(ret);
+    }
     // use vwr.processWriteOrCapture(params) for all other situations
     if (type.equals("SCENE"))
       bytes = sceneType;
@@ -4681,6 +4690,21 @@ public class CmdExt extends ScriptExt {
     return writeMsg(ret + (msg == null ? "" : msg));
   }
 
+  /**
+   * The writer may have set the error message to " (n atoms)"; also note when
+   * the selected atoms are not the current model.
+   * 
+   * @return message to add to the WRITE report
+   */
+  private String getModelExtractMessage() {
+    BS selected = vwr.bsA(), bsModel;
+    String msg = vwr.getErrorMessageUn();
+    vwr.setErrorMessage(null, null);
+    if (vwr.am.cmi >= 0 && !selected.equals(bsModel = vwr.getModelUndeletedAtomsBitSet(vwr.am.cmi)))
+      msg += "\nNote! Selected atom set " + selected + " is not the same as the current model " + bsModel;
+    return msg;
+  }
+
   public Lst<Object> prepareBinaryOutput(SV tvar) {
     Map<String, SV> m = tvar.getMap();
     if (m == null || !m.containsKey("$_BINARY_$"))
@@ -4812,7 +4836,8 @@ public class CmdExt extends ScriptExt {
       break;
     case T.cache:
       if (!chk)
-        msg = Escape.e(vwr.fm.cacheList());
+        msg = Escape.e(vwr.fm.cacheList()) + "\n"
+            + e.compiler.getCacheInfo();
       break;
     case T.dssr:
       eval.checkLength23();
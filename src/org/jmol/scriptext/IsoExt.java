@@ -2353,6 +2353,12 @@ public class IsoExt extends ScriptExt {
           addShapeProperty(propertyList, "mepCalcType",
               Integer.valueOf(calcType));
         }
+        if (tokAt(i + 1) == T.range) {
+          float range = floatParameter(i + 2);
+          i += 2;
+          sbCommand.append(" range " + range);
+          addShapeProperty(propertyList, "mepRange", Float.valueOf(range));
+        }
         if (tokAt(i + 1) == T.string) {
           fname = stringParameter(++i);
           //if (surfaceObjectSeen)
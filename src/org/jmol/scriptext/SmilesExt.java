@@ -209,7 +209,8 @@ public class SmilesExt {
                        | (firstMatchOnly ? JC.SMILES_FIRST_MATCH_ONLY : 0)
         | (ignoreElements ? JC.SMILES_GEN_TOPOLOGY : 0);
           if (!(smiles instanceof String)) {
-            return e.vwr.getSmilesMatcher().hasStructure(pattern, (String[]) smiles, flags);
+            return e.vwr.getSmilesMatcher().hasStructure(pattern,
+                (String[]) smiles, flags, e.vwr.getParallelThreads());
           }
           int[][] map = e.vwr.getSmilesMatcher().find(pattern, (String) smiles,
               flags);
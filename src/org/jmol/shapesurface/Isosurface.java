@@ -1781,6 +1781,8 @@ public class Isosurface extends MeshCollection implements MeshDataServer {
     if (mesh.jvxlData.contourValues != null
         || mesh.jvxlData.contourValuesUsed != null)
       info.put("contours", mesh.getContourList(vwr));
+    if (mesh.jvxlData.voxelMapBytes > 0)
+      info.put("voxelMapBytes", Integer.valueOf(mesh.jvxlData.voxelMapBytes));
   }
 
   @Override
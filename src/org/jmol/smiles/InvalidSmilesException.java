@@ -38,6 +38,25 @@ public class InvalidSmilesException extends Exception {
   public static void clear() {
     lastError = null;
   }
+
+  /**
+   * for SmilesMatcher.hasStructure, after its parallel tasks are done
+   * 
+   * @param error
+   */
+  static void setLastError(String error) {
+    lastError = error;
+  }
+
+  /**
+   * this exception's own message, unlike the static lastError, which another
+   * thread may have replaced in the meantime
+   */
+  private String error;
+
+  String getError() {
+    return error;
+  }
   
   @Override
   public String getMessage() {
@@ -50,7 +69,7 @@ public class InvalidSmilesException extends Exception {
    */
   public InvalidSmilesException(String message) {
     super(message);
-    lastError = (message.startsWith("Jmol SMILES") ? message : "Jmol SMILES Exception: " +  message);
+    lastError = error = (message.startsWith("Jmol SMILES") ? message : "Jmol SMILES Exception: " +  message);
   }
 
 }
@@ -0,0 +1,263 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package org.jmol.smiles;
+
+import javajs.util.AU;
+import javajs.util.BS;
+
+import org.jmol.thread.ParallelTasks;
+
+/**
+ * A screening index for a set of SMILES target strings, as used by
+ * SmilesMatcher.hasStructure for string[].find("SMARTS", pattern).
+ *
+ * Each target is parsed once, and its element counts and a fingerprint of
+ * its elements and bonded element pairs are kept. A pattern whose own counts,
+ * elements, or bonded pairs cannot be found in a target cannot match it, so
+ * that target can be skipped without parsing it again or running the search.
+ *
+ * The screen is conservative: a target is only rejected where
+ * SmilesMatcher.matchPattern would have returned false. Targets with wildcard
+ * atoms or that fail to parse or to build a topology map are never rejected,
+ * so that the search reports the same result or error for them as before.
+ *
+ */
+class SmilesIndex {
+
+  /**
+   * 128 bits for elements and then 128 bits for bonded pairs
+   */
+  private final static int FP_INTS = 8;
+
+  /**
+   * a copy of the array searched, so that a later change to the caller's
+   * array is not mistaken for the same set of targets
+   */
+  private final String[] smilesSet;
+  final String[] targets;
+  final int n;
+
+  /**
+   * total length of the target strings, for the size limit of
+   * SmilesMatcher's cached index
+   */
+  long nChars;
+
+  /**
+   * first parsing error, reported by hasStructure for the whole set
+   */
+  String error;
+
+  private final boolean[] isScreened;
+  private final int[] elementNumberMax;
+  private final int[][] elementCounts;
+  private final int[] fp;
+
+  SmilesIndex(String[] smilesSet, int nThreads) {
+    n = smilesSet.length;
+    this.smilesSet = AU.arrayCopyS(smilesSet, n);
+    for (int i = n; --i >= 0;)
+      nChars += smilesSet[i].length();
+    targets = new String[n];
+    isScreened = new boolean[n];
+    elementNumberMax = new int[n];
+    elementCounts = new int[n][];
+    fp = new int[n * FP_INTS];
+    final boolean[] isBad = new boolean[n];
+    final int[] b = ParallelTasks.getRanges(n, nThreads);
+    Runnable[] tasks = new Runnable[b.length - 1];
+    for (int t = 0; t < tasks.length; t++) {
+      final int i0 = b[t], i1 = b[t + 1];
+      tasks[t] = new Runnable() {
+        @Override
+        public void run() {
+          for (int i = i0; i < i1; i++)
+            isBad[i] = !addTarget(i);
+        }
+      };
+    }
+    ParallelTasks.runAll(tasks);
+    for (int i = 0; i < n; i++)
+      if (isBad[i]) {
+        // parse again here, since the message is static
+        try {
+          SmilesParser.newSearch(targets[i], false, true);
+        } catch (Exception e) {
+          error = e.getMessage();
+          if (error == null)
+            error = e.toString();
+        }
+        break;
+      }
+  }
+
+  /**
+   * @param smilesSet
+   * @return true if this index was created for an array with these contents
+   */
+  boolean isFor(String[] smilesSet) {
+    if (smilesSet.length != n)
+      return false;
+    for (int i = n; --i >= 0;)
+      if (!smilesSet[i].equals(this.smilesSet[i]))
+        return false;
+    return true;
+  }
+
+  private boolean addTarget(int i) {
+    String smiles = targets[i] = SmilesParser.cleanPattern(smilesSet[i]);
+    SmilesSearch search;
+    try {
+      search = SmilesParser.newSearch(smiles, false, true);
+    } catch (Exception e) {
+      return false;
+    }
+    elementNumberMax[i] = search.elementNumberMax;
+    elementCounts[i] = AU.arrayCopyI(search.elementCounts,
+        search.elementNumberMax + 1);
+    if (!setFingerprint(search, fp, i * FP_INTS))
+      return true;
+    try {
+      search.createTopoMap(new BS());
+      isScreened[i] = true;
+    } catch (Exception e) {
+      // matchPattern will report this one
+    }
+    return true;
+  }
+
+  /**
+   * @param i
+   * @param pattern
+   *        the parsed pattern
+   * @param patternFP
+   *        from getPatternFingerprint, or null
+   * @param isSmarts
+   * @return true if matchPattern would certainly not find pattern in target i
+   */
+  boolean rejects(int i, SmilesSearch pattern, int[] patternFP,
+                  boolean isSmarts) {
+    if (!isScreened[i])
+      return false;
+    if (isSmarts) {
+      // exactly the element count test of SmilesMatcher.matchPattern
+      int n = pattern.elementNumberMax;
+      if (n > elementNumberMax[i])
+        return true;
+      int[] a1 = elementCounts[i];
+      int[] a2 = pattern.elementCounts;
+      for (int j = 1; j <= n; j++)
+        if (a1[j] < a2[j])
+          return true;
+    }
+    if (patternFP != null)
+      for (int j = 0, pt = i * FP_INTS; j < FP_INTS; j++)
+        if ((patternFP[j] & ~fp[pt + j]) != 0)
+          return true;
+    return false;
+  }
+
+  /**
+   * Only single-element atoms and plain bonds between them are taken from
+   * the pattern, since those must be matched by atoms of the same elements
+   * and a bond between them in the target.
+   *
+   * @param pattern
+   * @param ignoreElements
+   * @return fingerprint, or null if the pattern has nothing that can be
+   *         screened
+   */
+  static int[] getPatternFingerprint(SmilesSearch pattern,
+                                     boolean ignoreElements) {
+    if (ignoreElements || pattern.subSearches != null)
+      return null;
+    for (int i = pattern.ac; --i >= 0;)
+      if (pattern.patternAtoms[i].isBioAtom)
+        return null;
+    int[] fp = new int[FP_INTS];
+    boolean haveBits = false;
+    for (int i = pattern.ac; --i >= 0;) {
+      SmilesAtom a = pattern.patternAtoms[i];
+      if (!isPlainAtom(a))
+        continue;
+      setElement(fp, 0, a.elementNumber);
+      haveBits = true;
+      for (int j = a.getBondCount(); --j >= 0;) {
+        SmilesBond b = a.getBond(j);
+        if (b.atom1 != a || !isPlainAtom(b.atom2) || b.isNot
+            || b.nPrimitives > 0)
+          continue;
+        switch (b.order) {
+        case SmilesBond.TYPE_NONE:
+        case SmilesBond.TYPE_BIO_SEQUENCE:
+        case SmilesBond.TYPE_BIO_CROSSLINK:
+          continue;
+        }
+        setPair(fp, 0, a.elementNumber, b.atom2.elementNumber);
+      }
+    }
+    return (haveBits ? fp : null);
+  }
+
+  private static boolean isPlainAtom(SmilesAtom a) {
+    // a nested search, $(...), is checked in place of the element
+    return (a != null && !a.not && a.nSubAtoms == 0 && a.iNested == 0
+        && a.elementNumber > 1);
+  }
+
+  /**
+   * @param target
+   * @param fp
+   * @param pt
+   * @return false if the target has a wildcard atom, which matches any element
+   */
+  private static boolean setFingerprint(SmilesSearch target, int[] fp, int pt) {
+    for (int i = target.ac; --i >= 0;) {
+      SmilesAtom a = target.patternAtoms[i];
+      if (a.elementNumber < 0)
+        return false;
+      if (a.elementNumber < 2)
+        continue;
+      setElement(fp, pt, a.elementNumber);
+      for (int j = a.getBondCount(); --j >= 0;) {
+        SmilesBond b = a.getBond(j);
+        if (b.atom1 == a && b.atom2 != null && b.atom2.elementNumber > 1)
+          setPair(fp, pt, a.elementNumber, b.atom2.elementNumber);
+      }
+    }
+    return true;
+  }
+
+  private static void setElement(int[] fp, int pt, int e) {
+    e &= 127;
+    fp[pt + (e >> 5)] |= 1 << (e & 31);
+  }
+
+  private static void setPair(int[] fp, int pt, int e1, int e2) {
+    int h = (e1 < e2 ? e1 * 131 + e2 : e2 * 131 + e1) & 127;
+    fp[pt + 4 + (h >> 5)] |= 1 << (h & 31);
+  }
+
+}
@@ -24,8 +24,11 @@
 
 package org.jmol.smiles;
 
+import java.lang.ref.SoftReference;
+
 import org.jmol.api.SmilesMatcherInterface;
 import org.jmol.modelset.Atom;
+import org.jmol.thread.ParallelTasks;
 import org.jmol.util.BSUtil;
 import org.jmol.util.Edge;
 import org.jmol.util.Elements;
@@ -33,7 +36,9 @@ import org.jmol.util.Logger;
 import org.jmol.util.Node;
 import org.jmol.util.Point3fi;
 import org.jmol.viewer.JC;
+import org.jmol.viewer.Viewer;
 
+import javajs.J2SIgnoreImport;
 import javajs.util.AU;
 import javajs.util.BS;
 import javajs.util.Lst;
@@ -100,6 +105,7 @@ import javajs.util.PT;
  * @author Bob Hanson
  * 
  */
+@J2SIgnoreImport({ SoftReference.class })
 public class SmilesMatcher implements SmilesMatcherInterface {
 
   // internal flags
@@ -705,18 +711,38 @@ public class SmilesMatcher implements SmilesMatcherInterface {
     return ss;
   }
 
+  /**
+   * the index for the last set of targets searched, reused as long as the
+   * same targets are searched again; held by soft reference, and only for
+   * sets of up to MAX_INDEX_CHARS characters, so that the garbage collector
+   * can always reclaim it (Java only)
+   */
+  private SoftReference<SmilesIndex> lastIndex;
+
+  private final static int MAX_INDEX_CHARS = 1 << 20;
+
   /**
    * Look for pattern in each smilesSet string.
    * 
+   * The pattern is parsed again for each target searched, since a search
+   * leaves state in it (nested search results, in particular) that must not
+   * carry over to the next target.
+   * 
+   * For more than one target, the targets are indexed (once for successive
+   * searches of the same set), and targets that cannot match are passed over
+   * without a search. The remaining targets are searched in nThreads ranges.
+   * 
    * @pattern to look for, probably SMARTS
    * @smilesSet array of target strings
    * @flags
+   * @nThreads
    * @return int array of same length as smiles set with 1 = match found, 0 =
    *         not found, and -1 meaning a parsing or searching error.
    * 
    */
   @Override
-  public int[] hasStructure(String pattern, String[] smilesSet, int flags)
+  public int[] hasStructure(String pattern, String[] smilesSet, int flags,
+                            int nThreads)
       throws Exception {
     int[] ret = new int[smilesSet.length];
     if ((flags & JC.SMILES_TYPE_SMILES) != JC.SMILES_TYPE_SMILES) {
@@ -728,20 +754,34 @@ public class SmilesMatcher implements SmilesMatcherInterface {
     try {
       // Note that additional flags are set when the pattern is parsed.
       SmilesSearch search = SmilesParser.newSearch(pattern, true, false);
-      for (int i = 0; i < smilesSet.length; i++) {
-        String smiles = SmilesParser.cleanPattern(smilesSet[i]);
-        SmilesSearch searchTarget = SmilesParser.newSearch(smiles, false, true); /// smiles chirality is fixed here
-        searchTarget
-            .setFlags(searchTarget.flags | SmilesParser.getFlags(pattern));
-        try {
-          clearExceptions();
-          ret[i] = (matchPattern(search, null, 0, null, null, false,
-              flags | JC.SMILES_FIRST_MATCH_ONLY, MODE_BOOLEAN,
-              searchTarget) == Boolean.TRUE ? 1 : 0);
-        } catch (Exception e) {
-          ret[i] = -1; // failed
-          e.printStackTrace();
-        }
+      if (smilesSet.length == 1) {
+        ret[0] = hasStructureAt(search, pattern, SmilesParser.newSearch(
+            SmilesParser.cleanPattern(smilesSet[0]), false, true), flags, null,
+            0);
+        return ret;
+      }
+      SmilesIndex index = (lastIndex == null ? null : lastIndex.get());
+      if (index == null || !index.isFor(smilesSet)) {
+        index = new SmilesIndex(smilesSet, nThreads);
+        lastIndex = (Viewer.isJS || index.nChars > MAX_INDEX_CHARS ? null
+            : new SoftReference<SmilesIndex>(index));
+      }
+      if (index.error != null)
+        throw new InvalidSmilesException(index.error);
+      // from here on, search is only used for screening
+      int[] b = ParallelTasks.getRanges(smilesSet.length, nThreads);
+      if (b.length == 2) {
+        hasStructureIn(index, 0, b[1], search, pattern, flags, ret, null);
+      } else {
+        // each task records its own errors; only after the join is the
+        // static error set, to that of the last target, as a serial search would
+        String[] errors = new String[smilesSet.length];
+        Runnable[] tasks = new Runnable[b.length - 1];
+        for (int t = 0; t < tasks.length; t++)
+          tasks[t] = newHasStructureTask(index, b[t], b[t + 1], search,
+              pattern, flags, ret, errors);
+        ParallelTasks.runAll(tasks);
+        InvalidSmilesException.setLastError(errors[errors.length - 1]);
       }
     } catch (Exception e) {
       if (Logger.debugging)
@@ -753,5 +793,79 @@ public class SmilesMatcher implements SmilesMatcherInterface {
     return ret;
   }
 
+  /**
+   * Each range has its own matcher, since matchPattern sets okMF.
+   */
+  private static Runnable newHasStructureTask(final SmilesIndex index,
+                                              final int i0, final int i1,
+                                              final SmilesSearch search,
+                                              final String pattern,
+                                              final int flags, final int[] ret,
+                                              final String[] errors) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        try {
+          new SmilesMatcher().hasStructureIn(index, i0, i1, search, pattern,
+              flags, ret, errors);
+        } catch (InvalidSmilesException e) {
+          // not possible -- the pattern has already been parsed once
+          for (int i = i0; i < i1; i++) {
+            ret[i] = -1;
+            errors[i] = e.getError();
+          }
+        }
+      }
+    };
+  }
+
+  private void hasStructureIn(SmilesIndex index, int i0, int i1,
+                              SmilesSearch search, String pattern, int flags,
+                              int[] ret, String[] errors)
+      throws InvalidSmilesException {
+    boolean isSmarts = ((flags
+        & JC.SMILES_TYPE_SMARTS) == JC.SMILES_TYPE_SMARTS);
+    int[] fp = SmilesIndex.getPatternFingerprint(search,
+        ((flags | search.flags)
+            & JC.SMILES_GEN_TOPOLOGY) == JC.SMILES_GEN_TOPOLOGY);
+    for (int i = i0; i < i1; i++)
+      ret[i] = (index.rejects(i, search, fp, isSmarts) ? 0
+          : hasStructureAt(SmilesParser.newSearch(pattern, true, false),
+              pattern, SmilesParser.newSearch(index.targets[i], false, true),
+              flags, errors, i));
+  }
+
+  /**
+   * @param search
+   * @param pattern
+   * @param searchTarget
+   * @param flags
+   * @param errors
+   *        null, or, for a parallel task, where to record the error for this
+   *        target in place of the static last error
+   * @param i
+   *        the target index into errors
+   * @return 1, 0, or -1 as for hasStructure
+   * @throws InvalidSmilesException
+   */
+  private int hasStructureAt(SmilesSearch search, String pattern,
+                             SmilesSearch searchTarget, int flags,
+                             String[] errors, int i)
+      throws InvalidSmilesException {
+    searchTarget.setFlags(searchTarget.flags | SmilesParser.getFlags(pattern));
+    try {
+      if (errors == null)
+        clearExceptions();
+      return (matchPattern(search, null, 0, null, null, false,
+          flags | JC.SMILES_FIRST_MATCH_ONLY, MODE_BOOLEAN,
+          searchTarget) == Boolean.TRUE ? 1 : 0);
+    } catch (Exception e) {
+      if (errors != null && e instanceof InvalidSmilesException)
+        errors[i] = ((InvalidSmilesException) e).getError();
+      e.printStackTrace();
+      return -1; // failed
+    }
+  }
+
 
 }
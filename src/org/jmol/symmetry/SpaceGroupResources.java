@@ -0,0 +1,402 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.jmol.symmetry;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javajs.util.JSJSONParser;
+import javajs.util.Lst;
+
+import org.jmol.util.Logger;
+import org.jmol.viewer.Viewer;
+
+/**
+ * A binary form of the sg/json resources (ITA settings, Wyckoff positions,
+ * AFLOW structures), so that the first use of one of them in a new JVM does
+ * not have to read and parse its JSON text.
+ *
+ * The build runs main() after compiling, writing sg/json/sg_json.bin with all
+ * of the JSON files in sg/json. Each file is one independent entry, so only
+ * the entry requested is decoded:
+ *
+ * <pre>
+ *  "JSGB" version entryCount
+ *  [name offset length] * entryCount    (offsets from the end of the index)
+ *  entries
+ *
+ *  entry:   stringCount [utf8Length utf8] * stringCount value
+ *  value:   N (null) | T | F | I zigzag-varint | D float | S stringIndex
+ *           | L count value* | M count [stringIndex value] * count
+ * </pre>
+ *
+ * Counts, lengths, and string indices are varints. Decoded values are just
+ * what JSJSONParser.parse(json, true) gives for the same file: Hashtable,
+ * Lst, String, Integer, Float, and Boolean.
+ *
+ * If the binary file or the entry is not present, or in JavaScript, the
+ * caller reads the JSON file instead.
+ *
+ * Java only.
+ *
+ */
+public class SpaceGroupResources {
+
+  final static String BINARY_RESOURCE = "sg/json/sg_json.bin";
+
+  private final static int VERSION = 1;
+
+  private final static byte NULL = 'N';
+  private final static byte TRUE = 'T';
+  private final static byte FALSE = 'F';
+  private final static byte INT = 'I';
+  private final static byte FLOAT = 'D';
+  private final static byte STRING = 'S';
+  private final static byte LIST = 'L';
+  private final static byte MAP = 'M';
+
+  /**
+   * resource name, for example "sg/json/ita_14.json", to {offset, length}
+   */
+  private static Map<String, int[]> index;
+
+  private static int dataOffset;
+  private static boolean haveChecked;
+
+  private SpaceGroupResources() {
+    // static only
+  }
+
+  /**
+   * Get a resource from the binary file.
+   *
+   * @param resource
+   *        path relative to org/jmol/symmetry, such as "sg/json/ita_14.json"
+   * @return the decoded JSON value, or null if it is not available
+   */
+  static Object getResource(String resource) {
+    if (Viewer.isJS)
+      return null;
+    int[] entry = getEntry(resource);
+    if (entry == null)
+      return null;
+    long t = System.currentTimeMillis();
+    InputStream is = null;
+    try {
+      is = getStream();
+      DataInputStream dis = new DataInputStream(is);
+      skipFully(dis, dataOffset + entry[0]);
+      byte[] bytes = new byte[entry[1]];
+      dis.readFully(bytes);
+      Object o = new Decoder(bytes).getEntry();
+      if (Logger.debugging)
+        Logger.debug("SpaceGroupResources: " + resource + " ("
+            + bytes.length + " bytes) decoded in "
+            + (System.currentTimeMillis() - t) + " ms");
+      return o;
+    } catch (Throwable e) {
+      Logger.error("SpaceGroupResources: " + resource + " " + e);
+      return null;
+    } finally {
+      if (is != null)
+        try {
+          is.close();
+        } catch (IOException e) {
+          // ignore
+        }
+    }
+  }
+
+  private static synchronized int[] getEntry(String resource) {
+    if (!haveChecked) {
+      haveChecked = true;
+      readIndex();
+    }
+    return (index == null ? null : index.get(resource));
+  }
+
+  private static void readIndex() {
+    InputStream is = getStream();
+    if (is == null)
+      return;
+    try {
+      DataInputStream dis = new DataInputStream(is);
+      byte[] magic = new byte[4];
+      dis.readFully(magic);
+      if (!new String(magic, "UTF-8").equals("JSGB")
+          || dis.readInt() != VERSION)
+        throw new IOException("bad header");
+      int n = dis.readInt();
+      int pt = 12;
+      Map<String, int[]> map = new Hashtable<String, int[]>();
+      for (int i = 0; i < n; i++) {
+        String name = dis.readUTF();
+        map.put(name, new int[] { dis.readInt(), dis.readInt() });
+        pt += 2 + name.getBytes("UTF-8").length + 8;
+      }
+      dataOffset = pt;
+      index = map;
+    } catch (IOException e) {
+      Logger.error("SpaceGroupResources: cannot read " + BINARY_RESOURCE
+          + " " + e);
+    } finally {
+      try {
+        is.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  private static InputStream getStream() {
+    InputStream is = SpaceGroupResources.class
+        .getResourceAsStream(BINARY_RESOURCE);
+    return (is == null ? null : new BufferedInputStream(is));
+  }
+
+  private static void skipFully(DataInputStream dis, int n) throws IOException {
+    while (n > 0) {
+      int m = (int) dis.skip(n);
+      if (m <= 0) {
+        dis.readByte();
+        m = 1;
+      }
+      n -= m;
+    }
+  }
+
+  private static class Decoder {
+
+    private final byte[] bytes;
+    private int pt;
+    private String[] strings;
+
+    Decoder(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    Object getEntry() throws IOException {
+      int n = readVarInt();
+      strings = new String[n];
+      for (int i = 0; i < n; i++) {
+        int len = readVarInt();
+        strings[i] = new String(bytes, pt, len, "UTF-8");
+        pt += len;
+      }
+      return getValue();
+    }
+
+    private Object getValue() throws IOException {
+      switch (bytes[pt++]) {
+      case NULL:
+        return null;
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case INT:
+        int i = readVarInt();
+        return Integer.valueOf((i >>> 1) ^ -(i & 1));
+      case FLOAT:
+        int bits = ((bytes[pt++] & 0xFF) << 24) | ((bytes[pt++] & 0xFF) << 16)
+            | ((bytes[pt++] & 0xFF) << 8) | (bytes[pt++] & 0xFF);
+        return Float.valueOf(Float.intBitsToFloat(bits));
+      case STRING:
+        return strings[readVarInt()];
+      case LIST:
+        int n = readVarInt();
+        Lst<Object> list = new Lst<Object>();
+        for (int j = 0; j < n; j++)
+          list.addLast(getValue());
+        return list;
+      case MAP:
+        n = readVarInt();
+        Map<String, Object> map = new Hashtable<String, Object>();
+        for (int j = 0; j < n; j++) {
+          String key = strings[readVarInt()];
+          map.put(key, getValue());
+        }
+        return map;
+      default:
+        throw new IOException("bad type at " + (pt - 1));
+      }
+    }
+
+    private int readVarInt() {
+      int n = 0;
+      for (int shift = 0;; shift += 7) {
+        byte b = bytes[pt++];
+        n |= (b & 0x7F) << shift;
+        if (b >= 0)
+          return n;
+      }
+    }
+  }
+
+  private static class Encoder {
+
+    private final Map<String, Integer> stringIndex = new Hashtable<String, Integer>();
+    private final Lst<String> strings = new Lst<String>();
+    private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+
+    Encoder() {
+    }
+
+    byte[] getEntry(Object o) throws IOException {
+      addValue(o);
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      writeVarInt(bos, strings.size());
+      for (int i = 0, n = strings.size(); i < n; i++) {
+        byte[] b = strings.get(i).getBytes("UTF-8");
+        writeVarInt(bos, b.length);
+        bos.write(b);
+      }
+      values.writeTo(bos);
+      return bos.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addValue(Object o) throws IOException {
+      if (o == null) {
+        values.write(NULL);
+      } else if (o instanceof Boolean) {
+        values.write(((Boolean) o).booleanValue() ? TRUE : FALSE);
+      } else if (o instanceof Integer) {
+        int i = ((Integer) o).intValue();
+        values.write(INT);
+        writeVarInt(values, (i << 1) ^ (i >> 31));
+      } else if (o instanceof Float) {
+        int bits = Float.floatToIntBits(((Float) o).floatValue());
+        values.write(FLOAT);
+        values.write(bits >>> 24);
+        values.write(bits >>> 16);
+        values.write(bits >>> 8);
+        values.write(bits);
+      } else if (o instanceof String) {
+        values.write(STRING);
+        writeVarInt(values, getStringIndex((String) o));
+      } else if (o instanceof Lst) {
+        Lst<Object> list = (Lst<Object>) o;
+        values.write(LIST);
+        writeVarInt(values, list.size());
+        for (int i = 0, n = list.size(); i < n; i++)
+          addValue(list.get(i));
+      } else if (o instanceof Map) {
+        Map<String, Object> map = (Map<String, Object>) o;
+        values.write(MAP);
+        writeVarInt(values, map.size());
+        for (Entry<String, Object> e : map.entrySet()) {
+          writeVarInt(values, getStringIndex(e.getKey()));
+          addValue(e.getValue());
+        }
+      } else {
+        throw new IOException("cannot encode " + o.getClass().getName());
+      }
+    }
+
+    private int getStringIndex(String s) {
+      Integer i = stringIndex.get(s);
+      if (i == null) {
+        stringIndex.put(s, i = Integer.valueOf(strings.size()));
+        strings.addLast(s);
+      }
+      return i.intValue();
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream bos, int n) {
+      while ((n & ~0x7F) != 0) {
+        bos.write((n & 0x7F) | 0x80);
+        n >>>= 7;
+      }
+      bos.write(n);
+    }
+  }
+
+  /**
+   * Build-time creation of sg_json.bin from the JSON files.
+   *
+   * @param args
+   *        [0] directory containing the .json files; [1] file to create
+   * @throws IOException
+   */
+  public static void main(String[] args) throws IOException {
+    File dir = new File(args[0]);
+    String[] names = dir.list();
+    Arrays.sort(names);
+    Lst<String> entryNames = new Lst<String>();
+    Lst<byte[]> entries = new Lst<byte[]>();
+    int jsonLength = 0;
+    for (int i = 0; i < names.length; i++) {
+      if (!names[i].endsWith(".json"))
+        continue;
+      File f = new File(dir, names[i]);
+      byte[] json = new byte[(int) f.length()];
+      DataInputStream dis = new DataInputStream(new FileInputStream(f));
+      try {
+        dis.readFully(json);
+      } finally {
+        dis.close();
+      }
+      jsonLength += json.length;
+      Object o = new JSJSONParser().parse(new String(json, "UTF-8"), true);
+      if (o == null)
+        throw new IOException("cannot parse " + f);
+      entryNames.addLast("sg/json/" + names[i]);
+      entries.addLast(new Encoder().getEntry(o));
+    }
+    DataOutputStream dos = new DataOutputStream(new FileOutputStream(args[1]));
+    try {
+      dos.writeBytes("JSGB");
+      dos.writeInt(VERSION);
+      int n = entries.size();
+      dos.writeInt(n);
+      int offset = 0;
+      for (int i = 0; i < n; i++) {
+        dos.writeUTF(entryNames.get(i));
+        dos.writeInt(offset);
+        dos.writeInt(entries.get(i).length);
+        offset += entries.get(i).length;
+      }
+      for (int i = 0; i < n; i++)
+        dos.write(entries.get(i));
+      System.out.println("SpaceGroupResources: " + n + " JSON files ("
+          + jsonLength + " bytes) written to " + args[1] + " ("
+          + dos.size() + " bytes)");
+    } finally {
+      dos.close();
+    }
+  }
+
+}
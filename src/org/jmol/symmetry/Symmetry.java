@@ -1276,6 +1276,9 @@ public class Symmetry implements SymmetryInterface {
   
   @SuppressWarnings("unchecked")
   private Object getResource(Viewer vwr, String resource) {
+    Object o = SpaceGroupResources.getResource(resource);
+    if (o != null)
+      return o;
     try {
       BufferedReader r = FileManager.getBufferedReaderForResource(vwr, this,
           "org/jmol/symmetry/", resource);
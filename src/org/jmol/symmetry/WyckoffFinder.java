@@ -350,6 +350,9 @@ public class WyckoffFinder {
 
   @SuppressWarnings("unchecked")
   private Map<String, Object> getResource(Viewer vwr, String resource) {
+    Object o = SpaceGroupResources.getResource("sg/json/" + resource);
+    if (o != null)
+      return (Map<String, Object>) o;
     try {
       BufferedReader r = FileManager.getBufferedReaderForResource(vwr, this,
           "org/jmol/symmetry/", "sg/json/" + resource);
@@ -0,0 +1,110 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.thread;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.jmol.viewer.Viewer;
+
+/**
+ * A minimal fork-join runner for calculations that split into a fixed number
+ * of independent pieces (grid slabs, term-list chunks, spatial blocks). All
+ * pieces are run to completion before runAll returns; the first Error or
+ * RuntimeException thrown by any piece is rethrown on the calling thread.
+ *
+ * Java only -- in JavaScript Viewer.nProcessors is 1, and callers are expected
+ * to check for that and run serially.
+ *
+ */
+public class ParallelTasks {
+
+  private static ForkJoinPool pool;
+
+  private ParallelTasks() {
+    // static only
+  }
+
+  private static synchronized ForkJoinPool getPool() {
+    if (pool == null)
+      pool = new ForkJoinPool(Math.max(Viewer.nProcessors, 2));
+    return pool;
+  }
+
+  /**
+   * Run all tasks, returning only after every one has completed. A single
+   * task is simply run on the current thread.
+   *
+   * @param tasks
+   */
+  public static void runAll(final Runnable[] tasks) {
+    int n = tasks.length;
+    if (n == 0)
+      return;
+    if (n == 1) {
+      tasks[0].run();
+      return;
+    }
+    final RecursiveAction[] actions = new RecursiveAction[n];
+    for (int i = 0; i < n; i++) {
+      final Runnable r = tasks[i];
+      actions[i] = new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+          r.run();
+        }
+      };
+    }
+    RecursiveAction all = new RecursiveAction() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected void compute() {
+        invokeAll(actions);
+      }
+    };
+    getPool().invoke(all);
+  }
+
+  /**
+   * Split [0, n) into at most nThreads contiguous, nearly equal ranges.
+   *
+   * @param n
+   * @param nThreads
+   * @return array of nRanges + 1 boundaries; range i is [b[i], b[i + 1])
+   */
+  public static int[] getRanges(int n, int nThreads) {
+    if (nThreads > n)
+      nThreads = Math.max(n, 1);
+    int[] b = new int[nThreads + 1];
+    for (int i = 0; i <= nThreads; i++)
+      b[i] = (int) ((long) n * i / nThreads);
+    return b;
+  }
+
+}
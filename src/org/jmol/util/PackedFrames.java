@@ -0,0 +1,275 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.util;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+import javajs.J2SIgnoreImport;
+import javajs.util.AU;
+import javajs.util.P3;
+
+/**
+ * Trajectory coordinates stored as one contiguous float[3 * n] block per
+ * frame rather than as one P3 per atom per frame.
+ *
+ * Blocks are held on the heap unless the size of the trajectory -- expected,
+ * or reached while reading when the frame count is not known -- is more than
+ * a quarter of the maximum heap, in which case (Java only) they are written to
+ * a memory-mapped temporary file that grows by segments as needed and is
+ * deleted by clear() or on exit.
+ *
+ * A null entry in Trajectory.steps indicates that the coordinates for that
+ * model are here.
+ *
+ */
+@J2SIgnoreImport({ File.class, RandomAccessFile.class, ByteOrder.class,
+    FloatBuffer.class, FileChannel.class })
+public class PackedFrames {
+
+  /**
+   * largest mapped segment, in floats (1 GB)
+   */
+  private final static int MAX_SEGMENT = 1 << 28;
+
+  /**
+   * atoms per frame
+   */
+  public final int n;
+
+  private int nFrames;
+  private float[][] blocks;
+
+  private boolean allowMapping;
+  private long maxHeapBytes;
+  private FloatBuffer[] segments;
+  private int framesPerSegment;
+  private File tempFile;
+
+  /**
+   * @param n
+   *        atoms per frame
+   * @param nExpected
+   *        expected number of frames, or 0 if unknown
+   * @param allowMapping
+   *        false for JavaScript
+   */
+  public PackedFrames(int n, int nExpected, boolean allowMapping) {
+    this.n = n;
+    this.allowMapping = (allowMapping && n > 0);
+    if (this.allowMapping) {
+      maxHeapBytes = Runtime.getRuntime().maxMemory() / 4;
+      if (12L * n * nExpected > maxHeapBytes)
+        map(nExpected);
+    }
+    if (segments == null)
+      blocks = new float[Math.max(nExpected, 16)][];
+  }
+
+  /**
+   * Map enough segments for nNeeded frames, creating the temporary file or
+   * extending it. After a failure the store stays on the heap.
+   * 
+   * @param nNeeded
+   * @return true if the mapping now holds at least nNeeded frames
+   */
+  private boolean map(int nNeeded) {
+    RandomAccessFile raf = null;
+    try {
+      if (tempFile == null) {
+        framesPerSegment = Math.max(1, MAX_SEGMENT / (3 * n));
+        tempFile = File.createTempFile("jmoltraj", ".bin");
+        tempFile.deleteOnExit();
+      }
+      int nSeg0 = (segments == null ? 0 : segments.length);
+      int nSeg = Math.max(nSeg0 + 1, (nNeeded + framesPerSegment - 1)
+          / framesPerSegment);
+      raf = new RandomAccessFile(tempFile, "rw");
+      FileChannel ch = raf.getChannel();
+      FloatBuffer[] segs = new FloatBuffer[nSeg];
+      if (nSeg0 > 0)
+        System.arraycopy(segments, 0, segs, 0, nSeg0);
+      long segBytes = 12L * n * framesPerSegment;
+      for (int i = nSeg0; i < nSeg; i++)
+        segs[i] = ch
+            .map(FileChannel.MapMode.READ_WRITE, i * segBytes, segBytes)
+            .order(ByteOrder.nativeOrder()).asFloatBuffer();
+      segments = segs;
+      Logger.info("PackedFrames: " + nSeg * framesPerSegment
+          + " frames of " + n + " atoms mapped to " + tempFile);
+      return true;
+    } catch (Throwable e) {
+      // continue on the heap
+      Logger.error("PackedFrames could not map " + tempFile + ": " + e);
+      allowMapping = false;
+      if (segments == null && tempFile != null) {
+        tempFile.delete();
+        tempFile = null;
+      }
+      return false;
+    } finally {
+      // the mapping remains valid after the file is closed
+      if (raf != null)
+        try {
+          raf.close();
+        } catch (Exception e) {
+          // ignore
+        }
+    }
+  }
+
+  public int size() {
+    return nFrames;
+  }
+
+  /**
+   * @return true if frames are written to a mapped file; addFrame then copies
+   *         xyz, so the caller may reuse it
+   */
+  public boolean isMapped() {
+    return (segments != null);
+  }
+
+  /**
+   * Add a frame. On the heap, xyz itself is kept, so the caller must not
+   * reuse it unless isMapped(). A heap store that grows past a quarter of the
+   * maximum heap is moved to a mapped file; a mapped store that is full maps
+   * another segment, or, if that fails, continues on the heap with copies.
+   *
+   * @param xyz
+   *        x0, y0, z0, x1, y1, z1, ... for n atoms
+   * @return frame index
+   */
+  public int addFrame(float[] xyz) {
+    if (allowMapping && segments == null
+        && 12L * n * (nFrames + 1) > maxHeapBytes && map(nFrames + 1)) {
+      for (int i = 0; i < nFrames; i++)
+        putFrame(i, blocks[i]);
+      blocks = null;
+    }
+    int nMapped = (segments == null ? 0 : segments.length * framesPerSegment);
+    if (nFrames < nMapped || allowMapping && segments != null
+        && map(nFrames + 1)) {
+      putFrame(nFrames, xyz);
+    } else {
+      if (blocks == null)
+        blocks = new float[16][];
+      int i = nFrames - nMapped;
+      if (i == blocks.length) {
+        float[][] b = new float[i * 2][];
+        System.arraycopy(blocks, 0, b, 0, i);
+        blocks = b;
+      }
+      blocks[i] = (segments == null ? xyz : AU.arrayCopyF(xyz, 3 * n));
+    }
+    return nFrames++;
+  }
+
+  private void putFrame(int iFrame, float[] xyz) {
+    FloatBuffer b = segments[iFrame / framesPerSegment];
+    b.position((iFrame % framesPerSegment) * 3 * n);
+    b.put(xyz, 0, 3 * n);
+  }
+
+  /**
+   * Get the coordinates of a frame without allocating. Heap frames are
+   * returned directly; mapped frames are copied into buf.
+   *
+   * @param iFrame
+   * @param buf
+   *        length at least 3 * n; used only for mapped frames
+   * @return x0, y0, z0, x1, ... -- not to be modified
+   */
+  public float[] getFrame(int iFrame, float[] buf) {
+    int nMapped = (segments == null ? 0 : segments.length * framesPerSegment);
+    if (iFrame >= nMapped)
+      return blocks[iFrame - nMapped];
+    FloatBuffer b = segments[iFrame / framesPerSegment];
+    b.position((iFrame % framesPerSegment) * 3 * n);
+    b.get(buf, 0, 3 * n);
+    return buf;
+  }
+
+  public P3 getPoint(int iFrame, int i, P3 p) {
+    int nMapped = (segments == null ? 0 : segments.length * framesPerSegment);
+    if (iFrame >= nMapped) {
+      float[] f = blocks[iFrame - nMapped];
+      i *= 3;
+      p.set(f[i++], f[i++], f[i]);
+    } else {
+      FloatBuffer b = segments[iFrame / framesPerSegment];
+      int pt = (iFrame % framesPerSegment) * 3 * n + i * 3;
+      p.set(b.get(pt), b.get(pt + 1), b.get(pt + 2));
+    }
+    return p;
+  }
+
+  public void setPoint(int iFrame, int i, P3 p) {
+    int nMapped = (segments == null ? 0 : segments.length * framesPerSegment);
+    if (iFrame >= nMapped) {
+      float[] f = blocks[iFrame - nMapped];
+      i *= 3;
+      f[i++] = p.x;
+      f[i++] = p.y;
+      f[i] = p.z;
+    } else {
+      FloatBuffer b = segments[iFrame / framesPerSegment];
+      int pt = (iFrame % framesPerSegment) * 3 * n + i * 3;
+      b.put(pt, p.x);
+      b.put(pt + 1, p.y);
+      b.put(pt + 2, p.z);
+    }
+  }
+
+  /**
+   * Create P3 objects for one frame, for code that needs them.
+   *
+   * @param iFrame
+   * @return new array of n points
+   */
+  public P3[] toP3Array(int iFrame) {
+    P3[] pts = new P3[n];
+    for (int i = 0; i < n; i++)
+      pts[i] = getPoint(iFrame, i, new P3());
+    return pts;
+  }
+
+  /**
+   * Release the mapping, if any. The temporary file is deleted once the
+   * buffers are collected, or on exit.
+   */
+  public void clear() {
+    blocks = null;
+    segments = null;
+    nFrames = 0;
+    if (tempFile != null && tempFile.delete())
+      tempFile = null;
+  }
+
+}
@@ -420,6 +420,8 @@ public class Shader {
   public byte[] sphereShadeIndexes = new byte[256 * 256];
 
   private synchronized void calcSphereShading() {
+    if (fixedNoise)
+      resetSeed(0);
     float xF = -127.5f;
     float r2 = 130 * 130;
     for (int i = 0; i < 256; ++xF, ++i) {
@@ -476,6 +478,23 @@ public class Shader {
     return t >> 23;
   }
 
+  /**
+   * set for parallelImages: line noise depends upon position, and the random
+   * sequence is restarted for each cached shading table
+   */
+  public boolean fixedNoise;
+
+  /**
+   * Restart the random sequence, so that cached shading (sphere shapes) does
+   * not depend upon what was drawn before it was created.
+   * 
+   * @param n
+   *        distinguishes sequences; the seed stays odd
+   */
+  public void resetSeed(int n) {
+    seed = 0x12345679 ^ (n << 8);
+  }
+
   private final static int SLIM = 20;
   private final static int SDIM = SLIM * 2;
   public final static int maxSphereCache = 128;
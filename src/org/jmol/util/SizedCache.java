@@ -0,0 +1,199 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ *  02110-1301, USA.
+ */
+
+package org.jmol.util;
+
+import java.lang.ref.SoftReference;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javajs.J2SIgnoreImport;
+import javajs.util.AU;
+import javajs.util.Lst;
+
+/**
+ * A Hashtable that keeps track of the approximate size of its values and,
+ * when given a byte budget, evicts the least-recently-used entries to stay
+ * within it.
+ *
+ * Sizes are those of byte[], String, int[], and float[] values; other
+ * objects count as 0 bytes. The entry just added is never evicted, even if it
+ * alone is over budget. Finding the oldest entry is a simple scan; there are
+ * rarely more than a few dozen entries.
+ *
+ * Optionally (Java only), evicted values are held by soft reference, so that
+ * they can still be retrieved until the garbage collector needs the space.
+ *
+ */
+@J2SIgnoreImport({ SoftReference.class })
+public class SizedCache extends Hashtable<String, Object> {
+
+  private static final long serialVersionUID = 1L;
+
+  private long maxBytes; // 0 for no limit
+  private boolean useSoft;
+  private long bytes;
+  private int tick;
+
+  /**
+   * key --> {last access tick, size}
+   */
+  private Map<String, long[]> stamps = new Hashtable<String, long[]>();
+  private Map<String, SoftReference<Object>> soft;
+
+  public int hits, misses, softHits, evictions;
+
+  /**
+   * @param maxBytes
+   *        0 for no limit
+   * @param useSoft
+   *        retain evicted entries by soft reference; must be false for
+   *        JavaScript
+   */
+  public synchronized void setLimits(long maxBytes, boolean useSoft) {
+    this.useSoft = useSoft;
+    if (!useSoft)
+      soft = null;
+    if (maxBytes != this.maxBytes) {
+      this.maxBytes = maxBytes;
+      trim(null);
+    }
+  }
+
+  public long getBytes() {
+    return bytes;
+  }
+
+  @Override
+  public synchronized Object put(String key, Object value) {
+    long size = sizeOf(value);
+    Object old = super.put(key, value);
+    long[] s = stamps.get(key);
+    if (s != null)
+      bytes -= s[1];
+    stamps.put(key, new long[] { ++tick, size });
+    bytes += size;
+    if (soft != null)
+      soft.remove(key);
+    trim(key);
+    return old;
+  }
+
+  @Override
+  public synchronized Object get(Object key) {
+    Object data = super.get(key);
+    if (data != null) {
+      hits++;
+      stamps.get(key)[0] = ++tick;
+      return data;
+    }
+    SoftReference<Object> ref = (soft == null ? null : soft.remove(key));
+    if (ref != null && (data = ref.get()) != null) {
+      softHits++;
+      put((String) key, data);
+      return data;
+    }
+    misses++;
+    return null;
+  }
+
+  @Override
+  public synchronized Object remove(Object key) {
+    if (soft != null)
+      soft.remove(key);
+    Object data = super.remove(key);
+    long[] s = stamps.remove(key);
+    if (s != null)
+      bytes -= s[1];
+    return data;
+  }
+
+  @Override
+  public synchronized void clear() {
+    super.clear();
+    stamps.clear();
+    if (soft != null)
+      soft.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Remove all entries, including soft-referenced ones, whose keys start with
+   * the given root.
+   *
+   * @param root
+   * @return number of (strongly held) entries removed
+   */
+  public synchronized int removeKeys(String root) {
+    if (soft != null)
+      AU.removeMapKeys(soft, root);
+    return AU.removeMapKeys(this, root);
+  }
+
+  /**
+   * @return number of soft-referenced values not yet collected
+   */
+  public synchronized int getSoftCount() {
+    if (soft == null)
+      return 0;
+    Lst<String> gone = new Lst<String>();
+    for (Map.Entry<String, SoftReference<Object>> e : soft.entrySet())
+      if (e.getValue().get() == null)
+        gone.addLast(e.getKey());
+    for (int i = gone.size(); --i >= 0;)
+      soft.remove(gone.get(i));
+    return soft.size();
+  }
+
+  private void trim(String keep) {
+    while (maxBytes > 0 && bytes > maxBytes && size() > (keep == null ? 0 : 1)) {
+      String oldest = null;
+      long t = Long.MAX_VALUE;
+      for (Map.Entry<String, long[]> e : stamps.entrySet()) {
+        long[] s = e.getValue();
+        if (s[0] < t && !e.getKey().equals(keep)) {
+          t = s[0];
+          oldest = e.getKey();
+        }
+      }
+      Object data = remove(oldest);
+      evictions++;
+      if (useSoft) {
+        if (soft == null)
+          soft = new Hashtable<String, SoftReference<Object>>();
+        soft.put(oldest, new SoftReference<Object>(data));
+      }
+      Logger.info("cache evicted " + oldest);
+    }
+  }
+
+  public static long sizeOf(Object value) {
+    return (AU.isAB(value) ? ((byte[]) value).length
+        : value instanceof String ? 2L * ((String) value).length()
+        : AU.isAI(value) ? 4L * ((int[]) value).length
+        : AU.isAF(value) ? 4L * ((float[]) value).length : 0);
+  }
+
+}
@@ -40,10 +40,12 @@ import org.jmol.api.Interface;
 import org.jmol.api.JmolFilesReaderInterface;
 import org.jmol.io.FileReader;
 import org.jmol.io.JmolUtil;
+import org.jmol.io.ZipIndex;
 import org.jmol.script.SV;
 import org.jmol.script.T;
 import org.jmol.util.Escape;
 import org.jmol.util.Logger;
+import org.jmol.util.SizedCache;
 import org.jmol.viewer.Viewer.ACCESS;
 
 import javajs.J2SIgnoreImport;
@@ -61,7 +63,7 @@ import javajs.util.Rdr;
 import javajs.util.SB;
 
 
-@J2SIgnoreImport({Rdr.StreamReader.class})
+@J2SIgnoreImport({Rdr.StreamReader.class, ZipIndex.class})
 public class FileManager implements BytePoster {
 
   public static String SIMULATION_PROTOCOL = "http://SIMULATION/";
@@ -647,11 +649,27 @@ public class FileManager implements BytePoster {
         Logger.info("FileManager opening zip " + name);
       name = subFileList[0];
     }
-    Object t = (bytesOrStream == null ? getBufferedInputStreamOrErrorMessageFromName(
+    ZipIndex zi = (bytesOrStream == null && subFileList != null ? getZipIndex(name)
+        : null);
+    Object o = null;
+    if (zi != null) {
+      if (!allowZipStream) {
+        o = zi.getZipFileDirectory(vwr.getJzt(), subFileList, forceInputStream);
+      } else if (!fullName.endsWith(".zip")) {
+        // FileReader will look for just this entry in the stream
+        byte[] entry = zi.getEntryRecord(subFileList[1]);
+        if (entry != null)
+          return vwr.getJzt().newZipInputStream(Rdr.getBIS(entry));
+      }
+    }
+    Object t = (o != null ? null
+        : bytesOrStream == null ? getBufferedInputStreamOrErrorMessageFromName(
         name, fullName, true, false, null, !forceInputStream, true) : AU
         .isAB(bytesOrStream) ? Rdr.getBIS((byte[]) bytesOrStream)
         : (BufferedInputStream) bytesOrStream);
     try {
+      if (o != null)
+        return getZipEntryReaderOrStream(o, null, forceInputStream);
       if (t instanceof String || t instanceof BufferedReader)
         return t;
       BufferedInputStream bis = (BufferedInputStream) t;
@@ -675,7 +693,6 @@ public class FileManager implements BytePoster {
       if (Rdr.isMessagePackS(bis) || Rdr.isPickleS(bis))
         return bis;
       bis = Rdr.getPngZipStream(bis, true);
-      Object o = null;
       if (Rdr.isZipS(bis)) {
         if (allowZipStream)
           return vwr.getJzt().newZipInputStream(bis);
@@ -687,17 +704,36 @@ public class FileManager implements BytePoster {
       } else if (Rdr.isBinary(bis, 32)) {
         return bis;
       }
-      if (o != null) {
-        if (!(o instanceof BufferedInputStream))
-          return (o instanceof String ? Rdr.getBR((String) o) : o);
-        bis = Rdr.getUnzippedInputStream(vwr.getJzt(), (BufferedInputStream) o);
-      }
-      return (forceInputStream ? bis : Rdr.getBufferedReader(bis, null));
+      return getZipEntryReaderOrStream(o, bis, forceInputStream);
     } catch (Exception ioe) {
       return ioe.toString();
     }
   }
 
+  private Object getZipEntryReaderOrStream(Object o, BufferedInputStream bis,
+                                           boolean forceInputStream)
+      throws IOException {
+    if (o != null) {
+      if (!(o instanceof BufferedInputStream))
+        return (o instanceof String ? Rdr.getBR((String) o) : o);
+      bis = Rdr.getUnzippedInputStream(vwr.getJzt(), (BufferedInputStream) o);
+    }
+    return (forceInputStream ? bis : Rdr.getBufferedReader(bis, null));
+  }
+
+  /**
+   * Local zip files are read using their central directory rather than as a
+   * stream (Java only).
+   * 
+   * @param name
+   * @return index, or null if this is not a local zip file
+   */
+  private ZipIndex getZipIndex(String name) {
+    return (Viewer.isJS || appletDocumentBaseURL != null
+        || OC.urlTypeIndex(name) != -1 || getPngjOrDroppedBytes(name, name) != null ? null
+        : ZipIndex.getIndex(name));
+  }
+
 
   /**
    * 
@@ -707,6 +743,10 @@ public class FileManager implements BytePoster {
    * @return [] if not a zip file;
    */
   public String[] getZipDirectory(String fileName, boolean addManifest, boolean allowCached) {
+    ZipIndex zi = getZipIndex(fileName);
+    String[] dir = (zi == null ? null : zi.getDirectory(addManifest ? "JmolManifest" : null));
+    if (dir != null)
+      return dir;
     Object t = getBufferedInputStreamOrErrorMessageFromName(fileName, fileName,
         false, false, null, false, allowCached);
     return vwr.getJzt().getZipDirectoryAndClose((BufferedInputStream) t, addManifest ? "JmolManifest" : null);
@@ -728,6 +768,12 @@ public class FileManager implements BytePoster {
     // fool with a BufferedInputStream, and we certainly do not want to 
     // open it twice in the case of the returned interior file being another PNGJ file
     Object bytes = (subFileList != null ? null : getPngjOrDroppedBytes(fullName, name));
+    if (bytes == null && out == null && subFileList != null
+        && subFileList.length > 1) {
+      ZipIndex zi = getZipIndex(name);
+      if (zi != null)
+        bytes = zi.getZipFileContentsAsBytes(vwr.getJzt(), subFileList);
+    }
     if (bytes == null) {
       Object t = getBufferedInputStreamOrErrorMessageFromName(name, fullName,
           false, false, null, false, true);
@@ -1454,7 +1500,10 @@ public class FileManager implements BytePoster {
 
   //// CACHING ////
   
-  private Map<String, Object> cache = new Hashtable<String, Object>();
+  /**
+   * bounded by set cacheMaxMB; least-recently-used entries evicted first
+   */
+  private SizedCache cache = new SizedCache();
   public Map<String, Object> pngjCache;
   public Map<String, byte[]> spardirCache;
 
@@ -1466,10 +1515,20 @@ public class FileManager implements BytePoster {
       cache.remove(key);
       return;
     }
+    setCacheLimits();
     cache.put(key, data);
     getCachedPngjBytes(key);
   }
   
+  /**
+   * Apply cacheMaxMB and cacheSoftReferences, evicting entries now if the
+   * cache is over a lowered limit.
+   */
+  void setCacheLimits() {
+    cache.setLimits(vwr.g.cacheMaxMB * 1048576L, vwr.g.cacheSoftReferences
+        && !Viewer.isJS);
+  }
+
   public Object cacheGet(String key, boolean bytesOnly) {
     key = fixDOSName(key);
     // in the case of JavaScript local file reader, 
@@ -1520,7 +1579,7 @@ public class FileManager implements BytePoster {
       cachePut(fileName, data);
     } else {
       if (fileName.endsWith("*"))
-        return AU.removeMapKeys(cache, fileName.substring(0, fileName.length() - 1));
+        return cache.removeKeys(fileName.substring(0, fileName.length() - 1));
       data = cache.remove(fixDOSName(fileName));
     }
     return (data == null ? 0 : data instanceof String ? ((String) data).length()
@@ -1536,6 +1595,26 @@ public class FileManager implements BytePoster {
     return map;
   }
 
+  /**
+   * for getProperty("cacheInfo")
+   * 
+   * @return map of cache sizes and counters
+   */
+  public Map<String, Object> getCacheInfo() {
+    Map<String, Object> info = new Hashtable<String, Object>();
+    info.put("maxMB", Integer.valueOf(vwr.g.cacheMaxMB));
+    info.put("bytes", Integer.valueOf((int) Math.min(cache.getBytes(), Integer.MAX_VALUE)));
+    info.put("count", Integer.valueOf(cache.size()));
+    info.put("hits", Integer.valueOf(cache.hits));
+    info.put("misses", Integer.valueOf(cache.misses));
+    info.put("evictions", Integer.valueOf(cache.evictions));
+    info.put("softHits", Integer.valueOf(cache.softHits));
+    info.put("softCount", Integer.valueOf(cache.getSoftCount()));
+    info.put("pngjCount", Integer.valueOf(pngjCache == null ? 0 : pngjCache.size()));
+    info.put("spardirCount", Integer.valueOf(spardirCache == null ? 0 : spardirCache.size()));
+    return info;
+  }
+
   public String getCanonicalName(String pathName) {
     String[] names = getClassifiedName(pathName, true);
     return (names == null ? pathName : names[2]);
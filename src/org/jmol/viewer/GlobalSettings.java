@@ -80,6 +80,8 @@ public class GlobalSettings {
       minimizationReportSteps = g.minimizationReportSteps;
       doublePrecision = g.doublePrecision;
       bondingVersion = g.bondingVersion;
+      cacheMaxMB = g.cacheMaxMB;
+      cacheSoftReferences = g.cacheSoftReferences;
       platformSpeed = g.platformSpeed;
       useScriptQueue = g.useScriptQueue;
       //useArcBall = g.useArcBall;
@@ -221,6 +223,8 @@ public class GlobalSettings {
     setB("bondPicking", bondPicking);
     setI("bondRadiusMilliAngstroms", bondRadiusMilliAngstroms);
     setF("bondTolerance", bondTolerance);
+    setI("cacheMaxMB", cacheMaxMB);
+    setB("cacheSoftReferences", cacheSoftReferences);
     setB("cartoonBaseEdges", cartoonBaseEdges);
     setB("cartoonFancy", cartoonFancy);
     setB("cartoonLadders", cartoonLadders);
@@ -319,9 +323,13 @@ public class GlobalSettings {
     setI("minPixelSelRadius", minPixelSelRadius);
     setI("minimizationReportSteps", minimizationReportSteps);
     setI("minimizationSteps", minimizationSteps);
+    setB("minimizationDeterministic", minimizationDeterministic);
+    setB("minimizationShiftES", minimizationShiftES);
     setB("minimizationRefresh", minimizationRefresh);
     setB("minimizationSilent", minimizationSilent);
     setF("minimizationCriterion", minimizationCriterion);
+    setF("minimizationCutoff", minimizationCutoff);
+    setF("minimizationSkin", minimizationSkin);
     setB("modelKitMode", modelKitMode);
     setF("modulationScale", modulationScale);
     setB("monitorEnergy", monitorEnergy);
@@ -329,6 +337,8 @@ public class GlobalSettings {
     setB("multipleBondBananas", multipleBondBananas);
     setF("multipleBondSpacing", multipleBondSpacing);
     setB("multiProcessor", multiProcessor && (Viewer.nProcessors > 1));
+    setB("parallelImages", parallelImages);
+    setI("parallelThreads", parallelThreads);
     setB("navigationMode", navigationMode);
     //setParamB("navigateSurface", navigateSurface);
     setB("navigationPeriodic", navigationPeriodic);
@@ -519,9 +529,13 @@ public class GlobalSettings {
   // minimization  // 11.5.21 03/2008
 
   int minimizationSteps = 100;
+  boolean minimizationDeterministic = true; // 16.1.49 fixed-size term chunks when parallelThreads > 1
   boolean minimizationRefresh = true;
   boolean minimizationSilent = false;
   float minimizationCriterion = 0.001f;
+  float minimizationCutoff = 0; // 16.1.49 nonbonded cutoff; 0 for all pairs
+  float minimizationSkin = 2;   // 16.1.49 Verlet skin for minimizationCutoff
+  boolean minimizationShiftES = false; // 16.1.49 MMFF electrostatics shifted to zero at minimizationCutoff
   int minimizationMaxAtoms = 200;
   int minimizationReportSteps = 10;
 
@@ -648,6 +662,8 @@ public class GlobalSettings {
   boolean monitorEnergy = false;
   public float modulationScale = 1;
   boolean multiProcessor = true;
+  int parallelThreads = 1; // 16.1.49; 0 for all available processors
+  boolean parallelImages = false; // 16.1.49; write image renders horizontal bands on parallelThreads threads
   float particleRadius = 20;
   int pickingSpinRate = 10;
   String pickLabel = "";
@@ -935,6 +951,8 @@ public class GlobalSettings {
 //  private String[] userDatabases;
 
   public int bondingVersion = Elements.RAD_COV_IONIC_OB1_100_1;
+  int cacheMaxMB = 0; // 16.1.49; 0 for no limit on the file cache
+  boolean cacheSoftReferences = true; // 16.1.49; keep evicted cache entries until memory is needed
 
   public void setStructureList(float[] list, STR type) {
     haveSetStructureList = true;
@@ -965,14 +983,14 @@ public class GlobalSettings {
       + ";antialiasdisplay;antialiasimages;antialiastranslucent;appendnew;axescolor"
       + ";axesposition;axesmolecular;axesorientationrasmol;axesunitcell;axeswindow;axis1color;axis2color"
       + ";axis3color;backgroundcolor;backgroundmodel;bondsymmetryatoms;boundboxcolor;cameradepth"
-      + ";bondingversion;ciprule6full;contextdepthmax;debug;debugscript;defaultlatttice;defaults;defaultdropscript;diffusepercent;"
+      + ";bondingversion;cachemaxmb;cachesoftreferences;ciprule6full;contextdepthmax;debug;debugscript;defaultlatttice;defaults;defaultdropscript;diffusepercent;"
       + ";exportdrivers;exportscale"
       + ";_filecaching;_filecache;fontcaching;fontscaling;forcefield;language"
       + ";hbondsDistanceMaximum;hbondsangleminimum" // added Jmol 14.24.2
       + ";jmolinjspecview;legacyautobonding;legacyhaddition;legacyjavafloat"
       + ";loglevel;logfile;loggestures;logcommands;measurestylechime"
       + ";loadformat;loadligandformat;macrodirectory;mkaddhydrogens"
-      + ";minimizationmaxatoms;smilesurlformat;pubchemformat;nihresolverformat;edsurlformat;edsurlcutoff;multiprocessor;navigationmode;"
+      + ";minimizationmaxatoms;smilesurlformat;pubchemformat;nihresolverformat;edsurlformat;edsurlcutoff;multiprocessor;parallelthreads;navigationmode;"
       + ";nodelay;pathforallfiles;perspectivedepth;phongexponent;perspectivemodel;platformspeed"
       + ";preservestate;refreshing;repaintwaitms;rotationradius;selectallmodels"
       + ";showaxes;showaxis1;showaxis2;showaxis3;showboundbox;showfrank;showtiming;showunitcell"
@@ -528,6 +528,12 @@ public final class JC {
   public final static String REPAINT_IGNORE = SCRIPT_EXT + " REPAINT_IGNORE ##";
   public final static String SCRIPT_GUI = "; ## GUI ##";
 
+  /**
+   * WRITE formats that PropertyManager can write to a file in pieces rather
+   * than creating the whole file as one string first; PDB and PQR always are
+   */
+  public final static String STREAMED_MODEL_TYPES = ";CIF;CIFP1;SDF;V3000;XYZ;XYZRN;XYZVIB;";
+
   public final static String LOAD_ATOM_DATA_TYPES = ";xyz;vxyz;vibration;temperature;occupancy;partialcharge;";
 
   public final static double radiansPerDegree = Math.PI / 180;
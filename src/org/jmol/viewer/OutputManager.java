@@ -35,6 +35,43 @@ abstract class OutputManager {
                                 boolean asWriter, boolean asAppend)
       throws IOException;
 
+  /**
+   * Open a channel for writeFileData, which appends many short pieces of text;
+   * the Java version buffers a temporary file and, for text, compresses it if
+   * the file name ends with .gz.
+   * 
+   * @param privateKey
+   * @param fileName
+   * @param asGzip
+   *        true for text that may be compressed
+   * @return OC or null
+   * @throws IOException
+   */
+  OC openStreamingOutputChannel(double privateKey, String fileName,
+                                boolean asGzip)
+      throws IOException {
+    return openOutputChannel(privateKey, fileName, false, false);
+  }
+
+  /**
+   * Close a channel from openStreamingOutputChannel. The Java version moves
+   * its temporary file into place only if the data are complete, so that a
+   * failed WRITE leaves any existing file alone.
+   * 
+   * @param out
+   * @param fileName
+   * @param isOK
+   * @return length of the file written, -1 if not known, or -2 if the file
+   *         could not be put in place
+   */
+  long closeStreamingOutputChannel(OC out, String fileName, boolean isOK) {
+    if (isOK)
+      out.closeChannel();
+    else
+      out.cancel();
+    return -1;
+  }
+
   abstract protected String createSceneSet(String sceneFile, String type,
                                            int width, int height);
 
@@ -115,7 +152,8 @@ abstract class OutputManager {
    *        include fileName, type, text, bytes, image, scripts, appendix,
    *        quality, outputStream, and type-specific parameters. If
    *        params.outputChannel != null, then we are passing back the data, and
-   *        the channel will not be closed.
+   *        the channel will not be closed. On return, byteCount and
+   *        renderTime (ms) are added.
    * 
    * @return bytes[] if params.fileName==null and params.outputChannel==null
    *         otherwise, return a message string or null
@@ -135,9 +173,11 @@ abstract class OutputManager {
     boolean asBytes = (out == null && fileName == null);
     boolean closeChannel = (out == null && fileName != null);
     boolean releaseImage = (objImage == null);
+    long t0 = System.currentTimeMillis();
     Object image = (type.equals("BINARY") || type.equals("ZIPDATA") ? ""
         : rgbbuf != null ? rgbbuf
             : objImage != null ? objImage : vwr.getScreenImage());
+    params.put("renderTime", Long.valueOf(System.currentTimeMillis() - t0));
     boolean isOK = false;
     try {
       if (image == null)
@@ -389,6 +429,18 @@ abstract class OutputManager {
   }
 
   OC getOutputChannel(String fileName, String[] fullPath) {
+    return getOutputChannel(fileName, fullPath, null);
+  }
+
+  /**
+   * @param fileName
+   * @param fullPath
+   * @param streamType
+   *        writeFileData type, or null for an ordinary channel
+   * @return OC or null
+   */
+  private OC getOutputChannel(String fileName, String[] fullPath,
+                              String streamType) {
     if (!vwr.haveAccess(ACCESS.ALL))
       return null;
     boolean isRemote = OC.isRemote(fileName);
@@ -400,7 +452,10 @@ abstract class OutputManager {
     if (fullPath != null)
       fullPath[0] = fileName;
     try {
-      return openOutputChannel(privateKey, fileName, false, false);
+      return (streamType == null
+          ? openOutputChannel(privateKey, fileName, false, false)
+          : openStreamingOutputChannel(privateKey, fileName,
+              !streamType.equals("FILE")));
     } catch (IOException e) {
       Logger.info(e.toString());
       return null;
@@ -580,9 +635,11 @@ abstract class OutputManager {
   String writeFileData(String fileName, String type, int modelIndex,
                        Object[] plotParameters) {
     String[] fullPath = new String[1];
-    OC out = getOutputChannel(fileName, fullPath);
+    // FILE is a copy of the loaded file's bytes, which may already be compressed
+    OC out = getOutputChannel(fileName, fullPath, type);
     if (out == null)
       return "";
+    long t = System.currentTimeMillis();
     fileName = fullPath[0];
     String pathName = (type.equals("FILE") ? (String) vwr.getParameter("_modelFile")
         : null);
@@ -590,28 +647,60 @@ abstract class OutputManager {
         || pathName.equals("String[]") || pathName.equals("JSNode")));
     boolean asBytes = (pathName != null && !getStringData);
     if (asBytes) {
-      if (vwr.getModelSetPathName() == null)
+      if (vwr.getModelSetPathName() == null) {
+        closeStreamingOutputChannel(out, fileName, false);
         return null; // zapped
+      }
     }
     // The OutputStringBuilder allows us to create strings or byte arrays
     // of a given type, passing just one parameter and maintaining an 
     // output stream all along. For JavaScript, this will be a ByteArrayOutputStream
     // which will then be posted to a server for a return that allows saving.
     out.setType(type);
-    String msg = (type.startsWith("PDB")
-        ? vwr.getPdbAtomData(null, out, false, false)
-        : type.startsWith("PLOT")
-            ? vwr.getPdbData(modelIndex, type.substring(5), null,
-                plotParameters, out, true)
-            : getStringData
-                ? out.append(vwr.getCurrentFileAsString("write")).toString()
-                : (String) vwr.fm.getFileAsBytes(pathName, out));
-    out.closeChannel();
+    String msg = null;
+    boolean isOK = false;
+    long nBytes;
+    try {
+      msg = (type.startsWith("PDB")
+          ? vwr.getPdbAtomData(null, out, false, false)
+          : type.startsWith("MODEL_")
+              ? vwr.writeModelExtract(type.substring(6, type.indexOf("-coord")),
+                  type.endsWith("-coord true"), out)
+          : type.startsWith("PLOT")
+              ? vwr.getPdbData(modelIndex, type.substring(5), null,
+                  plotParameters, out, true)
+              : getStringData
+                  ? out.append(vwr.getCurrentFileAsString("write")).toString()
+                  : (String) vwr.fm.getFileAsBytes(pathName, out));
+      isOK = (msg == null || !msg.startsWith("ERROR"));
+    } finally {
+      nBytes = closeStreamingOutputChannel(out, fileName, isOK);
+    }
+    if (!isOK)
+      return msg;
+    if (nBytes == -2)
+      return "ERROR: could not write " + fileName;
     if (msg != null)
-      msg = "OK " + msg + " " + fileName;
+      msg = "OK " + msg + getRate(out.getByteCount(), t)
+          + (nBytes >= 0 && nBytes != out.getByteCount() ? ", compressed to "
+              + nBytes + " bytes," : "")
+          + " " + fileName;
     return msg;
   }
 
+  /**
+   * @param nBytes
+   *        bytes written to the channel, before any compression
+   * @param t
+   *        start time
+   * @return " in n ms (x MB/s)"
+   */
+  private static String getRate(int nBytes, long t) {
+    t = System.currentTimeMillis() - t;
+    return (nBytes <= 0 ? "" : " in " + t + " ms"
+        + (t == 0 ? "" : " (" + Math.round(nBytes / 100f / t) / 10f + " MB/s)"));
+  }
+
   private boolean writeFrame(int n, String[] rootExt,
                              Map<String, Object> params, SB sb) {
     String fileName = (String) getRootExt(null, rootExt, n);
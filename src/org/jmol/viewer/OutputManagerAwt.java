@@ -26,11 +26,17 @@
 package org.jmol.viewer;
 
 import java.awt.Image;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import org.jmol.awt.AwtClipboard;
 
@@ -44,6 +50,10 @@ import org.jmol.viewer.Viewer.ACCESS;
 
 final public class OutputManagerAwt extends OutputManager {
 
+  private final static int STREAM_BUFFER_SIZE = 1 << 16;
+  private final static String STREAM_TEMP_PREFIX = "jmolwrite_";
+  private final static String STREAM_TEMP_EXT = ".tmp";
+
   public OutputManagerAwt() {
     // by reflection only
   }
@@ -95,6 +105,60 @@ final public class OutputManagerAwt extends OutputManager {
             (isLocal ? new FileOutputStream(fileName, asAppend) : null)));
   }
 
+  @SuppressWarnings("resource")
+  @Override
+  OC openStreamingOutputChannel(double privateKey, String fileName,
+                                boolean asGzip)
+      throws IOException {
+    if (!OC.isLocal(fileName))
+      return openOutputChannel(privateKey, fileName, false, false);
+    if (!vwr.haveAccess(ACCESS.ALL) || !vwr.checkPrivateKey(privateKey))
+      return null;
+    // a unique temporary file in the target directory, so that it can be
+    // renamed over the target and concurrent WRITEs do not collide
+    File dir = new File(fileName).getAbsoluteFile().getParentFile();
+    String tempName = File.createTempFile(STREAM_TEMP_PREFIX, STREAM_TEMP_EXT,
+        dir).getPath();
+    OutputStream os = new BufferedOutputStream(
+        new FileOutputStream(tempName), STREAM_BUFFER_SIZE);
+    if (asGzip && fileName.toLowerCase().endsWith(".gz"))
+      os = new GZIPOutputStream(os, STREAM_BUFFER_SIZE);
+    return (new OC()).setParams(vwr.fm, tempName, false, os);
+  }
+
+  @Override
+  long closeStreamingOutputChannel(OC out, String fileName, boolean isOK) {
+    String tempName = out.getFileName();
+    File temp = (tempName == null ? null : new File(tempName));
+    if (temp == null || tempName.equals(fileName)
+        || !temp.getName().startsWith(STREAM_TEMP_PREFIX)
+        || !tempName.endsWith(STREAM_TEMP_EXT))
+      return super.closeStreamingOutputChannel(out, fileName, isOK);
+    out.closeChannel();
+    if (!isOK) {
+      temp.delete();
+      return -1;
+    }
+    // replace the target in one step; on failure it is left as it was
+    File f = new File(fileName);
+    try {
+      try {
+        Files.move(temp.toPath(), f.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp.toPath(), f.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      Logger.error("could not rename " + tempName + " to " + fileName + ": "
+          + e);
+      temp.delete();
+      return -2;
+    }
+    return f.length();
+  }
+
   @Override
   protected String createSceneSet(String sceneFile, String type, int width,
                                 int height) {
@@ -173,6 +173,7 @@ public class PropertyManager implements JmolPropertyManager {
     "CIFInfo"        , "<filename>", "",
     "modelkitInfo", "<key>","data",
     "unitcellInfo"   , "", "",
+    "cacheInfo"      , "", "",
   };
 
   private final static int PROP_APPLET_INFO = 0;
@@ -229,7 +230,8 @@ public class PropertyManager implements JmolPropertyManager {
   private final static int PROP_CIF_INFO = 45;
   private final static int PROP_MODELKIT_INFO = 46;
   private final static int PROP_UNITCELL_INFO = 47;
-  private final static int PROP_COUNT = 48;
+  private final static int PROP_CACHE_INFO = 48;
+  private final static int PROP_COUNT = 49;
 
   //// static methods used by Eval and Viewer ////
 
@@ -239,6 +241,11 @@ public class PropertyManager implements JmolPropertyManager {
     if (propertyTypes.length != PROP_COUNT * 3)
       Logger.warn("propertyTypes is not the right length: "
           + propertyTypes.length + " != " + PROP_COUNT * 3);
+    if ("JSON".equalsIgnoreCase(returnType) && isStreamedJSON(infoType)) {
+      OC out = new OC();
+      getPropertyJSON(infoType, paramInfo, out);
+      return out.toString();
+    }
     Object info;
     if (infoType.indexOf(".") >= 0 || infoType.indexOf("[") >= 0) {
       SV[] args = getArguments(infoType);
@@ -261,6 +268,59 @@ public class PropertyManager implements JmolPropertyManager {
     return info;
   }
 
+  /**
+   * Write a property as JSON, exactly as getProperty("JSON", infoType,
+   * paramInfo) would return it. atomInfo, bondInfo, chainInfo, and modelInfo
+   * are written one atom, bond, residue, or model at a time, so that their
+   * full Map/Lst form is never created; all other properties are created and
+   * then written.
+   * 
+   * @param infoType
+   * @param paramInfo
+   * @param out
+   *        string-based or to an OutputStream
+   */
+  @Override
+  public void getPropertyJSON(String infoType, Object paramInfo, OC out) {
+    if (!isStreamedJSON(infoType)) {
+      out.append(getProperty("JSON", infoType, paramInfo).toString());
+      return;
+    }
+    int id = getPropertyNumber(infoType);
+    Object myParam = (paramInfo != null && paramInfo != "" ? paramInfo
+        : getDefaultPropertyParam(id));
+    out.append("{").append(PT.packageJSON(infoType, ""));
+    switch (id) {
+    case PROP_ATOM_INFO:
+      getAtomInfo(vwr.getAtomBitSet(myParam), out);
+      break;
+    case PROP_BOND_INFO:
+      getBondInfo(myParam, out);
+      break;
+    case PROP_CHAIN_INFO:
+      writeChainInfo(vwr.getAtomBitSet(myParam), out);
+      break;
+    case PROP_MODEL_INFO:
+      getModelInfoOrJSON(vwr.getAtomBitSet(myParam), out);
+      break;
+    }
+    out.append("}");
+  }
+
+  private boolean isStreamedJSON(String infoType) {
+    if (infoType.indexOf(".") >= 0 || infoType.indexOf("[") >= 0
+        || infoType.indexOf("#") >= 0)
+      return false;
+    switch (getPropertyNumber(infoType)) {
+    case PROP_ATOM_INFO:
+    case PROP_BOND_INFO:
+    case PROP_CHAIN_INFO:
+    case PROP_MODEL_INFO:
+      return true;
+    }
+    return false;
+  }
+
   private SV[] getArguments(String propertyName) {
     String lc = propertyName.toLowerCase();
     int pt = -1;
@@ -834,6 +894,8 @@ public class PropertyManager implements JmolPropertyManager {
     switch (id) {
     case PROP_UNITCELL_INFO :
       return getUnitCellInfo();
+    case PROP_CACHE_INFO:
+      return vwr.fm.getCacheInfo();
     case PROP_MODELKIT_INFO:
       return vwr.getModelkitPropertySafely(myParam.toString());
     case PROP_APPLET_INFO:
@@ -1067,6 +1129,17 @@ public class PropertyManager implements JmolPropertyManager {
 
   @Override
   public Map<String, Object> getModelInfo(Object atomExpression) {
+    return getModelInfoOrJSON(atomExpression, null);
+  }
+
+  /**
+   * @param atomExpression
+   * @param out
+   *        null to return the map; otherwise it is written here as JSON
+   * @return model information or null if out is not null
+   */
+  private Map<String, Object> getModelInfoOrJSON(Object atomExpression,
+                                                 OC out) {
 
     BS bsModels = vwr.ms.getModelBS(vwr
         .getAtomBitSet(atomExpression), false);
@@ -1085,47 +1158,77 @@ public class PropertyManager implements JmolPropertyManager {
     }
     info.put("modelCountSelected", Integer.valueOf(bsModels.cardinality()));
     info.put("modelsSelected", bsModels);
-    Lst<Map<String, Object>> vModels = new  Lst<Map<String, Object>>();
     m.getMolecules();
-
-    for (int i = bsModels.nextSetBit(0); i >= 0; i = bsModels.nextSetBit(i + 1)) {
-      Map<String, Object> model = new Hashtable<String, Object>();
-      model.put("_ipt", Integer.valueOf(i));
-      model.put("num", Integer.valueOf(m.getModelNumber(i)));
-      model.put("file_model", m.getModelNumberDotted(i));
-      model.put("name", m.getModelName(i));
-      String s = m.getModelTitle(i);
-      if (s != null)
-        model.put("title", s);
-      s = m.getModelFileName(i);
-      if (s != null)
-        model.put("file", s);
-      s = (String) m.getInfo(i, "modelID");
-      if (s != null)
-        model.put("id", s);
-      model.put("vibrationVectors", Boolean.valueOf(vwr.modelHasVibrationVectors(i)));
-      Model mi = m.am[i];
-      model.put("atomCount", Integer.valueOf(mi.act));
-      model.put("bondCount", Integer.valueOf(mi.getBondCount()));
-      model.put("groupCount", Integer.valueOf(mi.getGroupCount()));
-      model.put("moleculeCount", Integer.valueOf(mi.moleculeCount));
-      if (mi.isBioModel)
-        model.put("polymerCount", Integer.valueOf(((BioModel) mi).getBioPolymerCount()));
-      model.put("chainCount", Integer.valueOf(m.getChainCountInModelWater(i, true)));
-      if (mi.properties != null) {
-        model.put("modelProperties", mi.properties);
-      }
-      Float energy = (Float) m.getInfo(i, "Energy");
-      if (energy != null) {
-        model.put("energy", energy);
+    if (out != null) {
+      // same key order as PT.toJSON
+      info.put("models", "");
+      String[] keys = info.keySet().toArray(new String[info.size()]);
+      Arrays.sort(keys);
+      out.append("{ ");
+      for (int k = 0; k < keys.length; k++) {
+        if (k > 0)
+          out.append(",");
+        if (!keys[k].equals("models")) {
+          out.append(PT.packageJSON(keys[k], PT.toJSON(null, info.get(keys[k]))));
+          continue;
+        }
+        out.append(PT.packageJSON("models", "[ "));
+        String sep = "";
+        for (int i = bsModels.nextSetBit(0); i >= 0; i = bsModels
+            .nextSetBit(i + 1)) {
+          out.append(sep).append(PT.toJSON(null, getOneModelInfo(i)));
+          sep = ",";
+          if (out.getError() != null)
+            return null;
+        }
+        out.append(" ]");
       }
-      model.put("atomCount", Integer.valueOf(mi.act));
-      vModels.addLast(model);
+      out.append(" }");
+      return null;
     }
+    Lst<Map<String, Object>> vModels = new  Lst<Map<String, Object>>();
+    for (int i = bsModels.nextSetBit(0); i >= 0; i = bsModels.nextSetBit(i + 1))
+      vModels.addLast(getOneModelInfo(i));
     info.put("models", vModels);
     return info;
   }
 
+  private Map<String, Object> getOneModelInfo(int i) {
+    ModelSet m = vwr.ms;
+    Map<String, Object> model = new Hashtable<String, Object>();
+    model.put("_ipt", Integer.valueOf(i));
+    model.put("num", Integer.valueOf(m.getModelNumber(i)));
+    model.put("file_model", m.getModelNumberDotted(i));
+    model.put("name", m.getModelName(i));
+    String s = m.getModelTitle(i);
+    if (s != null)
+      model.put("title", s);
+    s = m.getModelFileName(i);
+    if (s != null)
+      model.put("file", s);
+    s = (String) m.getInfo(i, "modelID");
+    if (s != null)
+      model.put("id", s);
+    model.put("vibrationVectors", Boolean.valueOf(vwr.modelHasVibrationVectors(i)));
+    Model mi = m.am[i];
+    model.put("atomCount", Integer.valueOf(mi.act));
+    model.put("bondCount", Integer.valueOf(mi.getBondCount()));
+    model.put("groupCount", Integer.valueOf(mi.getGroupCount()));
+    model.put("moleculeCount", Integer.valueOf(mi.moleculeCount));
+    if (mi.isBioModel)
+      model.put("polymerCount", Integer.valueOf(((BioModel) mi).getBioPolymerCount()));
+    model.put("chainCount", Integer.valueOf(m.getChainCountInModelWater(i, true)));
+    if (mi.properties != null) {
+      model.put("modelProperties", mi.properties);
+    }
+    Float energy = (Float) m.getInfo(i, "Energy");
+    if (energy != null) {
+      model.put("energy", energy);
+    }
+    model.put("atomCount", Integer.valueOf(mi.act));
+    return model;
+  }
+
   @Override
   public Map<String, Object> getLigandInfo(Object atomExpression) {
     BS bsAtoms = vwr.getAtomBitSet(atomExpression);
@@ -1243,19 +1346,56 @@ public class PropertyManager implements JmolPropertyManager {
   @Override
   public String getModelExtract(BS bs, boolean doTransform, boolean isModelKit,
                                 String type, boolean allTrajectories) {
+    return getModelExtractOrWrite(bs, doTransform, isModelKit, type,
+        allTrajectories, null);
+  }
+
+  /**
+   * Write one of the JC.STREAMED_MODEL_TYPES formats to out as it is created,
+   * one model (SDF) or a block of lines (XYZ, CIF) at a time.
+   * 
+   * @return "n bytes" or an error message starting with "ERROR"
+   */
+  @Override
+  public String writeModelExtract(BS bs, boolean doTransform, String type,
+                                  OC out) {
+    String s = getModelExtractOrWrite(bs, doTransform, false, type, false, out);
+    return (s.startsWith("ERROR") ? s : out.toString());
+  }
+
+  /**
+   * flush SB to out once it is this long
+   */
+  private final static int OUTPUT_CHUNK_SIZE = 1 << 16;
+
+  private final static String ERROR_V2000 = "ERROR: Too many atoms or bonds -- use V3000 format.";
+
+  /**
+   * @param bs
+   * @param doTransform
+   * @param isModelKit
+   * @param type
+   * @param allTrajectories
+   * @param out
+   *        null to return a string
+   * @return data or, if out is not null, "" or an error message
+   */
+  private String getModelExtractOrWrite(BS bs, boolean doTransform,
+                                        boolean isModelKit, String type,
+                                        boolean allTrajectories, OC out) {
     if (bs.nextSetBit(0) < 0)
       return "";
     String uc = type.toUpperCase();
     if (PT.isOneOf(uc, ";CIF;QCJSON;XSF;PWMAT;"))
-      return getModel(uc, bs, null, null);
+      return getModel(uc, bs, null, out);
     if (uc.equals("PWSLAB"))
       return getModel("PWMAT", bs, new Object[] { "slab"}, null);
     if (uc.equals("CIFP1"))
-      return getModel("CIF", bs, new Object[] { "P1"}, null);
+      return getModel("CIF", bs, new Object[] { "P1"}, out);
     if (uc.equals("CML"))
       return getModelCml(bs, Integer.MAX_VALUE, true, doTransform, allTrajectories);
     if (uc.equals("PDB") || uc.equals("PQR"))
-      return getPdbAtomData(bs, null, uc.equals("PQR"), doTransform, allTrajectories);
+      return getPdbAtomData(bs, out, uc.equals("PQR"), doTransform, allTrajectories);
     boolean asV3000 = uc.equals("V3000");
     boolean asSDF = uc.equals("SDF");
     boolean noAromatic = uc.equals("MOL");
@@ -1281,13 +1421,24 @@ public class PropertyManager implements JmolPropertyManager {
       ms.trajectory.selectDisplayed(bsModels);
     Quat q = (doTransform ? vwr.tm.getRotationQ() : null);
     if (isXYZ) {
-      writeXYZ(mol, bsAtoms, bsModels, q, asXYZVIB, asXYZRN);
+      writeXYZ(mol, bsAtoms, bsModels, q, asXYZVIB, asXYZRN, out);
     } else {
       String title = vwr.ms.getFrameTitle(bsModels.nextSetBit(0));      
       title = (title != null ? title.replace('\n',' ') : isModelKit ? "Jmol Model Kit" : FileManager.fixDOSName(vwr.fm.getFullPathName(false)));
       MOLWriter mw = ((MOLWriter) Interface.getInterface("org.jmol.adapter.writers.MOLWriter", vwr, "write")).setViewer(vwr);
       if (asSDF) {
         mol = new SB();
+        if (out != null) {
+          // check V2000 limits first, so that nothing is written if one fails
+          for (int i = bsModels.nextSetBit(0); i >= 0; i = bsModels
+              .nextSetBit(i + 1)) {
+            BS bsTemp = BSUtil.copy(bsAtoms);
+            bsTemp.and(ms.getModelAtomBitSetIncludingDeleted(i, false));
+            if (bsTemp.cardinality() > 999 || getCovalentBondsForAtoms(ms.bo,
+                ms.bondCount, bsTemp).cardinality() > 999)
+              return ERROR_V2000;
+          }
+        }
         for (int i = bsModels.nextSetBit(0); i >= 0; i = bsModels
             .nextSetBit(i + 1)) {
           BS bsTemp = BSUtil.copy(bsAtoms);
@@ -1295,17 +1446,37 @@ public class PropertyManager implements JmolPropertyManager {
           bsBonds = getCovalentBondsForAtoms(ms.bo, ms.bondCount, bsTemp);
           if (!(isOK = mw.addMolFile(title, i, mol, bsTemp, bsBonds, false, false, noAromatic, q, is2D)))
             break;
+          if (out != null)
+            flushOutput(mol, out, 0);
         }
       } else {
         isOK = mw.addMolFile(title, -1, mol, bsAtoms, bsBonds, asV3000, asJSON, noAromatic, q, is2D);
       }
     } 
-    return (isOK ? mol.toString()
-        : "ERROR: Too many atoms or bonds -- use V3000 format.");
+    if (!isOK)
+      return ERROR_V2000;
+    if (out == null)
+      return mol.toString();
+    flushOutput(mol, out, 0);
+    return "";
+  }
+
+  /**
+   * Move the contents of sb to out if it has more than minLength characters.
+   * 
+   * @param sb
+   * @param out
+   * @param minLength
+   */
+  private static void flushOutput(SB sb, OC out, int minLength) {
+    if (sb.length() > minLength) {
+      out.append(sb.toString());
+      sb.setLength(0);
+    }
   }
 
   private void writeXYZ(SB mol, BS bsAtoms, BS bsModels, Quat q,
-                        boolean asXYZVIB, boolean asXYZRN) {
+                        boolean asXYZVIB, boolean asXYZRN, OC out) {
     ModelSet ms = vwr.ms;
     Atom[] atoms = ms.at;
     LabelToken[] tokensXYZ = LabelToken.compile(vwr,
@@ -1353,6 +1524,8 @@ public class PropertyManager implements JmolPropertyManager {
         ms.getPointTransf(i, atoms[j], q, ptTemp);
         s = PT.rep(s, "_XYZ_", PT.sprintf("%12.5p %12.5p %12.5p", "p", o));
         mol.append(s);
+        if (out != null)
+          flushOutput(mol, out, OUTPUT_CHUNK_SIZE);
       }
     }
   }
@@ -1504,7 +1677,21 @@ public class PropertyManager implements JmolPropertyManager {
   }
 
   public Lst<Map<String, Object>> getAllAtomInfo(BS bs) {
-    Lst<Map<String, Object>> V = new  Lst<Map<String, Object>>();
+    return getAtomInfo(bs, null);
+  }
+
+  /**
+   * @param bs
+   * @param out
+   *        null to return the list; otherwise each atom's map is written here
+   *        as JSON as soon as it is created
+   * @return list of atom maps or null if out is not null
+   */
+  private Lst<Map<String, Object>> getAtomInfo(BS bs, OC out) {
+    Lst<Map<String, Object>> V = (out == null ? new Lst<Map<String, Object>>() : null);
+    if (out != null)
+      out.append("[ ");
+    String sep = "";
     P3 ptTemp = new P3();
     int imodel = -1;
     SymmetryInterface ucell = null;
@@ -1514,8 +1701,18 @@ public class PropertyManager implements JmolPropertyManager {
         ucell = vwr.ms.getUnitCell(mi);
         imodel = mi;
       }
-      V.addLast(getAtomInfoLong(i, ptTemp, ucell));
+      Map<String, Object> info = getAtomInfoLong(i, ptTemp, ucell);
+      if (out == null) {
+        V.addLast(info);
+      } else {
+        out.append(sep).append(PT.toJSON(null, info));
+        sep = ",";
+        if (out.getError() != null)
+          return null;
+      }
     }
+    if (out != null)
+      out.append(" ]");
     return V;
   }
 
@@ -1587,7 +1784,19 @@ public class PropertyManager implements JmolPropertyManager {
   }
 
   public Lst<Map<String, Object>> getAllBondInfo(Object bsOrArray) {
-    Lst<Map<String, Object>> v = new Lst<Map<String, Object>>();
+    return getBondInfo(bsOrArray, null);
+  }
+
+  /**
+   * @param bsOrArray
+   * @param out
+   *        null to return the list; otherwise each bond's map is written here
+   *        as JSON as soon as it is created
+   * @return list of bond maps or null if out is not null
+   */
+  private Lst<Map<String, Object>> getBondInfo(Object bsOrArray, OC out) {
+    Lst<Map<String, Object>> v = (out == null ? new Lst<Map<String, Object>>() : null);
+    BS bsBonds = new BS();
     ModelSet ms = vwr.ms;
     int bondCount = ms.bondCount;
     Bond[] bonds = ms.bo;
@@ -1603,22 +1812,38 @@ public class PropertyManager implements JmolPropertyManager {
         int ia = bonds[i].atom1.i;
         int ib = bonds[i].atom2.i;
         if (bs1.get(ia) && bs2.get(ib) || bs2.get(ia) && bs1.get(ib))
-          v.addLast(getBondInfo(i, ptTemp));
+          bsBonds.set(i);
       }
     } else if (bsOrArray instanceof BondSet) {
       bs1 = (BS) bsOrArray;
       for (int i = bs1.nextSetBit(0); i >= 0 && i < bondCount; i = bs1
           .nextSetBit(i + 1))
-        v.addLast(getBondInfo(i, ptTemp));
+        bsBonds.set(i);
     } else if (bsOrArray instanceof BS) {
       bs1 = (BS) bsOrArray;
       int thisAtom = (bs1.cardinality() == 1 ? bs1.nextSetBit(0) : -1);
       for (int i = 0; i < bondCount; i++) {
         if (thisAtom >= 0 ? (bonds[i].atom1.i == thisAtom || bonds[i].atom2.i == thisAtom)
             : bs1.get(bonds[i].atom1.i) && bs1.get(bonds[i].atom2.i))
-          v.addLast(getBondInfo(i, ptTemp));
+          bsBonds.set(i);
       }
     }
+    if (out != null)
+      out.append("[ ");
+    String sep = "";
+    for (int i = bsBonds.nextSetBit(0); i >= 0; i = bsBonds.nextSetBit(i + 1)) {
+      Map<String, Object> info = getBondInfo(i, ptTemp);
+      if (out == null) {
+        v.addLast(info);
+      } else {
+        out.append(sep).append(PT.toJSON(null, info));
+        sep = ",";
+        if (out.getError() != null)
+          return null;
+      }
+    }
+    if (out != null)
+      out.append(" ]");
     return v;
   }
 
@@ -1668,6 +1893,52 @@ public class PropertyManager implements JmolPropertyManager {
     return finalInfo;
   }
 
+  /**
+   * Write getAllChainInfo(bs) as JSON, one residue at a time.
+   * 
+   * @param bs
+   * @param out
+   */
+  private void writeChainInfo(BS bs, OC out) {
+    P3 ptTemp = new P3();
+    out.append("{ ").append(PT.packageJSON("models", "[ "));
+    String sepModel = "";
+    for (int i = 0, modelCount = vwr.ms.mc; i < modelCount; ++i) {
+      Model model = vwr.ms.am[i];
+      String sepChain = null;
+      for (int ic = 0, nChains = model.getChainCount(true); ic < nChains; ic++) {
+        Chain chain = model.getChainAt(ic);
+        String sep = null;
+        for (int igroup = 0, nGroups = chain.groupCount; igroup < nGroups; igroup++) {
+          Group group = chain.groups[igroup];
+          if (!bs.get(group.firstAtomIndex))
+            continue;
+          if (sep == null) {
+            // first residue in this chain
+            if (sepChain == null) {
+              // first chain in this model
+              out.append(sepModel).append("{ ").append(PT.packageJSON("chains", "[ "));
+              sepModel = sepChain = ",";
+            } else {
+              out.append(sepChain);
+            }
+            out.append("{ ").append(PT.packageJSON("residues", "[ "));
+            sep = "";
+          }
+          out.append(sep).append(PT.toJSON(null, group.getGroupInfo(igroup, ptTemp)));
+          sep = ",";
+          if (out.getError() != null)
+            return;
+        }
+        if (sep != null)
+          out.append(" ] }");
+      }
+      if (sepChain != null)
+        out.append(" ],").append(PT.packageJSON("modelIndex", "" + i)).append(" }");
+    }
+    out.append(" ] }");
+  }
+
   private Lst<Map<String, Lst<Map<String, Object>>>> getChainInfo(
                                                                     int modelIndex,
                                                                     BS bs) {
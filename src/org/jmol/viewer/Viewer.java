@@ -24,8 +24,10 @@
 package org.jmol.viewer;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.net.URL;
 import java.util.Arrays;
@@ -175,7 +177,7 @@ import javajs.util.V3;
  * ****************************************************************
  */
 
-@J2SIgnoreImport({ Runtime.class })
+@J2SIgnoreImport({ Runtime.class, BufferedOutputStream.class })
 public class Viewer extends JmolViewer
     implements AtomDataServer, PlatformViewer {
 
@@ -407,7 +409,7 @@ public class Viewer extends JmolViewer
   public boolean hasStructure(String pattern, String smiles, boolean isSmarts) {
     try {
       int[] ret = getSmilesMatcher().hasStructure(pattern,  new String[] { smiles }, 
-          (isSmarts ? JC.SMILES_TYPE_SMARTS : JC.SMILES_TYPE_SMILES) | JC.SMILES_FIRST_MATCH_ONLY);
+          (isSmarts ? JC.SMILES_TYPE_SMARTS : JC.SMILES_TYPE_SMILES) | JC.SMILES_FIRST_MATCH_ONLY, 1);
       return ret[0] == 1;
     } catch (Exception e) {
       return false;
@@ -1487,6 +1489,30 @@ public class Viewer extends JmolViewer
       updateJSView(ms.at[atomIndex].mi, atomIndex);
   }
 
+  /**
+   * Write getProperty("JSON", infoType, paramInfo) to an output stream. For
+   * atomInfo, bondInfo, chainInfo, and modelInfo, the JSON is written as each
+   * atom, bond, residue, or model is processed, so even very large models can
+   * be exported. Output is buffered and flushed at the end; the stream is not
+   * closed. The export stops at the first failed write.
+   * 
+   * @param infoType
+   * @param paramInfo
+   * @param os
+   * @throws IOException
+   *         from writing to os
+   */
+  public void writePropertyJSON(String infoType, Object paramInfo,
+                                OutputStream os) throws IOException {
+    OutputStream bos = (isJS ? os : new BufferedOutputStream(os, 1 << 16));
+    OC out = new OC();
+    out.setParams(null, null, false, bos);
+    getPropertyManager().getPropertyJSON(infoType, paramInfo, out);
+    if (out.getError() != null)
+      throw out.getError();
+    bos.flush();
+  }
+
   @Override
   public Object getProperty(String returnType, String infoType,
                             Object paramInfo) {
@@ -3611,6 +3637,7 @@ public class Viewer extends JmolViewer
       chainMap.clear();
       chainList.clear();
       chainCaseSpecified = false;
+      compileStamp++;
       //cm.clear();
       definedAtomSets.clear();
       lastData = null;
@@ -5778,6 +5805,10 @@ public class Viewer extends JmolViewer
       return g.scriptDelay;
     case T.minimizationmaxatoms:
       return g.minimizationMaxAtoms;
+    case T.parallelthreads:
+      return g.parallelThreads;
+    case T.cachemaxmb:
+      return g.cacheMaxMB;
     case T.smallmoleculemaxatoms:
       return g.smallMoleculeMaxAtoms;
     case T.strutspacing:
@@ -5811,6 +5842,14 @@ public class Viewer extends JmolViewer
     switch (tok) {
     case T.useminimizationthread:
       return g.useMinimizationThread;
+    case T.minimizationdeterministic:
+      return g.minimizationDeterministic;
+    case T.minimizationshiftes:
+      return g.minimizationShiftES;
+    case T.cachesoftreferences:
+      return g.cacheSoftReferences;
+    case T.parallelimages:
+      return g.parallelImages;
     case T.nbocharges:
       return g.nboCharges;
     case T.hiddenlinesdashed:
@@ -6426,6 +6465,14 @@ public class Viewer extends JmolViewer
     case T.minimizationcriterion:
       g.minimizationCriterion = value;
       break;
+    case T.minimizationcutoff:
+      // 16.1.49
+      g.minimizationCutoff = value = Math.max(value, 0);
+      break;
+    case T.minimizationskin:
+      // 16.1.49
+      g.minimizationSkin = value = Math.max(value, 0);
+      break;
     case T.gestureswipefactor:
       if (haveDisplay)
         acm.setGestureSwipeFactor(value);
@@ -6626,6 +6673,15 @@ public class Viewer extends JmolViewer
       // 14.30.0
       g.minimizationMaxAtoms = value;
       break;
+    case T.parallelthreads:
+      // 16.1.49
+      g.parallelThreads = Math.max(value, 0);
+      break;
+    case T.cachemaxmb:
+      // 16.1.49
+      g.cacheMaxMB = Math.max(value, 0);
+      fm.setCacheLimits();
+      break;
     case T.infofontsize:
       g.infoFontSize = Math.max(0, value);
       break;
@@ -7008,6 +7064,23 @@ public class Viewer extends JmolViewer
       // 12.0.RC3
       g.hbondsRasmol = value;
       break;
+    case T.minimizationdeterministic:
+      // 16.1.49
+      g.minimizationDeterministic = value;
+      break;
+    case T.minimizationshiftes:
+      // 16.1.49
+      g.minimizationShiftES = value;
+      break;
+    case T.cachesoftreferences:
+      // 16.1.49
+      g.cacheSoftReferences = value;
+      fm.setCacheLimits();
+      break;
+    case T.parallelimages:
+      // 16.1.49
+      g.parallelImages = value;
+      break;
     case T.minimizationrefresh:
       g.minimizationRefresh = value;
       break;
@@ -8104,6 +8177,20 @@ public class Viewer extends JmolViewer
         doTransform, isModelKit, type, false);
   }
 
+  /**
+   * Write the selected atoms to an output channel in a format that
+   * PropertyManager can stream: one of JC.STREAMED_MODEL_TYPES.
+   * 
+   * @param type
+   * @param doTransform
+   * @param out
+   * @return "n bytes" or an error message starting with ERROR
+   */
+  public String writeModelExtract(String type, boolean doTransform, OC out) {
+    return getPropertyManager().writeModelExtract(bsA(), doTransform, type,
+        out);
+  }
+
   @Override
   public String getData(String atomExpression, String type) {
     // from GaussianDialog
@@ -9126,6 +9213,7 @@ public class Viewer extends JmolViewer
       return;
     staticFunctions.remove(name);
     localFunctions.remove(name);
+    compileStamp++;
   }
 
   public JmolScriptFunction getFunction(String name) {
@@ -9148,12 +9236,14 @@ public class Viewer extends JmolViewer
   public void clearFunctions() {
     staticFunctions.clear();
     localFunctions.clear();
+    compileStamp++;
   }
 
   public void addFunction(JmolScriptFunction function) {
     String name = function.getName();
     (isStaticFunction(name) ? staticFunctions : localFunctions).put(name,
         function);
+    compileStamp++;
   }
 
   public String getFunctionCalls(String selectedFunction) {
@@ -9589,6 +9679,21 @@ public class Viewer extends JmolViewer
     return g.multiProcessor && isParallel;
   }
 
+  /**
+   * The number of worker threads to be used by calculations that can be split
+   * into independent pieces (MO grids, for example). Returns 1 in JavaScript
+   * or unless multiProcessor is set and parallelThreads is not 1;
+   * parallelThreads 0 means "one thread per available processor", and larger
+   * values are capped at that.
+   * 
+   * @return number of threads, at least 1
+   */
+  public int getParallelThreads() {
+    int n = g.parallelThreads;
+    return (isJS || !g.multiProcessor || n == 1 ? 1
+        : n == 0 || n > nProcessors ? nProcessors : n);
+  }
+
   /**
    * 
    * @param action
@@ -10163,6 +10268,12 @@ public class Viewer extends JmolViewer
 
   private boolean chainCaseSpecified;
 
+  /**
+   * changed whenever user functions, chain IDs, or chainCaseSpecified change,
+   * since these affect script compilation; see ScriptCache
+   */
+  public int compileStamp;
+
   /**
    * Create a unique integer for any chain string. Note that if there are any
    * chains that are more than a single character, chainCaseSensitive is
@@ -10198,7 +10309,10 @@ public class Viewer extends JmolViewer
       if (iboxed != null)
         return iboxed.intValue();
       //this will force chainCaseSensitive when it is necessary
-      chainCaseSpecified |= isAssign;
+      if (isAssign && !chainCaseSpecified) {
+        chainCaseSpecified = true;
+        compileStamp++;
+      }
       chainList.addLast(id);
     }
     // if select :a and there is NO chain "a" in the structure,
@@ -75,6 +75,9 @@ public class JmolApp implements JmolAppAPI {
   public Point jmolPosition;
   public float autoAnimationDelay = 0.2f; // sec
 
+  public String batchQueue;
+  public int batchViewers;
+
   private String modelFilename;
   private String scriptFilename;
   private String script1 = "";
@@ -154,6 +157,9 @@ public class JmolApp implements JmolAppAPI {
     options.addOption("A", "scriptarguments", true, GT.$(
         "script arguments, separated by commas; placed in _ARGUMENTS variable"));
 
+    options.addOption("B", "batch", true, GT.$(
+        "JmolData only: image batch service reading jobs from a directory of .job files or '-' for System.in"));
+
     options.addOption("b", "backgroundtransparent", false,
         GT.$("transparent background"));
 
@@ -228,6 +234,9 @@ public class JmolApp implements JmolAppAPI {
     options.addOption("G", "Plugin", false,
         GT.$("jmol is a plugin to some other app"));
 
+    options.addOption("V", "viewers", true,
+        GT.$("number of viewers for -B (default number of processors)"));
+
     options.addOption("w", "write", true, GT.o(GT.$("{0} or {1}:filename"),
         new Object[] { "CLIP", "GIF|JPG|JPG64|PNG|PPM" }));
 
@@ -373,6 +382,12 @@ public class JmolApp implements JmolAppAPI {
     if (line.hasOption("C"))
       info.put("checkLoad", Boolean.TRUE);
 
+    // batch image service (JmolData only)
+    if (line.hasOption("B"))
+      batchQueue = line.getOptionValue("B");
+    if (line.hasOption("V"))
+      batchViewers = PT.parseInt(line.getOptionValue("V"));
+
     // menu file
     if (line.hasOption("m"))
       menuFile = line.getOptionValue("m");
@@ -0,0 +1,393 @@
+/* $RCSfile$
+ * $Author$
+ * $Date$
+ * $Revision$
+ *
+ * Copyright (C) 2023  The Jmol Development Team
+ *
+ * Contact: jmol-developers@lists.sf.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public
+ *  License along with this library; if not, write to the Free Software
+ *  Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package org.openscience.jmol.app;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javajs.util.PT;
+
+import org.jmol.util.Logger;
+import org.jmol.viewer.Viewer;
+
+/**
+ * A long-lived image service for JmolData (-B option), so that JVM and Viewer
+ * startup are paid once rather than once per structure.
+ *
+ * Jobs are lines of the form
+ *
+ * file [tab] script [tab] output
+ *
+ * read from System.in (-B -), ending with "!quit" or end of input, or from
+ * files xxx.job appearing in a directory (-B dir), which are renamed
+ * xxx.job.queued when read and xxx.job.done or xxx.job.failed when all of
+ * their jobs have been reported; a file named "quit" in the directory ends the
+ * service. Blank lines and lines starting with # are ignored. The script may
+ * be empty. The image type is from the output file extension (PNG, JPG, GIF,
+ * or PPM; default PNG), and its size is from -g (default 500x500).
+ *
+ * A pool of -V viewers (default: the number of processors) runs the jobs
+ * concurrently. Each job starts from an initialized viewer and must finish
+ * within -T seconds (default 60), or its script is halted and it fails. A
+ * viewer that reports an error, throws, or times out is disposed and
+ * replaced, so one bad job cannot affect the next.
+ *
+ * One line is reported on System.out for each job:
+ *
+ * OK [tab] output [tab] load ms [tab] script ms [tab] render ms [tab] encode
+ * ms [tab] bytes
+ *
+ * or
+ *
+ * FAILED [tab] output [tab] message
+ *
+ */
+public class JmolBatch {
+
+  private final static Job END = new Job(null, null, null, null);
+  private final static long POLL_MS = 500;
+  private final static long HALT_WAIT_MS = 2000;
+
+  private final JmolApp jmolApp;
+  private final int nViewers;
+  private final long timeoutMs;
+  private final BlockingQueue<Job> queue = new LinkedBlockingQueue<Job>();
+  private int nOK, nFailed;
+
+  JmolBatch(JmolApp jmolApp) {
+    this.jmolApp = jmolApp;
+    nViewers = (jmolApp.batchViewers > 0 ? jmolApp.batchViewers
+        : Runtime.getRuntime().availableProcessors());
+    // -T, as for headless scripts
+    Integer max = (Integer) jmolApp.info.get("headlistMaxTimeMs");
+    timeoutMs = (max == null ? 60000 : max.intValue());
+  }
+
+  /**
+   * One line of input.
+   */
+  private static class Job {
+    final String fileName, script, output;
+    final JobFile source;
+
+    Job(String fileName, String script, String output, JobFile source) {
+      this.fileName = fileName;
+      this.script = script;
+      this.output = output;
+      this.source = source;
+    }
+  }
+
+  /**
+   * A claimed xxx.job.queued file, renamed xxx.job.done or xxx.job.failed
+   * once its last job has been reported.
+   */
+  private static class JobFile {
+    final File queued;
+    final String name;
+    int nPending = 1; // held until all lines are read
+    boolean failed;
+
+    JobFile(File queued, String name) {
+      this.queued = queued;
+      this.name = name;
+    }
+  }
+
+  /**
+   * Start the viewers, read jobs until the queue ends, and wait for the
+   * viewers to finish.
+   */
+  void run() {
+    long t0 = System.currentTimeMillis();
+    Worker[] workers = new Worker[nViewers];
+    for (int i = 0; i < nViewers; i++)
+      (workers[i] = new Worker(i + 1)).start();
+    try {
+      if (jmolApp.batchQueue.equals("-"))
+        readJobs(new BufferedReader(new InputStreamReader(System.in)), null);
+      else
+        pollDirectory(new File(jmolApp.batchQueue));
+    } catch (Exception e) {
+      Logger.error("JmolBatch: " + e);
+    }
+    for (int i = 0; i < nViewers; i++)
+      queue.add(END);
+    for (int i = 0; i < nViewers; i++)
+      try {
+        workers[i].join();
+      } catch (InterruptedException e) {
+        // ignore
+      }
+    report("DONE\t" + nOK + " OK\t" + nFailed + " failed\t"
+        + (System.currentTimeMillis() - t0) + " ms");
+  }
+
+  private void pollDirectory(File dir) throws Exception {
+    if (!dir.isDirectory())
+      throw new Exception(dir + " is not a directory");
+    File quit = new File(dir, "quit");
+    while (!quit.exists()) {
+      String[] names = dir.list();
+      Arrays.sort(names);
+      boolean found = false;
+      for (int i = 0; i < names.length; i++) {
+        if (!names[i].endsWith(".job"))
+          continue;
+        File f = new File(dir, names[i]);
+        File queued = new File(dir, names[i] + ".queued");
+        if (!f.renameTo(queued))
+          continue; // still being written, or claimed by another service
+        found = true;
+        JobFile jf = new JobFile(queued, f.getPath());
+        BufferedReader br = new BufferedReader(
+            new InputStreamReader(new FileInputStream(queued), "UTF-8"));
+        try {
+          readJobs(br, jf);
+        } catch (Exception e) {
+          jf.failed = true;
+          throw e;
+        } finally {
+          br.close();
+          finished(jf, true);
+        }
+      }
+      if (!found)
+        Thread.sleep(POLL_MS);
+    }
+  }
+
+  /**
+   * @param br
+   * @param jf
+   *        the job file, or null for System.in
+   * @throws Exception
+   */
+  private void readJobs(BufferedReader br, JobFile jf)
+      throws Exception {
+    String line;
+    while ((line = br.readLine()) != null) {
+      if (jf == null && line.equals("!quit"))
+        return;
+      if (line.trim().length() == 0 || line.startsWith("#"))
+        continue;
+      String[] job = PT.split(line, "\t");
+      if (job.length != 3) {
+        count(false);
+        report("FAILED\t" + line + "\texpected file<tab>script<tab>output");
+        if (jf != null)
+          jf.failed = true;
+        continue;
+      }
+      if (jf != null)
+        synchronized (this) {
+          jf.nPending++;
+        }
+      queue.add(new Job(job[0].trim(), job[1], job[2].trim(), jf));
+    }
+  }
+
+  synchronized void report(String msg) {
+    System.out.println(msg);
+    System.out.flush();
+  }
+
+  /**
+   * One job of a file has been reported, or the file has been read. After the
+   * last, the file is renamed xxx.job.done, or xxx.job.failed if anything
+   * failed, so that it is neither left as .queued nor read again.
+   * 
+   * @param jf
+   * @param isOK
+   */
+  synchronized void finished(JobFile jf, boolean isOK) {
+    if (jf == null)
+      return;
+    if (!isOK)
+      jf.failed = true;
+    if (--jf.nPending > 0)
+      return;
+    File f = new File(jf.name + (jf.failed ? ".failed" : ".done"));
+    f.delete(); // from an earlier run
+    if (!jf.queued.renameTo(f))
+      Logger.error("JmolBatch: could not rename " + jf.queued + " to " + f);
+  }
+
+  synchronized void count(boolean isOK) {
+    if (isOK)
+      nOK++;
+    else
+      nFailed++;
+  }
+
+  /**
+   * One thread and its viewer.
+   */
+  private class Worker extends Thread {
+
+    private final int id;
+    private Viewer vwr;
+
+    Worker(int id) {
+      this.id = id;
+      setName("JmolBatch" + id);
+    }
+
+    @Override
+    public void run() {
+      try {
+        Job job;
+        while ((job = queue.take()) != END) {
+          String msg;
+          try {
+            if (vwr == null)
+              vwr = newViewer();
+            msg = runJob(job);
+          } catch (Throwable e) {
+            msg = "FAILED\t" + job.output + "\t" + e;
+          }
+          boolean isOK = msg.startsWith("OK");
+          if (!isOK && vwr != null) {
+            Logger.info("JmolBatch: replacing viewer " + id);
+            vwr.dispose();
+            vwr = null;
+          }
+          count(isOK);
+          report(PT.rep(msg.trim(), "\n", " ") + "\tviewer " + id);
+          finished(job.source, isOK);
+        }
+      } catch (InterruptedException e) {
+        // done
+      }
+      if (vwr != null)
+        vwr.dispose();
+    }
+
+    /**
+     * Run doJob on its own thread under the -T deadline. On expiry, the
+     * script is halted and the job fails; the viewer, possibly still busy, is
+     * then disposed by run().
+     * 
+     * @param job
+     * @return OK or FAILED message
+     * @throws InterruptedException
+     */
+    private String runJob(final Job job) throws InterruptedException {
+      final String[] ret = new String[1];
+      final Viewer v = vwr;
+      Thread t = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          String msg;
+          try {
+            msg = doJob(v, job.fileName, job.script, job.output);
+          } catch (Throwable e) {
+            msg = "FAILED\t" + job.output + "\t" + e;
+          }
+          synchronized (ret) {
+            ret[0] = msg;
+          }
+        }
+      }, getName() + "job");
+      t.setDaemon(true);
+      t.start();
+      t.join(timeoutMs);
+      if (t.isAlive()) {
+        v.haltScriptExecution();
+        t.join(HALT_WAIT_MS);
+        return "FAILED\t" + job.output + "\ttimed out after " + timeoutMs
+            + " ms";
+      }
+      synchronized (ret) {
+        return ret[0];
+      }
+    }
+
+    private Viewer newViewer() {
+      Map<String, Object> info = new Hashtable<String, Object>();
+      info.putAll(jmolApp.info);
+      info.remove("exit");
+      info.remove("headlessImage");
+      Viewer v = new Viewer(info);
+      v.setScreenDimension(jmolApp.startupWidth, jmolApp.startupHeight);
+      v.setWidthHeightVar();
+      // fonts and the image writer are loaded with the first image
+      v.getImageAsBytes("PNG", 8, 8, -1, new String[1]);
+      return v;
+    }
+
+    private String doJob(Viewer vwr, String fileName, String script,
+                         String output) {
+      if (fileName.indexOf("://") < 0 && !fileName.startsWith("=")
+          && !fileName.startsWith("$") && !fileName.startsWith(":"))
+        fileName = new File(fileName).getAbsolutePath();
+      String outName = new File(output).getAbsolutePath();
+      vwr.initialize(true, false);
+      long t0 = System.currentTimeMillis();
+      String err = vwr.openFile(fileName);
+      if (err != null)
+        return "FAILED\t" + output + "\tload: " + err;
+      long t1 = System.currentTimeMillis();
+      if (script.trim().length() > 0) {
+        vwr.setErrorMessage(null, null);
+        vwr.scriptWait(script);
+        if ((err = vwr.getErrorMessageUn()) != null)
+          return "FAILED\t" + output + "\tscript: " + err;
+      }
+      long t2 = System.currentTimeMillis();
+      Map<String, Object> params = new Hashtable<String, Object>();
+      params.put("fileName", outName);
+      params.put("type", getImageType(output));
+      params.put("width", Integer.valueOf(jmolApp.startupWidth));
+      params.put("height", Integer.valueOf(jmolApp.startupHeight));
+      params.put("quality", Integer.valueOf(-1));
+      String ret = vwr.outputToFile(params);
+      long t3 = System.currentTimeMillis();
+      if (ret == null || !ret.startsWith("OK"))
+        return "FAILED\t" + output + "\timage: " + ret;
+      Long render = (Long) params.get("renderTime");
+      long tRender = (render == null ? 0 : render.longValue());
+      return "OK\t" + output + "\tload " + (t1 - t0) + " ms\tscript "
+          + (t2 - t1) + " ms\trender " + tRender + " ms\tencode "
+          + (t3 - t2 - tRender) + " ms\t" + params.get("byteCount")
+          + " bytes";
+    }
+
+    private String getImageType(String output) {
+      String ext = output.substring(output.lastIndexOf('.') + 1)
+          .toUpperCase();
+      return (ext.equals("JPEG") ? "JPG"
+          : ext.equals("JPG") || ext.equals("GIF") || ext.equals("PPM") ? ext
+              : "PNG");
+    }
+  }
+
+}
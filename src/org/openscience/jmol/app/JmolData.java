@@ -74,6 +74,10 @@ public class JmolData {
       //      else
       //        System.out.println("Add -n (no GRAPHICS) for faster performance if you are not creating images.");
     }
+    if (jmolApp.batchQueue != null) {
+      new JmolBatch(jmolApp).run();
+      System.exit(0);
+    }
     new JmolData(jmolApp);
   }
 
@@ -122,6 +122,7 @@ public class TestSmarterJmolAdapter extends TestSuite {
     result.addDirectory("xyz", "xyz", "Xyz");
     result.addDirectory("zmatrix", "txt;zmat", "Input");
     result.addDirectory("zmatrix", "inp", "=Input"); // force InputReader and no other
+    result.addTest(new TestBinaryCifImpl("ala3"));
     return result;
   }
 
@@ -296,3 +297,89 @@ class TestSmarterJmolAdapterImpl extends TestCase {
     mustForce = false;
   }
 }
+
+/**
+ * BinaryCIF: xxx.bcif (in this package) must give the same atoms as the
+ * equivalent mmCIF file xxx.cif.
+ */
+class TestBinaryCifImpl extends TestCase {
+
+  private String root;
+
+  public TestBinaryCifImpl(String root) {
+    super("testBinaryCif");
+    this.root = root;
+  }
+
+  @Override
+  public void runTest() throws Throwable {
+    testBinaryCif();
+  }
+
+  public void testBinaryCif() throws IOException {
+    AtomSetCollection cif = read(root + ".cif", "MMCif");
+    AtomSetCollection bcif = read(root + ".bcif", "BCif");
+    assertTrue("No atoms loaded for " + root + ".cif", cif.ac > 0);
+    assertEquals("atom count", cif.ac, bcif.ac);
+    assertEquals("model count", cif.atomSetCount, bcif.atomSetCount);
+    for (int i = 0; i < cif.ac; i++) {
+      Atom a = cif.atoms[i];
+      Atom b = bcif.atoms[i];
+      String s = root + " atom " + (i + 1) + " ";
+      assertEquals(s + "serial", a.atomSerial, b.atomSerial);
+      assertEquals(s + "element", a.elementSymbol, b.elementSymbol);
+      assertEquals(s + "name", a.atomName, b.atomName);
+      assertEquals(s + "group", a.group3, b.group3);
+      assertEquals(s + "chain", a.chainID, b.chainID);
+      assertEquals(s + "resno", a.sequenceNumber, b.sequenceNumber);
+      assertEquals(s + "insertion code", a.insertionCode, b.insertionCode);
+      assertEquals(s + "altloc", a.altLoc, b.altLoc);
+      assertEquals(s + "hetero", a.isHetero, b.isHetero);
+      assertEquals(s + "charge", a.formalCharge, b.formalCharge);
+      assertEquals(s + "occupancy", a.foccupancy, b.foccupancy, 1e-4f);
+      assertEquals(s + "B", a.bfactor, b.bfactor, 1e-4f);
+      assertEquals(s + "x", a.x, b.x, 1e-4f);
+      assertEquals(s + "y", a.y, b.y, 1e-4f);
+      assertEquals(s + "z", a.z, b.z, 1e-4f);
+    }
+  }
+
+  private AtomSetCollection read(String name, String type) throws IOException {
+    InputStream is = TestSmarterJmolAdapter.class.getResourceAsStream(name);
+    assertNotNull("Missing test file " + name, is);
+    BufferedInputStream bis = new BufferedInputStream(is);
+    SmarterJmolAdapter adapter = new SmarterJmolAdapter();
+    String fileType = Resolver.getBinaryType(bis);
+    Object reader;
+    if (fileType == null) {
+      reader = Rdr.getBufferedReader(bis, null);
+      fileType = adapter.getFileTypeName(reader);
+    } else {
+      reader = new BinaryDocument().setStream(bis, true);
+    }
+    assertEquals("Wrong type for " + name, type, fileType);
+    Object result = adapter.getAtomSetCollectionFromReaderType(name, null,
+        reader, new Hashtable<String, Object>());
+    assertTrue("Error returned for " + name + ": " + result,
+        result instanceof AtomSetCollection);
+    return (AtomSetCollection) result;
+  }
+
+  @Override
+  public String getName() {
+    return super.getName() + " [" + root + "]";
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    JUnitLogger.activateLogger();
+    JUnitLogger.setInformation(null);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    super.tearDown();
+    JUnitLogger.setInformation(null);
+  }
+}
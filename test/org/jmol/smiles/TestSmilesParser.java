@@ -5,6 +5,7 @@
 package org.jmol.smiles;
 
 import org.jmol.util.Edge;
+import org.jmol.viewer.JC;
 
 import junit.framework.TestCase;
 
@@ -1277,6 +1278,58 @@ public class TestSmilesParser extends TestCase {
     addHydrogen(molecule, atomS);
     checkMolecule("O#C[Co@](F)(Cl)(Br)(I)S", molecule);
   }
+
+  /*
+   * Test SmilesMatcher.hasStructure, as used by array.find("SMARTS", pattern):
+   * the parallel search must give the results of the serial one, and of
+   * one-target calls, including for a target that cannot be parsed.
+   */
+  public void testHasStructure() throws Exception {
+    String[] targets = new String[] { "CCO", "c1ccccc1O", "F/C=C\\F",
+        "OC(=O)C(N)Cc1ccccc1", "ClCCl", "[Na+].[O-]c1ccccc1", "CC(C)C=O",
+        "N#CC", "O=C=O", "C1CCCCC1", "C[C@H](N)C(=O)O", "BrC(Cl)F" };
+    String[] patterns = new String[] { "[OH]", "c1ccccc1", "C=O", "F/C=C\\F",
+        "[$(C=O)]O", "Cl", "[#7]", "C*C", "[!#6;!#1]" };
+    int[] flags = new int[] { JC.SMILES_TYPE_SMARTS, JC.SMILES_TYPE_SMILES };
+    for (int f = 0; f < flags.length; f++)
+      for (int p = 0; p < patterns.length; p++) {
+        String pattern = patterns[p];
+        int[] serial = new SmilesMatcher().hasStructure(pattern, targets,
+            flags[f], 1);
+        int[] parallel = new SmilesMatcher().hasStructure(pattern, targets,
+            flags[f], 4);
+        for (int i = 0; i < targets.length; i++) {
+          int single = new SmilesMatcher().hasStructure(pattern,
+              new String[] { targets[i] }, flags[f], 1)[0];
+          String s = pattern + " in " + targets[i] + " flags " + flags[f];
+          assertEquals(s, single, serial[i]);
+          assertEquals(s, single, parallel[i]);
+        }
+      }
+
+    // the cached index must not be reused after the caller's array changes
+    SmilesMatcher sm = new SmilesMatcher();
+    String[] set = new String[] { "CCO", "CCN" };
+    assertEquals(1, sm.hasStructure("[#8]", set, JC.SMILES_TYPE_SMARTS, 2)[0]);
+    set[0] = "CCC";
+    assertEquals(0, sm.hasStructure("[#8]", set, JC.SMILES_TYPE_SMARTS, 2)[0]);
+
+    // an unparseable target fails the whole search, serial or parallel
+    String[] bad = new String[] { "CCO", "C1CC", "CCN", "CCC" };
+    String error1 = null, error4 = null;
+    try {
+      new SmilesMatcher().hasStructure("[#8]", bad, JC.SMILES_TYPE_SMARTS, 1);
+    } catch (InvalidSmilesException e) {
+      error1 = e.getMessage();
+    }
+    try {
+      new SmilesMatcher().hasStructure("[#8]", bad, JC.SMILES_TYPE_SMARTS, 4);
+    } catch (InvalidSmilesException e) {
+      error4 = e.getMessage();
+    }
+    assertNotNull("no error for " + bad[1], error1);
+    assertEquals(error1, error4);
+  }
   
   private SmilesSearch newSmilesSearch() {
     SmilesSearch s = new SmilesSearch();